@@ -26,10 +26,11 @@ import java.util.ResourceBundle;
  *
  * @author Owen Tasker
  *
- * @version 1.1
+ * @version 1.2
  *
  * 1.0 - First working version
  * 1.1 - Small refactor to compare times in LocalDateTime rather than System.getCurrentTimeMillis
+ * 1.2 - The token lifetime is now shared with the expired token sweep.
  */
 public class EmailValidationController implements Initializable{
     @FXML public Label header;
@@ -93,7 +94,7 @@ public class EmailValidationController implements Initializable{
             dh.deleteToken(initialToken);
             resendVerification();
         }
-        else if (LocalDateTime.now().isAfter(sentTime.plusMinutes(30))) {
+        else if (LocalDateTime.now().isAfter(sentTime.plusMinutes(DatabaseHandler.REG_TOKEN_MINUTES))) {
             codeStatus.setText("Code Expired, we have sent another to the specified address");
             dh.deleteToken(initialToken);
             resendVerification();
@@ -22,7 +22,7 @@ import javafx.fxml.FXML;
  *
  * @author Samuel Scarfe
  *
- * @version 1.5
+ * @version 1.7
  *
  * 1.0 - First working version. Functionality for adding goals implemented with simple error checking.
  * 1.1 - Implemented functionality for checking current and past goals.
@@ -30,6 +30,10 @@ import javafx.fxml.FXML;
  * 1.3 - Added goal management. Updated styling. Removed now superfluous inner class GoalItem.
  * 1.4 - Added functionality for group goals tab.
  * 1.5 - Removed GroupGoals tab.
+ * 1.6 - Quitting a goal now writes to the database off the JavaFX Application Thread through the
+ *       AsyncDatabaseHandler.
+ * 1.7 - Only the database write of quitting a goal now runs off the JavaFX Application Thread. The goal is quit in
+ *       memory and the goals reloaded back on the JavaFX Application Thread, whether or not the write succeeded.
  */
 
 public class GoalController implements Initializable {
@@ -401,8 +405,15 @@ public class GoalController implements Initializable {
 
                 //Set button action
                 button.setOnAction(e -> {
-                    user.quitGoal(goal);
-                    loadCurrentGoals(); //Reload goals
+                    button.setDisable(true);
+                    AsyncDatabaseHandler async = AsyncDatabaseHandler.getInstance();
+                    async.whenComplete(async.run(handler -> handler.quitGoalInDatabase(user.getUsername(), goal)),
+                            failure -> {
+                                if (failure == null) { //Only quit the goal in memory once it is quit in the database
+                                    user.markGoalQuit(goal);
+                                }
+                                loadCurrentGoals(); //Reload goals, which also re-enables the button on failure
+                            });
                 });
 
                 //Add button and labels to an HBox with content centered, CSS styled, and margins set
@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -31,7 +32,7 @@ import java.util.ResourceBundle;
  * @author Charlie Jones
  * @author Samuel Scarfe
  *
- * @version 1.4
+ * @version 1.6
  *
  * 1.0 - Initial commit, dummy file.
  * 1.1 - Added initialise function, and populate groups section with all groups the user has joined. It also displays
@@ -39,6 +40,8 @@ import java.util.ResourceBundle;
  * 1.2 - Adding group goal viewing, joining, and setting.
  * 1.3 - Refactored into private methods to improve readability.
  * 1.4 - Added create group.
+ * 1.5 - Groups are now loaded off the JavaFX Application Thread through the AsyncDatabaseHandler.
+ * 1.6 - Groups are now rendered from GroupSummaries, loaded for all of the user's groups in one statement.
  */
 public class GroupController implements Initializable {
 
@@ -62,6 +65,7 @@ public class GroupController implements Initializable {
     @FXML private Button createGroupButton;
 
     private DatabaseHandler dh;
+    private AsyncDatabaseHandler async;
     private User user;
     private HashMap<String, Goal.Unit> nutrientsMap;
 
@@ -75,6 +79,7 @@ public class GroupController implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
         dh = DatabaseHandler.getInstance();
+        async = AsyncDatabaseHandler.getInstance();
     }
 
     /**
@@ -206,8 +211,21 @@ public class GroupController implements Initializable {
      */
     public void initViewGroups() {
 
+        String username = user.getUsername();
+
+        //Load a summary of every group, with the user's role in each, off the JavaFX Application Thread
+        async.load(handler -> handler.getUserGroupSummaries(username), this::showViewGroups);
+    }
+
+    /**
+     * Private helper method to show each of a User's Group Memberships as a box in a scroll pane.
+     *
+     * @param groups a summary of each of the user's groups.
+     */
+    private void showViewGroups(ArrayList<GroupSummary> groups) {
+
         groupsContainer.getChildren().clear();
-        for(Group group : dh.getUserGroups(user.getUsername())) {
+        for(GroupSummary group : groups) {
 
             VBox groupNode = null;
             try {
@@ -239,7 +257,7 @@ public class GroupController implements Initializable {
                 setMembers(group, userList);
 
                 //Get the role of the user
-                String userRole = DatabaseHandler.getInstance().getGroupRoleFromUsername(groupNameLabel.getText(), user.getUsername());
+                String userRole = group.getRole();
 
                 //Set permissions based on role
                 setPermissions(userRole, children);
@@ -262,21 +280,23 @@ public class GroupController implements Initializable {
      * @param group the group whose members are to be shown.
      * @param userList a VBox wherein the members will be displayed.
      */
-    private void setMembers(Group group, VBox userList) {
+    private void setMembers(GroupSummary group, VBox userList) {
         //Display owner
-        Label ownerLabel = new Label("Owner: " + group.getOwner().getUser().getUsername());
-        ownerLabel.setUnderline(true);
-        userList.getChildren().add(ownerLabel);
+        for(GroupSummary.Member owner : group.getMembers("Owner")) {
+            Label ownerLabel = new Label("Owner: " + owner.getUsername());
+            ownerLabel.setUnderline(true);
+            userList.getChildren().add(ownerLabel);
+        }
 
         //Display admins
-        for(GroupAdmin groupAdmin : group.getAdmins())
-            userList.getChildren().add(new Label("Admin: " + groupAdmin.getUser().getUsername()));
+        for(GroupSummary.Member admin : group.getMembers("Admin"))
+            userList.getChildren().add(new Label("Admin: " + admin.getUsername()));
 
         userList.getChildren().add(new Label(""));
 
         //Display members
-        for(GroupMember groupMember : group.getMembers())
-            userList.getChildren().add(new Label(groupMember.getUser().getUsername()));
+        for(GroupSummary.Member member : group.getMembers("Member"))
+            userList.getChildren().add(new Label(member.getUsername()));
     }
 
     /**
@@ -353,7 +373,7 @@ public class GroupController implements Initializable {
      * @param group the group whose goals are to be shown.
      * @param goalScroller a scrollable window in which to show the goals.
      */
-    private void showGroupGoals(Group group, VBox goalScroller) {
+    private void showGroupGoals(GroupSummary group, VBox goalScroller) {
 
         //Alternating styles sheets with index to change with every added goal.
         int stylesIndex = 0;
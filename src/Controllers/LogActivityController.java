@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -31,7 +33,7 @@ import java.util.ResourceBundle;
  * @author Owen Tasker
  * @author Charlie Jones
  *
- * @version 1.10
+ * @version 1.15
  *
  * 1.0  - Initial commit, dummy file.
  * 1.1  - Implemented simple exercise logging to database.
@@ -46,6 +48,13 @@ import java.util.ResourceBundle;
  * 1.8  - Corrected int casts to float casts, in line with the database.
  * 1.9  - Updated goal updating for wider range of nutritional goals. Encapsulated goal updating in a private method.
  * 1.10 - Fixed bug where exercises not listed in exercise table could be logged in activities table with id -1.
+ * 1.11 - Meals are now submitted to the database as a single batch.
+ * 1.12 - Dropdowns and water intake are now loaded off the JavaFX Application Thread through the
+ *        AsyncDatabaseHandler.
+ * 1.13 - Nutrition goals are now updated once per submission with the total of every meal, rather than once per
+ *        nutrient per item.
+ * 1.14 - An exercise now updates its activity, minutes and calories burned goals in one batch.
+ * 1.15 - Goal progress for submitted meals is only applied once the meals have been stored.
  */
 public class LogActivityController implements Initializable {
 
@@ -91,6 +100,7 @@ public class LogActivityController implements Initializable {
     private HashMap<NutritionItem, Integer> dinner;
 
     private DatabaseHandler dh;
+    private AsyncDatabaseHandler async;
     private User user;
 
     // Water intake buttons / indicator
@@ -119,6 +129,7 @@ public class LogActivityController implements Initializable {
 
         //Get DatabaseHandler instance
         dh = DatabaseHandler.getInstance();
+        async = AsyncDatabaseHandler.getInstance();
 
         //Instantiate meal maps
         breakfast = new HashMap<>();
@@ -127,10 +138,10 @@ public class LogActivityController implements Initializable {
         dinner = new HashMap<>();
 
         //Instantiate dropdowns
-        exerciseComboBox.getItems().addAll(dh.getExerciseNames());
+        async.load(DatabaseHandler::getExerciseNames, names -> exerciseComboBox.getItems().addAll(names));
         weightUnits.getItems().addAll("kg", "lbs");
         mealSelect.getItems().addAll("Breakfast", "Lunch", "Dinner", "Snacks");
-        foodComboBox.getItems().addAll(dh.getFoodNames());
+        async.load(DatabaseHandler::getFoodNames, names -> foodComboBox.getItems().addAll(names));
 
         //Instantiate table placeholder texts
         breakfastTable.setPlaceholder(new Label("Add food item or custom item"));
@@ -163,10 +174,7 @@ public class LogActivityController implements Initializable {
             }
         });
 
-        foodEntryDate.valueProperty().addListener(e -> {
-            noCups = dh.getWaterIntakeInCups(user.getUsername(), foodEntryDate.getValue());
-            noCupsIndicator.setText(String.valueOf(noCups));
-        });
+        foodEntryDate.valueProperty().addListener(e -> loadWaterIntake(foodEntryDate.getValue()));
 
     }
 
@@ -178,8 +186,24 @@ public class LogActivityController implements Initializable {
     public void initData(User user) {
         this.user = user;
 
-        noCups = dh.getWaterIntakeInCups(user.getUsername(), LocalDate.now());
-        noCupsIndicator.setText(String.valueOf(noCups));
+        loadWaterIntake(LocalDate.now());
+    }
+
+    /**
+     * Private helper method to load the user's water intake on a date and show it in the cups indicator.
+     *
+     * @param date the date to load the water intake for.
+     */
+    private void loadWaterIntake(LocalDate date) {
+        String username = user.getUsername();
+
+        async.load(handler -> handler.getWaterIntakeInCups(username, date), cups -> {
+            //Ignore a stale result if the date was changed while loading
+            if (date.equals(foodEntryDate.getValue())) {
+                noCups = cups;
+                noCupsIndicator.setText(String.valueOf(noCups));
+            }
+        });
     }
 
     /**
@@ -200,15 +224,18 @@ public class LogActivityController implements Initializable {
                 dh.insertExercise(user.getUsername(), exercise, minutes); //Throws IllegalStateException
                 ExerciseItem exerciseItem = dh.getExerciseItem(exercise);
 
+                EnumMap<Goal.Unit, Float> amounts = new EnumMap<>(Goal.Unit.class);
+
                 try {
-                    user.updateGoals(Goal.Unit.valueOf(exercise.toUpperCase(Locale.ROOT)), minutes);
+                    amounts.put(Goal.Unit.valueOf(exercise.toUpperCase(Locale.ROOT)), (float) minutes);
                 }
                 catch (IllegalArgumentException e) { //Exercise not in enum (i.e. custom exercise)
                     e.printStackTrace();
                 }
 
-                user.updateGoals(Goal.Unit.EXERCISE, minutes);
-                user.updateGoals(Goal.Unit.BURNED, exerciseItem.calculateBurn(minutes));
+                amounts.put(Goal.Unit.EXERCISE, (float) minutes);
+                amounts.put(Goal.Unit.BURNED, (float) exerciseItem.calculateBurn(minutes));
+                user.updateGoals(amounts);
                 exercisePopUp.setText(exercise + " for " + minutesText + " minutes added to database");
             }
             catch (SQLException e) {
@@ -327,47 +354,27 @@ public class LogActivityController implements Initializable {
         if (checkFoodDate(date)) {
             //For each map
             //For each key
-            //Submit food entry to database
-            for (NutritionItem key : breakfast.keySet()) {
-                try {
-                    updateUserNutritionGoals(key, breakfast);
+            //Total the nutrients and add a line to the batch submitted to the database
+            ArrayList<MealLine> lines = new ArrayList<>();
+            NutrientVector totals = new NutrientVector();
 
-                    dh.addFoodEntry(user.getUsername(), "Breakfast", key.getName(), breakfast.get(key), date);
-                }
-                catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
-            for (NutritionItem key : lunch.keySet()) {
-                try {
-                    updateUserNutritionGoals(key, lunch);
+            addMealLines(lines, totals, "Breakfast", breakfast);
+            addMealLines(lines, totals, "Lunch", lunch);
+            addMealLines(lines, totals, "Dinner", dinner);
+            addMealLines(lines, totals, "Snack", snack);
 
-                    dh.addFoodEntry(user.getUsername(), "Lunch", key.getName(), lunch.get(key), date);
-                }
-                catch (SQLException e) {
-                    e.printStackTrace();
-                }
+            try {
+                dh.addFoodEntries(dh.getUserIDFromUsername(user.getUsername()), date, lines);
             }
-            for (NutritionItem key : dinner.keySet()) {
-                try {
-                    updateUserNutritionGoals(key, dinner);
-
-                    dh.addFoodEntry(user.getUsername(), "Dinner", key.getName(), dinner.get(key), date);
-                }
-                catch (SQLException e) {
-                    e.printStackTrace();
-                }
+            catch (SQLException e) {
+                e.printStackTrace();
+                //Nothing was stored, so keep the meals for another attempt and leave goal progress as it was
+                foodDateLabel.setText("Meals could not be added, please try again");
+                return;
             }
-            for (NutritionItem key : snack.keySet()) {
-                try {
-                    updateUserNutritionGoals(key, snack);
 
-                    dh.addFoodEntry(user.getUsername(), "Snack", key.getName(), snack.get(key), date);
-                }
-                catch (SQLException e) {
-                    e.printStackTrace();
-                }
-            }
+            //Update every affected goal once with the day's totals, now that they are stored
+            user.applyDelta(totals);
 
             //Clear maps.
             breakfast = new HashMap<>();
@@ -390,37 +397,21 @@ public class LogActivityController implements Initializable {
     }
 
     /**
-     * Private helper method for updating a user's nutrition goals. Calls the user's update goals method for every
-     * nutrition target value.
+     * Private helper method to add the nutrients of each item in a meal to a running total and add a line for it to a
+     * batch of food entries.
      *
-     * @param key A NutritionItem in the mealMap.
-     * @param mealMap A map storing NutritionItems against their quantity consumed.
+     * @param lines  the batch of food entries to add to.
+     * @param totals the running total of nutrients logged.
+     * @param meal   the name of the meal.
+     * @param items  the items in the meal against their quantities.
      */
-    private void updateUserNutritionGoals(NutritionItem key, HashMap<NutritionItem, Integer> mealMap) {
-        user.updateGoals(Goal.Unit.CALORIES, (float) (mealMap.get(key) * key.getKcal()/100));
-        user.updateGoals(Goal.Unit.PROTEIN, (float) (mealMap.get(key) * key.getProteinG()/100));
-        user.updateGoals(Goal.Unit.CARBS, (float) (mealMap.get(key) * key.getCarbsG()/100));
-        user.updateGoals(Goal.Unit.FIBRE, (float) (mealMap.get(key) * key.getFibreG()/100));
-        user.updateGoals(Goal.Unit.SODIUM, (float) (mealMap.get(key) * key.getSodiumMg()/100));
-        user.updateGoals(Goal.Unit.POTASSIUM, (float) (mealMap.get(key) * key.getPotassiumMg()/100));
-        user.updateGoals(Goal.Unit.CALCIUM, (float) (mealMap.get(key) * key.getCalciumMg()/100));
-        user.updateGoals(Goal.Unit.MAGNESIUM, (float) (mealMap.get(key) * key.getMagnesiumMg()/100));
-        user.updateGoals(Goal.Unit.PHOSPHORUS, (float) (mealMap.get(key) * key.getPhosphorusMg()/100));
-        user.updateGoals(Goal.Unit.IRON, (float) (mealMap.get(key) * key.getIronMg()/100));
-        user.updateGoals(Goal.Unit.COPPER, (float) (mealMap.get(key) * key.getCopperMg()/100));
-        user.updateGoals(Goal.Unit.ZINC, (float) (mealMap.get(key) * key.getZincMg()/100));
-        user.updateGoals(Goal.Unit.CHLORIDE, (float) (mealMap.get(key) * key.getChlorideMg()/100));
-        user.updateGoals(Goal.Unit.SELENIUM, (float) (mealMap.get(key) * key.getSeleniumUg()/100));
-        user.updateGoals(Goal.Unit.IODINE, (float) (mealMap.get(key) * key.getIodineUg()/100));
-        user.updateGoals(Goal.Unit.VITAMIN_A, (float) (mealMap.get(key) * key.getVitAUg()/100));
-        user.updateGoals(Goal.Unit.VITAMIN_D, (float) (mealMap.get(key) * key.getVitDUg()/100));
-        user.updateGoals(Goal.Unit.THIAMIN, (float) (mealMap.get(key) * key.getThiaminMg()/100));
-        user.updateGoals(Goal.Unit.RIBOFLAVIN, (float) (mealMap.get(key) * key.getRiboflavinMg()/100));
-        user.updateGoals(Goal.Unit.NIACIN, (float) (mealMap.get(key) * key.getNiacinMg()/100));
-        user.updateGoals(Goal.Unit.VITAMIN_B6, (float) (mealMap.get(key) * key.getVitB6Mg()/100));
-        user.updateGoals(Goal.Unit.VITAMIN_B12, (float) (mealMap.get(key) * key.getVitB12Ug()/100));
-        user.updateGoals(Goal.Unit.FOLATE, (float) (mealMap.get(key) * key.getFolateUg()/100));
-        user.updateGoals(Goal.Unit.VITAMIN_C, (float) (mealMap.get(key) * key.getVitCMg()/100));
+    private void addMealLines(ArrayList<MealLine> lines, NutrientVector totals, String meal,
+                              HashMap<NutritionItem, Integer> items) {
+        for (NutritionItem key : items.keySet()) {
+            key.addTo(totals, items.get(key));
+
+            lines.add(new MealLine(meal, key.getName(), items.get(key)));
+        }
     }
 
     /**
@@ -9,27 +9,22 @@ import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
-import sample.DatabaseHandler;
+import sample.AuthService;
 import sample.User;
 
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
 import java.io.IOException;
-import java.security.NoSuchAlgorithmException;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
-import java.sql.SQLException;
-import java.util.Arrays;
 
 /**
  * Class for controlling the login page FXML
  *
  * @author Evan Clayton
+ * @author Samuel Scarfe
  *
- * @version 1.1
+ * @version 1.2
  *
  * 1.0 - First working version
  * 1.1 - Implemented forgotten username and password.
+ * 1.2 - Login attempts are now verified off the JavaFX Application Thread by the AuthService.
  */
 public class LoginPageController {
 
@@ -37,14 +32,16 @@ public class LoginPageController {
     @FXML private PasswordField passwordField;
     @FXML private Label usernameError;
     @FXML private Label passwordError;
+    @FXML private Button loginButton;
     @FXML private Button escapeHome;
     @FXML private Button forgotPasswordButton;
     @FXML private Button forgotUsernameButton;
 
     /**
-     * Method for handling the login event, this will create a connection to the database, hash the password which was
-     * passed in and compare it to the hashed password stored in the database, if they match then it will pass the user
-     * as a persistent object to the main FXML document, close the current scene and open the main scene
+     * Method for handling the login event. The user's credentials are read and the entered password is hashed and
+     * compared to the stored hash by the {@link AuthService}, off the JavaFX Application Thread. If they match then
+     * the user is passed as a persistent object to the main FXML document, the current scene is closed and the main
+     * scene is opened.
      */
     public void login() {
         String username = usernameField.getText();
@@ -53,63 +50,63 @@ public class LoginPageController {
         clearInvalidUsername();
         clearInvalidPassword();
 
-        try {
-            DatabaseHandler dh = DatabaseHandler.getInstance();
-
-            //Retrieve user's hashed password and salt value
-            byte[] serverSidePass = dh.getHashFromUsername(username);
-            byte[] salt = dh.getSaltFromUsername(username);
-
-            //Hash inputted password
-            KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, 65536, 128);
-            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-
-            byte[] hash = factory.generateSecret(spec).getEncoded();
+        loginButton.setDisable(true);
+        AuthService.getInstance().login(username, password.toCharArray(), this::showLoginResult);
+    }
 
-            //Compare hashed input to stored hash
-            if (Arrays.equals(hash, serverSidePass)){
-                Stage parentScene = (Stage) usernameField.getScene().getWindow();
+    /**
+     * Private helper method to act on the result of a login attempt, on the JavaFX Application Thread.
+     *
+     * @param result the result of the login attempt.
+     */
+    private void showLoginResult(AuthService.Result result) {
+        loginButton.setDisable(false);
+
+        switch (result.getOutcome()) {
+            case SUCCESS -> openMain(result.getUser());
+            case WRONG_PASSWORD -> displayInvalidPassword();
+            case UNKNOWN_USER -> {
+                displayInvalidUsername();
+                displayInvalidPassword();
+            }
+        }
+    }
 
-                User user = dh.createUserObjectFromUsername(username);
+    /**
+     * Private helper method to close the login page and open the main scene for a logged in user.
+     *
+     * @param user the logged in user.
+     */
+    private void openMain(User user) {
+        try {
+            Stage parentScene = (Stage) usernameField.getScene().getWindow();
 
-                FXMLLoader loader = new FXMLLoader();
-                loader.setLocation(getClass().getResource("/FXML/Main.fxml"));
-                Stage stage = new Stage();
+            FXMLLoader loader = new FXMLLoader();
+            loader.setLocation(getClass().getResource("/FXML/Main.fxml"));
+            Stage stage = new Stage();
 
 
-                Parent homePageParent = loader.load();
+            Parent homePageParent = loader.load();
 
-                MainController main = loader.getController();
+            MainController main = loader.getController();
 
-                Scene homeScene = new Scene(homePageParent);
+            Scene homeScene = new Scene(homePageParent);
 
-                stage.setScene(homeScene);
+            stage.setScene(homeScene);
 
-                stage.setMinWidth(800);
-                stage.setMinHeight(500);
+            stage.setMinWidth(800);
+            stage.setMinHeight(500);
 
-                stage.setWidth(1000);
-                stage.setHeight(800);
+            stage.setWidth(1000);
+            stage.setHeight(800);
 
-                main.initData(user);
-                main.homeScreen();
+            main.initData(user);
+            main.homeScreen();
 
-                parentScene.close();
-                stage.show();
-            }
-            else {
-                displayInvalidPassword();
-            }
-        } catch (SQLException | NullPointerException userError) {
-            displayInvalidUsername();
-            displayInvalidPassword();
-        }
-        catch (IOException e1) {
-        }
-        catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
+            parentScene.close();
+            stage.show();
         }
-        catch (InvalidKeySpecException e) {
+        catch (IOException e) {
             e.printStackTrace();
         }
     }
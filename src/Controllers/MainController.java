@@ -14,8 +14,8 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import javafx.util.Duration;
-import sample.GoalGenerator;
 import sample.NotificationHandler;
+import sample.SystemGoalCache;
 import sample.User;
 
 import java.io.IOException;
@@ -36,6 +36,7 @@ import java.util.ResourceBundle;
  *                Possibly a hacky solution, as method calls have been moved from initialise to initData.
  *          1.2 - Added method to display notifications.
  *          1.3 - Additional notification display methods for blinking and fading notifications
+ *          1.4 - System goals are taken from the SystemGoalCache, so they are only generated once a day.
  */
 public class MainController implements Initializable {
 
@@ -90,9 +91,8 @@ public class MainController implements Initializable {
         summaryController.initData(user);
         summaryController.initChartData(LocalDate.now());
 
-        GoalGenerator gg = new GoalGenerator(user);
-        user.setSystemGoals(gg.generateGoals());
-        user.saveSystemGoals();
+        //Generated and saved once a day, then served from memory
+        user.setSystemGoals(SystemGoalCache.getInstance().get(user));
 
         ScrollPane scrollPane = new ScrollPane();
         scrollPane.setContent(vBox);
@@ -251,6 +251,8 @@ public class MainController implements Initializable {
      * @throws IOException Throws an IOException, this primarily occurs when a file is not recognized
      */
     @FXML protected void logOutAction() throws IOException {
+        SystemGoalCache.getInstance().forget(user.getUsername());
+
         Stage parentScene = (Stage) logOutButton.getScene().getWindow();
         Stage stage = new Stage();
         FXMLLoader loader = new FXMLLoader();
@@ -8,8 +8,9 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.util.StringConverter;
+import sample.AsyncDatabaseHandler;
 import sample.DatabaseHandler;
-import sample.NutritionItem;
+import sample.NutrientSummary;
 import sample.User;
 
 import java.net.URL;
@@ -28,6 +29,12 @@ import java.util.*;
  * @version 1.1 - (CJ) Added weight chart (still with dummy data) & reformatted fxml.
  * @version 1.2 - (SS) Added DateConverter as a nested class. Implemented functionality for pulling real data
  *                     from database.
+ * @version 1.3 - (SS) Nutrient charts now use daily totals summed by the database rather than merging the nutrients
+ *                     of each item in the controller.
+ * @version 1.4 - (SS) Chart data is now loaded off the JavaFX Application Thread through the AsyncDatabaseHandler.
+ * @version 1.5 - (SS) Results loaded for a week the chart has since been moved away from are ignored.
+ * @version 1.6 - (SS) The initial load is checked against each chart's week too, and replaces the nutrient series
+ *                     rather than adding to them.
  */
 public class SummaryController implements Initializable {
     @FXML private LineChart<Number, Number> intakeChart;
@@ -66,6 +73,7 @@ public class SummaryController implements Initializable {
 
     private User user;
     private DatabaseHandler dh;
+    private AsyncDatabaseHandler async;
 
     private LocalDate weightChartDate = LocalDate.now();
     private LocalDate intakeChartDate = LocalDate.now();
@@ -88,6 +96,7 @@ public class SummaryController implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle)
     {
         dh = DatabaseHandler.getInstance();
+        async = AsyncDatabaseHandler.getInstance();
         nextWeekTooltip.setShowDelay(javafx.util.Duration.millis(0));
 
         summaryGroup.getToggles().addAll(activitySummary, nutritionSummary);
@@ -161,109 +170,77 @@ public class SummaryController implements Initializable {
         formatAxis(mineralsDateAxis, latest);
         formatAxis(vitaminsDateAxis, latest);
 
-        // Array list to contain all nutrient chart series
-        ArrayList<XYChart.Series<Number, Number>> nutrientSeries = new ArrayList<>();
-        ArrayList<XYChart.Series<Number, Number>> mineralsSeries = new ArrayList<>();
-        ArrayList<XYChart.Series<Number, Number>> vitaminsSeries = new ArrayList<>();
-
-        // Hashmap to contain all macros summed for each day
-        HashMap<String, HashMap<String, Double>> macros = new HashMap<>();
-        HashMap<String, HashMap<String, Double>> minerals = new HashMap<>();
-        HashMap<String, HashMap<String, Double>> vitamins = new HashMap<>();
-
-        HashMap<String, ArrayList<NutritionItem>> nutritionData = dh.getNutrientEntries(user.getUsername(), latest);
-
-        // For each date in nutrition data keyset (collection of NutritionItems)
-        for(String date : nutritionData.keySet()){
-
-            // Hashmap to contain all macros summed for each day
-            HashMap<String, Double> allItemMacrosSummed = new HashMap<>();
-            HashMap<String, Double> allItemMineralsSummed = new HashMap<>();
-            HashMap<String, Double> allItemVitaminsSummed = new HashMap<>();
-
-            // For each NutritionItem in NutritionItem collection for current day
-            for(NutritionItem item : nutritionData.get(date)){
-
-                // Get macro nutrients for each NutritionItem
-                HashMap<String, Double> itemMacros = item.getMacroNutrients();
-                HashMap<String, Double> itemMinerals = item.getMinerals();
-                HashMap<String, Double> itemVitamins = item.getVitamins();
-
-                // For each macro nutritent
-                for(String macroName : itemMacros.keySet()){
-
-                    // If macro nutrient already exists, add value to entry
-                    if(allItemMacrosSummed.containsKey(macroName)){
-
-                        allItemMacrosSummed.put(
-                                macroName, allItemMacrosSummed.get(macroName) + itemMacros.get(macroName)
-                        );
-
-                    // Else, add entry for new macro nutrient
-                    } else {
-
-                        allItemMacrosSummed.put(macroName, itemMacros.get(macroName));
-
-                    }
-
-                }
+        String username = user.getUsername();
 
-                for(String mineralName : itemMinerals.keySet()){
-
-                    // If macro nutrient already exists, add value to entry
-                    if(allItemMineralsSummed.containsKey(mineralName)){
-
-                        allItemMineralsSummed.put(
-                                mineralName, allItemMineralsSummed.get(mineralName) + itemMinerals.get(mineralName)
-                        );
-
-                        // Else, add entry for new macro nutrient
-                    } else {
-
-                        allItemMineralsSummed.put(mineralName, itemMinerals.get(mineralName));
-
-                    }
-
-                }
-
-                for(String vitaminName : itemVitamins.keySet()){
-
-                    // If macro nutrient already exists, add value to entry
-                    if(allItemVitaminsSummed.containsKey(vitaminName)){
-
-                        allItemVitaminsSummed.put(
-                                vitaminName, allItemVitaminsSummed.get(vitaminName) + itemVitamins.get(vitaminName)
-                        );
-
-                        // Else, add entry for new macro nutrient
-                    } else {
-
-                        allItemVitaminsSummed.put(vitaminName, itemVitamins.get(vitaminName));
-
-                    }
-
-                }
+        //Load each chart's data off the JavaFX Application Thread, charts are filled in as their data arrives
+        //Each result is ignored if its chart was moved to another week while loading
+        async.load(handler -> handler.getDailyNutrients(username, latest.minusDays(6), latest),
+                nutrients -> showNutrients(latest, dc, nutrients));
 
+        async.load(handler -> handler.getIntakeEntries(username, latest), data -> {
+            if (latest.equals(intakeChartDate)) {
+                showEntries(intakeChart, dc, data);
+            }
+        });
+        async.load(handler -> handler.getSpentEntries(username, latest), data -> {
+            if (latest.equals(spentChartDate)) {
+                showEntries(spentChart, dc, data);
+            }
+        });
+        async.load(handler -> handler.getBurnedEntries(username, latest), data -> {
+            if (latest.equals(burnChartDate)) {
+                showEntries(burnChart, dc, data);
+            }
+        });
+        async.load(handler -> handler.getWeightEntries(username, latest), data -> {
+            if (latest.equals(weightChartDate)) {
+                showEntries(weightChart, dc, data);
             }
+        });
 
-            macros.put(date, allItemMacrosSummed);
-            minerals.put(date, allItemMineralsSummed);
-            vitamins.put(date, allItemVitaminsSummed);
+        nutritionSummarySection.setVisible(false);
+        nutritionSummarySection.setManaged(false);
+
+    }
 
+    /**
+     * Private helper method for filling the nutrition charts with a week of daily nutrient totals. Each chart is only
+     * filled if it is still showing the week the totals were loaded for.
+     *
+     * @param latest the last day of the week the totals were loaded for.
+     * @param dc a DateConverter object to convert x axis values.
+     * @param nutrients the daily nutrient totals to present on the graphs.
+     */
+    private void showNutrients(LocalDate latest, DateConverter dc, NutrientSummary nutrients) {
+        if (latest.equals(nutritionChartDate)) {
+            showNutrientSeries(nutritionChart, dc, nutrients.getMacroNutrients());
+        }
+        if (latest.equals(mineralsChartDate)) {
+            showNutrientSeries(mineralsChart, dc, nutrients.getMinerals());
         }
+        if (latest.equals(vitaminsChartDate)) {
+            showNutrientSeries(vitaminsChart, dc, nutrients.getVitamins());
+        }
+    }
 
-        // For each date in macros HashMap
-        setNutrientGraph(dc, nutrientSeries, macros);
+    /**
+     * Private helper method for replacing a nutrition chart's series with one series per nutrient, with tooltips.
+     *
+     * @param chart the chart to fill.
+     * @param dc a DateConverter object to convert x axis values.
+     * @param nutrients the nutrients data to present on the graph.
+     */
+    private void showNutrientSeries(LineChart<Number, Number> chart, DateConverter dc,
+                                    HashMap<String, HashMap<String, Double>> nutrients) {
+        ArrayList<XYChart.Series<Number, Number>> nutrientSeries = new ArrayList<>();
 
-        setNutrientGraph(dc, mineralsSeries, minerals);
+        setNutrientGraph(dc, nutrientSeries, nutrients);
 
-        setNutrientGraph(dc, vitaminsSeries, vitamins);
+        //Replace rather than add, in case another load of the same week has already filled the chart
+        chart.getData().setAll(nutrientSeries);
 
-        // For each nutrient series, add series to chart
         for(XYChart.Series<Number, Number> series : nutrientSeries) {
 
-            nutritionChart.getData().add(series);
-
             // Setting tooltip
             for (XYChart.Data<Number, Number> d : series.getData()) {
 
@@ -279,146 +256,37 @@ public class SummaryController implements Initializable {
             }
 
         }
+    }
 
-        for(XYChart.Series<Number, Number> series : mineralsSeries){
-
-            mineralsChart.getData().add(series);
-
-            // Setting tooltip
-            for (XYChart.Data<Number, Number> d : series.getData()) {
-
-                String value = series.getName() + ": " + d.getYValue().toString();
-
-                if(value.endsWith(".0"))
-                    value = value.substring(0, value.length() - 2);
-
-                Tooltip t = new Tooltip(value);
-                t.setShowDelay(javafx.util.Duration.millis(0));
-                Tooltip.install(d.getNode(), t);
-
-            }
-
-        }
-
-        for(XYChart.Series<Number, Number> series : vitaminsSeries){
-
-            vitaminsChart.getData().add(series);
-
-            // Setting tooltip
-            for (XYChart.Data<Number, Number> d : series.getData()) {
-
-                String value = series.getName() + ": " + d.getYValue().toString();
-
-                if(value.endsWith(".0"))
-                    value = value.substring(0, value.length() - 2);
-
-                Tooltip t = new Tooltip(value);
-                t.setShowDelay(javafx.util.Duration.millis(0));
-                Tooltip.install(d.getNode(), t);
-
-            }
-
-        }
-
-        //Create a data series for each graph and set names
-        XYChart.Series<Number, Number> intakeSeries = new XYChart.Series<>();
-        XYChart.Series<Number, Number> burnSeries = new XYChart.Series<>();
-        XYChart.Series<Number, Number> spentSeries = new XYChart.Series<>();
-        XYChart.Series<Number, Number> weightSeries = new XYChart.Series<>();
-
-        HashMap<String, Double> intakeData = dh.getIntakeEntries(user.getUsername(), latest);
-        HashMap<String, Integer> spentData = dh.getSpentEntries(user.getUsername(), latest);
-        HashMap<String, Float> burnedData = dh.getBurnedEntries(user.getUsername(), latest);
-        HashMap<String, Integer> weightData = dh.getWeightEntries(user.getUsername(), latest);
-
-
-        //Add data to each series.
-
-        for (String key : intakeData.keySet())
-        {
-            intakeSeries.getData().add(new XYChart.Data<>(dc.fromString(key), intakeData.get(key)));
-        }
-
-        for (String key : spentData.keySet())
-        {
-            spentSeries.getData().add(new XYChart.Data<>(dc.fromString(key), spentData.get(key)));
-        }
-
-        for (String key : burnedData.keySet())
-        {
-            burnSeries.getData().add(new XYChart.Data<>(dc.fromString(key), burnedData.get(key)));
-        }
-
-        for (String key : weightData.keySet())
-        {
-            weightSeries.getData().add(new XYChart.Data<>(dc.fromString(key), weightData.get(key)));
-        }
-
-        //Add series to graphs.
-        intakeChart.getData().add(intakeSeries);
-        burnChart.getData().add(burnSeries);
-        spentChart.getData().add(spentSeries);
-        weightChart.getData().add(weightSeries);
-
-        for (XYChart.Data<Number, Number> d : intakeSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
-
-
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
+    /**
+     * Private helper method for adding a week of daily entries to a chart as a single series with tooltips.
+     *
+     * @param chart the chart to add the entries to.
+     * @param dc a DateConverter object to convert x axis values.
+     * @param data String representations of dates against the value for each date.
+     */
+    private void showEntries(LineChart<Number, Number> chart, DateConverter dc,
+                             HashMap<String, ? extends Number> data) {
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
 
+        for (String key : data.keySet()) {
+            series.getData().add(new XYChart.Data<>(dc.fromString(key), data.get(key)));
         }
 
-        for (XYChart.Data<Number, Number> d : burnSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
-
+        //Replace rather than add, in case an earlier load of the same week has already filled the chart
+        chart.getData().setAll(List.of(series));
 
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
-
-        }
-
-        for (XYChart.Data<Number, Number> d : spentSeries.getData()) {
+        for (XYChart.Data<Number, Number> d : series.getData()) {
 
             String value = d.getYValue().toString();
 
             if(value.endsWith(".0"))
                 value = value.substring(0, value.length() - 2);
 
-
             Tooltip t = new Tooltip(value);
             t.setShowDelay(javafx.util.Duration.millis(0));
             Tooltip.install(d.getNode(), t);
-
         }
-
-        for (XYChart.Data<Number, Number> d : weightSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
-
-
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
-
-        }
-
-        nutritionSummarySection.setVisible(false);
-        nutritionSummarySection.setManaged(false);
-
     }
 
     /**
@@ -475,32 +343,15 @@ public class SummaryController implements Initializable {
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(weightDateAxis, weightChartDate);
 
-        //Create a data series for each graph and set names
-        XYChart.Series<Number, Number> weightSeries = new XYChart.Series<>();
-
-        HashMap<String, Integer> weightData = dh.getWeightEntries(user.getUsername(), weightChartDate);
-
-        //Add data to each series.
-        DateConverter dc = new DateConverter(weightChartDate);
-
-        for (String key : weightData.keySet()) {
-            weightSeries.getData().add(new XYChart.Data<>(dc.fromString(key), weightData.get(key)));
-        }
-
-        //Add series to graphs.
-        weightChart.getData().add(weightSeries);
-
-        for (XYChart.Data<Number, Number> d : weightSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
+        LocalDate latest = weightChartDate;
+        DateConverter dc = new DateConverter(latest);
 
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
-        }
+        async.load(handler -> handler.getWeightEntries(user.getUsername(), latest), data -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (latest.equals(weightChartDate)) {
+                showEntries(weightChart, dc, data);
+            }
+        });
     }
 
     /**
@@ -512,32 +363,15 @@ public class SummaryController implements Initializable {
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(intakeDateAxis, intakeChartDate);
 
-        //Create a data series for each graph and set names
-        XYChart.Series<Number, Number> intakeSeries = new XYChart.Series<>();
-
-        HashMap<String, Double> intakeData = dh.getIntakeEntries(user.getUsername(), intakeChartDate);
-
-        //Add data to each series.
-        DateConverter dc = new DateConverter(intakeChartDate);
-
-        for (String key : intakeData.keySet()) {
-            intakeSeries.getData().add(new XYChart.Data<>(dc.fromString(key), intakeData.get(key)));
-        }
-
-        //Add series to graphs.
-        intakeChart.getData().add(intakeSeries);
-
-        for (XYChart.Data<Number, Number> d : intakeSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
+        LocalDate latest = intakeChartDate;
+        DateConverter dc = new DateConverter(latest);
 
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
-        }
+        async.load(handler -> handler.getIntakeEntries(user.getUsername(), latest), data -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (latest.equals(intakeChartDate)) {
+                showEntries(intakeChart, dc, data);
+            }
+        });
     }
 
     /**
@@ -549,32 +383,15 @@ public class SummaryController implements Initializable {
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(burnDateAxis, burnChartDate);
 
-        //Create a data series for each graph and set names
-        XYChart.Series<Number, Number> burnSeries = new XYChart.Series<>();
-
-        HashMap<String, Float> burnData = dh.getBurnedEntries(user.getUsername(), burnChartDate);
-
-        //Add data to each series.
-        DateConverter dc = new DateConverter(burnChartDate);
-
-        for (String key : burnData.keySet()) {
-            burnSeries.getData().add(new XYChart.Data<>(dc.fromString(key), burnData.get(key)));
-        }
-
-        //Add series to graphs.
-        burnChart.getData().add(burnSeries);
-
-        for (XYChart.Data<Number, Number> d : burnSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
+        LocalDate latest = burnChartDate;
+        DateConverter dc = new DateConverter(latest);
 
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
-        }
+        async.load(handler -> handler.getBurnedEntries(user.getUsername(), latest), data -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (latest.equals(burnChartDate)) {
+                showEntries(burnChart, dc, data);
+            }
+        });
     }
 
     /**
@@ -586,32 +403,15 @@ public class SummaryController implements Initializable {
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(spentDateAxis, spentChartDate);
 
-        //Create a data series for each graph and set names
-        XYChart.Series<Number, Number> spentSeries = new XYChart.Series<>();
-
-        HashMap<String, Integer> spentData = dh.getSpentEntries(user.getUsername(), spentChartDate);
-
-        //Add data to each series.
-        DateConverter dc = new DateConverter(spentChartDate);
-
-        for (String key : spentData.keySet()) {
-            spentSeries.getData().add(new XYChart.Data<>(dc.fromString(key), spentData.get(key)));
-        }
-
-        //Add series to graphs.
-        spentChart.getData().add(spentSeries);
-
-        for (XYChart.Data<Number, Number> d : spentSeries.getData()) {
-
-            String value = d.getYValue().toString();
-
-            if(value.endsWith(".0"))
-                value = value.substring(0, value.length() - 2);
+        LocalDate latest = spentChartDate;
+        DateConverter dc = new DateConverter(latest);
 
-            Tooltip t = new Tooltip(value);
-            t.setShowDelay(javafx.util.Duration.millis(0));
-            Tooltip.install(d.getNode(), t);
-        }
+        async.load(handler -> handler.getSpentEntries(user.getUsername(), latest), data -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (latest.equals(spentChartDate)) {
+                showEntries(spentChart, dc, data);
+            }
+        });
     }
 
     /**
@@ -620,7 +420,8 @@ public class SummaryController implements Initializable {
     public void setNutritionChart(){
         nutritionChart.getData().clear();
 
-        DateConverter dc = new DateConverter(nutritionChartDate);
+        LocalDate latest = nutritionChartDate;
+        DateConverter dc = new DateConverter(latest);
 
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(nutritionDateAxis, nutritionChartDate);
@@ -628,63 +429,40 @@ public class SummaryController implements Initializable {
         // Array list to contain all nutrient chart series
         ArrayList<XYChart.Series<Number, Number>> nutrientSeries = new ArrayList<>();
 
-        // Hashmap to contain all macros summed for each day
-        HashMap<String, HashMap<String, Double>> macros = new HashMap<>();
-
-        HashMap<String, ArrayList<NutritionItem>> nutritionData =
-                dh.getNutrientEntries(user.getUsername(), nutritionChartDate);
+        // Macros summed for each day
+        async.load(handler -> handler.getDailyNutrients(user.getUsername(), latest.minusDays(6), latest), nutrients -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (!latest.equals(nutritionChartDate)) {
+                return;
+            }
 
-        // For each date in nutrition data keyset (collection of NutritionItems)
-        for(String date : nutritionData.keySet()){
+            HashMap<String, HashMap<String, Double>> macros = nutrients.getMacroNutrients();
 
-            // Hashmap to contain all macros summed for each day
-            HashMap<String, Double> allItemMacrosSummed = new HashMap<>();
+            // For each date in macros HashMap
+            setNutrientGraph(dc, nutrientSeries, macros);
 
-            // For each NutritionItem in NutritionItem collection for current day
-            for(NutritionItem item : nutritionData.get(date)){
+            //Clear again in case an earlier load of the same week has already filled the chart
+            nutritionChart.getData().clear();
 
-                // Get macro nutrients for each NutritionItem
-                HashMap<String, Double> itemMacros = item.getMacroNutrients();
+            // For each nutrient series, add series to chart
+            for(XYChart.Series<Number, Number> series : nutrientSeries){
 
-                // For each macro nutrient
-                for (String macroName : itemMacros.keySet()) {
+                nutritionChart.getData().add(series);
 
-                    // If macro nutrient already exists, add value to entry
-                    if (allItemMacrosSummed.containsKey(macroName)) {
+                // Setting tooltip
+                for (XYChart.Data<Number, Number> d : series.getData()) {
 
-                        allItemMacrosSummed.put(
-                                macroName, allItemMacrosSummed.get(macroName) + itemMacros.get(macroName)
-                        );
-                    }
-                    else { //add entry for new macro nutrient
-                        allItemMacrosSummed.put(macroName, itemMacros.get(macroName));
-                    }
-                }
-            }
-            macros.put(date, allItemMacrosSummed);
-        }
-
-        // For each date in macros HashMap
-        setNutrientGraph(dc, nutrientSeries, macros);
+                    String value = d.getYValue().toString();
 
-        // For each nutrient series, add series to chart
-        for(XYChart.Series<Number, Number> series : nutrientSeries){
+                    if(value.endsWith(".0"))
+                        value = value.substring(0, value.length() - 2);
 
-            nutritionChart.getData().add(series);
-
-            // Setting tooltip
-            for (XYChart.Data<Number, Number> d : series.getData()) {
-
-                String value = d.getYValue().toString();
-
-                if(value.endsWith(".0"))
-                    value = value.substring(0, value.length() - 2);
-
-                Tooltip t = new Tooltip(value);
-                t.setShowDelay(javafx.util.Duration.millis(0));
-                Tooltip.install(d.getNode(), t);
+                    Tooltip t = new Tooltip(value);
+                    t.setShowDelay(javafx.util.Duration.millis(0));
+                    Tooltip.install(d.getNode(), t);
+                }
             }
-        }
+        });
     }
 
     /**
@@ -693,7 +471,8 @@ public class SummaryController implements Initializable {
     public void setMineralsChart(){
         mineralsChart.getData().clear();
 
-        DateConverter dc = new DateConverter(mineralsChartDate);
+        LocalDate latest = mineralsChartDate;
+        DateConverter dc = new DateConverter(latest);
 
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(mineralsDateAxis, mineralsChartDate);
@@ -701,59 +480,38 @@ public class SummaryController implements Initializable {
         // Array list to contain all nutrient chart series
         ArrayList<XYChart.Series<Number, Number>> mineralsSeries = new ArrayList<>();
 
-        // Hashmap to contain all macros summed for each day
-        HashMap<String, HashMap<String, Double>> minerals = new HashMap<>();
-
-        HashMap<String, ArrayList<NutritionItem>> nutritionData = dh.getNutrientEntries(user.getUsername(), mineralsChartDate);
-
-        // For each date in nutrition data keyset (collection of NutritionItems)
-        for(String date : nutritionData.keySet()){
-
-            // Hashmap to contain all macros summed for each day
-            HashMap<String, Double> allItemMineralsSummed = new HashMap<>();
-
-            // For each NutritionItem in NutritionItem collection for current day
-            for(NutritionItem item : nutritionData.get(date)){
-
-                // Get macro nutrients for each NutritionItem
-                HashMap<String, Double> itemMinerals = item.getMinerals();
-
-                for(String mineralName : itemMinerals.keySet()){
+        // Minerals summed for each day
+        async.load(handler -> handler.getDailyNutrients(user.getUsername(), latest.minusDays(6), latest), nutrients -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (!latest.equals(mineralsChartDate)) {
+                return;
+            }
 
-                    // If macro nutrient already exists, add value to entry
-                    if(allItemMineralsSummed.containsKey(mineralName)){
+            HashMap<String, HashMap<String, Double>> minerals = nutrients.getMinerals();
 
-                        allItemMineralsSummed.put(
-                                mineralName, allItemMineralsSummed.get(mineralName) + itemMinerals.get(mineralName)
-                        );
-                    }
-                    else { //add entry for new macro nutrient
-                        allItemMineralsSummed.put(mineralName, itemMinerals.get(mineralName));
-                    }
-                }
-            }
-            minerals.put(date, allItemMineralsSummed);
-        }
+            setNutrientGraph(dc, mineralsSeries, minerals);
 
-        setNutrientGraph(dc, mineralsSeries, minerals);
+            //Clear again in case an earlier load of the same week has already filled the chart
+            mineralsChart.getData().clear();
 
-        for(XYChart.Series<Number, Number> series : mineralsSeries){
+            for(XYChart.Series<Number, Number> series : mineralsSeries){
 
-            mineralsChart.getData().add(series);
+                mineralsChart.getData().add(series);
 
-            // Setting tooltip
-            for (XYChart.Data<Number, Number> d : series.getData()) {
+                // Setting tooltip
+                for (XYChart.Data<Number, Number> d : series.getData()) {
 
-                String value = d.getYValue().toString();
+                    String value = d.getYValue().toString();
 
-                if(value.endsWith(".0"))
-                    value = value.substring(0, value.length() - 2);
+                    if(value.endsWith(".0"))
+                        value = value.substring(0, value.length() - 2);
 
-                Tooltip t = new Tooltip(value);
-                t.setShowDelay(javafx.util.Duration.millis(0));
-                Tooltip.install(d.getNode(), t);
+                    Tooltip t = new Tooltip(value);
+                    t.setShowDelay(javafx.util.Duration.millis(0));
+                    Tooltip.install(d.getNode(), t);
+                }
             }
-        }
+        });
     }
 
     /**
@@ -762,7 +520,8 @@ public class SummaryController implements Initializable {
     public void setVitaminsChart(){
         vitaminsChart.getData().clear();
 
-        DateConverter dc = new DateConverter(vitaminsChartDate);
+        LocalDate latest = vitaminsChartDate;
+        DateConverter dc = new DateConverter(latest);
 
         //format each axis from showing numeric tick marks to showing the past 7 days
         formatAxis(vitaminsDateAxis, vitaminsChartDate);
@@ -770,59 +529,38 @@ public class SummaryController implements Initializable {
         // Array list to contain all nutrient chart series
         ArrayList<XYChart.Series<Number, Number>> vitaminsSeries = new ArrayList<>();
 
-        // Hashmap to contain all macros summed for each day
-        HashMap<String, HashMap<String, Double>> vitamins = new HashMap<>();
-
-        HashMap<String, ArrayList<NutritionItem>> nutritionData = dh.getNutrientEntries(user.getUsername(), vitaminsChartDate);
-
-        // For each date in nutrition data keyset (collection of NutritionItems)
-        for(String date : nutritionData.keySet()){
-
-            // Hashmap to contain all macros summed for each day
-            HashMap<String, Double> allItemVitaminsSummed = new HashMap<>();
-
-            // For each NutritionItem in NutritionItem collection for current day
-            for(NutritionItem item : nutritionData.get(date)){
-
-                // Get macro nutrients for each NutritionItem
-                HashMap<String, Double> itemVitamins = item.getVitamins();
-
-                for(String vitaminName : itemVitamins.keySet()){
+        // Vitamins summed for each day
+        async.load(handler -> handler.getDailyNutrients(user.getUsername(), latest.minusDays(6), latest), nutrients -> {
+            //Ignore a stale result if the chart was moved to another week while loading
+            if (!latest.equals(vitaminsChartDate)) {
+                return;
+            }
 
-                    // If macro nutrient already exists, add value to entry
-                    if(allItemVitaminsSummed.containsKey(vitaminName)){
+            HashMap<String, HashMap<String, Double>> vitamins = nutrients.getVitamins();
 
-                        allItemVitaminsSummed.put(
-                                vitaminName, allItemVitaminsSummed.get(vitaminName) + itemVitamins.get(vitaminName)
-                        );
-                    }
-                    else { //add entry for new macro nutrient
-                        allItemVitaminsSummed.put(vitaminName, itemVitamins.get(vitaminName));
-                    }
-                }
-            }
-            vitamins.put(date, allItemVitaminsSummed);
-        }
+            setNutrientGraph(dc, vitaminsSeries, vitamins);
 
-        setNutrientGraph(dc, vitaminsSeries, vitamins);
+            //Clear again in case an earlier load of the same week has already filled the chart
+            vitaminsChart.getData().clear();
 
-        for(XYChart.Series<Number, Number> series : vitaminsSeries){
+            for(XYChart.Series<Number, Number> series : vitaminsSeries){
 
-            vitaminsChart.getData().add(series);
+                vitaminsChart.getData().add(series);
 
-            // Setting tooltip
-            for (XYChart.Data<Number,Number> d : series.getData()) {
+                // Setting tooltip
+                for (XYChart.Data<Number,Number> d : series.getData()) {
 
-                String value = d.getYValue().toString();
+                    String value = d.getYValue().toString();
 
-                if(value.endsWith(".0"))
-                    value = value.substring(0, value.length() - 2);
+                    if(value.endsWith(".0"))
+                        value = value.substring(0, value.length() - 2);
 
-                Tooltip t = new Tooltip(value);
-                t.setShowDelay(javafx.util.Duration.millis(0));
-                Tooltip.install(d.getNode(), t);
+                    Tooltip t = new Tooltip(value);
+                    t.setShowDelay(javafx.util.Duration.millis(0));
+                    Tooltip.install(d.getNode(), t);
+                }
             }
-        }
+        });
     }
 
     /**
@@ -22,7 +22,9 @@ import java.util.ResourceBundle;
  *
  * @author Owen Tasker
  *
- * @version 1.0
+ * @version 1.1
+ *
+ * 1.1 - Leaving a group discards the user's held goals, as their copies of the group's goals are deleted.
  */
 public class UIGroupItemController implements Initializable {
     @FXML TextField inviteInput;
@@ -52,6 +54,7 @@ public class UIGroupItemController implements Initializable {
     public static void leaveGroup(User user, String groupName){
         DatabaseHandler dh = DatabaseHandler.getInstance();
         dh.removeUserFromGroup(dh.getUserIDFromUsername(user.getUsername()), dh.getGroupIDFromName(groupName));
+        user.invalidateGoals(); //The user's copies of the group's goals have been deleted
     }
 
     /**
@@ -0,0 +1,23 @@
+-- Indexes for the per-user, per-date lookups made by the summary, goal and group pages. The meal, activity and
+-- weight_entry indexes also carry the columns those queries read, so the base table is never visited.
+
+CREATE INDEX IF NOT EXISTS meal_user_id_date_of_index
+    ON meal (user_id, date_of, food_id, quantity);
+
+CREATE INDEX IF NOT EXISTS activity_user_id_date_of_index
+    ON activity (user_id, date_of, exercise_id, duration);
+
+CREATE INDEX IF NOT EXISTS weight_entry_user_id_date_of_index
+    ON weight_entry (user_id, date_of, weight);
+
+CREATE INDEX IF NOT EXISTS goal_user_id_unit_end_date_index
+    ON goal (user_id, unit, end_date);
+
+CREATE INDEX IF NOT EXISTS system_goal_user_id_end_date_category_index
+    ON system_goal (user_id, end_date, category);
+
+CREATE INDEX IF NOT EXISTS group_membership_User_Id_index
+    ON group_membership (User_Id);
+
+CREATE INDEX IF NOT EXISTS group_membership_Group_Id_index
+    ON group_membership (Group_Id);
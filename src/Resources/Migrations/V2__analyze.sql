@@ -0,0 +1,3 @@
+-- Gather statistics on the new indexes so the query planner will use them.
+
+ANALYZE;
@@ -0,0 +1,79 @@
+-- A per user, per day rollup of meal, activity and weight data. Maintained incrementally by the DatabaseHandler in the
+-- same transaction as each write to the underlying tables, so the summary charts never have to re-aggregate raw rows.
+--
+-- meals and activities count the rows making up each day's totals, a day with no meals logged has meals = 0.
+-- weight is the last weight entered that day, or null if none was.
+
+CREATE TABLE daily_user_summary
+(
+    user_id INTEGER not null,
+    date_of varchar(10) not null,
+    meals INTEGER default 0 not null,
+    activities INTEGER default 0 not null,
+    minutes INTEGER default 0 not null,
+    kcal_burned DOUBLE default 0 not null,
+    weight float,
+    kcal DOUBLE default 0 not null,
+    protein_g DOUBLE default 0 not null,
+    fat_g DOUBLE default 0 not null,
+    carbs_g DOUBLE default 0 not null,
+    sugar_g DOUBLE default 0 not null,
+    fibre_g DOUBLE default 0 not null,
+    cholesterol_mg DOUBLE default 0 not null,
+    sodium_mg DOUBLE default 0 not null,
+    potassium_mg DOUBLE default 0 not null,
+    calcium_mg DOUBLE default 0 not null,
+    magnesium_mg DOUBLE default 0 not null,
+    phosphorus_mg DOUBLE default 0 not null,
+    iron_mg DOUBLE default 0 not null,
+    copper_mg DOUBLE default 0 not null,
+    zinc_mg DOUBLE default 0 not null,
+    chloride_mg DOUBLE default 0 not null,
+    selenium_ug DOUBLE default 0 not null,
+    iodine_ug DOUBLE default 0 not null,
+    vit_a_ug DOUBLE default 0 not null,
+    vit_d_ug DOUBLE default 0 not null,
+    thiamin_mg DOUBLE default 0 not null,
+    riboflavin_mg DOUBLE default 0 not null,
+    niacin_mg DOUBLE default 0 not null,
+    vit_b6_mg DOUBLE default 0 not null,
+    vit_b12_ug DOUBLE default 0 not null,
+    folate_ug DOUBLE default 0 not null,
+    vit_c_mg DOUBLE default 0 not null,
+    constraint daily_user_summary_pk
+        primary key (user_id, date_of)
+);
+
+-- Backfill from the existing meal, activity and weight_entry rows.
+
+INSERT INTO daily_user_summary (user_id, date_of, meals,
+        kcal, protein_g, fat_g, carbs_g, sugar_g, fibre_g, cholesterol_mg, sodium_mg, potassium_mg, calcium_mg,
+        magnesium_mg, phosphorus_mg, iron_mg, copper_mg, zinc_mg, chloride_mg, selenium_ug, iodine_ug, vit_a_ug,
+        vit_d_ug, thiamin_mg, riboflavin_mg, niacin_mg, vit_b6_mg, vit_b12_ug, folate_ug, vit_c_mg)
+SELECT user_id, date_of, COUNT(*),
+       SUM(quantity * kcal / 100.0), SUM(quantity * protein_g / 100.0), SUM(quantity * fat_g / 100.0),
+       SUM(quantity * carbs_g / 100.0), SUM(quantity * sugar_g / 100.0), SUM(quantity * fibre_g / 100.0),
+       SUM(quantity * cholesterol_mg / 100.0), SUM(quantity * sodium_mg / 100.0),
+       SUM(quantity * potassium_mg / 100.0), SUM(quantity * calcium_mg / 100.0),
+       SUM(quantity * magnesium_mg / 100.0), SUM(quantity * phosphorus_mg / 100.0), SUM(quantity * iron_mg / 100.0),
+       SUM(quantity * copper_mg / 100.0), SUM(quantity * zinc_mg / 100.0), SUM(quantity * chloride_mg / 100.0),
+       SUM(quantity * selenium_ug / 100.0), SUM(quantity * iodine_ug / 100.0), SUM(quantity * vit_a_ug / 100.0),
+       SUM(quantity * vit_d_ug / 100.0), SUM(quantity * thiamin_mg / 100.0), SUM(quantity * riboflavin_mg / 100.0),
+       SUM(quantity * niacin_mg / 100.0), SUM(quantity * vit_b6_mg / 100.0), SUM(quantity * vit_b12_ug / 100.0),
+       SUM(quantity * folate_ug / 100.0), SUM(quantity * vit_c_mg / 100.0)
+FROM meal INNER JOIN food ON meal.food_id = food.id
+GROUP BY user_id, date_of;
+
+INSERT INTO daily_user_summary (user_id, date_of, activities, minutes, kcal_burned)
+SELECT activity.user_id, activity.date_of, COUNT(*), SUM(duration), TOTAL(duration * burn_rate / 30.0)
+FROM activity LEFT JOIN exercise ON activity.exercise_id = exercise.id
+WHERE activity.user_id IS NOT NULL
+GROUP BY activity.user_id, activity.date_of
+ON CONFLICT (user_id, date_of) DO UPDATE SET
+    activities = excluded.activities, minutes = excluded.minutes, kcal_burned = excluded.kcal_burned;
+
+INSERT INTO daily_user_summary (user_id, date_of, weight)
+SELECT user_id, date_of, weight
+FROM weight_entry
+WHERE entry_id IN (SELECT MAX(entry_id) FROM weight_entry GROUP BY user_id, date_of)
+ON CONFLICT (user_id, date_of) DO UPDATE SET weight = excluded.weight;
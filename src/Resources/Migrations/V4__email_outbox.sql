@@ -0,0 +1,24 @@
+-- A persistent queue of outbound email. Emails are written here by the EmailHandler and sent in the background by the
+-- EmailDispatcher, so that no caller ever waits on SMTP.
+--
+-- status is PENDING until a dispatcher claims the row, SENDING while it is being sent, then SENT, or DEAD once every
+-- attempt has failed. next_attempt and created are epoch milliseconds. last_error holds the most recent failure.
+
+CREATE TABLE email_outbox
+(
+    id INTEGER not null
+        constraint email_outbox_pk
+            primary key autoincrement,
+    recipient varchar(254) not null,
+    subject varchar(200) not null,
+    body TEXT not null,
+    content_type varchar(20) not null,
+    status varchar(7) default 'PENDING' not null
+        check (status IN ('PENDING', 'SENDING', 'SENT', 'DEAD')),
+    attempts INTEGER default 0 not null,
+    next_attempt INTEGER not null,
+    created INTEGER not null,
+    last_error TEXT
+);
+
+CREATE INDEX email_outbox_status_next_attempt_index ON email_outbox (status, next_attempt);
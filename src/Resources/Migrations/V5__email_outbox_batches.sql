@@ -0,0 +1,5 @@
+-- Emails queued together, such as one notification to every member of a group, share a batch_id so that the
+-- EmailDispatcher can send them over a single SMTP connection. batch_id is the id of the batch's first email, and is
+-- null for an email queued on its own.
+
+ALTER TABLE email_outbox ADD COLUMN batch_id INTEGER;
@@ -0,0 +1,16 @@
+-- A user has at most one system goal of each unit, end date, update period and category, so system goals can be
+-- saved by upserting on that key rather than deleting and reinserting every row.
+--
+-- Older versions could store the same goal twice, so every duplicate but the most recent is removed first.
+
+DELETE FROM system_goal
+WHERE EXISTS (SELECT 1 FROM system_goal newer
+              WHERE newer.user_id = system_goal.user_id
+                AND newer.unit = system_goal.unit
+                AND newer.end_date = system_goal.end_date
+                AND newer.update_period = system_goal.update_period
+                AND newer.category = system_goal.category
+                AND newer.id > system_goal.id);
+
+CREATE UNIQUE INDEX system_goal_user_id_unit_end_date_update_period_category_uindex
+    ON system_goal (user_id, unit, end_date, update_period, category);
@@ -0,0 +1,12 @@
+-- Expired goals, tokens and invites are now swept by the JobScheduler rather than only when a user touches them.
+--
+-- Goals gain an active flag, cleared once a goal has passed its end date or been completed, so that the sweep only
+-- has to visit goals which are still active. Existing goals are marked as the UserGoal constructor would mark them.
+-- The token sweep is served by the expiry index on the token table created in V8.
+
+ALTER TABLE goal ADD COLUMN active INTEGER NOT NULL DEFAULT 1;
+
+UPDATE goal SET active = 0 WHERE end_date <= date('now', 'localtime') OR progress >= target;
+
+CREATE INDEX IF NOT EXISTS goal_active_end_date_index
+    ON goal (end_date) WHERE active = 1;
@@ -0,0 +1,39 @@
+-- Registration tokens, password recovery codes and group invites are moved into a single token table read by the
+-- TokenStore, keyed by the token value and its type so that every lookup is one primary key seek returning the whole
+-- record. The old tables were only indexed on their row IDs, if at all.
+--
+-- A registration token expires REG_TOKEN_MINUTES after it was sent, which is now stored as its expiry time.
+
+CREATE TABLE token
+(
+    token      TEXT    NOT NULL,
+    type       TEXT    NOT NULL,
+    subject_id INTEGER,
+    payload    TEXT,
+    expires_at TEXT    NOT NULL,
+    PRIMARY KEY (token, type)
+) WITHOUT ROWID;
+
+CREATE INDEX IF NOT EXISTS token_expires_at_index
+    ON token (expires_at);
+
+INSERT OR IGNORE INTO token (token, type, subject_id, payload, expires_at)
+SELECT tokenVal, 'REGISTRATION', NULL, NULL, strftime('%Y-%m-%dT%H:%M:%f', sent_time, '+30 minutes')
+FROM regTokens
+WHERE tokenVal IS NOT NULL AND sent_time IS NOT NULL;
+
+INSERT OR IGNORE INTO token (token, type, subject_id, payload, expires_at)
+SELECT recoveryCode, 'RECOVERY', userID, NULL, expiryTime
+FROM passwordRecoveryCodes
+WHERE recoveryCode IS NOT NULL AND expiryTime IS NOT NULL;
+
+INSERT OR IGNORE INTO token (token, type, subject_id, payload, expires_at)
+SELECT tokenVal, 'GROUP_INVITE', userID, groupID, expiry_time
+FROM groupInvTable
+WHERE tokenVal IS NOT NULL AND expiry_time IS NOT NULL;
+
+DROP TABLE regTokens;
+
+DROP TABLE passwordRecoveryCodes;
+
+DROP TABLE groupInvTable;
@@ -0,0 +1,123 @@
+package sample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for AsyncDatabaseHandler. Results are handed back on a recording executor in place of the JavaFX
+ * Application Thread.
+ *
+ * @author Samuel Scarfe
+ */
+
+class AsyncDatabaseHandlerTest {
+
+    private ExecutorService executor;
+    private List<Runnable> handedBack;
+    private AsyncDatabaseHandler async;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        handedBack = new ArrayList<>();
+        async = new AsyncDatabaseHandler(DatabaseHandler.getInstance(), executor, runnable -> {
+            handedBack.add(runnable);
+            runnable.run();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void nullHandler() {
+        assertThrows(NullPointerException.class, () -> new AsyncDatabaseHandler(null, executor, Runnable::run));
+    }
+
+    @Test
+    void nullCall() {
+        assertThrows(NullPointerException.class, () -> async.supply(null));
+    }
+
+    @Test
+    void nullAction() {
+        assertThrows(NullPointerException.class, () -> async.load(handler -> 1, null));
+    }
+
+    @Test
+    void supplyRunsOffCallingThread() throws ExecutionException, InterruptedException {
+        Thread caller = Thread.currentThread();
+
+        assertNotSame(caller, async.supply(handler -> Thread.currentThread()).get());
+    }
+
+    @Test
+    void supplyPassesSQLException() {
+        SQLException thrown = new SQLException("failed");
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> async.supply(handler -> { throw thrown; }).get());
+
+        assertSame(thrown, e.getCause());
+    }
+
+    @Test
+    void loadHandsResultBack() throws ExecutionException, InterruptedException {
+        List<Integer> results = new ArrayList<>();
+
+        async.load(handler -> 42, results::add).get();
+
+        assertEquals(List.of(42), results);
+        assertEquals(1, handedBack.size());
+    }
+
+    @Test
+    void failedLoadSkipsAction() throws ExecutionException, InterruptedException {
+        List<Integer> results = new ArrayList<>();
+
+        CompletableFuture<Void> future = async.<Integer>load(handler -> { throw new SQLException("failed"); },
+                results::add);
+        future.get();
+
+        assertTrue(results.isEmpty());
+    }
+
+    @Test
+    void nullWhenCompleteAction() {
+        assertThrows(NullPointerException.class, () -> async.whenComplete(async.supply(handler -> 1), null));
+    }
+
+    @Test
+    void whenCompleteHandsSuccessBack() throws ExecutionException, InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+
+        async.whenComplete(async.supply(handler -> 42), failures::add).get();
+
+        assertEquals(1, failures.size());
+        assertNull(failures.get(0));
+        assertEquals(1, handedBack.size());
+    }
+
+    @Test
+    void whenCompleteHandsFailureBack() throws ExecutionException, InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+
+        async.whenComplete(async.run(handler -> { throw new IllegalStateException(); }), failures::add).get();
+
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0).getCause() instanceof IllegalStateException);
+    }
+}
@@ -0,0 +1,140 @@
+package sample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.GeneralSecurityException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for AuthService. Credentials are read from a single stored user in place of the database, and results
+ * are handed back on a recording executor in place of the JavaFX Application Thread.
+ *
+ * @author Samuel Scarfe
+ */
+
+class AuthServiceTest {
+
+    private static final byte[] SALT = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+
+    private ExecutorService executor;
+    private List<Runnable> handedBack;
+    private User batman;
+    private AuthService auth;
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException {
+        executor = Executors.newSingleThreadExecutor();
+        handedBack = new ArrayList<>();
+        batman = new User("Bruce", "Wayne", User.Sex.MALE, LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com", "bwayne1998");
+
+        AuthService.Credentials stored =
+                new AuthService.Credentials(AuthService.hash("iambatman".toCharArray(), SALT), SALT, batman);
+
+        auth = new AuthService(username -> username.equals("bwayne1998") ? stored : null, executor, runnable -> {
+            handedBack.add(runnable);
+            runnable.run();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void nullLookup() {
+        assertThrows(NullPointerException.class, () -> new AuthService(null, executor, Runnable::run));
+    }
+
+    @Test
+    void nullUsername() {
+        assertThrows(NullPointerException.class, () -> auth.authenticate(null, new char[0]));
+    }
+
+    @Test
+    void nullPassword() {
+        assertThrows(NullPointerException.class, () -> auth.authenticate("bwayne1998", null));
+    }
+
+    @Test
+    void nullCredentialsHash() {
+        assertThrows(NullPointerException.class, () -> new AuthService.Credentials(null, SALT, batman));
+    }
+
+    @Test
+    void correctPassword() throws ExecutionException, InterruptedException {
+        AuthService.Result result = auth.authenticate("bwayne1998", "iambatman".toCharArray()).get();
+
+        assertTrue(result.isSuccess());
+        assertSame(batman, result.getUser());
+        assertTrue(result.getDeriveNanos() > 0);
+    }
+
+    @Test
+    void wrongPassword() throws ExecutionException, InterruptedException {
+        AuthService.Result result = auth.authenticate("bwayne1998", "iamrobin".toCharArray()).get();
+
+        assertEquals(AuthService.Outcome.WRONG_PASSWORD, result.getOutcome());
+        assertNull(result.getUser());
+    }
+
+    @Test
+    void unknownUser() throws ExecutionException, InterruptedException {
+        AuthService.Result result = auth.authenticate("ckent", "iambatman".toCharArray()).get();
+
+        assertEquals(AuthService.Outcome.UNKNOWN_USER, result.getOutcome());
+        assertEquals(0, result.getDeriveNanos());
+    }
+
+    @Test
+    void passwordCleared() throws ExecutionException, InterruptedException {
+        char[] password = "iambatman".toCharArray();
+
+        auth.authenticate("bwayne1998", password).get();
+
+        assertArrayEquals(new char[password.length], password);
+    }
+
+    @Test
+    void failedLookupCompletesExceptionally() {
+        AuthService failing = new AuthService(username -> {
+            throw new SQLException();
+        }, executor, Runnable::run);
+
+        CompletableFuture<AuthService.Result> future = failing.authenticate("bwayne1998", new char[0]);
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof SQLException);
+    }
+
+    @Test
+    void loginHandsResultBack() throws ExecutionException, InterruptedException {
+        List<AuthService.Result> results = new ArrayList<>();
+
+        auth.login("bwayne1998", "iambatman".toCharArray(), results::add).get();
+
+        assertEquals(1, handedBack.size());
+        assertTrue(results.get(0).isSuccess());
+    }
+
+    @Test
+    void timingsTotalled() throws ExecutionException, InterruptedException {
+        auth.authenticate("bwayne1998", "iambatman".toCharArray()).get();
+        auth.authenticate("ckent", "iambatman".toCharArray()).get();
+
+        assertEquals(2, auth.getAttempts());
+        assertTrue(auth.getMeanDeriveMillis() > 0);
+    }
+}
@@ -0,0 +1,99 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for ConnectionPool.
+ *
+ * @author Samuel Scarfe
+ */
+
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:sqlite:proactive.db";
+
+    @Test
+    void nullUrl() {
+        assertThrows(NullPointerException.class, () -> new ConnectionPool(null, 1));
+    }
+
+    @Test
+    void zeroReaders() {
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionPool(URL, 0));
+    }
+
+    @Test
+    void nestedReaderReturnsSameConnection() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(URL, 1);
+
+        try (PooledConnection outer = pool.borrowReader();
+             PooledConnection inner = pool.borrowReader()) {
+            assertSame(outer, inner);
+            assertEquals(0, pool.getIdleReaderCount());
+        }
+
+        assertEquals(1, pool.getIdleReaderCount());
+        pool.close();
+    }
+
+    @Test
+    void readerInsideWriterReturnsWriter() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(URL, 1);
+
+        try (PooledConnection writer = pool.borrowWriter();
+             PooledConnection reader = pool.borrowReader()) {
+            assertSame(writer, reader);
+            assertFalse(reader.isReadOnly());
+        }
+
+        pool.close();
+    }
+
+    @Test
+    void readerIsQueryOnly() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(URL, 1);
+
+        try (PooledConnection reader = pool.borrowReader()) {
+            assertTrue(reader.isReadOnly());
+            assertThrows(SQLException.class, () -> reader.createStatement().executeUpdate(
+                    "DELETE FROM token WHERE token = 'connection-pool-test'"));
+        }
+
+        pool.close();
+    }
+
+    @Test
+    void borrowAfterClose() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(URL, 1);
+        pool.close();
+
+        assertThrows(SQLException.class, pool::borrowReader);
+        assertThrows(SQLException.class, pool::borrowWriter);
+    }
+
+    @Test
+    void failedTransactionRollsBack() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(URL, 1);
+
+        try (PooledConnection writer = pool.borrowWriter()) {
+            assertThrows(SQLException.class, () -> writer.transaction(() -> {
+                writer.createStatement().executeUpdate(
+                        "INSERT INTO token (token, type, expires_at) VALUES('connection-pool-test', 'REGISTRATION', '')");
+                throw new SQLException();
+            }));
+
+            try (ResultSet rs = writer.createStatement().executeQuery(
+                    "SELECT COUNT(*) FROM token WHERE token = 'connection-pool-test'")) {
+                assertEquals(0, rs.getInt(1));
+            }
+            assertTrue(writer.getConnection().getAutoCommit());
+        }
+
+        pool.close();
+    }
+}
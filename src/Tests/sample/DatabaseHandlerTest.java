@@ -2,8 +2,19 @@ package sample;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -16,6 +27,17 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class DatabaseHandlerTest {
 
+    /**
+     * Copies the live database to a temporary file, so that tests which write can run against the copy.
+     *
+     * @return the path of the copy.
+     */
+    private static Path scratchCopy() throws IOException {
+        Path file = Files.createTempFile("proactive", ".db");
+        Files.copy(Path.of("proactive.db"), file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
     @Test
     void getInstance() {
         assertNotNull(DatabaseHandler.getInstance());
@@ -479,6 +501,22 @@ class DatabaseHandlerTest {
         assertThrows(IllegalArgumentException.class, () -> dh.updateGoal("bwayne1998", goal, 0));
     }
 
+    @Test
+    void nullGoalsUpdateGoalProgress() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.updateGoalProgress(null));
+    }
+
+    @Test
+    void unsavedGoalUpdateGoalProgress() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        UserGoal goal = new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now().plusDays(1));
+
+        assertDoesNotThrow(() -> dh.updateGoalProgress(List.of(goal)));
+    }
+
     @Test
     void nullUsernameGetWaterIntakeInCups() {
         DatabaseHandler dh = DatabaseHandler.getInstance();
@@ -679,6 +717,71 @@ class DatabaseHandlerTest {
         );
     }
 
+    @Test
+    void nullUsernameSelectFitnessProfile() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.selectFitnessProfile(null, 28));
+    }
+
+    @Test
+    void zeroDaysEarlierSelectFitnessProfile() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(IllegalArgumentException.class, () -> dh.selectFitnessProfile("bwayne1998", 0));
+    }
+
+    @Test
+    void nullNowDeleteExpiredTokens() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.deleteExpiredTokens(null));
+    }
+
+    @Test
+    void nullTodayExpireGoals() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.expireGoals(null));
+    }
+
+    @Test
+    void unknownInviteExpired() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertTrue(dh.isInvExpired("no such invite"));
+    }
+
+    @Test
+    void registrationTokenRoundTrip() throws IOException, SQLException {
+        Path file = scratchCopy();
+        DatabaseHandler dh = new DatabaseHandler("jdbc:sqlite:" + file);
+
+        try {
+            LocalDateTime before = LocalDateTime.now();
+            dh.addTokenEntry("test-registration-token");
+            LocalDateTime sent = dh.getTokenResult("test-registration-token");
+
+            assertNotNull(sent);
+            assertFalse(sent.isBefore(before));
+
+            dh.deleteToken("test-registration-token");
+            assertNull(dh.getTokenResult("test-registration-token"));
+        }
+        finally {
+            dh.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void unknownRecoveryCode() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertFalse(dh.checkRecoveryCode("no such code"));
+        assertEquals(-1, dh.getUserIDFromRecoveryCode("no such code"));
+    }
+
     @Test
     void nullUsernameRefreshSystemGoals() {
         DatabaseHandler dh = DatabaseHandler.getInstance();
@@ -730,6 +833,22 @@ class DatabaseHandlerTest {
         assertThrows(NullPointerException.class, () -> dh.quitGoalInDatabase("bwayne1998", null));
     }
 
+    @Test
+    void failedQuitGoalInDatabaseThrows() throws IOException {
+        Path file = scratchCopy();
+        DatabaseHandler dh = new DatabaseHandler("jdbc:sqlite:" + file);
+        dh.close();
+
+        try {
+            UserGoal goal = new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now().plusDays(1));
+
+            assertThrows(SQLException.class, () -> dh.quitGoalInDatabase("bwayne1998", goal));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
     @Test
     void nullGroupNameGetGroupIDFromName() {
         DatabaseHandler dh = DatabaseHandler.getInstance();
@@ -877,4 +996,96 @@ class DatabaseHandlerTest {
 
         assertThrows(NullPointerException.class, () -> dh.getUserGroups(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void nullUsernameGetUserGroupSummaries() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.getUserGroupSummaries(null));
+    }
+
+    @Test
+    void nullGroupLoadGroupMembership() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.loadGroupMembership(null));
+    }
+
+    @Test
+    void nullUsernameGetDailyNutrients() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class,
+                () -> dh.getDailyNutrients(null, LocalDate.now().minusDays(6), LocalDate.now()));
+    }
+
+    @Test
+    void reversedRangeGetDailyNutrients() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> dh.getDailyNutrients("sscar", LocalDate.now(), LocalDate.now().minusDays(6)));
+    }
+
+    @Test
+    void negativeUserIDAddFoodEntries() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(IllegalArgumentException.class, () -> dh.addFoodEntries(-1, LocalDate.now(), new ArrayList<>()));
+    }
+
+    @Test
+    void nullDateAddFoodEntries() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.addFoodEntries(1, null, new ArrayList<>()));
+    }
+
+    @Test
+    void futureDateAddFoodEntries() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> dh.addFoodEntries(1, LocalDate.now().plusDays(1), new ArrayList<>()));
+    }
+
+    @Test
+    void nullLinesAddFoodEntries() {
+        DatabaseHandler dh = DatabaseHandler.getInstance();
+
+        assertThrows(NullPointerException.class, () -> dh.addFoodEntries(1, LocalDate.now(), null));
+    }
+
+    @Test
+    void addFoodEntriesReturnsMealIDs() throws IOException, SQLException {
+        Path file = scratchCopy();
+        DatabaseHandler dh = new DatabaseHandler("jdbc:sqlite:" + file);
+
+        try {
+            //No meals are logged on this date, so the summary upsert inserts a row of its own
+            LocalDate date = LocalDate.of(2000, 1, 1);
+            List<Integer> keys = dh.addFoodEntries(1, date,
+                    List.of(new MealLine("Breakfast", "Water", 250), new MealLine("Lunch", "Water", 250)));
+
+            List<Integer> mealIDs = new ArrayList<>();
+            try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+                 PreparedStatement stmt = conn.prepareStatement(
+                         "SELECT meal_id FROM meal WHERE user_id = 1 AND date_of = ? ORDER BY meal_id")) {
+                stmt.setString(1, date.toString());
+
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        mealIDs.add(rs.getInt(1));
+                    }
+                }
+            }
+
+            assertEquals(2, mealIDs.size());
+            assertEquals(mealIDs, keys);
+        }
+        finally {
+            dh.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
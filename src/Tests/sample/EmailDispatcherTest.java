@@ -0,0 +1,356 @@
+package sample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.MessagingException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for EmailDispatcher. Emails are queued in an in memory outbox and delivered to an in process SMTP
+ * stand in, against a clock the tests control.
+ *
+ * @author Samuel Scarfe
+ */
+
+class EmailDispatcherTest {
+
+    /**
+     * An in memory outbox recording the state of each email.
+     */
+    private static class MemoryOutbox implements EmailDispatcher.Outbox {
+        static class Row {
+            OutboundEmail email;
+            int batchId;
+            String status = "PENDING";
+            int attempts;
+            long nextAttempt;
+            String error;
+        }
+
+        final Map<Integer, Row> rows = new LinkedHashMap<>();
+        boolean failNextClaim;
+        int failingMarkSent;
+
+        @Override
+        public synchronized int enqueue(OutboundEmail email, long now) {
+            Row row = new Row();
+            row.email = email;
+            row.nextAttempt = now;
+
+            int id = rows.size() + 1;
+            rows.put(id, row);
+            return id;
+        }
+
+        @Override
+        public synchronized List<Integer> enqueueAll(List<OutboundEmail> emails, long now) {
+            List<Integer> ids = new ArrayList<>();
+            for (OutboundEmail email : emails) {
+                ids.add(enqueue(email, now));
+            }
+            if (ids.size() > 1) {
+                for (int id : ids) {
+                    rows.get(id).batchId = ids.get(0);
+                }
+            }
+            return ids;
+        }
+
+        @Override
+        public synchronized List<OutboundEmail> claimDue(long now, int limit) {
+            if (failNextClaim) {
+                failNextClaim = false;
+                throw new IllegalArgumentException("Malformed outbox row");
+            }
+
+            List<OutboundEmail> due = new ArrayList<>();
+
+            for (Map.Entry<Integer, Row> entry : rows.entrySet()) {
+                Row row = entry.getValue();
+
+                if (due.size() < limit && row.status.equals("PENDING") && row.nextAttempt <= now) {
+                    row.status = "SENDING";
+                    due.add(new OutboundEmail(entry.getKey(), row.batchId, row.email.getRecipient(), row.email.getSubject(),
+                            row.email.getBody(), row.email.getContentType(), row.attempts));
+                }
+            }
+
+            return due;
+        }
+
+        @Override
+        public synchronized void markSent(int id) {
+            if (id == failingMarkSent) {
+                throw new IllegalStateException();
+            }
+            rows.get(id).status = "SENT";
+        }
+
+        @Override
+        public synchronized void reschedule(int id, int attempts, long nextAttempt, String error) {
+            Row row = rows.get(id);
+            row.status = "PENDING";
+            row.attempts = attempts;
+            row.nextAttempt = nextAttempt;
+            row.error = error;
+        }
+
+        @Override
+        public synchronized void deadLetter(int id, int attempts, String error) {
+            Row row = rows.get(id);
+            row.status = "DEAD";
+            row.attempts = attempts;
+            row.error = error;
+        }
+
+        @Override
+        public synchronized int releaseClaimed() {
+            int released = 0;
+
+            for (Row row : rows.values()) {
+                if (row.status.equals("SENDING")) {
+                    row.status = "PENDING";
+                    released++;
+                }
+            }
+
+            return released;
+        }
+    }
+
+    private SmtpStandIn smtp;
+    private SmtpEmailTransport transport;
+    private MemoryOutbox outbox;
+    private ScheduledExecutorService poller;
+    private AtomicLong clock;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtp = new SmtpStandIn();
+        outbox = new MemoryOutbox();
+        poller = Executors.newSingleThreadScheduledExecutor();
+        clock = new AtomicLong(1_000_000);
+        transport = new SmtpEmailTransport(smtp.session(), "proactive@localhost");
+        dispatcher = new EmailDispatcher(outbox, transport, poller, Executors.newFixedThreadPool(2), clock::get);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dispatcher.shutdown();
+        smtp.close();
+    }
+
+    private static OutboundEmail email(String to) {
+        return new OutboundEmail(to, "You Have Completed A Goal!", "Congratulations!", OutboundEmail.TEXT);
+    }
+
+    @Test
+    void nullOutbox() {
+        assertThrows(NullPointerException.class, () -> new EmailDispatcher(null, email -> { }, poller,
+                Runnable::run, clock::get));
+    }
+
+    @Test
+    void nullEmail() {
+        assertThrows(NullPointerException.class, () -> dispatcher.enqueue(null));
+    }
+
+    @Test
+    void invalidBackoff() {
+        assertThrows(IllegalArgumentException.class, () -> EmailDispatcher.backoffMillis(0));
+    }
+
+    @Test
+    void backoffDoublesUpToMaximum() {
+        assertEquals(EmailDispatcher.BASE_BACKOFF_MILLIS, EmailDispatcher.backoffMillis(1));
+        assertEquals(EmailDispatcher.BASE_BACKOFF_MILLIS * 4, EmailDispatcher.backoffMillis(3));
+        assertEquals(EmailDispatcher.MAX_BACKOFF_MILLIS, EmailDispatcher.backoffMillis(40));
+    }
+
+    @Test
+    void enqueueOnlyStores() {
+        assertTrue(dispatcher.enqueue(email("bwayne@localhost")));
+
+        assertEquals("PENDING", outbox.rows.get(1).status);
+        assertEquals(0, smtp.getConnections());
+    }
+
+    @Test
+    void dispatchDueDelivers() {
+        dispatcher.enqueue(email("bwayne@localhost"));
+        dispatcher.enqueue(email("ckent@localhost"));
+
+        assertEquals(2, dispatcher.dispatchDue());
+
+        assertEquals(2, smtp.getReceived().size());
+        assertEquals("SENT", outbox.rows.get(1).status);
+        assertEquals("SENT", outbox.rows.get(2).status);
+        assertEquals(2, dispatcher.getSent());
+    }
+
+    @Test
+    void deliveredMessageMatchesEmail() {
+        dispatcher.enqueue(email("bwayne@localhost"));
+        dispatcher.dispatchDue();
+
+        SmtpStandIn.Received received = smtp.getReceived().get(0);
+        assertEquals(List.of("<bwayne@localhost>"), received.recipients);
+        assertTrue(received.data.contains("Subject: You Have Completed A Goal!"));
+        assertTrue(received.data.contains("Congratulations!"));
+    }
+
+    @Test
+    void failureRetriedAfterBackoff() {
+        smtp.rejectNext(1);
+        dispatcher.enqueue(email("bwayne@localhost"));
+
+        dispatcher.dispatchDue();
+
+        MemoryOutbox.Row row = outbox.rows.get(1);
+        assertEquals("PENDING", row.status);
+        assertEquals(1, row.attempts);
+        assertEquals(clock.get() + EmailDispatcher.BASE_BACKOFF_MILLIS, row.nextAttempt);
+        assertNotNull(row.error);
+
+        assertEquals(0, dispatcher.dispatchDue());
+
+        clock.addAndGet(EmailDispatcher.BASE_BACKOFF_MILLIS);
+        assertEquals(1, dispatcher.dispatchDue());
+
+        assertEquals("SENT", row.status);
+        assertEquals(1, dispatcher.getRetried());
+        assertEquals(1, smtp.getReceived().size());
+    }
+
+    @Test
+    void deadLetteredAfterMaxAttempts() {
+        EmailDispatcher failing = new EmailDispatcher(outbox, email -> {
+            throw new MessagingException("Unreachable");
+        }, poller, Runnable::run, clock::get);
+
+        failing.enqueue(email("bwayne@localhost"));
+
+        for (int i = 0; i < EmailDispatcher.MAX_ATTEMPTS; i++) {
+            assertEquals(1, failing.dispatchDue());
+            clock.addAndGet(EmailDispatcher.MAX_BACKOFF_MILLIS);
+        }
+
+        MemoryOutbox.Row row = outbox.rows.get(1);
+        assertEquals("DEAD", row.status);
+        assertEquals(EmailDispatcher.MAX_ATTEMPTS, row.attempts);
+        assertEquals(0, failing.dispatchDue());
+        assertEquals(1, failing.getDeadLettered());
+    }
+
+    @Test
+    void nullEmailInBatch() {
+        List<OutboundEmail> emails = new ArrayList<>();
+        emails.add(null);
+
+        assertThrows(NullPointerException.class, () -> dispatcher.enqueueAll(emails));
+    }
+
+    @Test
+    void enqueueAllGroupsBatch() {
+        assertTrue(dispatcher.enqueueAll(List.of(email("bwayne@localhost"), email("ckent@localhost"))));
+
+        assertEquals(1, outbox.rows.get(1).batchId);
+        assertEquals(1, outbox.rows.get(2).batchId);
+    }
+
+    @Test
+    void connectionReusedBetweenSends() {
+        for (int i = 0; i < 3; i++) {
+            dispatcher.enqueue(email("bwayne@localhost"));
+            dispatcher.dispatchDue();
+        }
+
+        assertEquals(3, smtp.getReceived().size());
+        assertEquals(1, smtp.getConnections());
+        assertEquals(1, transport.getConnectionsOpened());
+    }
+
+    @Test
+    void batchDeliveredOverOneConnection() {
+        dispatcher.enqueueAll(List.of(email("bwayne@localhost"), email("ckent@localhost"),
+                email("dprince@localhost")));
+
+        assertEquals(3, dispatcher.dispatchDue());
+
+        assertEquals(3, smtp.getReceived().size());
+        assertEquals(1, smtp.getConnections());
+        assertEquals(3, dispatcher.getSent());
+    }
+
+    @Test
+    void batchStatsRecorded() {
+        assertNull(dispatcher.getLastBatch());
+
+        dispatcher.enqueueAll(List.of(email("bwayne@localhost"), email("ckent@localhost")));
+        dispatcher.dispatchDue();
+
+        EmailDispatcher.BatchStats stats = dispatcher.getLastBatch();
+        assertEquals(2, stats.getEmails());
+        assertEquals(0, stats.getFailed());
+        assertTrue(stats.getMillis() > 0);
+        assertTrue(stats.getThroughput() > 0);
+        assertEquals(1, dispatcher.getBatches());
+        assertTrue(dispatcher.getThroughput() > 0);
+    }
+
+    @Test
+    void failureInBatchRetriedAlone() {
+        smtp.rejectNext(1);
+        dispatcher.enqueueAll(List.of(email("bwayne@localhost"), email("ckent@localhost")));
+
+        dispatcher.dispatchDue();
+
+        assertEquals("PENDING", outbox.rows.get(1).status);
+        assertEquals("SENT", outbox.rows.get(2).status);
+        assertEquals(1, dispatcher.getLastBatch().getFailed());
+    }
+
+    @Test
+    void failedMarkSentLeavesBatch() {
+        outbox.failingMarkSent = 1;
+        dispatcher.enqueueAll(List.of(email("bwayne@localhost"), email("ckent@localhost")));
+
+        assertEquals(2, dispatcher.dispatchDue());
+
+        assertEquals("SENDING", outbox.rows.get(1).status);
+        assertEquals("SENT", outbox.rows.get(2).status);
+    }
+
+    @Test
+    void failedClaimKeepsPolling() throws InterruptedException {
+        outbox.failNextClaim = true;
+
+        dispatcher.start();
+        outbox.enqueue(email("bwayne@localhost"), clock.get()); //Not nudged, so only found by the next poll
+
+        assertTrue(smtp.awaitReceived(1, EmailDispatcher.POLL_MILLIS * 3));
+    }
+
+    @Test
+    void startedDispatcherSendsInBackground() throws InterruptedException {
+        outbox.enqueue(email("ckent@localhost"), clock.get());
+        outbox.claimDue(clock.get(), 1); //Left claimed by a previous run
+
+        dispatcher.start();
+        dispatcher.enqueue(email("bwayne@localhost"));
+
+        assertTrue(smtp.awaitReceived(2, 5000));
+    }
+}
@@ -0,0 +1,113 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for EmailTemplate.
+ *
+ * @author Samuel Scarfe
+ */
+class EmailTemplateTest {
+
+    @Test
+    void nullName() {
+        assertThrows(NullPointerException.class, () -> EmailTemplate.get(null));
+    }
+
+    @Test
+    void missingTemplate() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.get("missing.html"));
+    }
+
+    @Test
+    void unclosedPlaceholder() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("Hello {{name"));
+    }
+
+    @Test
+    void emptyPlaceholder() {
+        assertThrows(IllegalStateException.class, () -> EmailTemplate.compile("Hello {{ }}"));
+    }
+
+    @Test
+    void missingValue() {
+        EmailTemplate template = EmailTemplate.compile("Hello {{name}}");
+
+        assertThrows(IllegalArgumentException.class, () -> template.render(Map.of()));
+    }
+
+    @Test
+    void nullValues() {
+        EmailTemplate template = EmailTemplate.compile("Hello {{name}}");
+
+        assertThrows(NullPointerException.class, () -> template.render(null));
+    }
+
+    @Test
+    void noPlaceholders() {
+        assertEquals("Hello", EmailTemplate.compile("Hello").render(Map.of()));
+    }
+
+    @Test
+    void placeholdersRendered() {
+        EmailTemplate template = EmailTemplate.compile("{{greeting}}, {{ name }}! Bye {{name}}");
+
+        assertEquals(List.of("greeting", "name", "name"), template.getPlaceholders());
+        assertEquals("Hi, Bruce! Bye Bruce", template.render(Map.of("greeting", "Hi", "name", "Bruce")));
+    }
+
+    @Test
+    void consecutiveRendersIndependent() {
+        EmailTemplate template = EmailTemplate.compile("<p>{{name}}</p>");
+
+        assertEquals("<p>Bruce Wayne</p>", template.render(Map.of("name", "Bruce Wayne")));
+        assertEquals("<p>Clark</p>", template.render(Map.of("name", "Clark")));
+    }
+
+    @Test
+    void renderAppends() {
+        StringBuilder out = new StringBuilder("Subject: ");
+        EmailTemplate.compile("{{name}}").render(out, Map.of("name", "Bruce"));
+
+        assertEquals("Subject: Bruce", out.toString());
+    }
+
+    @Test
+    void includeInlined() {
+        EmailTemplate template = EmailTemplate.compile("{{>head.html}}<p>{{code}}</p>");
+
+        String body = template.render(Map.of("code", "ABC123"));
+        assertTrue(body.startsWith("<head>"));
+        assertTrue(body.contains("<style>"));
+        assertTrue(body.endsWith("</head><p>ABC123</p>"));
+        assertEquals(List.of("code"), template.getPlaceholders());
+    }
+
+    @Test
+    void templateParsedOnce() {
+        assertSame(EmailTemplate.get("verification.html"), EmailTemplate.get("verification.html"));
+    }
+
+    @Test
+    void htmlTemplateSharesStyle() {
+        String body = EmailTemplate.get("verification.html").render(Map.of("code", "ABC123"));
+
+        assertTrue(body.contains("border-radius:20px;"));
+        assertTrue(body.contains("<p><strong> ABC123 </strong></p>"));
+        assertFalse(body.contains("{{"));
+    }
+
+    @Test
+    void textTemplateMatchesOriginalBody() {
+        String body = EmailTemplate.get("goal_invite.txt").render(
+                Map.of("goal", "Run 5km", "inviter", "bwayne", "token", "XYZ"));
+
+        assertEquals("You have been invited to join the goal \"Run 5km\" by bwayne\n\n" +
+                "Please copy the following code into the Proactive App to join this goal!  XYZ", body);
+    }
+}
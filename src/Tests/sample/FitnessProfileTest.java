@@ -0,0 +1,73 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for FitnessProfile.
+ *
+ * @author Samuel Scarfe
+ */
+class FitnessProfileTest {
+
+    @Test
+    void zeroDays() {
+        assertThrows(IllegalArgumentException.class, () -> new FitnessProfile(0));
+    }
+
+    @Test
+    void nullUnit() {
+        FitnessProfile profile = new FitnessProfile(28);
+
+        assertThrows(NullPointerException.class, () -> profile.add(null, true, 10));
+        assertThrows(NullPointerException.class, () -> profile.getAverageWorkRate(null));
+    }
+
+    @Test
+    void nutrientUnit() {
+        FitnessProfile profile = new FitnessProfile(28);
+
+        assertThrows(IllegalArgumentException.class, () -> profile.add(Goal.Unit.PROTEIN, true, 10));
+    }
+
+    @Test
+    void empty() {
+        FitnessProfile profile = new FitnessProfile(28);
+
+        assertTrue(profile.getCompletedUnits().isEmpty());
+        assertEquals(0, profile.getAverageWorkRate(Goal.Unit.WALKING));
+        assertEquals(28, profile.getDays());
+    }
+
+    @Test
+    void onlyCompletedUnitsListed() {
+        FitnessProfile profile = new FitnessProfile(28);
+        profile.add(Goal.Unit.RUNNING, true, 280);
+        profile.add(Goal.Unit.WALKING, false, 56);
+        profile.add(Goal.Unit.EXERCISE, true, 840);
+
+        assertEquals(List.of(Goal.Unit.EXERCISE, Goal.Unit.RUNNING), profile.getCompletedUnits());
+    }
+
+    @Test
+    void averageWorkRateSpreadOverDays() {
+        FitnessProfile profile = new FitnessProfile(28);
+        profile.add(Goal.Unit.RUNNING, true, 280);
+        profile.add(Goal.Unit.WALKING, false, 56);
+
+        assertEquals(10, profile.getAverageWorkRate(Goal.Unit.RUNNING));
+        assertEquals(2, profile.getAverageWorkRate(Goal.Unit.WALKING));
+    }
+
+    @Test
+    void completedUnitsIndependent() {
+        FitnessProfile profile = new FitnessProfile(28);
+        profile.add(Goal.Unit.RUNNING, true, 280);
+        profile.getCompletedUnits().clear();
+
+        assertEquals(List.of(Goal.Unit.RUNNING), profile.getCompletedUnits());
+    }
+}
@@ -0,0 +1,117 @@
+package sample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for FoodCatalog.
+ *
+ * @author Samuel Scarfe
+ */
+
+class FoodCatalogTest {
+
+    private FoodCatalog catalog;
+
+    private static double[] values(double kcal) {
+        double[] values = new double[Nutrient.COUNT];
+        values[0] = kcal;
+        values[Nutrient.COUNT - 1] = kcal / 10;
+        return values;
+    }
+
+    @BeforeEach
+    void setUp() {
+        catalog = new FoodCatalog();
+        catalog.put(201, "Water chestnuts, raw", values(31));
+        catalog.put(205, "Water", values(0));
+        catalog.put(210, "Apple", values(52));
+    }
+
+    @Test
+    void nullName() {
+        assertThrows(NullPointerException.class, () -> catalog.put(1, null, values(1)));
+    }
+
+    @Test
+    void wrongLengthValues() {
+        assertThrows(IllegalArgumentException.class, () -> catalog.put(1, "Pear", new double[3]));
+    }
+
+    @Test
+    void negativeId() {
+        assertThrows(IllegalArgumentException.class, () -> catalog.put(-1, "Pear", values(1)));
+    }
+
+    @Test
+    void missingId() {
+        assertFalse(catalog.contains(202));
+        assertThrows(IllegalArgumentException.class, () -> catalog.get(202, Nutrient.KCAL));
+        assertThrows(IllegalArgumentException.class, () -> catalog.get(5000, Nutrient.KCAL));
+    }
+
+    @Test
+    void getIdIsExact() {
+        assertEquals(205, catalog.getId("Water"));
+        assertEquals(-1, catalog.getId("Wat"));
+    }
+
+    @Test
+    void findIdPrefersExactMatch() {
+        assertEquals(205, catalog.findId("Water"));
+    }
+
+    @Test
+    void findIdFallsBackToPrefix() {
+        assertEquals(201, catalog.findId("wat"));
+        assertEquals(210, catalog.findId("App"));
+        assertEquals(-1, catalog.findId("Banana"));
+    }
+
+    @Test
+    void columnsIndexedById() {
+        assertEquals(52, catalog.get(210, Nutrient.KCAL));
+        assertEquals(5.2, catalog.get(210, Nutrient.VITAMIN_C), 1e-9);
+        assertEquals("Apple", catalog.getName(210));
+    }
+
+    @Test
+    void addToScalesByQuantity() {
+        NutrientVector totals = new NutrientVector();
+
+        catalog.addTo(210, 50, totals);
+        catalog.addTo(201, 200, totals);
+
+        assertEquals(26 + 62, totals.get(Nutrient.KCAL), 1e-9);
+    }
+
+    @Test
+    void appendGrowsCatalog() {
+        catalog.put(4000, "Pear", values(57));
+
+        assertEquals(4000, catalog.getId("Pear"));
+        assertEquals(57, catalog.get(4000, Nutrient.KCAL));
+        assertEquals(52, catalog.get(210, Nutrient.KCAL));
+        assertEquals(4, catalog.size());
+    }
+
+    @Test
+    void namesAreSorted() {
+        catalog.put(211, "Banana", values(89));
+
+        assertEquals(List.of("Apple", "Banana", "Water", "Water chestnuts, raw"), catalog.getNames());
+    }
+
+    @Test
+    void nutritionItemMatchesColumns() {
+        NutritionItem item = catalog.getNutritionItem(210);
+
+        assertEquals("Apple", item.getName());
+        assertEquals(52, item.getKcal());
+        assertArrayEquals(values(52), item.getNutrients().toArray());
+    }
+}
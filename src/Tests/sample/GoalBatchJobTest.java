@@ -0,0 +1,192 @@
+package sample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for GoalBatchJob. Users are read from and goals saved to an in memory store.
+ *
+ * @author Samuel Scarfe
+ */
+class GoalBatchJobTest {
+
+    /**
+     * An in memory store of users, recording every batch of goals saved.
+     */
+    private static class MemoryStore implements GoalBatchJob.Store {
+        final TreeMap<Integer, User> users = new TreeMap<>();
+        final Map<Integer, ArrayList<SystemGoal>> saved = new TreeMap<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        int failingFrom = Integer.MAX_VALUE;
+
+        @Override
+        public int[] userIDBounds() {
+            return users.isEmpty() ? null : new int[] {users.firstKey(), users.lastKey()};
+        }
+
+        @Override
+        public Map<Integer, User> usersInRange(int from, int to) {
+            return new TreeMap<>(users.subMap(from, to));
+        }
+
+        @Override
+        public synchronized int save(Map<Integer, ArrayList<SystemGoal>> goals) throws SQLException {
+            for (int userID : goals.keySet()) {
+                if (userID >= failingFrom) {
+                    throw new SQLException("Database is locked");
+                }
+            }
+
+            saved.putAll(goals);
+            batchSizes.add(goals.size());
+
+            int written = 0;
+            for (ArrayList<SystemGoal> userGoals : goals.values()) {
+                written += userGoals.size();
+            }
+            return written;
+        }
+    }
+
+    private MemoryStore store;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        store = new MemoryStore();
+        pool = new ForkJoinPool(4);
+
+        for (int id = 1; id <= 100; id++) {
+            store.users.put(id, new User("Bruce", "Wayne", User.Sex.MALE, LocalDate.of(1998, 3, 9),
+                    "manbat" + id + "@gmail.com", "bwayne" + id));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Generates a single exercise goal for any user.
+     */
+    private static ArrayList<SystemGoal> generate(User user) {
+        ArrayList<SystemGoal> goals = new ArrayList<>();
+        goals.add(new SystemGoal(30, Goal.Unit.EXERCISE, LocalDate.now().plusDays(1), SystemGoal.UpdatePeriod.DAILY,
+                SystemGoal.Category.STAY));
+        return goals;
+    }
+
+    @Test
+    void nullStore() {
+        assertThrows(NullPointerException.class, () -> new GoalBatchJob(null, GoalBatchJobTest::generate, pool, 8));
+    }
+
+    @Test
+    void nullGenerator() {
+        assertThrows(NullPointerException.class, () -> new GoalBatchJob(store, null, pool, 8));
+    }
+
+    @Test
+    void nullPool() {
+        assertThrows(NullPointerException.class, () -> new GoalBatchJob(store, GoalBatchJobTest::generate, null, 8));
+    }
+
+    @Test
+    void zeroPartitionSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 0));
+    }
+
+    @Test
+    void everyUserSaved() throws SQLException {
+        GoalBatchJob.Result result = new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 8).run();
+
+        assertEquals(100, result.getUsers());
+        assertEquals(0, result.getFailed());
+        assertEquals(100, result.getWritten());
+        assertEquals(store.users.keySet(), store.saved.keySet());
+        assertTrue(result.getUsersPerSecond() > 0);
+    }
+
+    @Test
+    void savedOncePerPartition() throws SQLException {
+        GoalBatchJob.Result result = new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 8).run();
+
+        assertEquals(result.getPartitions(), store.batchSizes.size());
+        assertTrue(result.getPartitions() > 1);
+        for (int size : store.batchSizes) {
+            assertTrue(size <= 8);
+        }
+    }
+
+    @Test
+    void noUsers() throws SQLException {
+        store.users.clear();
+
+        GoalBatchJob.Result result = new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 8).run();
+
+        assertEquals(0, result.getUsers());
+        assertEquals(0, result.getPartitions());
+    }
+
+    @Test
+    void sparseUserIDs() throws SQLException {
+        store.users.clear();
+        store.users.put(3, new User("Bruce", "Wayne", User.Sex.MALE, LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com", "bwayne1998"));
+        store.users.put(5000, new User("Clark", "Kent", User.Sex.MALE, LocalDate.of(1998, 3, 9),
+                "clark@gmail.com", "ckent1998"));
+
+        GoalBatchJob.Result result = new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 64).run();
+
+        assertEquals(2, result.getUsers());
+        assertEquals(List.of(3, 5000), new ArrayList<>(store.saved.keySet()));
+    }
+
+    @Test
+    void failedUserSkipped() throws SQLException {
+        GoalBatchJob job = new GoalBatchJob(store, user -> {
+            if (user.getUsername().equals("bwayne42")) {
+                throw new IllegalStateException();
+            }
+            return generate(user);
+        }, pool, 8);
+
+        GoalBatchJob.Result result = job.run();
+
+        assertEquals(99, result.getUsers());
+        assertEquals(1, result.getFailed());
+        assertFalse(store.saved.containsKey(42));
+    }
+
+    @Test
+    void failedSaveCounted() throws SQLException {
+        store.failingFrom = 97;
+
+        GoalBatchJob.Result result = new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 8).run();
+
+        assertEquals(100, result.getUsers() + result.getFailed());
+        assertTrue(result.getFailed() >= 4);
+        assertFalse(store.saved.containsKey(100));
+    }
+
+    @Test
+    void rerunCountsAfresh() throws SQLException {
+        GoalBatchJob job = new GoalBatchJob(store, GoalBatchJobTest::generate, pool, 8);
+        job.run();
+
+        assertEquals(100, job.run().getUsers());
+    }
+}
@@ -0,0 +1,81 @@
+package sample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for GroupSummary.
+ *
+ * @author Samuel Scarfe
+ */
+
+class GroupSummaryTest {
+
+    private GroupSummary summary;
+
+    @BeforeEach
+    void setUp() {
+        List<GroupSummary.Member> members = new ArrayList<>();
+        members.add(new GroupSummary.Member(1, "bwayne1998", "Owner"));
+        members.add(new GroupSummary.Member(2, "ckent", "Admin"));
+        members.add(new GroupSummary.Member(3, "dprince", "Member"));
+        members.add(new GroupSummary.Member(4, "pparker", "Member"));
+
+        summary = new GroupSummary(7, "Justice", "Admin", members, new ArrayList<>());
+    }
+
+    @Test
+    void nullName() {
+        assertThrows(NullPointerException.class,
+                () -> new GroupSummary(1, null, "Owner", new ArrayList<>(), new ArrayList<>()));
+    }
+
+    @Test
+    void nullMembers() {
+        assertThrows(NullPointerException.class,
+                () -> new GroupSummary(1, "Justice", "Owner", null, new ArrayList<>()));
+    }
+
+    @Test
+    void nullGroupGoals() {
+        assertThrows(NullPointerException.class,
+                () -> new GroupSummary(1, "Justice", "Owner", new ArrayList<>(), null));
+    }
+
+    @Test
+    void nullMemberUsername() {
+        assertThrows(NullPointerException.class, () -> new GroupSummary.Member(1, null, "Owner"));
+    }
+
+    @Test
+    void nullMemberRole() {
+        assertThrows(NullPointerException.class, () -> new GroupSummary.Member(1, "bwayne1998", null));
+    }
+
+    @Test
+    void getters() {
+        assertEquals(7, summary.getGroupID());
+        assertEquals("Justice", summary.getName());
+        assertEquals("Admin", summary.getRole());
+        assertEquals(4, summary.getMembers().size());
+    }
+
+    @Test
+    void membersFilteredByRole() {
+        assertEquals("bwayne1998", summary.getMembers("Owner").get(0).getUsername());
+        assertEquals(1, summary.getMembers("Admin").size());
+        assertEquals(2, summary.getMembers("Member").size());
+        assertEquals(4, summary.getMembers("Member").get(1).getUserID());
+    }
+
+    @Test
+    void membersUnmodifiable() {
+        assertThrows(UnsupportedOperationException.class,
+                () -> summary.getMembers().add(new GroupSummary.Member(5, "bbanner", "Member")));
+    }
+}
@@ -39,6 +39,26 @@ class IndividualGoalTest {
         assertDoesNotThrow(() -> new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now()));
     }
 
+    @Test
+    void unsavedGoalId() {
+        assertEquals(0, new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now()).getId());
+    }
+
+    @Test
+    void invalidSetId() {
+        IndividualGoal goal = new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now());
+
+        assertThrows(IllegalArgumentException.class, () -> goal.setId(0));
+    }
+
+    @Test
+    void successfulSetId() {
+        IndividualGoal goal = new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now());
+        goal.setId(42);
+
+        assertEquals(42, goal.getId());
+    }
+
     @Test
     void negativeProgress() {
         assertThrows(IllegalArgumentException.class, () -> new IndividualGoal(1, Goal.Unit.PROTEIN, LocalDate.now(), -1));
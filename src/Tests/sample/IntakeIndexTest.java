@@ -0,0 +1,80 @@
+package sample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for IntakeIndex.
+ *
+ * @author Samuel Scarfe
+ */
+
+class IntakeIndexTest {
+
+    private IntakeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new IntakeIndex.Builder()
+                .add(Goal.Unit.CALORIES, User.Sex.MALE, 19, 64, 2500)
+                .add(Goal.Unit.CALORIES, User.Sex.MALE, 1, 1, 765)
+                .add(Goal.Unit.CALORIES, User.Sex.MALE, 2, 3, 1088)
+                .add(Goal.Unit.CALORIES, User.Sex.FEMALE, 19, 64, 2000)
+                .add(Goal.Unit.PROTEIN, User.Sex.MALE, 19, 50, 55.5f)
+                .build();
+    }
+
+    @Test
+    void nullUnit() {
+        assertThrows(NullPointerException.class, () -> index.get(null, 30, "Male"));
+    }
+
+    @Test
+    void negativeAge() {
+        assertThrows(IllegalArgumentException.class, () -> index.get(Goal.Unit.CALORIES, -1, "Male"));
+    }
+
+    @Test
+    void nullSex() {
+        assertThrows(NullPointerException.class, () -> index.get(Goal.Unit.CALORIES, 30, null));
+    }
+
+    @Test
+    void invalidBand() {
+        assertThrows(IllegalArgumentException.class, () -> new IntakeIndex.Builder()
+                .add(Goal.Unit.CALORIES, User.Sex.MALE, 10, 5, 100));
+    }
+
+    @Test
+    void size() {
+        assertEquals(5, index.size());
+        assertEquals(0, IntakeIndex.EMPTY.size());
+    }
+
+    @Test
+    void bandBoundaries() {
+        assertEquals(2500, index.get(Goal.Unit.CALORIES, 19, "Male"));
+        assertEquals(2500, index.get(Goal.Unit.CALORIES, 40, "Male"));
+        assertEquals(2500, index.get(Goal.Unit.CALORIES, 64, "Male"));
+        assertEquals(765, index.get(Goal.Unit.CALORIES, 1, "Male"));
+        assertEquals(1088, index.get(Goal.Unit.CALORIES, 3, "Male"));
+    }
+
+    @Test
+    void keyedBySex() {
+        assertEquals(2000, index.get(Goal.Unit.CALORIES, 30, "Female"));
+        assertEquals(55.5f, index.get(Goal.Unit.PROTEIN, 30, "Male"));
+    }
+
+    @Test
+    void noBand() {
+        assertEquals(-1, index.get(Goal.Unit.CALORIES, 0, "Male"));
+        assertEquals(-1, index.get(Goal.Unit.CALORIES, 10, "Male"));
+        assertEquals(-1, index.get(Goal.Unit.CALORIES, 65, "Male"));
+        assertEquals(-1, index.get(Goal.Unit.PROTEIN, 30, "Female"));
+        assertEquals(-1, index.get(Goal.Unit.IRON, 30, "Male"));
+        assertEquals(-1, index.get(Goal.Unit.CALORIES, 30, "Other"));
+    }
+}
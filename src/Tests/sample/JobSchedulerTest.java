@@ -0,0 +1,230 @@
+package sample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for JobScheduler. Jobs run on a real executor against a clock the tests control.
+ *
+ * @author Samuel Scarfe
+ */
+class JobSchedulerTest {
+
+    private ScheduledExecutorService executor;
+    private TestClock clock;
+    private JobScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+        clock = new TestClock(LocalDateTime.of(2021, 3, 9, 12, 0));
+        scheduler = new JobScheduler(executor, clock, new Random(42));
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void nullExecutor() {
+        assertThrows(NullPointerException.class, () -> new JobScheduler(null, clock, new Random()));
+    }
+
+    @Test
+    void nullClock() {
+        assertThrows(NullPointerException.class, () -> new JobScheduler(executor, null, new Random()));
+    }
+
+    @Test
+    void nullRandom() {
+        assertThrows(NullPointerException.class, () -> new JobScheduler(executor, clock, null));
+    }
+
+    @Test
+    void nullName() {
+        assertThrows(NullPointerException.class,
+                () -> scheduler.every(null, Duration.ofMinutes(1), Duration.ZERO, () -> 0));
+    }
+
+    @Test
+    void nullTask() {
+        assertThrows(NullPointerException.class,
+                () -> scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, null));
+    }
+
+    @Test
+    void nullTime() {
+        assertThrows(NullPointerException.class, () -> scheduler.daily("rollover", null, Duration.ZERO, () -> 0));
+    }
+
+    @Test
+    void zeroPeriod() {
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.every("sweep", Duration.ZERO, Duration.ZERO, () -> 0));
+    }
+
+    @Test
+    void negativeJitter() {
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.every("sweep", Duration.ofMinutes(1), Duration.ofMillis(-1), () -> 0));
+    }
+
+    @Test
+    void duplicateName() {
+        scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, () -> 0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler.daily("sweep", LocalTime.MIDNIGHT, Duration.ZERO, () -> 0));
+    }
+
+    @Test
+    void unknownJob() {
+        assertThrows(IllegalArgumentException.class, () -> scheduler.runNow("missing"));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.cancel("missing"));
+    }
+
+    @Test
+    void jobsListedInRegistrationOrder() {
+        scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, () -> 0);
+        scheduler.daily("rollover", LocalTime.MIDNIGHT, Duration.ZERO, () -> 0);
+
+        assertEquals(List.of("sweep", "rollover"), scheduler.getJobNames());
+    }
+
+    @Test
+    void runNowRecorded() {
+        scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, () -> 7);
+
+        JobScheduler.Run run = scheduler.runNow("sweep");
+
+        assertTrue(run.isSucceeded());
+        assertEquals(7, run.getAffected());
+        assertEquals("sweep", run.getJob());
+        assertEquals(LocalDateTime.of(2021, 3, 9, 12, 0), run.getStarted());
+        assertEquals(List.of(run), scheduler.getHistory());
+    }
+
+    @Test
+    void failureRecorded() {
+        scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, () -> {
+            throw new SQLException("database is locked");
+        });
+
+        JobScheduler.Run run = scheduler.runNow("sweep");
+
+        assertFalse(run.isSucceeded());
+        assertEquals(0, run.getAffected());
+        assertTrue(run.getError().contains("database is locked"));
+    }
+
+    @Test
+    void historyPerJob() {
+        scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, () -> 1);
+        scheduler.daily("rollover", LocalTime.MIDNIGHT, Duration.ZERO, () -> 2);
+
+        scheduler.runNow("sweep");
+        scheduler.runNow("rollover");
+        scheduler.runNow("sweep");
+
+        assertEquals(3, scheduler.getHistory().size());
+        assertEquals(2, scheduler.getHistory("sweep").size());
+        assertEquals(2, scheduler.getHistory("rollover").get(0).getAffected());
+    }
+
+    @Test
+    void historyBounded() {
+        scheduler.every("sweep", Duration.ofMinutes(1), Duration.ZERO, () -> 1);
+
+        for (int i = 0; i < JobScheduler.HISTORY_SIZE + 5; i++) {
+            scheduler.runNow("sweep");
+        }
+
+        assertEquals(JobScheduler.HISTORY_SIZE, scheduler.getHistory().size());
+    }
+
+    @Test
+    void intervalJobRunsRepeatedly() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(3);
+        scheduler.every("sweep", Duration.ofMillis(5), Duration.ofMillis(5), () -> {
+            runs.countDown();
+            return 0;
+        });
+        scheduler.start();
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failedJobStillRescheduled() throws InterruptedException {
+        CountDownLatch runs = new CountDownLatch(2);
+        scheduler.every("sweep", Duration.ofMillis(5), Duration.ZERO, () -> {
+            runs.countDown();
+            throw new IllegalStateException();
+        });
+        scheduler.start();
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void registeredAfterStartScheduled() throws InterruptedException {
+        scheduler.start();
+
+        CountDownLatch runs = new CountDownLatch(1);
+        scheduler.every("sweep", Duration.ofMillis(5), Duration.ZERO, () -> {
+            runs.countDown();
+            return 0;
+        });
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledJobStops() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        scheduler.every("sweep", Duration.ofMillis(5), Duration.ZERO, runs::incrementAndGet);
+        scheduler.start();
+        scheduler.cancel("sweep");
+
+        Thread.sleep(50);
+
+        assertEquals(0, runs.get());
+        assertTrue(scheduler.getJobNames().isEmpty());
+    }
+
+    @Test
+    void millisUntilTimeOfDay() {
+        assertEquals(12 * 3_600_000, scheduler.millisUntil(LocalTime.MIDNIGHT));
+        assertEquals(3_600_000, scheduler.millisUntil(LocalTime.of(13, 0)));
+
+        //Already passed today, so tomorrow
+        assertEquals(23 * 3_600_000, scheduler.millisUntil(LocalTime.of(11, 0)));
+
+        //Exactly now, so a full day
+        assertEquals(24 * 3_600_000, scheduler.millisUntil(LocalTime.NOON));
+    }
+
+    @Test
+    void millisUntilAcrossDaylightSaving() {
+        //Clocks go forward an hour on the 28th
+        clock.set(LocalDateTime.of(2021, 3, 28, 0, 0));
+
+        assertEquals(23 * 3_600_000, scheduler.millisUntil(LocalTime.MIDNIGHT));
+    }
+}
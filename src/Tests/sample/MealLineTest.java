@@ -0,0 +1,38 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for MealLine.
+ *
+ * @author Samuel Scarfe
+ */
+
+class MealLineTest {
+
+    @Test
+    void nullMeal() {
+        assertThrows(NullPointerException.class, () -> new MealLine(null, "Bread", 1));
+    }
+
+    @Test
+    void nullFood() {
+        assertThrows(NullPointerException.class, () -> new MealLine("Breakfast", null, 1));
+    }
+
+    @Test
+    void zeroQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> new MealLine("Breakfast", "Bread", 0));
+    }
+
+    @Test
+    void getters() {
+        MealLine line = new MealLine("Breakfast", "Bread", 50);
+
+        assertEquals("Breakfast", line.getMeal());
+        assertEquals("Bread", line.getFood());
+        assertEquals(50, line.getQuantity());
+    }
+}
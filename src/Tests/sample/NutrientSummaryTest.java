@@ -0,0 +1,74 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for NutrientSummary.
+ *
+ * @author Samuel Scarfe
+ */
+
+class NutrientSummaryTest {
+
+    private static final LocalDate EARLIEST = LocalDate.of(2021, 5, 5);
+    private static final LocalDate LATEST = LocalDate.of(2021, 5, 11);
+
+    private static double[] totals() {
+        double[] totals = new double[NutrientSummary.NUTRIENTS];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = i;
+        }
+        return totals;
+    }
+
+    @Test
+    void nullEarliest() {
+        assertThrows(NullPointerException.class, () -> new NutrientSummary(null, LATEST));
+    }
+
+    @Test
+    void latestBeforeEarliest() {
+        assertThrows(IllegalArgumentException.class, () -> new NutrientSummary(LATEST, EARLIEST));
+    }
+
+    @Test
+    void coversEveryDayInclusive() {
+        assertEquals(7, new NutrientSummary(EARLIEST, LATEST).getDays());
+    }
+
+    @Test
+    void dateOutOfRange() {
+        NutrientSummary summary = new NutrientSummary(EARLIEST, LATEST);
+
+        assertThrows(IllegalArgumentException.class, () -> summary.setDay(LATEST.plusDays(1), totals()));
+    }
+
+    @Test
+    void wrongNumberOfTotals() {
+        NutrientSummary summary = new NutrientSummary(EARLIEST, LATEST);
+
+        assertThrows(IllegalArgumentException.class, () -> summary.setDay(EARLIEST, new double[3]));
+    }
+
+    @Test
+    void onlyLoggedDaysAreLabelled() {
+        NutrientSummary summary = new NutrientSummary(EARLIEST, LATEST);
+        summary.setDay(LATEST, totals());
+
+        assertTrue(summary.isLogged(LATEST));
+        assertFalse(summary.isLogged(EARLIEST));
+        assertEquals(4.0, summary.get(LATEST, 4));
+
+        HashMap<String, HashMap<String, Double>> macros = summary.getMacroNutrients();
+        assertEquals(1, macros.size());
+        assertEquals(0.0, macros.get("2021-05-11").get("kcal"));
+        assertEquals(7, macros.get("2021-05-11").size());
+        assertEquals(11, summary.getMinerals().get("2021-05-11").size());
+        assertEquals(9, summary.getVitamins().get("2021-05-11").size());
+    }
+}
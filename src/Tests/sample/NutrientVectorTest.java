@@ -0,0 +1,92 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for NutrientVector.
+ *
+ * @author Samuel Scarfe
+ */
+
+class NutrientVectorTest {
+
+    @Test
+    void nullValues() {
+        assertThrows(NullPointerException.class, () -> new NutrientVector((double[]) null));
+    }
+
+    @Test
+    void wrongLengthValues() {
+        assertThrows(IllegalArgumentException.class, () -> new NutrientVector(new double[3]));
+    }
+
+    @Test
+    void startsAtZero() {
+        NutrientVector vector = new NutrientVector();
+
+        for (Nutrient nutrient : Nutrient.values()) {
+            assertEquals(0, vector.get(nutrient));
+        }
+    }
+
+    @Test
+    void valuesAreCopied() {
+        double[] values = new double[Nutrient.COUNT];
+        NutrientVector vector = new NutrientVector(values);
+
+        values[0] = 5;
+
+        assertEquals(0, vector.get(Nutrient.KCAL));
+    }
+
+    @Test
+    void addScaledInPlace() {
+        NutrientVector totals = new NutrientVector();
+        NutrientVector item = new NutrientVector();
+        item.set(Nutrient.KCAL, 100);
+        item.set(Nutrient.VITAMIN_C, 4);
+
+        assertSame(totals, totals.addScaled(item, 0.5));
+        totals.addScaled(item, 2);
+
+        assertEquals(250, totals.get(Nutrient.KCAL), 1e-9);
+        assertEquals(10, totals.get(Nutrient.VITAMIN_C), 1e-9);
+        assertEquals(100, item.get(Nutrient.KCAL));
+    }
+
+    @Test
+    void sumAddsEveryVector() {
+        NutrientVector a = new NutrientVector();
+        NutrientVector b = new NutrientVector();
+        a.set(Nutrient.IRON, 1.5);
+        b.set(Nutrient.IRON, 2);
+        b.set(Nutrient.ZINC, 3);
+
+        NutrientVector totals = new NutrientVector().sum(List.of(a, b));
+
+        assertEquals(3.5, totals.get(Nutrient.IRON), 1e-9);
+        assertEquals(3, totals.get(Nutrient.ZINC), 1e-9);
+    }
+
+    @Test
+    void clearResets() {
+        NutrientVector vector = new NutrientVector();
+        vector.add(Nutrient.FIBRE, 2);
+
+        vector.clear();
+
+        assertEquals(new NutrientVector(), vector);
+    }
+
+    @Test
+    void nutrientIndexMatchesOrdinal() {
+        for (Nutrient nutrient : Nutrient.values()) {
+            assertSame(nutrient, Nutrient.of(nutrient.ordinal()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Nutrient.of(Nutrient.COUNT));
+    }
+}
@@ -517,4 +517,62 @@ class NutritionItemTest {
 
         assertEquals(1, bread.getVitCMg());
     }
-}
\ No newline at end of file
+
+    @Test
+    void nutrientsInColumnOrder() {
+        NutritionItem bread = new NutritionItem("Bread", 1, 2, 3, 4, 5, 6, 7,
+                8, 9, 10, 11, 12, 13, 14,
+                15, 16, 17, 18, 19, 20, 21, 22,
+                23, 24, 25, 26, 27);
+
+        for (Nutrient nutrient : Nutrient.values()) {
+            assertEquals(nutrient.ordinal() + 1, bread.get(nutrient));
+        }
+        assertEquals(3, bread.getFatG());
+        assertEquals(27, bread.getVitCMg());
+    }
+
+    @Test
+    void vectorConstructorMatchesFields() {
+        NutritionItem bread = new NutritionItem("Bread", 1, 2, 3, 4, 5, 6, 7,
+                8, 9, 10, 11, 12, 13, 14,
+                15, 16, 17, 18, 19, 20, 21, 22,
+                23, 24, 25, 26, 27);
+
+        NutritionItem copy = new NutritionItem("Bread", bread.getNutrients());
+
+        assertEquals(bread.getNutrients(), copy.getNutrients());
+        assertEquals(bread.getMinerals(), copy.getMinerals());
+    }
+
+    @Test
+    void addToScalesPerHundredGrams() {
+        NutritionItem bread = new NutritionItem("Bread", 200, 10, 1, 1, 1, 1, 1);
+        NutrientVector totals = new NutrientVector();
+
+        bread.addTo(totals, 50);
+        bread.addTo(totals, 25);
+
+        assertEquals(150, totals.get(Nutrient.KCAL), 1e-9);
+        assertEquals(7.5, totals.get(Nutrient.PROTEIN), 1e-9);
+    }
+
+    @Test
+    void getNutrientsIsCopy() {
+        NutritionItem bread = new NutritionItem("Bread", 200, 10, 1, 1, 1, 1, 1);
+
+        bread.getNutrients().set(Nutrient.KCAL, 0);
+
+        assertEquals(200, bread.get(Nutrient.KCAL));
+    }
+
+    @Test
+    void groupedViews() {
+        NutritionItem bread = new NutritionItem("Bread", 1, 1, 1, 1, 1, 1, 1);
+
+        assertEquals(7, bread.getMacroNutrients().size());
+        assertEquals(11, bread.getMinerals().size());
+        assertEquals(9, bread.getVitamins().size());
+        assertEquals(1, bread.getMacroNutrients().get("Cholestrol (mg)"));
+    }
+}
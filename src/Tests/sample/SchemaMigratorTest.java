@@ -0,0 +1,72 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for SchemaMigrator.
+ *
+ * @author Samuel Scarfe
+ */
+
+class SchemaMigratorTest {
+
+    private static Connection emptySchema() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE meal (user_id, date_of, food_id, quantity)");
+            StringBuilder food = new StringBuilder("CREATE TABLE food (id");
+            for (Nutrient nutrient : Nutrient.values()) {
+                food.append(", ").append(nutrient.getColumn());
+            }
+            stmt.execute(food.append(")").toString());
+            stmt.execute("CREATE TABLE activity (user_id, date_of, exercise_id, duration)");
+            stmt.execute("CREATE TABLE exercise (id, burn_rate)");
+            stmt.execute("CREATE TABLE weight_entry (entry_id, user_id, date_of, weight)");
+            stmt.execute("CREATE TABLE goal (user_id, target, unit, progress, end_date)");
+            stmt.execute("CREATE TABLE system_goal (id, user_id, unit, end_date, update_period, category)");
+            stmt.execute("CREATE TABLE group_membership (User_Id, Group_Id)");
+            stmt.execute("CREATE TABLE regTokens (tokenVal, sent_time)");
+            stmt.execute("CREATE TABLE passwordRecoveryCodes (userID, recoveryCode, expiryTime)");
+            stmt.execute("CREATE TABLE groupInvTable (tokenVal, userID, expiry_time, groupID)");
+        }
+
+        return connection;
+    }
+
+    @Test
+    void nullConnection() {
+        assertThrows(NullPointerException.class, () -> new SchemaMigrator(null));
+    }
+
+    @Test
+    void missingScript() {
+        assertThrows(SQLException.class, () -> SchemaMigrator.readStatements("/Resources/Migrations/missing.sql"));
+    }
+
+    @Test
+    void scriptCommentsAreStripped() throws SQLException {
+        for (String sql : SchemaMigrator.readStatements(Migration.V1.getScriptPath())) {
+            assertTrue(sql.startsWith("CREATE INDEX"));
+        }
+    }
+
+    @Test
+    void migrateAppliesEachMigrationOnce() throws SQLException {
+        try (Connection connection = emptySchema()) {
+            SchemaMigrator migrator = new SchemaMigrator(connection);
+
+            assertEquals(0, migrator.getCurrentVersion());
+            assertEquals(Migration.values().length, migrator.migrate());
+            assertEquals(Migration.values().length, migrator.getCurrentVersion());
+            assertEquals(0, migrator.migrate());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package sample;
+
+import javax.mail.Session;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A minimal, in process SMTP server for testing email delivery. Accepts every message on the loopback interface and
+ * records it, and can be told to reject the next few messages with a temporary failure.
+ *
+ * @author Samuel Scarfe
+ */
+
+class SmtpStandIn implements AutoCloseable {
+
+    /**
+     * A message accepted by the stand in.
+     */
+    static class Received {
+        final List<String> recipients;
+        final String data;
+
+        Received(List<String> recipients, String data) {
+            this.recipients = recipients;
+            this.data = data;
+        }
+    }
+
+    private final ServerSocket server;
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger rejections = new AtomicInteger();
+
+    /**
+     * Starts a stand in listening on a free loopback port.
+     *
+     * @throws IOException if no port could be bound.
+     */
+    SmtpStandIn() throws IOException {
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+        Thread acceptor = new Thread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    connections.incrementAndGet();
+
+                    Thread handler = new Thread(() -> handle(socket), "smtp-stand-in-session");
+                    handler.setDaemon(true);
+                    handler.start();
+                }
+                catch (IOException e) {
+                    //Closed
+                }
+            }
+        }, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Creates a session delivering to this stand in.
+     *
+     * @return a new Session.
+     */
+    Session session() {
+        Properties props = new Properties();
+        props.setProperty("mail.smtp.host", server.getInetAddress().getHostAddress());
+        props.setProperty("mail.smtp.port", String.valueOf(server.getLocalPort()));
+        props.setProperty("mail.smtp.connectiontimeout", "5000");
+        props.setProperty("mail.smtp.timeout", "5000");
+
+        return Session.getInstance(props);
+    }
+
+    /**
+     * Rejects the next messages with a temporary failure.
+     *
+     * @param count the number of messages to reject.
+     */
+    void rejectNext(int count) {
+        rejections.set(count);
+    }
+
+    List<Received> getReceived() {
+        return received;
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Waits until at least a number of messages have been accepted.
+     *
+     * @param count   the number of messages.
+     * @param timeout the longest time to wait in milliseconds.
+     * @return true if the messages were accepted in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    boolean awaitReceived(int count, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        while (received.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Private helper method to hold a single SMTP conversation.
+     *
+     * @param socket the client's connection.
+     */
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            reply(out, "220 stand-in ESMTP");
+
+            List<String> recipients = new ArrayList<>();
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                String command = line.toUpperCase(Locale.ROOT);
+
+                if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                    reply(out, "250 stand-in");
+                }
+                else if (command.startsWith("MAIL")) {
+                    if (rejections.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                        reply(out, "451 4.3.0 Try again later");
+                    }
+                    else {
+                        recipients = new ArrayList<>();
+                        reply(out, "250 OK");
+                    }
+                }
+                else if (command.startsWith("RCPT")) {
+                    recipients.add(line.substring(line.indexOf(':') + 1).trim());
+                    reply(out, "250 OK");
+                }
+                else if (command.startsWith("DATA")) {
+                    reply(out, "354 End data with <CR><LF>.<CR><LF>");
+
+                    StringBuilder data = new StringBuilder();
+                    while ((line = in.readLine()) != null && !line.equals(".")) {
+                        data.append(line).append('\n');
+                    }
+
+                    received.add(new Received(recipients, data.toString()));
+                    reply(out, "250 OK");
+                }
+                else if (command.startsWith("RSET") || command.startsWith("NOOP")) {
+                    reply(out, "250 OK");
+                }
+                else if (command.startsWith("QUIT")) {
+                    reply(out, "221 Bye");
+                    return;
+                }
+                else {
+                    reply(out, "502 Not implemented");
+                }
+            }
+        }
+        catch (IOException e) {
+            //Client went away
+        }
+    }
+
+    private static void reply(Writer out, String line) throws IOException {
+        out.write(line + "\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,148 @@
+package sample;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for SystemGoalCache. Goals are generated by a counting stand in for the GoalGenerator, against a clock
+ * the tests control.
+ *
+ * @author Samuel Scarfe
+ */
+class SystemGoalCacheTest {
+
+    private final AtomicInteger generated = new AtomicInteger();
+    private TestClock clock;
+    private SystemGoalCache cache;
+    private User batman;
+    private User superman;
+
+    @BeforeEach
+    void setUp() {
+        clock = new TestClock(LocalDateTime.of(2021, 3, 9, 12, 0));
+        cache = new SystemGoalCache(user -> {
+            generated.incrementAndGet();
+            ArrayList<SystemGoal> goals = new ArrayList<>();
+            goals.add(new SystemGoal(30, Goal.Unit.EXERCISE, LocalDate.now(clock).plusDays(1),
+                    SystemGoal.UpdatePeriod.DAILY, SystemGoal.Category.STAY));
+            return goals;
+        }, clock);
+
+        batman = new User("Bruce", "Wayne", User.Sex.MALE, LocalDate.of(1998, 3, 9), "manbat@gmail.com",
+                "bwayne1998");
+        superman = new User("Clark", "Kent", User.Sex.MALE, LocalDate.of(1998, 3, 9), "clark@gmail.com",
+                "ckent1998");
+    }
+
+    @Test
+    void nullSource() {
+        assertThrows(NullPointerException.class, () -> new SystemGoalCache(null, clock));
+    }
+
+    @Test
+    void nullClock() {
+        assertThrows(NullPointerException.class, () -> new SystemGoalCache(user -> new ArrayList<>(), null));
+    }
+
+    @Test
+    void nullUser() {
+        assertThrows(NullPointerException.class, () -> cache.get(null));
+    }
+
+    @Test
+    void nullForget() {
+        assertThrows(NullPointerException.class, () -> cache.forget(null));
+    }
+
+    @Test
+    void generatedOncePerDay() {
+        ArrayList<SystemGoal> first = cache.get(batman);
+        ArrayList<SystemGoal> second = cache.get(batman);
+
+        assertEquals(1, generated.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    void returnsIndependentLists() {
+        cache.get(batman).clear();
+
+        assertEquals(1, cache.get(batman).size());
+    }
+
+    @Test
+    void keyedByUser() {
+        cache.get(batman);
+        cache.get(superman);
+
+        assertEquals(2, generated.get());
+    }
+
+    @Test
+    void keyedByDate() {
+        cache.get(batman);
+        clock.set(LocalDateTime.of(2021, 3, 10, 0, 1));
+        ArrayList<SystemGoal> goals = cache.get(batman);
+
+        assertEquals(2, generated.get());
+        assertEquals(LocalDate.of(2021, 3, 11), goals.get(0).getEndDate());
+    }
+
+    @Test
+    void rolloverPrecomputes() {
+        cache.get(batman);
+        cache.get(superman);
+        clock.set(LocalDateTime.of(2021, 3, 10, 0, 0));
+
+        assertEquals(2, cache.rollover());
+        assertEquals(2, cache.getPrecomputed());
+
+        cache.get(batman);
+        assertEquals(4, generated.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void rolloverSkipsGenerated() {
+        cache.get(batman);
+
+        assertEquals(0, cache.rollover());
+        assertEquals(1, generated.get());
+    }
+
+    @Test
+    void forgottenUserNotPrecomputed() {
+        cache.get(batman);
+        cache.forget(batman.getUsername());
+        clock.set(LocalDateTime.of(2021, 3, 10, 0, 0));
+
+        assertEquals(0, cache.rollover());
+
+        cache.get(batman);
+        assertEquals(2, generated.get());
+    }
+
+    @Test
+    void failedGenerationNotCached() {
+        AtomicInteger attempts = new AtomicInteger();
+        SystemGoalCache failing = new SystemGoalCache(user -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException();
+            }
+            return new ArrayList<>();
+        }, clock);
+
+        assertThrows(IllegalStateException.class, () -> failing.get(batman));
+        assertDoesNotThrow(() -> failing.get(batman));
+        assertEquals(2, attempts.get());
+    }
+}
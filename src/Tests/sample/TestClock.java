@@ -0,0 +1,58 @@
+package sample;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * A clock in the Europe/London zone which only moves when told to, shared by the tests of classes which take a Clock.
+ *
+ * @author agent
+ */
+class TestClock extends Clock {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/London");
+
+    private volatile Instant instant;
+
+    /**
+     * Constructs a TestClock set to a local time.
+     *
+     * @param time the local time the clock starts at.
+     */
+    TestClock(LocalDateTime time) {
+        set(time);
+    }
+
+    /**
+     * Moves the clock to a local time.
+     *
+     * @param time the local time to move to.
+     */
+    void set(LocalDateTime time) {
+        instant = time.atZone(ZONE).toInstant();
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZONE;
+    }
+
+    /**
+     * Returns a clock fixed at this clock's current instant in another zone. The returned clock does not move when
+     * this one does.
+     *
+     * @param zone the zone of the returned clock.
+     * @return this clock if the zone is unchanged, otherwise a fixed clock.
+     */
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return ZONE.equals(zone) ? this : Clock.fixed(instant, zone);
+    }
+
+    @Override
+    public Instant instant() {
+        return instant;
+    }
+}
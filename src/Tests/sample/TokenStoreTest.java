@@ -0,0 +1,202 @@
+package sample;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for TokenStore. Tokens are stored in a scratch database holding only the token table, against a clock
+ * the tests control.
+ *
+ * @author Samuel Scarfe
+ */
+class TokenStoreTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2021, 3, 9, 12, 0);
+
+    private Path file;
+    private ConnectionPool pool;
+    private TestClock clock;
+    private TokenStore store;
+
+    @BeforeEach
+    void setUp() throws IOException, SQLException {
+        file = Files.createTempFile("tokens", ".db");
+        pool = new ConnectionPool("jdbc:sqlite:" + file, 1);
+
+        try (PooledConnection conn = pool.borrowWriter();
+             Statement stmt = conn.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE token (token TEXT NOT NULL, type TEXT NOT NULL, subject_id INTEGER, " +
+                    "payload TEXT, expires_at TEXT NOT NULL, PRIMARY KEY (token, type)) WITHOUT ROWID");
+        }
+
+        clock = new TestClock(NOW);
+        store = new TokenStore(pool, clock, Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        pool.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Creates a recovery code for user 7 expiring a number of minutes after NOW.
+     */
+    private static TokenStore.Token code(String token, int minutes) {
+        return new TokenStore.Token(token, TokenStore.Type.RECOVERY, 7, null, NOW.plusMinutes(minutes));
+    }
+
+    @Test
+    void nullPool() {
+        assertThrows(NullPointerException.class, () -> new TokenStore(null, clock, Duration.ZERO));
+    }
+
+    @Test
+    void nullClock() {
+        assertThrows(NullPointerException.class, () -> new TokenStore(pool, null, Duration.ZERO));
+    }
+
+    @Test
+    void negativeTtl() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenStore(pool, clock, Duration.ofMillis(-1)));
+    }
+
+    @Test
+    void nullTokenValue() {
+        assertThrows(NullPointerException.class,
+                () -> new TokenStore.Token(null, TokenStore.Type.RECOVERY, 7, null, NOW));
+    }
+
+    @Test
+    void nullExpiry() {
+        assertThrows(NullPointerException.class,
+                () -> new TokenStore.Token("abc", TokenStore.Type.RECOVERY, 7, null, null));
+    }
+
+    @Test
+    void nullType() {
+        assertThrows(NullPointerException.class, () -> store.get(null, "abc"));
+    }
+
+    @Test
+    void unknownToken() throws SQLException {
+        assertNull(store.get(TokenStore.Type.RECOVERY, "abc"));
+    }
+
+    @Test
+    void wholeRecordFetched() throws SQLException {
+        store.put(new TokenStore.Token("abc", TokenStore.Type.GROUP_INVITE, 7, "3", NOW.plusHours(36)));
+        TokenStore fresh = new TokenStore(pool, clock, Duration.ofMinutes(5));
+
+        TokenStore.Token token = fresh.get(TokenStore.Type.GROUP_INVITE, "abc");
+
+        assertEquals("abc", token.getToken());
+        assertEquals(TokenStore.Type.GROUP_INVITE, token.getType());
+        assertEquals(7, token.getSubjectID());
+        assertEquals("3", token.getPayload());
+        assertEquals(NOW.plusHours(36), token.getExpiresAt());
+    }
+
+    @Test
+    void noSubjectStoredAsNull() throws SQLException {
+        store.put(new TokenStore.Token("abc", TokenStore.Type.REGISTRATION, -1, null, NOW.plusMinutes(30)));
+        TokenStore fresh = new TokenStore(pool, clock, Duration.ofMinutes(5));
+
+        assertEquals(-1, fresh.get(TokenStore.Type.REGISTRATION, "abc").getSubjectID());
+    }
+
+    @Test
+    void keyedByType() throws SQLException {
+        store.put(code("abc", 30));
+
+        assertNull(store.get(TokenStore.Type.GROUP_INVITE, "abc"));
+    }
+
+    @Test
+    void putReplaces() throws SQLException {
+        store.put(code("abc", 30));
+        store.put(code("abc", 60));
+        TokenStore fresh = new TokenStore(pool, clock, Duration.ofMinutes(5));
+
+        assertEquals(NOW.plusMinutes(60), fresh.get(TokenStore.Type.RECOVERY, "abc").getExpiresAt());
+    }
+
+    @Test
+    void servedFromCache() throws SQLException {
+        store.put(code("abc", 30));
+
+        store.get(TokenStore.Type.RECOVERY, "abc");
+        store.get(TokenStore.Type.RECOVERY, "abc");
+
+        assertEquals(2, store.getHits());
+        assertEquals(0, store.getMisses());
+    }
+
+    @Test
+    void cachedForTtl() throws SQLException {
+        store.put(code("abc", 30));
+        clock.set(NOW.plusMinutes(5));
+
+        assertNotNull(store.get(TokenStore.Type.RECOVERY, "abc"));
+        assertEquals(1, store.getMisses());
+
+        store.get(TokenStore.Type.RECOVERY, "abc");
+        assertEquals(1, store.getHits());
+    }
+
+    @Test
+    void cachedNoLongerThanExpiry() throws SQLException {
+        store.put(code("abc", 1));
+        clock.set(NOW.plusMinutes(2));
+
+        TokenStore.Token token = store.get(TokenStore.Type.RECOVERY, "abc");
+
+        //Expired tokens are still returned until swept, but from the database
+        assertEquals(1, store.getMisses());
+        assertTrue(token.isExpired(NOW.plusMinutes(2)));
+        assertEquals(0, store.getCachedCount());
+    }
+
+    @Test
+    void deleted() throws SQLException {
+        store.put(code("abc", 30));
+
+        assertTrue(store.delete(TokenStore.Type.RECOVERY, "abc"));
+        assertFalse(store.delete(TokenStore.Type.RECOVERY, "abc"));
+        assertNull(store.get(TokenStore.Type.RECOVERY, "abc"));
+    }
+
+    @Test
+    void deletedWithPayload() throws SQLException {
+        store.put(new TokenStore.Token("abc", TokenStore.Type.GROUP_INVITE, 7, "3", NOW.plusHours(36)));
+        store.put(new TokenStore.Token("def", TokenStore.Type.GROUP_INVITE, 8, "3", NOW.plusHours(36)));
+        store.put(new TokenStore.Token("ghi", TokenStore.Type.GROUP_INVITE, 8, "4", NOW.plusHours(36)));
+
+        assertEquals(2, store.deleteWithPayload(TokenStore.Type.GROUP_INVITE, "3"));
+        assertNull(store.get(TokenStore.Type.GROUP_INVITE, "abc"));
+        assertNotNull(store.get(TokenStore.Type.GROUP_INVITE, "ghi"));
+    }
+
+    @Test
+    void expiredSwept() throws SQLException {
+        store.put(code("abc", 10));
+        store.put(code("def", 60));
+        clock.set(NOW.plusMinutes(30));
+
+        assertEquals(1, store.deleteExpired(NOW.plusMinutes(30)));
+        assertNull(store.get(TokenStore.Type.RECOVERY, "abc"));
+        assertNotNull(store.get(TokenStore.Type.RECOVERY, "def"));
+        assertEquals(0, store.deleteExpired(NOW.plusMinutes(30)));
+    }
+}
@@ -0,0 +1,74 @@
+package sample;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit testing for UserIdentityCache.
+ *
+ * @author Samuel Scarfe
+ */
+
+class UserIdentityCacheTest {
+
+    private static UserIdentityCache.Identity identity() {
+        return new UserIdentityCache.Identity(1, "sscar", "s.scarfe@hotmail.com", 180, "Male");
+    }
+
+    @Test
+    void nullUsername() {
+        assertThrows(NullPointerException.class, () -> new UserIdentityCache.Identity(1, null, null, 0, null));
+    }
+
+    @Test
+    void negativeUserID() {
+        assertThrows(IllegalArgumentException.class, () -> new UserIdentityCache.Identity(-1, "sscar", null, 0, null));
+    }
+
+    @Test
+    void putThenGetByBothKeys() {
+        UserIdentityCache cache = new UserIdentityCache();
+        UserIdentityCache.Identity identity = identity();
+
+        cache.put(identity, cache.getGeneration());
+
+        assertSame(identity, cache.get("sscar"));
+        assertSame(identity, cache.get(1));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void invalidateByUsernameRemovesBothKeys() {
+        UserIdentityCache cache = new UserIdentityCache();
+        cache.put(identity(), cache.getGeneration());
+
+        cache.invalidate("sscar");
+
+        assertNull(cache.get("sscar"));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void invalidateByUserIDRemovesBothKeys() {
+        UserIdentityCache cache = new UserIdentityCache();
+        cache.put(identity(), cache.getGeneration());
+
+        cache.invalidate(1);
+
+        assertNull(cache.get("sscar"));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void staleLoadIsDiscarded() {
+        UserIdentityCache cache = new UserIdentityCache();
+        long generation = cache.getGeneration();
+
+        cache.clear();
+        cache.put(identity(), generation);
+
+        assertNull(cache.get("sscar"));
+        assertEquals(1, cache.getMisses());
+    }
+}
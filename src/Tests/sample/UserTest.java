@@ -825,6 +825,41 @@ class UserTest {
         assertEquals(systemGoals, batman.getSystemGoals());
     }
 
+    @Test
+    void goalsMemoised() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "bwayne1998"
+        );
+
+        assertSame(batman.getGoals(), batman.getGoals());
+    }
+
+    @Test
+    void invalidateGoalsReloads() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "bwayne1998"
+        );
+
+        ArrayList<SystemGoal> systemGoals = new ArrayList<>();
+        ArrayList<UserGoal> goals = batman.getGoals();
+        batman.setSystemGoals(systemGoals);
+
+        batman.invalidateGoals();
+
+        assertNotSame(goals, batman.getGoals());
+        assertNotSame(systemGoals, batman.getSystemGoals());
+    }
+
     @Test
     void nullAddGoal() {
         User batman = new User(
@@ -839,6 +874,88 @@ class UserTest {
         assertThrows(NullPointerException.class, () -> batman.addGoal(null));
     }
 
+    @Test
+    void nullApplyDelta() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "bwayne1998"
+        );
+
+        assertThrows(NullPointerException.class, () -> batman.applyDelta(null));
+    }
+
+    @Test
+    void negativeApplyDelta() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "bwayne1998"
+        );
+
+        NutrientVector delta = new NutrientVector();
+        delta.set(Nutrient.PROTEIN, -1);
+
+        assertThrows(IllegalArgumentException.class, () -> batman.applyDelta(delta));
+    }
+
+    @Test
+    void updateGoalsRoutedByUnit() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "notauser1998"
+        );
+
+        UserGoal calories = new IndividualGoal(2000, Goal.Unit.CALORIES, LocalDate.now().plusDays(7));
+        UserGoal protein = new IndividualGoal(100, Goal.Unit.PROTEIN, LocalDate.now().plusDays(7));
+        batman.getGoals().add(calories);
+        batman.getGoals().add(protein);
+
+        batman.updateGoals(Goal.Unit.CALORIES, 500);
+
+        assertEquals(500, calories.getProgress());
+        assertEquals(0, protein.getProgress());
+    }
+
+    @Test
+    void applyDeltaUpdatesEachGoal() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "notauser1998"
+        );
+
+        UserGoal calories = new IndividualGoal(2000, Goal.Unit.CALORIES, LocalDate.now().plusDays(7));
+        UserGoal protein = new IndividualGoal(100, Goal.Unit.PROTEIN, LocalDate.now().plusDays(7));
+        UserGoal running = new IndividualGoal(30, Goal.Unit.RUNNING, LocalDate.now().plusDays(7));
+        batman.getGoals().add(calories);
+        batman.getGoals().add(protein);
+        batman.getGoals().add(running);
+
+        NutrientVector delta = new NutrientVector();
+        delta.set(Nutrient.KCAL, 650);
+        delta.set(Nutrient.PROTEIN, 40);
+        delta.set(Nutrient.FAT, 20);
+        batman.applyDelta(delta);
+
+        assertEquals(650, calories.getProgress());
+        assertEquals(40, protein.getProgress());
+        assertEquals(0, running.getProgress());
+    }
+
     @Test
     void nullEarliestMaxCompleted() {
         User batman = new User(
@@ -909,6 +1026,20 @@ class UserTest {
         assertThrows(IllegalArgumentException.class, () -> batman.getAverageWorkRate(Goal.Unit.PROTEIN, -1));
     }
 
+    @Test
+    void zeroDaysEarlierGetFitnessProfile() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "bwayne1998"
+        );
+
+        assertThrows(IllegalArgumentException.class, () -> batman.getFitnessProfile(0));
+    }
+
     @Test
     void nullQuitGoal() {
         User batman = new User(
@@ -923,6 +1054,20 @@ class UserTest {
         assertThrows(NullPointerException.class, () -> batman.quitGoal(null));
     }
 
+    @Test
+    void nullGoalMarkGoalQuit() {
+        User batman = new User(
+                "Bruce",
+                "Wayne",
+                User.Sex.MALE,
+                LocalDate.of(1998, 3, 9),
+                "manbat@gmail.com",
+                "bwayne1998"
+        );
+
+        assertThrows(NullPointerException.class, () -> batman.markGoalQuit(null));
+    }
+
     @Test
     void nullUnitUpdate() {
         User batman = new User(
@@ -0,0 +1,210 @@
+package sample;
+
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * An asynchronous facade over the {@link DatabaseHandler}, so that controllers can load data without blocking the
+ * JavaFX Application Thread. Calls are run on a small, bounded pool of daemon threads and return CompletableFutures.
+ * Results are handed back to the JavaFX Application Thread through {@link #onFxThread(CompletableFuture, Consumer)},
+ * which is the only place UI state should be touched.
+ *
+ * The pool is sized to the number of read connections held by the {@link ConnectionPool}, so every task can hold a
+ * connection without queueing inside the pool. Writes still serialise on the pool's single writer.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.2
+ *
+ * 1.0 - Initial facade with a bounded daemon executor and JavaFX thread hand off.
+ * 1.1 - Daemon threads are now created by the shared {@link DaemonThreadFactory}.
+ * 1.2 - Added whenComplete, handing the outcome of a future back whether it succeeded or failed.
+ */
+public class AsyncDatabaseHandler {
+
+    /**
+     * The number of threads database calls are run on.
+     */
+    public static final int DEFAULT_THREADS = ConnectionPool.DEFAULT_READERS;
+
+    private static AsyncDatabaseHandler instance;
+
+    /**
+     * A single call against the database, which may fail with an SQLException.
+     *
+     * @param <T> the type of the call's result.
+     */
+    public interface Call<T> {
+        T call(DatabaseHandler dh) throws SQLException;
+    }
+
+    /**
+     * A single call against the database with no result.
+     */
+    public interface Task {
+        void run(DatabaseHandler dh) throws SQLException;
+    }
+
+    private final DatabaseHandler dh;
+    private final ExecutorService executor;
+    private final Executor fxExecutor;
+
+    /**
+     * Private default constructor. Enforces the Singleton pattern.
+     */
+    private AsyncDatabaseHandler() {
+        this(DatabaseHandler.getInstance(),
+                Executors.newFixedThreadPool(DEFAULT_THREADS, new DaemonThreadFactory("proactive-db-")),
+                Platform::runLater);
+    }
+
+    /**
+     * Constructs an AsyncDatabaseHandler over the passed handler and executors.
+     *
+     * @param dh         the handler calls are made against.
+     * @param executor   the executor calls are run on.
+     * @param fxExecutor the executor results are handed back on.
+     */
+    AsyncDatabaseHandler(DatabaseHandler dh, ExecutorService executor, Executor fxExecutor) {
+        if (dh == null) {
+            throw new NullPointerException();
+        }
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        if (fxExecutor == null) {
+            throw new NullPointerException();
+        }
+
+        this.dh = dh;
+        this.executor = executor;
+        this.fxExecutor = fxExecutor;
+    }
+
+    /**
+     * Static method to get the single AsyncDatabaseHandler instance.
+     *
+     * @return the AsyncDatabaseHandler instance.
+     */
+    public static synchronized AsyncDatabaseHandler getInstance() {
+        if (instance == null) {
+            instance = new AsyncDatabaseHandler();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Runs a call against the database off the calling thread.
+     *
+     * @param call the call to run.
+     * @param <T>  the type of the call's result.
+     * @return a future completed with the call's result, or exceptionally with the exception it threw.
+     */
+    public <T> CompletableFuture<T> supply(Call<T> call) {
+        if (call == null) {
+            throw new NullPointerException();
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return call.call(dh);
+            }
+            catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs a call with no result against the database off the calling thread.
+     *
+     * @param task the call to run.
+     * @return a future completed once the call has finished, or exceptionally with the exception it threw.
+     */
+    public CompletableFuture<Void> run(Task task) {
+        if (task == null) {
+            throw new NullPointerException();
+        }
+
+        return supply(handler -> {
+            task.run(handler);
+            return null;
+        });
+    }
+
+    /**
+     * Hands the result of a future to an action on the JavaFX Application Thread. Failures are printed rather than
+     * passed to the action.
+     *
+     * @param future the future whose result is wanted.
+     * @param action the action to run with the result.
+     * @param <T>    the type of the result.
+     * @return a future completed once the action has run.
+     */
+    public <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> future, Consumer<T> action) {
+        if (future == null) {
+            throw new NullPointerException();
+        }
+        if (action == null) {
+            throw new NullPointerException();
+        }
+
+        return future.thenAcceptAsync(action, fxExecutor).exceptionally(e -> {
+            e.printStackTrace();
+            return null;
+        });
+    }
+
+    /**
+     * Hands the outcome of a future to an action on the JavaFX Application Thread, whether the future succeeded or
+     * failed. Failures are printed and then passed to the action.
+     *
+     * @param future the future whose outcome is wanted.
+     * @param action the action to run with the failure, or with null if the future succeeded.
+     * @return a future completed once the action has run.
+     */
+    public CompletableFuture<Void> whenComplete(CompletableFuture<?> future, Consumer<Throwable> action) {
+        if (future == null) {
+            throw new NullPointerException();
+        }
+        if (action == null) {
+            throw new NullPointerException();
+        }
+
+        return future.handleAsync((result, e) -> {
+            if (e != null) {
+                e.printStackTrace();
+            }
+            action.accept(e);
+            return null;
+        }, fxExecutor);
+    }
+
+    /**
+     * Runs a call against the database off the calling thread and hands its result to an action on the JavaFX
+     * Application Thread.
+     *
+     * @param call   the call to run.
+     * @param action the action to run with the result.
+     * @param <T>    the type of the call's result.
+     * @return a future completed once the action has run.
+     */
+    public <T> CompletableFuture<Void> load(Call<T> call, Consumer<T> action) {
+        return onFxThread(supply(call), action);
+    }
+
+    /**
+     * Stops accepting new calls. Calls already submitted are still run.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,415 @@
+package sample;
+
+import javafx.application.Platform;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Verifies login attempts off the JavaFX Application Thread. A user's password hash, salt and profile are read in a
+ * single statement, and the password is then derived with PBKDF2 on a small, bounded pool of daemon threads. The
+ * fully built {@link User} is handed back to the JavaFX Application Thread once the attempt has been verified.
+ *
+ * The time spent waiting for a thread, reading the credentials, and deriving the key is measured for every attempt,
+ * reported on each {@link Result} and totalled across attempts.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial service with a merged credential lookup, bounded key derivation and per phase timings.
+ */
+public class AuthService {
+
+    /**
+     * The number of threads key derivation is run on.
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    /**
+     * The number of attempts which may wait for a thread before further attempts are rejected.
+     */
+    public static final int QUEUE_CAPACITY = 16;
+
+    /**
+     * The key derivation used for every stored password.
+     */
+    static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+    static final int ITERATIONS = 65536;
+    static final int KEY_LENGTH = 128;
+
+    private static AuthService instance;
+
+    /**
+     * A lookup of a user's Credentials by username.
+     */
+    interface CredentialLookup {
+        Credentials lookup(String username) throws SQLException;
+    }
+
+    /**
+     * A user's stored password hash and salt, together with their profile.
+     */
+    public static class Credentials {
+        private final byte[] hash;
+        private final byte[] salt;
+        private final User user;
+
+        /**
+         * Constructs a set of Credentials.
+         *
+         * @param hash the user's stored password hash.
+         * @param salt the salt the user's password was hashed with.
+         * @param user the user.
+         */
+        public Credentials(byte[] hash, byte[] salt, User user) {
+            if (hash == null) {
+                throw new NullPointerException();
+            }
+            if (salt == null) {
+                throw new NullPointerException();
+            }
+            if (user == null) {
+                throw new NullPointerException();
+            }
+
+            this.hash = hash;
+            this.salt = salt;
+            this.user = user;
+        }
+
+        public byte[] getHash() {
+            return hash;
+        }
+
+        public byte[] getSalt() {
+            return salt;
+        }
+
+        public User getUser() {
+            return user;
+        }
+    }
+
+    /**
+     * The possible outcomes of a login attempt.
+     */
+    public enum Outcome {
+        SUCCESS, UNKNOWN_USER, WRONG_PASSWORD
+    }
+
+    /**
+     * The outcome of a single login attempt and the time spent in each of its phases.
+     */
+    public static class Result {
+        private final Outcome outcome;
+        private final User user;
+        private final long queuedNanos;
+        private final long lookupNanos;
+        private final long deriveNanos;
+
+        /**
+         * Constructs a Result.
+         *
+         * @param outcome     the outcome of the attempt.
+         * @param user        the logged in user, or null if the attempt failed.
+         * @param queuedNanos the time spent waiting for a thread.
+         * @param lookupNanos the time spent reading the user's credentials.
+         * @param deriveNanos the time spent deriving the key from the password.
+         */
+        Result(Outcome outcome, User user, long queuedNanos, long lookupNanos, long deriveNanos) {
+            if (outcome == null) {
+                throw new NullPointerException();
+            }
+
+            this.outcome = outcome;
+            this.user = user;
+            this.queuedNanos = queuedNanos;
+            this.lookupNanos = lookupNanos;
+            this.deriveNanos = deriveNanos;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isSuccess() {
+            return outcome == Outcome.SUCCESS;
+        }
+
+        public User getUser() {
+            return user;
+        }
+
+        public long getQueuedNanos() {
+            return queuedNanos;
+        }
+
+        public long getLookupNanos() {
+            return lookupNanos;
+        }
+
+        public long getDeriveNanos() {
+            return deriveNanos;
+        }
+
+        public long getTotalNanos() {
+            return queuedNanos + lookupNanos + deriveNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{queued %.1fms, lookup %.1fms, derive %.1fms}", outcome,
+                    queuedNanos / 1e6, lookupNanos / 1e6, deriveNanos / 1e6);
+        }
+    }
+
+    private final CredentialLookup credentials;
+    private final ExecutorService executor;
+    private final Executor fxExecutor;
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final LongAdder deriveNanos = new LongAdder();
+
+    /**
+     * Private default constructor. Enforces the Singleton pattern.
+     */
+    private AuthService() {
+        this(DatabaseHandler.getInstance()::getCredentialsFromUsername,
+                new ThreadPoolExecutor(DEFAULT_THREADS, DEFAULT_THREADS, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(QUEUE_CAPACITY), new DaemonThreadFactory("proactive-auth-")),
+                Platform::runLater);
+    }
+
+    /**
+     * Constructs an AuthService reading credentials through the passed lookup.
+     *
+     * @param credentials the lookup credentials are read through.
+     * @param executor    the executor attempts are verified on.
+     * @param fxExecutor  the executor results are handed back on.
+     */
+    AuthService(CredentialLookup credentials, ExecutorService executor, Executor fxExecutor) {
+        if (credentials == null) {
+            throw new NullPointerException();
+        }
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        if (fxExecutor == null) {
+            throw new NullPointerException();
+        }
+
+        this.credentials = credentials;
+        this.executor = executor;
+        this.fxExecutor = fxExecutor;
+    }
+
+    /**
+     * Static method to get the single AuthService instance.
+     *
+     * @return the AuthService instance.
+     */
+    public static synchronized AuthService getInstance() {
+        if (instance == null) {
+            instance = new AuthService();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Verifies a login attempt off the calling thread. The passed password is cleared once it has been used.
+     *
+     * @param username the username entered.
+     * @param password the password entered.
+     * @return a future completed with the Result of the attempt, or exceptionally if the credentials could not be
+     *         read or too many attempts are already waiting.
+     */
+    public CompletableFuture<Result> authenticate(String username, char[] password) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+        if (password == null) {
+            throw new NullPointerException();
+        }
+
+        long submitted = System.nanoTime();
+
+        try {
+            return CompletableFuture.supplyAsync(() -> verify(username, password, submitted), executor);
+        }
+        catch (RejectedExecutionException e) {
+            Arrays.fill(password, '\0');
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Verifies a login attempt off the calling thread and hands its Result to an action on the JavaFX Application
+     * Thread. Failures are printed and handed to the action as an attempt by an unknown user.
+     *
+     * @param username the username entered.
+     * @param password the password entered.
+     * @param action   the action to run with the Result.
+     * @return a future completed once the action has run.
+     */
+    public CompletableFuture<Void> login(String username, char[] password, Consumer<Result> action) {
+        if (action == null) {
+            throw new NullPointerException();
+        }
+
+        return authenticate(username, password).exceptionally(e -> {
+            e.printStackTrace();
+            return new Result(Outcome.UNKNOWN_USER, null, 0, 0, 0);
+        }).thenAcceptAsync(action, fxExecutor);
+    }
+
+    /**
+     * Derives the stored form of a password.
+     *
+     * @param password the password.
+     * @param salt     the salt to hash the password with.
+     * @return the derived key.
+     * @throws GeneralSecurityException if the key derivation is unavailable.
+     */
+    public static byte[] hash(char[] password, byte[] salt) throws GeneralSecurityException {
+        if (password == null) {
+            throw new NullPointerException();
+        }
+        if (salt == null) {
+            throw new NullPointerException();
+        }
+
+        PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, KEY_LENGTH);
+
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        }
+        finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * Gets the number of login attempts verified.
+     *
+     * @return the number of attempts.
+     */
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    /**
+     * Gets the mean time attempts have spent waiting for a thread.
+     *
+     * @return the mean time in milliseconds, or 0 if no attempts have been verified.
+     */
+    public double getMeanQueuedMillis() {
+        return mean(queuedNanos);
+    }
+
+    /**
+     * Gets the mean time attempts have spent reading credentials.
+     *
+     * @return the mean time in milliseconds, or 0 if no attempts have been verified.
+     */
+    public double getMeanLookupMillis() {
+        return mean(lookupNanos);
+    }
+
+    /**
+     * Gets the mean time attempts have spent deriving keys.
+     *
+     * @return the mean time in milliseconds, or 0 if no attempts have been verified.
+     */
+    public double getMeanDeriveMillis() {
+        return mean(deriveNanos);
+    }
+
+    /**
+     * Stops accepting new attempts. Attempts already submitted are still verified.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Private helper method to verify a single attempt, timing each phase.
+     *
+     * @param username  the username entered.
+     * @param password  the password entered, cleared once used.
+     * @param submitted the time the attempt was submitted, from {@link System#nanoTime()}.
+     * @return the Result of the attempt.
+     */
+    private Result verify(String username, char[] password, long submitted) {
+        long started = System.nanoTime();
+        long queued = started - submitted;
+
+        try {
+            Credentials found = credentials.lookup(username);
+            long lookedUp = System.nanoTime();
+
+            if (found == null) {
+                return record(new Result(Outcome.UNKNOWN_USER, null, queued, lookedUp - started, 0));
+            }
+
+            byte[] hash = hash(password, found.getSalt());
+            long derived = System.nanoTime();
+
+            if (!MessageDigest.isEqual(hash, found.getHash())) {
+                return record(new Result(Outcome.WRONG_PASSWORD, null, queued, lookedUp - started, derived - lookedUp));
+            }
+
+            return record(new Result(Outcome.SUCCESS, found.getUser(), queued, lookedUp - started, derived - lookedUp));
+        }
+        catch (SQLException | GeneralSecurityException e) {
+            throw new CompletionException(e);
+        }
+        finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    /**
+     * Private helper method to add a Result's timings to the running totals.
+     *
+     * @param result the Result to record.
+     * @return the Result.
+     */
+    private Result record(Result result) {
+        attempts.increment();
+        queuedNanos.add(result.getQueuedNanos());
+        lookupNanos.add(result.getLookupNanos());
+        deriveNanos.add(result.getDeriveNanos());
+
+        return result;
+    }
+
+    /**
+     * Private helper method to get the mean of a running total across all attempts.
+     *
+     * @param total the running total, in nanoseconds.
+     * @return the mean in milliseconds.
+     */
+    private double mean(LongAdder total) {
+        long count = attempts.sum();
+
+        return count == 0 ? 0 : total.sum() / 1e6 / count;
+    }
+}
@@ -0,0 +1,376 @@
+package sample;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of SQLite connections sitting behind the {@link DatabaseHandler}. The pool holds a single writer
+ * connection and a fixed number of read only connections, all opened against a database in WAL journal mode so that
+ * readers never block the writer and vice versa.
+ *
+ * Connections are leased per thread. A thread which already holds a connection and asks for another of a compatible
+ * kind is handed the same connection again, so nested DatabaseHandler calls never exhaust the pool or deadlock. A
+ * thread holding the writer is always handed the writer when it asks for a reader, so it sees its own writes.
+ *
+ * Idle connections are health checked before being handed out and are transparently replaced if they are no longer
+ * valid.
+ *
+ * Every connection carries its own {@link StatementCache}. Hit and miss counts are aggregated across the pool.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial pool, one writer and N readers over WAL with per-connection PRAGMA setup and health checks.
+ * 1.1 - Each connection now has a statement cache, added pool wide cache hit and miss counters.
+ */
+public class ConnectionPool {
+
+    /**
+     * The default number of read connections held by the pool.
+     */
+    public static final int DEFAULT_READERS = 4;
+
+    /**
+     * The number of milliseconds SQLite will wait on a locked database before failing a statement.
+     */
+    private static final int BUSY_TIMEOUT_MS = 5000;
+
+    /**
+     * The number of milliseconds a caller will wait for a free read connection before failing.
+     */
+    private static final long BORROW_TIMEOUT_MS = 10000;
+
+    /**
+     * The number of milliseconds a connection may sit idle before it is validated on its next borrow.
+     */
+    private static final long VALIDATE_AFTER_IDLE_MS = 30000;
+
+    /**
+     * The number of seconds allowed for a connection validity check.
+     */
+    private static final int VALIDATION_TIMEOUT_S = 2;
+
+    /**
+     * The JDBC url of the database this pool connects to.
+     */
+    private final String url;
+
+    /**
+     * The idle read connections.
+     */
+    private final BlockingQueue<PooledConnection> readers;
+
+    /**
+     * Every read connection owned by the pool, idle or leased.
+     */
+    private final List<PooledConnection> allReaders = new ArrayList<>();
+
+    /**
+     * Lock guarding exclusive access to the writer connection.
+     */
+    private final ReentrantLock writerLock = new ReentrantLock(true);
+
+    /**
+     * The single connection through which all writes are made.
+     */
+    private PooledConnection writer;
+
+    /**
+     * The read connection currently leased by each thread, if any.
+     */
+    private final ThreadLocal<PooledConnection> heldReader = new ThreadLocal<>();
+
+    /**
+     * The writer connection if it is currently leased by this thread.
+     */
+    private final ThreadLocal<PooledConnection> heldWriter = new ThreadLocal<>();
+
+    /**
+     * The number of statement cache hits across every connection in the pool.
+     */
+    private final LongAdder statementHits = new LongAdder();
+
+    /**
+     * The number of statement cache misses across every connection in the pool.
+     */
+    private final LongAdder statementMisses = new LongAdder();
+
+    /**
+     * Whether the pool has been shut down.
+     */
+    private volatile boolean closed = false;
+
+    /**
+     * Constructs a ConnectionPool against the passed JDBC url, opening the writer and all read connections up front.
+     *
+     * @param url         the JDBC url of the database.
+     * @param readerCount the number of read connections to hold.
+     * @throws SQLException if a connection could not be opened or configured.
+     */
+    public ConnectionPool(String url, int readerCount) throws SQLException {
+        if (url == null) {
+            throw new NullPointerException();
+        }
+        if (readerCount < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.url = url;
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+
+        //The writer is opened first, WAL mode is persistent in the database file so once the writer has switched the
+        //journal mode every reader opened afterwards will share it.
+        this.writer = open(false);
+
+        for (int i = 0; i < readerCount; i++) {
+            PooledConnection reader = open(true);
+            allReaders.add(reader);
+            readers.add(reader);
+        }
+    }
+
+    /**
+     * Borrows a connection suitable for reading. If the calling thread already holds a connection, that connection is
+     * returned again. The caller must close the returned connection to give it back to the pool.
+     *
+     * @return a connection suitable for reading.
+     * @throws SQLException if the pool is closed, no reader becomes free in time or a replacement cannot be opened.
+     */
+    public PooledConnection borrowReader() throws SQLException {
+        checkOpen();
+
+        PooledConnection held = heldWriter.get();
+        if (held == null) {
+            held = heldReader.get();
+        }
+        if (held != null) {
+            held.acquire();
+            return held;
+        }
+
+        PooledConnection reader;
+        try {
+            reader = readers.poll(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection");
+        }
+        if (reader == null) {
+            throw new SQLException("Timed out waiting for a read connection");
+        }
+
+        try {
+            reader = validate(reader);
+        }
+        catch (SQLException e) {
+            readers.offer(reader);
+            throw e;
+        }
+
+        heldReader.set(reader);
+        reader.acquire();
+        return reader;
+    }
+
+    /**
+     * Borrows the writer connection, blocking until it is free. If the calling thread already holds the writer, it is
+     * returned again. The caller must close the returned connection to give it back to the pool.
+     *
+     * @return the writer connection.
+     * @throws SQLException if the pool is closed, the writer does not become free in time or cannot be reopened.
+     */
+    public PooledConnection borrowWriter() throws SQLException {
+        checkOpen();
+
+        PooledConnection held = heldWriter.get();
+        if (held != null) {
+            held.acquire();
+            return held;
+        }
+
+        try {
+            if (!writerLock.tryLock(BORROW_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for the write connection");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the write connection");
+        }
+
+        try {
+            writer = validate(writer);
+        }
+        catch (SQLException e) {
+            writerLock.unlock();
+            throw e;
+        }
+
+        heldWriter.set(writer);
+        writer.acquire();
+        return writer;
+    }
+
+    /**
+     * Returns a connection whose lease count has dropped to zero back to the pool. Called by
+     * {@link PooledConnection#close()}.
+     *
+     * @param connection the connection being returned.
+     */
+    void release(PooledConnection connection) {
+        if (connection == null) {
+            throw new NullPointerException();
+        }
+
+        if (connection.isReadOnly()) {
+            heldReader.remove();
+            readers.offer(connection);
+        }
+        else {
+            heldWriter.remove();
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of read connections held by the pool.
+     *
+     * @return the number of read connections.
+     */
+    public int getReaderCount() {
+        return allReaders.size();
+    }
+
+    /**
+     * Gets the number of read connections not currently leased.
+     *
+     * @return the number of idle read connections.
+     */
+    public int getIdleReaderCount() {
+        return readers.size();
+    }
+
+    /**
+     * Gets the number of times a compiled statement has been reused across every connection in the pool.
+     *
+     * @return the number of statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return statementHits.sum();
+    }
+
+    /**
+     * Gets the number of times a statement has had to be compiled across every connection in the pool.
+     *
+     * @return the number of statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return statementMisses.sum();
+    }
+
+    /**
+     * Closes every connection owned by the pool. Any further attempt to borrow a connection will fail.
+     */
+    public synchronized void close() {
+        closed = true;
+
+        for (PooledConnection reader : allReaders) {
+            reader.closePhysical();
+        }
+        writer.closePhysical();
+    }
+
+    /**
+     * Checks whether the passed connection is still usable if it has sat idle for a while, replacing it with a freshly
+     * opened connection of the same kind if it is not.
+     *
+     * @param connection the connection to check.
+     * @return the passed connection if it is valid, otherwise its replacement.
+     * @throws SQLException if a replacement connection cannot be opened.
+     */
+    private PooledConnection validate(PooledConnection connection) throws SQLException {
+        if (connection.getIdleMillis() < VALIDATE_AFTER_IDLE_MS && !connection.isBroken()) {
+            return connection;
+        }
+
+        boolean valid;
+        try {
+            valid = !connection.isBroken() && connection.getConnection().isValid(VALIDATION_TIMEOUT_S);
+        }
+        catch (SQLException e) {
+            valid = false;
+        }
+
+        if (valid) {
+            return connection;
+        }
+
+        connection.closePhysical();
+        PooledConnection replacement = open(connection.isReadOnly());
+
+        if (connection.isReadOnly()) {
+            synchronized (this) {
+                allReaders.set(allReaders.indexOf(connection), replacement);
+            }
+        }
+
+        return replacement;
+    }
+
+    /**
+     * Opens and configures a new physical connection.
+     *
+     * @param readOnly whether the connection is to be used for reads only.
+     * @return the opened connection, wrapped for use by the pool.
+     * @throws SQLException if the connection could not be opened or configured.
+     */
+    private PooledConnection open(boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+
+        try (Statement stmt = connection.createStatement()) {
+            if (!readOnly) {
+                stmt.execute("PRAGMA journal_mode = WAL");
+            }
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            //NORMAL is durable in WAL mode apart from the last transactions before a power loss.
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            //Left off deliberately, several legacy tables reference columns that do not exist (e.g. user (id)).
+            stmt.execute("PRAGMA foreign_keys = OFF");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = 1");
+            }
+        }
+        catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+
+        StatementCache statements = new StatementCache(
+                connection, StatementCache.DEFAULT_CAPACITY, statementHits, statementMisses);
+
+        return new PooledConnection(this, connection, readOnly, statements);
+    }
+
+    /**
+     * Checks that the pool has not been closed.
+     *
+     * @throws SQLException if the pool has been closed.
+     */
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+    }
+}
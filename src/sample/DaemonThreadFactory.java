@@ -0,0 +1,38 @@
+package sample;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory creating named daemon threads, so that outstanding background work never keeps the application alive.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Extracted from AsyncDatabaseHandler so that other background executors can share it.
+ */
+class DaemonThreadFactory implements ThreadFactory {
+    private final String prefix;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Constructs a DaemonThreadFactory.
+     *
+     * @param prefix the name given to each thread, followed by its number.
+     */
+    DaemonThreadFactory(String prefix) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, prefix + count.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -1,6 +1,7 @@
 package sample;
 
 import java.sql.*;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -31,7 +32,7 @@ import java.util.*;
  * @author Charlie Jones
  * @author Evan Clayton
  *
- * @version 1.16
+ * @version 1.40
  *
  * 1.0 - Initial handler created, methods with ability to select all information from a table added
  * 1.1 - Added methods to insert a user to a table as well as add their weight with supporting methods such as finding
@@ -69,18 +70,89 @@ import java.util.*;
  * 1.15 - Added exceptions. Some slight refactoring to remove unused methods and add private helper methods.
  * 1.16 - Added required methods for group goal functionality. These include refreshing, inserting and selecting group
  *        goals. Additionally individual goal methods have been updated to support group_id inclusion where appropriate.
+ * 1.17 - Replaced the single shared connection with a {@link ConnectionPool}. Every method now borrows a read or write
+ *        connection for the duration of its work so that background jobs and UI reads can run concurrently.
+ * 1.18 - Replaced SQL built by string concatenation with named, parameterised {@link Query} statements which are
+ *        compiled once per connection and reused from a statement cache. Added statement cache hit and miss counters.
+ * 1.19 - Username, user_id, email and height lookups are now answered from a {@link UserIdentityCache} filled on
+ *        login. Writes to the user table invalidate the affected entries.
+ * 1.20 - The schema is now brought up to date by the {@link SchemaMigrator} when the handler is created.
+ * 1.21 - Added getDailyNutrients, which totals every nutrient per day in a single query.
+ * 1.22 - Summary charts now read pre-aggregated rows from the daily_user_summary rollup, which addFoodEntry,
+ *        insertExercise, insertWeightValue and setWaterIntake keep up to date in the same transaction as their
+ *        writes. setWaterIntake now only changes the water entry for a date.
+ * 1.23 - Added addFoodEntries for logging several meal entries in one batched transaction. addFoodEntry now delegates
+ *        to it.
+ * 1.24 - Food lookups are now answered from an in memory {@link FoodCatalog} loaded at start up, custom items are
+ *        appended to it as they are added.
+ * 1.25 - Added getUserGroupSummaries, loading all of a user's groups with their members and goals in one statement.
+ * 1.26 - Groups are now returned without their membership, which is loaded on first access by loadGroupMembership.
+ * 1.27 - Added getCredentialsFromUsername, reading a user's hash, salt and profile in one statement for login.
+ * 1.28 - Added the email outbox methods used by the {@link EmailDispatcher}.
+ * 1.29 - Added enqueueEmails, queueing several emails as one batch.
+ * 1.30 - Goals are now loaded and inserted with their IDs. Progress is written by ID through updateGoalProgress,
+ *        one batch per user action.
+ * 1.31 - Recommended intakes are now answered from an in memory {@link IntakeIndex} loaded at start up.
+ * 1.32 - refreshSystemGoals now writes only the differences from the stored goals, as one batched transaction.
+ * 1.33 - Added selectFitnessProfile, reading a user's completed fitness units and work rates in one aggregation.
+ * 1.34 - System goals of many users can now be refreshed in one batched transaction. Added selectUserIDBounds and
+ *        selectUsersInRange for reading users by user_id range.
+ * 1.35 - Added deleteExpiredTokens and expireGoals, swept by the {@link JobScheduler}. isInvExpired now treats an
+ *        invite which is no longer stored as expired.
+ * 1.36 - Registration tokens, recovery codes and group invites are now read and written through the {@link TokenStore},
+ *        fetching each token's whole record in one indexed lookup.
+ * 1.37 - claimDueEmails dead letters outbox rows which are not valid emails rather than failing every claim.
+ * 1.38 - loadGroupMembership now reads every member with their user row in one statement.
+ * 1.39 - addFoodEntries now reads the new meal_ids before the summary upsert can insert a row of its own. Added a
+ *        package-private constructor over a given database for testing.
+ * 1.40 - quitGoalInDatabase now throws rather than swallowing a failed update, so callers can tell it failed.
  */
 public class DatabaseHandler {
     private static final DatabaseHandler INSTANCE = new DatabaseHandler();
     private static final String CONNECTION = "jdbc:sqlite:proactive.db";
-    private Connection conn;
+
+    /**
+     * The number of minutes a registration token is valid for after it is sent.
+     */
+    public static final int REG_TOKEN_MINUTES = 30;
+    private ConnectionPool pool;
+    private final UserIdentityCache identities = new UserIdentityCache();
+    private final FoodCatalog foods = new FoodCatalog();
+    private volatile IntakeIndex intakes = IntakeIndex.EMPTY;
+    private TokenStore tokens;
 
     /**
      * Private default constructor. Enforces the Singleton pattern.
      */
     private DatabaseHandler() {
+        this(CONNECTION);
+    }
+
+    /**
+     * Constructs a DatabaseHandler over a given database. Applies any outstanding schema migrations and loads the
+     * {@link FoodCatalog} and {@link IntakeIndex} before the handler is used. Package-private for testing against a
+     * scratch copy of the database.
+     *
+     * @param connection the JDBC URL of the database.
+     */
+    DatabaseHandler(String connection) {
+        if (connection == null) {
+            throw new NullPointerException();
+        }
+
         try {
-            conn = DriverManager.getConnection(CONNECTION);
+            pool = new ConnectionPool(connection, ConnectionPool.DEFAULT_READERS);
+            tokens = new TokenStore(pool, Clock.systemDefaultZone(), TokenStore.DEFAULT_TTL);
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            new SchemaMigrator(conn.getConnection()).migrate();
+            foods.load(conn);
+            intakes = IntakeIndex.load(conn);
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -96,6 +168,67 @@ public class DatabaseHandler {
         return INSTANCE;
     }
 
+    /**
+     * Closes every pooled connection. Package-private for tests which construct their own handler.
+     */
+    void close() {
+        pool.close();
+    }
+
+    /**
+     * Gets the number of times a compiled statement has been reused rather than compiled again.
+     *
+     * @return the number of statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    /**
+     * Gets the number of times a statement has had to be compiled.
+     *
+     * @return the number of statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
+    /**
+     * Gets the number of user identity lookups answered without going to the database.
+     *
+     * @return the number of identity cache hits.
+     */
+    public long getIdentityCacheHits() {
+        return identities.getHits();
+    }
+
+    /**
+     * Gets the number of user identity lookups which had to go to the database.
+     *
+     * @return the number of identity cache misses.
+     */
+    public long getIdentityCacheMisses() {
+        return identities.getMisses();
+    }
+
+    /**
+     * Gets the number of token lookups answered without going to the database.
+     *
+     * @return the number of token cache hits.
+     */
+    public long getTokenCacheHits() {
+        return tokens.getHits();
+    }
+
+    /**
+     * Gets the number of token lookups which had to go to the database.
+     *
+     * @return the number of token cache misses.
+     */
+    public long getTokenCacheMisses() {
+        return tokens.getMisses();
+    }
+
     /**
      * Method to create a pseudo atomic action of inserting a user into the user table and creating that users initial
      * weight value, we need ot do this as a method as it will likely be the method that the main registration form
@@ -116,6 +249,9 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
+        //Nothing should be cached under this username yet, but make sure a stale entry cannot outlive the insert
+        identities.invalidate(user.getUsername());
+
         //First we want to run the insertIntoUserTable method, this will return true if the action completed successful
         // and as such, we can make this an atomic action
         insertIntoUserTable(user, hash, salt);
@@ -146,22 +282,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql =
-                "INSERT INTO user (first_name, last_name, dob, height, sex, username, hash, salt, email)" +
-                "VALUES(?,?,?,?,?,?,?,?,?)";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1,user.getFirstname());
-            pstmt.setString(2, user.getSurname());
-            pstmt.setString(3, user.getDob().toString());
-            pstmt.setFloat(4, user.getHeight());
-            pstmt.setString(5, user.getSex());
-            pstmt.setString(6, user.getUsername());
-            pstmt.setBytes(7, hash);
-            pstmt.setBytes(8, salt);
-            pstmt.setString(9, user.getEmail());
-
-            pstmt.executeUpdate();
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.INSERT_USER,
+                    user.getFirstname(), user.getSurname(), user.getDob(), user.getHeight(), user.getSex(),
+                    user.getUsername(), hash, salt, user.getEmail());
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -182,20 +306,80 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        int userID = -1;
+        UserIdentityCache.Identity identity = getIdentity(username);
+
+        return identity == null ? -1 : identity.getUserID();
+    }
+
+    /**
+     * Gets the identity of a user from the identity cache, loading it from the database if it is not cached.
+     *
+     * @param username the User's username.
+     * @return the User's identity, or null if there is no such user.
+     */
+    private UserIdentityCache.Identity getIdentity(String username) {
+        UserIdentityCache.Identity identity = identities.get(username);
+
+        if (identity == null) {
+            identity = loadIdentity(Query.IDENTITY_FROM_USERNAME, username);
+        }
+
+        return identity;
+    }
+
+    /**
+     * Gets the identity of a user from the identity cache, loading it from the database if it is not cached.
+     *
+     * @param userID the User's unique ID.
+     * @return the User's identity, or null if there is no such user.
+     */
+    private UserIdentityCache.Identity getIdentity(int userID) {
+        UserIdentityCache.Identity identity = identities.get(userID);
+
+        if (identity == null) {
+            identity = loadIdentity(Query.IDENTITY_FROM_USER_ID, userID);
+        }
 
-        String sql = "SELECT user_id FROM user WHERE username = '" + username + "'";
+        return identity;
+    }
+
+    /**
+     * Loads the identity of a single user from the database and caches it.
+     *
+     * @param query the identity query to run.
+     * @param key   the username or user_id to look up.
+     * @return the User's identity, or null if there is no such user.
+     */
+    private UserIdentityCache.Identity loadIdentity(Query query, Object key) {
+        long generation = identities.getGeneration();
+        UserIdentityCache.Identity identity = null;
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(query, key)) {
             while (rs.next()) {
-                userID = rs.getInt("user_id");
+                identity = readIdentity(rs);
             }
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
-        return userID;
+
+        if (identity != null) {
+            identities.put(identity, generation);
+        }
+        return identity;
+    }
+
+    /**
+     * Reads a user's identity from the current row of a ResultSet.
+     *
+     * @param rs a ResultSet positioned on a row containing the user_id, username, email, height and sex columns.
+     * @return the identity in that row.
+     * @throws SQLException if a column cannot be read.
+     */
+    private static UserIdentityCache.Identity readIdentity(ResultSet rs) throws SQLException {
+        return new UserIdentityCache.Identity(rs.getInt("user_id"), rs.getString("username"),
+                rs.getString("email"), rs.getFloat("height"), rs.getString("sex"));
     }
 
     /**
@@ -209,20 +393,9 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        float userHeight = -1;
+        UserIdentityCache.Identity identity = getIdentity(userID);
 
-        String sql = "SELECT height FROM user WHERE user_id= " + userID + "";
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                userHeight = rs.getFloat("height");
-            }
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return userHeight;
+        return identity == null ? -1 : identity.getHeight();
 
     }
 
@@ -238,23 +411,9 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        String username = "";
-
-        String sql = "SELECT username FROM user WHERE user_id = " + userID;
+        UserIdentityCache.Identity identity = getIdentity(userID);
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql))
-        {
-            while (rs.next())
-            {
-                username = rs.getString("username");
-            }
-        }
-        catch (SQLException e)
-        {
-            e.printStackTrace();
-        }
-        return username;
+        return identity == null ? "" : identity.getUsername();
     }
 
     /**
@@ -271,10 +430,8 @@ public class DatabaseHandler {
 
         byte[] hash = null;
 
-        String sql = "SELECT hash FROM user WHERE username = '" + username + "'";
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.HASH_FROM_USERNAME, username)) {
             while (rs.next()) {
                 hash = rs.getBytes("hash");
             }
@@ -300,10 +457,8 @@ public class DatabaseHandler {
 
         byte[] salt = null;
 
-        String sql = "SELECT salt FROM user WHERE username = '" + username + "'";
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.SALT_FROM_USERNAME, username)) {
             while (rs.next()) {
                 salt = rs.getBytes("salt");
             }
@@ -327,11 +482,8 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT * FROM user WHERE username = '" + username + "'";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.USER_ID_FROM_USERNAME, username)) {
             if (!rs.next()) {
                 return true;
             }
@@ -353,11 +505,8 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT * FROM user WHERE email = '" + email + "'";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.USER_ID_FROM_EMAIL, email)) {
             if (!rs.next()) {
                 return false;
             }
@@ -390,15 +539,18 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        String sql = "INSERT INTO weight_entry (user_id, weight, date_of)" +
-                "VALUES('" + getUserIDFromUsername(username) + "', '" + weight + "','" + date.toString() + "')";
+        int userID = getUserIDFromUsername(username);
 
-        Statement stmt  = conn.createStatement();
-        stmt.executeUpdate(sql);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                conn.executeUpdate(Query.INSERT_WEIGHT, userID, weight, date);
+                conn.executeUpdate(Query.SUMMARY_SET_WEIGHT, userID, date, weight);
+            });
+        }
     }
 
     /**
-     * Method to add a token entry to the regtokens table in the database
+     * Method to add a token entry to the token store as a registration token
      *
      * @param tokenVal Takes in the unique token that was randomly generated by the {@link TokenHandler} class
      */
@@ -407,14 +559,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        LocalDateTime now = LocalDateTime.now();
-
-        String sql = "INSERT INTO regTokens (tokenVal, sent_time) VALUES" +
-                "('" + tokenVal + "', '" + now.toString() + "')";
+        LocalDateTime expiry = LocalDateTime.now().plusMinutes(REG_TOKEN_MINUTES);
 
         try {
-            Statement stmt  = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+            tokens.put(new TokenStore.Token(tokenVal, TokenStore.Type.REGISTRATION, -1, null, expiry));
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -438,21 +586,15 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT tokenVal, sent_time FROM regTokens WHERE tokenVal = '" + tokenVal + "'";
-
-        Statement stmt  = this.conn.createStatement();
-
-        ResultSet rs = stmt.executeQuery(sql);
+        TokenStore.Token token = tokens.get(TokenStore.Type.REGISTRATION, tokenVal);
 
-        if (rs.isBeforeFirst()) {
-            return LocalDateTime.parse(rs.getString("sent_time"));
-        }
-        return null;
+        //Registration tokens are stored with their expiry, which is a fixed time after they were sent
+        return token == null ? null : token.getExpiresAt().minusMinutes(REG_TOKEN_MINUTES);
     }
 
     /**
-     * Method to retrieve nutrition items from the database. It will return the first item where the start of
-     * the item's name matches the input.
+     * Method to retrieve nutrition items from the food catalog. It will return the item with exactly the passed name if
+     * there is one, otherwise the first item where the start of the item's name matches the input.
      *
      * @param itemName Takes in the a name to be searched in the database.
      *
@@ -462,35 +604,9 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String searchName = itemName + '%';
-        String sql = "SELECT * FROM food WHERE name LIKE '" + searchName + "'";
-
-        NutritionItem nutritionItem = null;
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
-            nutritionItem = new NutritionItem(
-                    rs.getString("name"),          rs.getDouble("kcal"),
-                    rs.getDouble("protein_g"),     rs.getDouble("fat_g"),
-                    rs.getDouble("carbs_g"),       rs.getDouble("sugar_g"),
-                    rs.getDouble("fibre_g"),       rs.getDouble("cholesterol_mg"),
-                    rs.getDouble("sodium_mg"),     rs.getDouble("potassium_mg"),
-                    rs.getDouble("calcium_mg"),    rs.getDouble("magnesium_mg"),
-                    rs.getDouble("phosphorus_mg"), rs.getDouble("iron_mg"),
-                    rs.getDouble("copper_mg"),     rs.getDouble("zinc_mg"),
-                    rs.getDouble("chloride_mg"),   rs.getDouble("selenium_ug"),
-                    rs.getDouble("iodine_ug"),     rs.getDouble("vit_a_ug"),
-                    rs.getDouble("vit_d_ug"),      rs.getDouble("thiamin_mg"),
-                    rs.getDouble("riboflavin_mg"), rs.getDouble("niacin_mg"),
-                    rs.getDouble("vit_b6_mg"),     rs.getDouble("vit_b12_ug"),
-                    rs.getDouble("folate_ug"),     rs.getDouble("vit_c_mg")
-            );
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
-        }
+        int foodID = foods.findId(itemName);
 
-        return nutritionItem;
+        return foodID < 0 ? null : foods.getNutritionItem(foodID);
     }
 
     /**
@@ -503,34 +619,8 @@ public class DatabaseHandler {
         if (foodID < 0) {
             throw new IllegalArgumentException();
         }
-        String sql = "SELECT * FROM food WHERE id = " + foodID;
-
-        NutritionItem nutritionItem = null;
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
-            nutritionItem = new NutritionItem(
-                    rs.getString("name"),          rs.getDouble("kcal"),
-                    rs.getDouble("protein_g"),     rs.getDouble("fat_g"),
-                    rs.getDouble("carbs_g"),       rs.getDouble("sugar_g"),
-                    rs.getDouble("fibre_g"),       rs.getDouble("cholesterol_mg"),
-                    rs.getDouble("sodium_mg"),     rs.getDouble("potassium_mg"),
-                    rs.getDouble("calcium_mg"),    rs.getDouble("magnesium_mg"),
-                    rs.getDouble("phosphorus_mg"), rs.getDouble("iron_mg"),
-                    rs.getDouble("copper_mg"),     rs.getDouble("zinc_mg"),
-                    rs.getDouble("chloride_mg"),   rs.getDouble("selenium_ug"),
-                    rs.getDouble("iodine_ug"),     rs.getDouble("vit_a_ug"),
-                    rs.getDouble("vit_d_ug"),      rs.getDouble("thiamin_mg"),
-                    rs.getDouble("riboflavin_mg"), rs.getDouble("niacin_mg"),
-                    rs.getDouble("vit_b6_mg"),     rs.getDouble("vit_b12_ug"),
-                    rs.getDouble("folate_ug"),     rs.getDouble("vit_c_mg")
-            );
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
-        }
 
-        return nutritionItem;
+        return foods.contains(foodID) ? foods.getNutritionItem(foodID) : null;
     }
 
     /**
@@ -545,13 +635,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String searchName = itemName + '%';
-        String sql = "SELECT * FROM exercise WHERE name LIKE '" + searchName + "'";
-
         ExerciseItem exerciseItem = null;
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.EXERCISE_LIKE_NAME, itemName + '%')) {
 
             exerciseItem = new ExerciseItem(rs.getString("name"),
                                             rs.getInt("burn_rate"));
@@ -565,7 +652,7 @@ public class DatabaseHandler {
     }
 
     /**
-     * Method to delete tokens from the regtokens table, this occurs when a token has been used to ensure we minimize
+     * Method to delete tokens from the token store, this occurs when a token has been used to ensure we minimize
      * database bloat
      *
      * @param token takes in a token value
@@ -575,17 +662,54 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "DELETE FROM regTokens WHERE tokenVal = '" + token + "'";
-
         try {
-            Statement stmt  = this.conn.createStatement();
-            stmt.executeQuery(sql);
+            tokens.delete(TokenStore.Type.REGISTRATION, token);
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Method to delete every expired registration token, password recovery code and group invite, in one statement.
+     *
+     * @param now the current time.
+     * @return the number of tokens, codes and invites deleted.
+     * @throws SQLException if the expired tokens could not be deleted, in which case none are.
+     */
+    public int deleteExpiredTokens(LocalDateTime now) throws SQLException {
+        if (now == null) {
+            throw new NullPointerException();
+        }
+
+        return tokens.deleteExpired(now);
+    }
+
+    /**
+     * Method to mark every goal which has passed its end date or been completed as inactive, and to delete every
+     * system goal which has passed its end date, in one transaction.
+     *
+     * @param today the current date.
+     * @return the number of goals marked inactive and system goals deleted.
+     * @throws SQLException if the goals could not be updated, in which case none are.
+     */
+    public int expireGoals(LocalDate today) throws SQLException {
+        if (today == null) {
+            throw new NullPointerException();
+        }
+
+        int[] expired = new int[1];
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                expired[0] += conn.executeUpdate(Query.EXPIRE_GOALS, today);
+                expired[0] += conn.executeUpdate(Query.DELETE_EXPIRED_SYSTEM_GOALS, today);
+            });
+        }
+
+        return expired[0];
+    }
+
     /**
      * Method to dynamically update a SQL table, it takes in 4 different parameters which allows this method to modify
      * any table that has a username as a unique key
@@ -615,12 +739,27 @@ public class DatabaseHandler {
             throw new NullPointerException("Identifying value cannoy be null");
         }
 
+        //Table and column names cannot be bound as parameters, so this statement is built per call and not cached.
         String sql = "UPDATE " + table.toUpperCase(Locale.ROOT) +
-                     " SET " + column.toUpperCase(Locale.ROOT) + " = '" + valToUpdateTo +
-                     "' WHERE " + identifyingColumn + " = '" + identifyingValue + "'";
+                     " SET " + column.toUpperCase(Locale.ROOT) + " = ?" +
+                     " WHERE " + identifyingColumn + " = ?";
+
+        try (PooledConnection conn = pool.borrowWriter();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, valToUpdateTo);
+            pstmt.setString(2, identifyingValue);
+
+            pstmt.executeUpdate();
+        }
 
-        Statement stmt  = this.conn.createStatement();
-        stmt.executeUpdate(sql);
+        if (table.equalsIgnoreCase("user")) {
+            if (identifyingColumn.equalsIgnoreCase("username")) {
+                identities.invalidate(identifyingValue);
+            }
+            else {
+                identities.clear();
+            }
+        }
     }
 
     /**
@@ -652,26 +791,118 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT first_name, last_name, sex, dob, email, username " +
-                     "FROM user WHERE username = '" + username + "'";
-
         User user;
+        long generation = identities.getGeneration();
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.USER_FROM_USERNAME, username)) {
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+            user = readUser(rs);
 
-            user = new User(rs.getString("first_name"),
-                    rs.getString("last_name"),
-                    User.Sex.valueOf(rs.getString("sex").toUpperCase(Locale.ROOT)),
-                    LocalDate.parse(rs.getString("dob")),
-                    rs.getString("email"),
-                    rs.getString("username")
-            );
+            //Called on login, so fill the identity cache with everything later lookups for this user will need
+            identities.put(readIdentity(rs), generation);
         }
 
         return user;
     }
 
+    /**
+     * Method to get the lowest and highest user_id in the user table.
+     *
+     * @return an array of the lowest and highest user_id, or null if there are no users.
+     * @throws SQLException if the user table cannot be read.
+     */
+    public int[] selectUserIDBounds() throws SQLException {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.USER_ID_BOUNDS)) {
+            if (!rs.next() || rs.getObject("min_id") == null) {
+                return null;
+            }
+
+            return new int[] {rs.getInt("min_id"), rs.getInt("max_id")};
+        }
+    }
+
+    /**
+     * Method to create a User object for every user with a user_id in a range.
+     *
+     * @param from the lowest user_id, inclusive.
+     * @param to   the highest user_id, exclusive.
+     * @return the users in the range against their user_id, in user_id order. Users whose rows are malformed are left
+     * out.
+     * @throws SQLException if the user table cannot be read.
+     */
+    public LinkedHashMap<Integer, User> selectUsersInRange(int from, int to) throws SQLException {
+        if (to < from) {
+            throw new IllegalArgumentException();
+        }
+
+        LinkedHashMap<Integer, User> users = new LinkedHashMap<>();
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.USERS_IN_ID_RANGE, from, to)) {
+            while (rs.next()) {
+                try {
+                    users.put(rs.getInt("user_id"), readUser(rs));
+                }
+                catch (RuntimeException e) { //A malformed row, skipped so the rest of the range is still read
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        return users;
+    }
+
+    /**
+     * Method to retrieve a user's password hash, salt and profile from the database in a single statement, for
+     * verifying a login attempt.
+     *
+     * @param username A user's unique username
+     * @return the user's Credentials, or null if no user has that username
+     * @throws SQLException if the connection or query to the database fails
+     */
+    public AuthService.Credentials getCredentialsFromUsername(String username) throws SQLException {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+
+        long generation = identities.getGeneration();
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.CREDENTIALS_FROM_USERNAME, username)) {
+            if (!rs.next()) {
+                return null;
+            }
+
+            AuthService.Credentials credentials =
+                    new AuthService.Credentials(rs.getBytes("hash"), rs.getBytes("salt"), readUser(rs));
+
+            //Fill the identity cache, as a successful login will go on to need it
+            identities.put(readIdentity(rs), generation);
+
+            return credentials;
+        }
+    }
+
+    /**
+     * Reads a User from the current row of a ResultSet.
+     *
+     * @param rs a ResultSet positioned on a row containing the first_name, last_name, sex, dob, email and username
+     *           columns.
+     * @return the User in that row.
+     * @throws SQLException if a column cannot be read.
+     */
+    private static User readUser(ResultSet rs) throws SQLException {
+        return new User(rs.getString("first_name"),
+                rs.getString("last_name"),
+                User.Sex.valueOf(rs.getString("sex").toUpperCase(Locale.ROOT)),
+                LocalDate.parse(rs.getString("dob")),
+                rs.getString("email"),
+                rs.getString("username")
+        );
+    }
+
     /**
      * Method to get the past seven days of caloric intake for the user in a Map with keys as String representations
      * of each day's date.
@@ -691,22 +922,12 @@ public class DatabaseHandler {
         HashMap<String, Double> entries = new HashMap<>();
         LocalDate prevWeek = latest.minusDays(6);
 
-        String sql = "SELECT date_of, quantity, kcal FROM meal INNER JOIN food ON meal.food_id = food.id " +
-                     "WHERE user_id = '" + getUserIDFromUsername(username) + "' AND date_of BETWEEN '" +
-                      prevWeek.toString() + "' AND '" + latest.toString() + "'";
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.SUMMARY_BETWEEN,
+                    getUserIDFromUsername(username), prevWeek, latest)) {
             while (rs.next()) {
-                String date = rs.getString("date_of");
-                int quantity = rs.getInt("quantity");
-                double kcal = rs.getDouble("kcal");
-
-                if (entries.containsKey(date)) {
-                    entries.put(date, entries.get(date) + (quantity * kcal/100));
-                }
-                else {
-                    entries.put(date, (quantity * kcal)/100);
+                if (rs.getInt("meals") > 0) {
+                    entries.put(rs.getString("date_of"), rs.getDouble("kcal"));
                 }
             }
         }
@@ -736,20 +957,12 @@ public class DatabaseHandler {
         HashMap<String, Integer> entries = new HashMap<>();
         LocalDate prevWeek = latest.minusDays(6);
 
-        String sql = "SELECT date_of, duration FROM activity WHERE user_id = '" +
-                      getUserIDFromUsername(username) + "' AND date_of BETWEEN '" + prevWeek.toString() +
-                     "' AND '" + latest.toString() + "'";
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.SUMMARY_BETWEEN,
+                    getUserIDFromUsername(username), prevWeek, latest)) {
             while (rs.next()) {
-                String date = rs.getString("date_of");
-
-                if (entries.containsKey(date)) {
-                    entries.put(date, entries.get(date) + rs.getInt("duration"));
-                }
-                else {
-                    entries.put(date, rs.getInt("duration"));
+                if (rs.getInt("activities") > 0) {
+                    entries.put(rs.getString("date_of"), rs.getInt("minutes"));
                 }
             }
         }
@@ -781,20 +994,12 @@ public class DatabaseHandler {
 
             LocalDate prevWeek = latest.minusDays(6);
 
-            String sql = "SELECT date_of, duration, burn_rate FROM activity INNER JOIN exercise " +
-                    "ON activity.exercise_id = exercise.id WHERE user_id = '" + getUserIDFromUsername(username) +
-                    "' AND date_of BETWEEN '" + prevWeek.toString() + "' AND '" + latest.toString() + "'";
-
-            try (Statement stmt = this.conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PooledConnection conn = pool.borrowReader();
+                 ResultSet rs = conn.executeQuery(Query.SUMMARY_BETWEEN,
+                        getUserIDFromUsername(username), prevWeek, latest)) {
                 while (rs.next()) {
-                    String date = rs.getString("date_of");
-                    float burnRate = rs.getFloat("burn_rate");
-
-                    if (entries.containsKey(date)) {
-                        entries.put(date, entries.get(date) + rs.getInt("duration") * burnRate / 30);
-                    } else {
-                        entries.put(date, rs.getInt("duration") * burnRate / 30);
+                    if (rs.getInt("activities") > 0) {
+                        entries.put(rs.getString("date_of"), rs.getFloat("kcal_burned"));
                     }
                 }
             } catch (SQLException e) {
@@ -803,20 +1008,11 @@ public class DatabaseHandler {
 
         } else {
 
-            String sql = "SELECT date_of, duration, burn_rate, name FROM activity INNER JOIN exercise " +
-                    "ON activity.exercise_id = exercise.id WHERE user_id = '" + getUserIDFromUsername(username) + "'";
-
-            try (Statement stmt = this.conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PooledConnection conn = pool.borrowReader();
+                 ResultSet rs = conn.executeQuery(Query.SUMMARY_ALL, getUserIDFromUsername(username))) {
                 while (rs.next()) {
-                    String date = rs.getString("date_of");
-                    float burnRate = rs.getFloat("burn_rate");
-                    String name = rs.getString("name");
-
-                    if (entries.containsKey(date)) {
-                        entries.put(date, entries.get(date) + rs.getInt("duration") * burnRate / 30);
-                    } else {
-                        entries.put(date, rs.getInt("duration") * burnRate / 30);
+                    if (rs.getInt("activities") > 0) {
+                        entries.put(rs.getString("date_of"), rs.getFloat("kcal_burned"));
                     }
                 }
             } catch (SQLException e) {
@@ -842,11 +1038,8 @@ public class DatabaseHandler {
 
         HashMap<String, List<List<String>>> entries = new HashMap<>();
 
-        String sql = "SELECT date_of, duration, burn_rate, name FROM activity INNER JOIN exercise " +
-                "ON activity.exercise_id = exercise.id WHERE user_id = '" + getUserIDFromUsername(username) + "'";
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.BURNED_ENTRIES_ALL, getUserIDFromUsername(username))) {
             while (rs.next()) {
                 String date = rs.getString("date_of");
                 float burnRate = rs.getFloat("burn_rate");
@@ -914,16 +1107,15 @@ public class DatabaseHandler {
 
             LocalDate prevWeek = latest.minusDays(6);
 
-            String sql = "SELECT date_of, weight FROM weight_entry WHERE user_id = '" +
-                    getUserIDFromUsername(username) + "' AND date_of BETWEEN '" + prevWeek.toString() +
-                    "' AND '" + latest.toString() + "'";
-
-            try (Statement stmt = this.conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PooledConnection conn = pool.borrowReader();
+                 ResultSet rs = conn.executeQuery(Query.SUMMARY_BETWEEN,
+                        getUserIDFromUsername(username), prevWeek, latest)) {
                 while (rs.next()) {
-                    String date = rs.getString("date_of");
+                    int weight = rs.getInt("weight");
 
-                    entries.put(date, rs.getInt("weight"));
+                    if (!rs.wasNull()) {
+                        entries.put(rs.getString("date_of"), weight);
+                    }
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -931,15 +1123,14 @@ public class DatabaseHandler {
 
         } else {
 
-            String sql = "SELECT date_of, weight FROM weight_entry WHERE user_id = '" +
-                    getUserIDFromUsername(username) + "'";
-
-            try (Statement stmt = this.conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PooledConnection conn = pool.borrowReader();
+                 ResultSet rs = conn.executeQuery(Query.SUMMARY_ALL, getUserIDFromUsername(username))) {
                 while (rs.next()) {
-                    String date = rs.getString("date_of");
+                    int weight = rs.getInt("weight");
 
-                    entries.put(date, rs.getInt("weight"));
+                    if (!rs.wasNull()) {
+                        entries.put(rs.getString("date_of"), weight);
+                    }
                 }
             } catch (SQLException e) {
                 e.printStackTrace();
@@ -971,12 +1162,9 @@ public class DatabaseHandler {
         if(latest != null) {
             LocalDate prevWeek = latest.minusDays(6);
 
-            String sql = "SELECT date_of, food_id FROM meal WHERE user_id = '" +
-                    getUserIDFromUsername(username) + "' AND date_of BETWEEN '" + prevWeek.toString() +
-                    "' AND '" + latest.toString() + "'";
-
-            try (Statement stmt = this.conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PooledConnection conn = pool.borrowReader();
+                 ResultSet rs = conn.executeQuery(Query.MEAL_FOODS_BETWEEN,
+                        getUserIDFromUsername(username), prevWeek, latest)) {
                 while (rs.next()) {
                     String date = rs.getString("date_of");
 
@@ -1000,11 +1188,8 @@ public class DatabaseHandler {
 
         } else {
 
-            String sql = "SELECT date_of, food_id FROM meal WHERE user_id = '" +
-                    getUserIDFromUsername(username) + "'";
-
-            try (Statement stmt = this.conn.createStatement();
-                 ResultSet rs = stmt.executeQuery(sql)) {
+            try (PooledConnection conn = pool.borrowReader();
+                 ResultSet rs = conn.executeQuery(Query.MEAL_FOODS_ALL, getUserIDFromUsername(username))) {
                 while (rs.next()) {
                     String date = rs.getString("date_of");
 
@@ -1032,53 +1217,77 @@ public class DatabaseHandler {
     }
 
     /**
-     * Method to get a list of all exercise names in the database.
+     * Method to get a user's total intake of every nutrient for each day in a date range. The totals are read from the
+     * daily_user_summary rollup and take the quantity of each meal into account.
      *
-     * @return an ArrayList containing every exercise name as a String.
+     * @param username the user's username.
+     * @param earliest the first date to total.
+     * @param latest   the last date to total.
+     * @return a NutrientSummary holding the totals for each day in the range.
      */
-    public ArrayList<String> getExerciseNames() {
-        ArrayList<String> exercises = new ArrayList<>();
+    public NutrientSummary getDailyNutrients(String username, LocalDate earliest, LocalDate latest) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
 
-        String sql = "SELECT name FROM exercise";
+        NutrientSummary summary = new NutrientSummary(earliest, latest);
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.SUMMARY_BETWEEN,
+                     getUserIDFromUsername(username), earliest, latest)) {
             while (rs.next()) {
-                exercises.add(rs.getString("name"));
+                if (rs.getInt("meals") == 0) {
+                    continue;
+                }
+
+                double[] totals = new double[Nutrient.COUNT];
+
+                for (Nutrient nutrient : Nutrient.values()) {
+                    totals[nutrient.ordinal()] = rs.getDouble(nutrient.getColumn());
+                }
+
+                summary.setDay(LocalDate.parse(rs.getString("date_of")), totals);
             }
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return exercises;
+        return summary;
     }
 
     /**
-     * A method to get a list of all food names in the database.
+     * Method to get a list of all exercise names in the database.
      *
-     * @return an ArrayList containing every food name as a String.
+     * @return an ArrayList containing every exercise name as a String.
      */
-    public ArrayList<String> getFoodNames() {
-        ArrayList<String> foods = new ArrayList<>();
-
-        String sql = "SELECT name FROM food";
+    public ArrayList<String> getExerciseNames() {
+        ArrayList<String> exercises = new ArrayList<>();
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.EXERCISE_NAMES)) {
             while (rs.next()) {
-                foods.add(rs.getString("name"));
+                exercises.add(rs.getString("name"));
             }
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return foods;
+        return exercises;
     }
 
     /**
-     * Method to get an exercise_id for an exercise given by name.
+     * A method to get a list of all food names in the database.
+     *
+     * @return an ArrayList containing every food name as a String.
+     */
+    public ArrayList<String> getFoodNames() {
+        return foods.getNames();
+    }
+
+    /**
+     * Method to get an exercise_id for an exercise given by name.
      *
      * @param name the name of the exercise.
      * @return the exercise_id.
@@ -1088,11 +1297,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT id FROM exercise WHERE name LIKE '" + name + "'";
         int exerciseId = -1;
 
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.EXERCISE_ID_LIKE_NAME, name)) {
             while (rs.next()) {
                 exerciseId = rs.getInt("id");
             }
@@ -1129,38 +1337,29 @@ public class DatabaseHandler {
             throw new IllegalStateException();
         }
 
-        String sql = "INSERT INTO activity (exercise_id, user_id, duration, date_of)" +
-                     "VALUES('" + exerciseId  + "', '" + getUserIDFromUsername(username) +
-                     "','" + duration + "','" + LocalDate.now().toString() + "')";
+        int userID = getUserIDFromUsername(username);
+        LocalDate date = LocalDate.now();
 
-        Statement stmt  = conn.createStatement();
-        stmt.executeUpdate(sql);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                conn.executeUpdate(Query.INSERT_ACTIVITY, exerciseId, userID, duration, date);
+                conn.executeUpdate(Query.SUMMARY_ADD_ACTIVITY, userID, date, duration, exerciseId);
+            });
+        }
     }
 
     /**
      * Method to get an food_id for a food given by name.
      *
      * @param name the name of the food.
-     * @return the food_id.
+     * @return the food_id, or -1 if no food matches.
      */
     public int getFoodId(String name)  {
         if (name == null) {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT id FROM food WHERE name LIKE '" + name + "'";
-        int foodId = -1;
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
-
-            foodId = rs.getInt("id");
-
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return foodId;
+        return foods.findId(name);
     }
 
     /**
@@ -1193,21 +1392,101 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        String sql = "INSERT INTO meal (meal_category, food_id, user_id, date_of, quantity)" +
-                     "VALUES('" + meal  + "', '" + getFoodId(food) + "','" + getUserIDFromUsername(username) +
-                     "','" + date.toString() + "','" + quantity + "')";
+        addFoodEntries(getUserIDFromUsername(username), date, List.of(new MealLine(meal, food, quantity)));
+    }
 
-        Statement stmt  = conn.createStatement();
-        stmt.executeUpdate(sql);
+    /**
+     * Method to insert several meal entries into the meal table for a user in a single transaction. Food ids are
+     * resolved once per distinct food and the inserts are sent to the database as one batch, so either every line is
+     * logged or none are.
+     *
+     * @param userID the user's unique ID.
+     * @param date   the date of consumption.
+     * @param lines  the foods consumed, their quantities and the meals they were consumed at.
+     * @return the generated meal_id of each inserted entry, in the order of the passed lines.
+     * @throws SQLException if the entries could not be inserted, in which case none are.
+     */
+    public List<Integer> addFoodEntries(int userID, LocalDate date, List<MealLine> lines) throws SQLException {
+        if (userID < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (date == null) {
+            throw new NullPointerException();
+        }
+        if (date.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException();
+        }
+        if (lines == null) {
+            throw new NullPointerException();
+        }
+
+        List<Integer> keys = new ArrayList<>();
+
+        if (lines.isEmpty()) {
+            return keys;
+        }
+
+        //Resolve every food up front so nothing is written if one cannot be found.
+        Map<String, Integer> foodIDs = new HashMap<>();
+        for (MealLine line : lines) {
+            if (!foodIDs.containsKey(line.getFood())) {
+                int foodID = getFoodId(line.getFood());
+
+                if (foodID == -1) {
+                    throw new IllegalArgumentException("Unknown food " + line.getFood());
+                }
+                foodIDs.put(line.getFood(), foodID);
+            }
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                PreparedStatement meals = conn.prepare(Query.INSERT_MEAL);
+                PreparedStatement summary = conn.prepare(Query.SUMMARY_ADD_MEALS);
+
+                try {
+                    for (MealLine line : lines) {
+                        int foodID = foodIDs.get(line.getFood());
+
+                        PooledConnection.bind(meals, line.getMeal(), foodID, userID, date, line.getQuantity());
+                        meals.addBatch();
+                        PooledConnection.bind(summary, userID, date, 1, line.getQuantity(), foodID);
+                        summary.addBatch();
+                    }
+
+                    meals.executeBatch();
+
+                    //The writer is the only connection inserting and the batch ran in one transaction, so the new
+                    //meal_ids are consecutive and end at the last inserted rowid. This must be read before the
+                    //summary batch, whose upsert inserts a daily_user_summary row for the first meal of a day.
+                    try (ResultSet rs = conn.executeQuery(Query.LAST_INSERT_ROWID)) {
+                        int last = rs.getInt(1);
+
+                        for (int key = last - lines.size() + 1; key <= last; key++) {
+                            keys.add(key);
+                        }
+                    }
+
+                    summary.executeBatch();
+                }
+                finally {
+                    meals.clearBatch();
+                    summary.clearBatch();
+                }
+            });
+        }
+
+        return keys;
     }
 
     /**
-     * Adds a new goal to the database for a user.
+     * Adds a new goal to the database for a user, and sets the goal's ID.
      *
      * @param username the user's username.
      * @param goal the user's new goal.
+     * @return the new goal's ID, or 0 if it could not be added.
      */
-    public void insertGoal(String username, UserGoal goal) {
+    public int insertGoal(String username, UserGoal goal) {
         if (username == null) {
             throw new NullPointerException();
         }
@@ -1215,23 +1494,24 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        int groupId = 0;
-
-        if (goal instanceof GroupGoal) {
-            groupId = ((GroupGoal)goal).getGroupId();
-        }
+        int groupId = goal instanceof GroupGoal ? ((GroupGoal) goal).getGroupId() : 0;
+        int userID = getUserIDFromUsername(username);
 
-        String sql = "INSERT INTO goal (user_id, target, unit, progress, end_date, group_id) VALUES('" +
-                getUserIDFromUsername(username) + "','" + goal.getTarget() + "','" + goal.getUnit().toString() +
-                "','" + goal.getProgress() + "','" + goal.getEndDate().toString() + "', '" + groupId + "')";
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                conn.executeUpdate(Query.INSERT_GOAL, userID, goal.getTarget(), goal.getUnit(), goal.getProgress(),
+                        goal.getEndDate(), groupId);
 
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+                try (ResultSet rs = conn.executeQuery(Query.LAST_INSERT_ROWID)) {
+                    goal.setId(rs.getInt(1));
+                }
+            });
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
+
+        return goal.getId();
     }
 
     /**
@@ -1245,26 +1525,27 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT target, unit, progress, end_date, group_id FROM goal WHERE user_id = " +
-                getUserIDFromUsername(username);
-
         ArrayList<UserGoal> goals = new ArrayList<>();
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.SELECT_GOALS, getUserIDFromUsername(username))) {
             while (rs.next()) {
                 float target = rs.getFloat("target");
                 Goal.Unit unit = Goal.Unit.valueOf(rs.getString("unit"));
-                float progress = rs.getInt("progress");
+                float progress = rs.getFloat("progress");
                 LocalDate endDate = LocalDate.parse(rs.getString("end_date"));
                 int group_id = rs.getInt("group_id");
 
+                UserGoal goal;
                 if (group_id == 0) {
-                    goals.add(new IndividualGoal(target, unit, endDate, progress));
+                    goal = new IndividualGoal(target, unit, endDate, progress);
                 }
                 else {
-                    goals.add(new GroupGoal(target, unit, endDate, progress, group_id));
+                    goal = new GroupGoal(target, unit, endDate, progress, group_id);
                 }
+
+                goal.setId(rs.getInt("id"));
+                goals.add(goal);
             }
         }
         catch (SQLException e) {
@@ -1279,6 +1560,7 @@ public class DatabaseHandler {
      *
      * @param username the user's username.
      * @param goal the updated goal to be updated in the database.
+     * @param amount the amount the goal's progress was increased by.
      */
     public void updateGoal(String username, UserGoal goal, float amount) {
         if (username == null) {
@@ -1291,19 +1573,41 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        float target = goal.getTarget();
-        String unit = goal.getUnit().toString();
-        String endDate = goal.getEndDate().toString();
-        float newProgress = goal.getProgress();
-        float previousProgress = newProgress - amount;
+        updateGoalProgress(List.of(goal));
+    }
+
+    /**
+     * Writes the current progress of several goals to the database by their IDs, as one batch in a single
+     * transaction. Goals which have not been stored are skipped.
+     *
+     * @param goals the goals whose progress has changed.
+     */
+    public void updateGoalProgress(List<? extends UserGoal> goals) {
+        if (goals == null) {
+            throw new NullPointerException();
+        }
+        if (goals.isEmpty()) {
+            return;
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                PreparedStatement update = conn.prepare(Query.UPDATE_GOAL_PROGRESS);
 
-        String sql = "UPDATE goal SET progress = " + newProgress + " WHERE user_id = '" +
-                getUserIDFromUsername(username) + "' AND target = '" + target + "' AND unit = '" + unit +
-                "' AND progress = '" + previousProgress + "' AND end_date = '" + endDate + "'";
+                try {
+                    for (UserGoal goal : goals) {
+                        if (goal.getId() > 0) {
+                            PooledConnection.bind(update, goal.getProgress(), goal.getId());
+                            update.addBatch();
+                        }
+                    }
 
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+                    update.executeBatch();
+                }
+                finally {
+                    update.clearBatch();
+                }
+            });
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -1311,7 +1615,7 @@ public class DatabaseHandler {
     }
 
     /**
-     * Adds a token to the groupInvTable
+     * Adds a group invite token to the token store
      *
      * @param username the user's username.
      */
@@ -1334,10 +1638,9 @@ public class DatabaseHandler {
         LocalDateTime time = LocalDateTime.now();
         time = time.plusHours(36);
 
-        String sql = "INSERT INTO groupInvTable (tokenVal, expiry_time, groupID, userID) VALUES ('" + tokenVal +"', '" + time + "', " + groupID + ", " + userID + ");";
         try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+            tokens.put(new TokenStore.Token(tokenVal, TokenStore.Type.GROUP_INVITE, userID, String.valueOf(groupID),
+                    time));
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -1366,11 +1669,8 @@ public class DatabaseHandler {
         int userID = getUserIDFromUsername(username);
         int noCups = 0;
 
-        String sql = "SELECT quantity FROM meal WHERE user_id = '" + userID + "' AND date_of = '" + date +
-                "' AND food_id = " + getFoodId("Water");
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.WATER_QUANTITY, userID, date, getFoodId("Water"))) {
             if(rs.next()) {
                 noCups = rs.getInt("quantity") / 250;
 
@@ -1403,10 +1703,8 @@ public class DatabaseHandler {
         int userID = getUserIDFromUsername(username);
         String role = null;
 
-        String sql = "SELECT Group_Role FROM group_membership WHERE User_Id = " + userID + " AND Group_Id = " + groupID;
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql))
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_ROLE, userID, groupID))
         {
             while (rs.next()) {
                 role = rs.getString("Group_Role");
@@ -1443,26 +1741,39 @@ public class DatabaseHandler {
         }
 
         int userID = getUserIDFromUsername(username);
+        int waterID = getFoodId("Water");
+        int waterQuantity = noCups * 250;
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                int entries = 0;
+                int previous = 0;
+
+                try (ResultSet rs = conn.executeQuery(Query.WATER_QUANTITY, userID, date, waterID)) {
+                    while (rs.next()) {
+                        entries++;
+                        previous += rs.getInt("quantity");
+                    }
+                }
 
-        String check_if_entry_exists_sql = "SELECT COUNT(*) FROM meal WHERE user_id = '" + userID + "' AND date_of = '" + date + "'";
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(check_if_entry_exists_sql)) {
-
-            int waterQuantity = noCups * 250;
-            String sql;
-
-            if (rs.getInt(1) != 0) {
-                sql = "UPDATE meal SET quantity = " + waterQuantity + " WHERE user_id = '" + userID +
-                        "' AND date_of = '" + date + "'";
-            }
-            else {
-                sql = "INSERT INTO meal (meal_category, food_id, user_id, date_of, quantity)" +
-                        "VALUES('Water', '" + getFoodId("Water") + "','" + userID + "','" + date.toString() + "','" +
-                        waterQuantity + "')";
-            }
-
-            stmt.executeUpdate(sql);
+                if (entries == 0) {
+                    if (waterQuantity > 0) {
+                        //The meal table only accepts the four meal categories, water is logged as a snack.
+                        conn.executeUpdate(Query.INSERT_MEAL, "Snack", waterID, userID, date, waterQuantity);
+                        conn.executeUpdate(Query.SUMMARY_ADD_MEALS, userID, date, 1, waterQuantity, waterID);
+                    }
+                }
+                else if (waterQuantity > 0) {
+                    conn.executeUpdate(Query.UPDATE_WATER_QUANTITY, waterQuantity, userID, date, waterID);
+                    conn.executeUpdate(Query.SUMMARY_ADD_MEALS,
+                            userID, date, 0, waterQuantity * entries - previous, waterID);
+                }
+                else {
+                    //Quantities must be positive, so no water means no entry.
+                    conn.executeUpdate(Query.DELETE_WATER, userID, date, waterID);
+                    conn.executeUpdate(Query.SUMMARY_ADD_MEALS, userID, date, -entries, -previous, waterID);
+                }
+            });
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -1483,23 +1794,23 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "INSERT INTO food (name, kcal, protein_g, fat_g, carbs_g, sugar_g, fibre_g, cholesterol_mg, " +
-                "sodium_mg, potassium_mg, calcium_mg, magnesium_mg, phosphorus_mg, iron_mg, copper_mg, zinc_mg, " +
-                "chloride_mg, selenium_ug, iodine_ug, vit_a_ug, vit_d_ug, thiamin_mg, riboflavin_mg, niacin_mg, " +
-                "vit_b6_mg, vit_b12_ug, folate_ug, vit_c_mg)" + "VALUES('" +
-                n.getName()         + "', " + n.getKcal()          + ", " + n.getProteinG()     + ", " +
-                n.getFatG()         + ", "  + n.getCarbsG()        + ", " + n.getSugarG()       + ", " +
-                n.getFibreG()       + ", "  + n.getCholesterolMg() + ", " + n.getSodiumMg()     + ", " +
-                n.getPotassiumMg()  + ", "  + n.getCalciumMg()     + ", " + n.getMagnesiumMg()  + ", " +
-                n.getPhosphorusMg() + ", "  + n.getIronMg()        + ", " + n.getCopperMg()     + ", " +
-                n.getZincMg()       + ", "  + n.getChlorideMg()    + ", " + n.getSeleniumUg()   + ", " +
-                n.getIodineUg()     + ", "  + n.getVitAUg()        + ", " + n.getVitDUg()       + ", " +
-                n.getThiaminMg()    + ", "  + n.getRiboflavinMg()  + ", " + n.getNiacinMg()     + ", " +
-                n.getVitB6Mg()      + ", "  + n.getVitB12Ug()      + ", " + n.getFolateUg()     + ", " +
-                n.getVitCMg()       + ")";
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                conn.executeUpdate(Query.INSERT_FOOD,
+                        n.getName(),
+                        n.getKcal(),         n.getProteinG(),      n.getFatG(),         n.getCarbsG(),
+                        n.getSugarG(),       n.getFibreG(),        n.getCholesterolMg(), n.getSodiumMg(),
+                        n.getPotassiumMg(),  n.getCalciumMg(),     n.getMagnesiumMg(),  n.getPhosphorusMg(),
+                        n.getIronMg(),       n.getCopperMg(),      n.getZincMg(),       n.getChlorideMg(),
+                        n.getSeleniumUg(),   n.getIodineUg(),      n.getVitAUg(),       n.getVitDUg(),
+                        n.getThiaminMg(),    n.getRiboflavinMg(),  n.getNiacinMg(),     n.getVitB6Mg(),
+                        n.getVitB12Ug(),     n.getFolateUg(),      n.getVitCMg());
 
-        Statement stmt  = conn.createStatement();
-        stmt.executeUpdate(sql);
+                try (ResultSet rs = conn.executeQuery(Query.LAST_INSERT_ROWID)) {
+                    foods.put(rs.getInt(1), n.getName(), n.getNutrients().toArray());
+                }
+            });
+        }
     }
 
     /**
@@ -1516,10 +1827,9 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        String sql = "INSERT INTO exercise (name, burn_rate) VALUES('" + name  + "', " + burnRate + ")";
-
-        Statement stmt  = conn.createStatement();
-        stmt.executeUpdate(sql);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.INSERT_EXERCISE, name, burnRate);
+        }
     }
 
     /**
@@ -1541,11 +1851,7 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT target, unit, end_date, update_period, category, accepted FROM system_goal WHERE " +
-                "user_id = '" + getUserIDFromUsername(username) + "' AND end_date = '" + endDate +
-                "' AND category = '" + category + "'";
-
-        return getSystemGoals(sql);
+        return getSystemGoals(Query.SYSTEM_GOALS_BY_CATEGORY, getUserIDFromUsername(username), endDate, category);
     }
 
     /**
@@ -1564,11 +1870,7 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT target, unit, end_date, update_period, category, accepted FROM system_goal WHERE " +
-                "user_id = '" + getUserIDFromUsername(username) + "' AND end_date = '" + endDate +
-                "' AND update_period = 'DAILY' AND category != 'DAY_TO_DAY'";
-
-        return getSystemGoals(sql);
+        return getSystemGoals(Query.DAILY_FITNESS_SYSTEM_GOALS, getUserIDFromUsername(username), endDate);
     }
 
     /**
@@ -1587,28 +1889,26 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT target, unit, end_date, update_period, category, accepted FROM system_goal WHERE " +
-                "user_id = '" + getUserIDFromUsername(username) + "' AND end_date <= '" + endDate +
-                "'AND end_date > '" + endDate.minusDays(7) + "' AND update_period = 'WEEKLY' AND category != 'DAY_TO_DAY'";
-
-        return getSystemGoals(sql);
+        return getSystemGoals(Query.WEEKLY_FITNESS_SYSTEM_GOALS,
+                getUserIDFromUsername(username), endDate, endDate.minusDays(7));
     }
 
     /**
      * Private helper method to run various SQL statements for grabbing SystemGoals.
      *
-     * @param sql the statement to run.
+     * @param query the statement to run.
+     * @param params the values to bind to the statement's parameters.
      * @return an ArrayList containing a User's SystemGoals meeting the required SQL statement.
      */
-    private ArrayList<SystemGoal> getSystemGoals(String sql) {
-        if (sql == null) {
+    private ArrayList<SystemGoal> getSystemGoals(Query query, Object... params) {
+        if (query == null) {
             throw new NullPointerException();
         }
 
         ArrayList<SystemGoal> goals = new ArrayList<>();
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(query, params)) {
             while (rs.next()) {
                 float target = rs.getFloat("target");
                 Goal.Unit unit = Goal.Unit.valueOf(rs.getString("unit"));
@@ -1646,22 +1946,7 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT amount FROM daily_intake WHERE unit = '" + unit + "' AND gender = '" + sex +
-                "' AND min_age <= '" + age + "' AND max_age >= '" + age + "'";
-
-        float amount = -1;
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                amount = rs.getFloat("amount");
-            }
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return amount;
+        return intakes.get(unit, age, sex);
     }
 
     /**
@@ -1682,27 +1967,9 @@ public class DatabaseHandler {
 
         ArrayList<Goal.Unit> completedGoals = new ArrayList<>();
 
-        String sql = "SELECT DISTINCT unit FROM goal WHERE user_id = '" +
-                getUserIDFromUsername(username)  + "' AND end_date >= '" + earliest + "' AND progress >= target " +
-                "GROUP BY unit HAVING unit NOT IN ('" +
-                Goal.Unit.CALORIES.toString() +    "', '" + Goal.Unit.PROTEIN.toString() +    "', '" +
-                Goal.Unit.BURNED.toString() +      "', '" + Goal.Unit.CARBS.toString() +      "', '" +
-                Goal.Unit.FIBRE.toString() +       "', '" + Goal.Unit.SODIUM.toString() +     "', '" +
-                Goal.Unit.POTASSIUM.toString() +   "', '" + Goal.Unit.CALCIUM.toString() +    "', '" +
-                Goal.Unit.MAGNESIUM.toString() +   "', '" + Goal.Unit.PHOSPHORUS.toString() + "', '" +
-                Goal.Unit.IRON.toString() +        "', '" + Goal.Unit.COPPER.toString() +     "', '" +
-                Goal.Unit.ZINC.toString() +        "', '" + Goal.Unit.CHLORIDE.toString() +   "', '" +
-                Goal.Unit.SELENIUM.toString() +    "', '" + Goal.Unit.IODINE.toString() +     "', '" +
-                Goal.Unit.VITAMIN_A.toString() +   "', '" + Goal.Unit.VITAMIN_D.toString() +  "', '" +
-                Goal.Unit.THIAMIN.toString() +     "', '" + Goal.Unit.RIBOFLAVIN.toString() + "', '" +
-                Goal.Unit.NIACIN.toString() +      "', '" + Goal.Unit.VITAMIN_B6.toString() + "', '" +
-                Goal.Unit.VITAMIN_B12.toString() + "', '" + Goal.Unit.FOLATE.toString() +     "', '" +
-                Goal.Unit.VITAMIN_C.toString() +   "') ";
-
-
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.COMPLETED_FITNESS_UNITS,
+                     getUserIDFromUsername(username), earliest)) {
             while (rs.next()) {
                 Goal.Unit unit = Goal.Unit.valueOf(rs.getString("unit"));
 
@@ -1727,21 +1994,9 @@ public class DatabaseHandler {
         if (username == null) {
             throw new NullPointerException();
         }
-        String email = null;
+        UserIdentityCache.Identity identity = getIdentity(username);
 
-        String sql = "SELECT email FROM user WHERE username = '" + username + "'";
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                email = rs.getString("email");
-            }
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return email;
+        return identity == null ? null : identity.getEmail();
     }
 
     /**
@@ -1763,14 +2018,11 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        String sql = "SELECT SUM(progress) as progress FROM goal WHERE user_id = '" + getUserIDFromUsername(username) +
-                "' AND unit = '" + unit + "' AND end_date >= '" + LocalDate.now().minusDays(daysEarlier) +
-                "' GROUP BY unit";
-
         float workRate = -1;
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.SUM_PROGRESS_SINCE,
+                     getUserIDFromUsername(username), unit, LocalDate.now().minusDays(daysEarlier))) {
             while (rs.next()) {
                 workRate = rs.getFloat("progress");
             }
@@ -1782,10 +2034,52 @@ public class DatabaseHandler {
         return workRate/daysEarlier;
     }
 
+    /**
+     * Method to get a user's fitness profile over a number of days up to today, i.e. for each fitness unit the user
+     * had a goal ending in that time, whether any of those goals was completed and their summed progress.
+     *
+     * @param username    the user's username
+     * @param daysEarlier the number of days prior to today to query
+     * @return the user's fitness profile, empty if it could not be read.
+     */
+    public FitnessProfile selectFitnessProfile(String username, int daysEarlier) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+        if (daysEarlier < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        FitnessProfile profile = new FitnessProfile(daysEarlier);
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.FITNESS_PROFILE,
+                     getUserIDFromUsername(username), LocalDate.now().minusDays(daysEarlier))) {
+            while (rs.next()) {
+                Goal.Unit unit;
+                try {
+                    unit = Goal.Unit.valueOf(rs.getString("unit"));
+                }
+                catch (IllegalArgumentException e) { //Not a unit the app knows of
+                    continue;
+                }
+
+                profile.add(unit, rs.getBoolean("completed"), rs.getFloat("progress"));
+            }
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return profile;
+    }
+
     /**
      * A method to refresh a user's SystemGoals in the database. Intended to be called every time they are updated such
-     * that the database maintains parity with the application. Deletes the goals currently stored and then Inserts
-     * the passed ArrayList.
+     * that the database maintains parity with the application. The passed goals are compared against those stored,
+     * keyed by unit, end date, update period and category. Unchanged goals are left alone, new or changed goals are
+     * upserted and stored goals no longer passed are deleted, all in one transaction. If nothing has changed nothing
+     * is written.
      *
      * @param username the user's username
      * @param systemGoals the user's SystemGoals
@@ -1798,36 +2092,124 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sqlDel = "DELETE FROM system_goal WHERE user_id = '" + getUserIDFromUsername(username) + "'";
-
         try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sqlDel);
+            refreshSystemGoals(Map.of(getUserIDFromUsername(username), systemGoals));
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
+    }
 
-        for (SystemGoal systemGoal : systemGoals) {
-            String sqlIns = "INSERT INTO system_goal(target, unit, end_date, update_period, user_id, category, accepted)" +
-                    "VALUES(?,?,?,?,?,?,?)";
-
-            try (PreparedStatement pstmt = conn.prepareStatement(sqlIns)){
-                pstmt.setFloat(1,systemGoal.getTarget());
-                pstmt.setString(2, systemGoal.getUnit().toString());
-                pstmt.setString(3, systemGoal.getEndDate().toString());
-                pstmt.setString(4, systemGoal.getUpdatePeriod().toString());
-                pstmt.setInt(5, getUserIDFromUsername(username));
-                pstmt.setString(6, systemGoal.getCategory().toString());
-                pstmt.setBoolean(7, systemGoal.isAccepted());
-
-                pstmt.executeUpdate();
+    /**
+     * Method to refresh the SystemGoals of several users in the database at once, as {@link #refreshSystemGoals(String,
+     * ArrayList)} does for one. Every user's changes are written as a single batch of upserts and a single batch of
+     * deletes, in one transaction.
+     *
+     * @param systemGoals each user's SystemGoals against their user_id
+     * @return the number of system goals upserted or deleted.
+     * @throws SQLException if the goals could not be written, in which case none are.
+     */
+    public int refreshSystemGoals(Map<Integer, ? extends List<SystemGoal>> systemGoals) throws SQLException {
+        if (systemGoals == null) {
+            throw new NullPointerException();
+        }
+        for (List<SystemGoal> goals : systemGoals.values()) {
+            if (goals == null) {
+                throw new NullPointerException();
             }
-            catch (SQLException e)
-            {
-                e.printStackTrace();
+        }
+
+        int[] written = new int[1];
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                PreparedStatement upsert = conn.prepare(Query.UPSERT_SYSTEM_GOAL);
+                PreparedStatement delete = conn.prepare(Query.DELETE_SYSTEM_GOAL);
+
+                try {
+                    for (Map.Entry<Integer, ? extends List<SystemGoal>> user : systemGoals.entrySet()) {
+                        written[0] += batchSystemGoalChanges(conn, user.getKey(), user.getValue(), upsert, delete);
+                    }
+
+                    if (written[0] > 0) {
+                        upsert.executeBatch();
+                        delete.executeBatch();
+                    }
+                }
+                finally {
+                    upsert.clearBatch();
+                    delete.clearBatch();
+                }
+            });
+        }
+
+        return written[0];
+    }
+
+    /**
+     * Private helper method to compare a user's SystemGoals against those stored, adding an upsert for each new or
+     * changed goal and a delete for each stored goal no longer passed to the given batches.
+     *
+     * @param conn the connection, inside the transaction the batches will be executed in
+     * @param userID the user's user_id
+     * @param systemGoals the user's SystemGoals
+     * @param upsert the batched UPSERT_SYSTEM_GOAL statement
+     * @param delete the batched DELETE_SYSTEM_GOAL statement
+     * @return the number of upserts and deletes added.
+     * @throws SQLException if the stored goals could not be read.
+     */
+    private static int batchSystemGoalChanges(PooledConnection conn, int userID, List<SystemGoal> systemGoals,
+                                              PreparedStatement upsert, PreparedStatement delete) throws SQLException {
+        //The goals to be stored against their keys, of any passed twice the last is kept
+        Map<String, SystemGoal> wanted = new LinkedHashMap<>();
+        for (SystemGoal systemGoal : systemGoals) {
+            wanted.put(systemGoalKey(systemGoal.getUnit().toString(), systemGoal.getEndDate().toString(),
+                    systemGoal.getUpdatePeriod().toString(), systemGoal.getCategory().toString()), systemGoal);
+        }
+
+        ArrayList<Integer> removed = new ArrayList<>();
+
+        //Read inside the transaction so that the diff cannot race another save
+        try (ResultSet rs = conn.executeQuery(Query.STORED_SYSTEM_GOALS, userID)) {
+            while (rs.next()) {
+                String key = systemGoalKey(rs.getString("unit"), rs.getString("end_date"),
+                        rs.getString("update_period"), rs.getString("category"));
+                SystemGoal systemGoal = wanted.get(key);
+
+                if (systemGoal == null) {
+                    removed.add(rs.getInt("id"));
+                }
+                else if (systemGoal.getTarget() == rs.getFloat("target")
+                        && systemGoal.isAccepted() == rs.getBoolean("accepted")) {
+                    wanted.remove(key); //Unchanged
+                }
             }
         }
+
+        for (SystemGoal systemGoal : wanted.values()) {
+            PooledConnection.bind(upsert, systemGoal.getTarget(), systemGoal.getUnit(), systemGoal.getEndDate(),
+                    systemGoal.getUpdatePeriod(), userID, systemGoal.getCategory(), systemGoal.isAccepted());
+            upsert.addBatch();
+        }
+        for (int id : removed) {
+            PooledConnection.bind(delete, id);
+            delete.addBatch();
+        }
+
+        return wanted.size() + removed.size();
+    }
+
+    /**
+     * Private helper method to build the key identifying a user's system goal.
+     *
+     * @param unit the goal's unit.
+     * @param endDate the goal's end date.
+     * @param updatePeriod the goal's update period.
+     * @param category the goal's category.
+     * @return the key.
+     */
+    private static String systemGoalKey(String unit, String endDate, String updatePeriod, String category) {
+        return unit + ' ' + endDate + ' ' + updatePeriod + ' ' + category;
     }
 
     /**
@@ -1835,8 +2217,9 @@ public class DatabaseHandler {
      *
      * @param username the user's username.
      * @param goal the goal to updated.
+     * @throws SQLException if the goal could not be updated.
      */
-    public void quitGoalInDatabase(String username, UserGoal goal) {
+    public void quitGoalInDatabase(String username, UserGoal goal) throws SQLException {
         if (username == null) {
             throw new NullPointerException();
         }
@@ -1844,17 +2227,8 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "UPDATE goal SET end_date = '" + LocalDate.now().toString() + "' WHERE user_id = '" +
-                getUserIDFromUsername(username) + "' AND target = '" + goal.getTarget() + "' AND unit = '" +
-                goal.getUnit() + "' AND progress = '" + goal.getProgress() + "' AND end_date = '" +
-                goal.getEndDate().toString() + "'";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
-        }
-        catch (SQLException e) {
-            e.printStackTrace();
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.QUIT_GOAL, LocalDate.now(), goal.getId());
         }
     }
 
@@ -1872,10 +2246,8 @@ public class DatabaseHandler {
 
         String username = "Could not find Username";
 
-        String sql = "SELECT username FROM user WHERE email = '" + email + "'";
-
-        try (Statement stmt  = this.conn.createStatement();
-             ResultSet rs    = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs    = conn.executeQuery(Query.USERNAME_FROM_EMAIL, email)) {
             while (rs.next()) {
                 username = rs.getString("username");
             }
@@ -1901,13 +2273,9 @@ public class DatabaseHandler {
 
         LocalDateTime currentTime = LocalDateTime.now();
         LocalDateTime expiryTime = currentTime.plusMinutes(30);//set time for 30 minutes from now
-        String expiryTimeString = expiryTime.toString();
 
-        String sql = "INSERT INTO passwordRecoveryCodes(userID, recoveryCode, expiryTime) VALUES('" +
-                userId + "','" + token + "','" + expiryTimeString + "')";
         try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+            tokens.put(new TokenStore.Token(token, TokenStore.Type.RECOVERY, userId, null, expiryTime));
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -1925,15 +2293,9 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT expiryTime FROM passwordRecoveryCodes WHERE " + "recoveryCode = '" + token + "'";
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                String expiry_time_string = rs.getString("expiryTime");
-                LocalDateTime expiryTime = LocalDateTime.parse(expiry_time_string);
-                return LocalDateTime.now().isBefore(expiryTime);
-
-            }
+        try {
+            TokenStore.Token code = tokens.get(TokenStore.Type.RECOVERY, token);
+            return code != null && LocalDateTime.now().isBefore(code.getExpiresAt());
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1951,11 +2313,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT userID FROM passwordRecoveryCodes WHERE " + "recoveryCode = '" + token + "'";
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getInt("userID");
+        try {
+            TokenStore.Token code = tokens.get(TokenStore.Type.RECOVERY, token);
+            if (code != null) {
+                return code.getSubjectID();
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -1970,12 +2331,10 @@ public class DatabaseHandler {
      * @return a boolean value representing whether the group was successfully created.
      */
     public boolean createGroup(String name, String username){
-        String checkIfExistsSQL = "SELECT COUNT(*) FROM group_table WHERE Group_Name = '" + name + "'";
-
         boolean groupNameTaken = true;
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(checkIfExistsSQL)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.COUNT_GROUPS_NAMED, name)) {
 
             if(rs.getInt(1) == 0) {
                 groupNameTaken = false;
@@ -1987,20 +2346,16 @@ public class DatabaseHandler {
 
         if(!groupNameTaken){
 
-            try (Statement stmt = this.conn.createStatement()) {
+            try (PooledConnection conn = pool.borrowWriter()) {
 
-                stmt.executeUpdate("INSERT INTO group_table(Group_Name) VALUES('" + name + "')");
+                conn.executeUpdate(Query.INSERT_GROUP, name);
 
-                ResultSet rs = stmt.executeQuery(
-                        "SELECT Group_Id FROM group_table WHERE Group_Name = '" + name + "'"
-                );
-
-                int groupId = rs.getInt("Group_Id");
+                int groupId;
+                try (ResultSet rs = conn.executeQuery(Query.GROUP_ID_FROM_NAME, name)) {
+                    groupId = rs.getInt("Group_Id");
+                }
 
-                stmt.executeUpdate(
-                        "INSERT INTO group_membership(User_Id, Group_Id, Group_Role) VALUES(" +
-                                getUserIDFromUsername(username) + "," + groupId + ", 'Owner')"
-                );
+                conn.executeUpdate(Query.INSERT_MEMBERSHIP, getUserIDFromUsername(username), groupId, "Owner");
 
                 return true;
             }
@@ -2024,14 +2379,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT group_id " +
-                     "FROM group_table " +
-                     "WHERE group_name = '" + groupName + "';";
-
         int groupID = -1;
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_ID_FROM_NAME, groupName)) {
             while (rs.next()) {
                 groupID = rs.getInt("group_id");
             }
@@ -2060,15 +2411,8 @@ public class DatabaseHandler {
         int groupID = getGroupIDFromName(groupName);
         int userID = getUserIDFromUsername(userName);
 
-
-        String sql = "UPDATE group_membership" +
-                     " SET group_role = 'Member'" +
-                     " WHERE user_id = " + userID +
-                     " AND group_id = " + groupID + ";";
-
-        try{
-             Statement stmt = this.conn.createStatement();
-             stmt.executeUpdate(sql);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.UPDATE_GROUP_ROLE, "Member", userID, groupID);
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -2092,14 +2436,8 @@ public class DatabaseHandler {
         int groupID = getGroupIDFromName(groupName);
         int userID = getUserIDFromUsername(userName);
 
-        String sql = "UPDATE group_membership" +
-                    " SET group_role = 'Admin'" +
-                    " WHERE user_id = " + userID +
-                    " AND group_id = " + groupID + ";";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.UPDATE_GROUP_ROLE, "Admin", userID, groupID);
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -2123,13 +2461,8 @@ public class DatabaseHandler {
         int groupID = getGroupIDFromName(groupName);
         int userID = getUserIDFromUsername(userName);
 
-
-        String sql = "INSERT INTO group_membership (User_Id, Group_Id, Group_Role) " +
-                    " VALUES (" + userID + ", " + groupID  + ", 'Member');";
-
-        try{
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.INSERT_MEMBERSHIP, userID, groupID, "Member");
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -2150,9 +2483,8 @@ public class DatabaseHandler {
 
         String groupName = null;
 
-        String sql = "SELECT Group_Name FROM group_table WHERE Group_Id = " + groupId;
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_NAME_FROM_ID, groupId)) {
             while (rs.next()) {
                 groupName = rs.getString("Group_Name");
             }
@@ -2181,51 +2513,58 @@ public class DatabaseHandler {
     }
 
     /**
-     * Private helper method for getting Group objects from the database.
+     * Private helper method for getting Group objects from the database. The Group's membership and GroupGoals are
+     * loaded lazily when first accessed.
      *
      * @param groupID the unique ID of the Group.
-     * @return an instance of the Group.
+     * @return an instance of the Group, or null if no Group has that ID.
      */
     private Group getGroup(int groupID) {
         if (groupID < 1) {
             throw new IllegalArgumentException();
         }
 
-        GroupOwner owner = null;
-        Set<GroupAdmin> admins = new HashSet<>();
-        Set<GroupMember> members = new HashSet<>();
-        Group group = null;
+        String name = getGroupNameFromID(groupID);
 
-        try {
-            group = new Group(getGroupNameFromID(groupID));
+        if (name == null) {
+            return null;
         }
-        catch (NullPointerException e) {
-            return group;
+
+        return new Group(name);
+    }
+
+    /**
+     * Method to load a Group's owner, admins and members from the database into the Group, reading every member's
+     * user row in the same statement. Called by the Group the first time its membership is accessed.
+     *
+     * @param group the Group whose membership is to be loaded.
+     */
+    public void loadGroupMembership(Group group) {
+        if (group == null) {
+            throw new NullPointerException();
         }
 
-        String sql = "SELECT User_id, Group_Role FROM group_membership WHERE Group_Id = " + groupID;
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        GroupOwner owner = null;
+        Set<GroupAdmin> admins = new HashSet<>();
+        Set<GroupMember> members = new HashSet<>();
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_MEMBERSHIP, group.getName())) {
             while (rs.next()) {
-                int user_id = rs.getInt("User_id");
-                String role = rs.getString("Group_Role");
+                User user = readUser(rs);
 
-                switch (role) {
-                    case "Owner" -> owner = new GroupOwner(group, createUserObjectFromUsername(getUsernameFromUserID(user_id)));
-                    case "Admin" -> admins.add(new GroupAdmin(group, createUserObjectFromUsername(getUsernameFromUserID(user_id))));
-                    case "Member" -> members.add(new GroupMember(group, createUserObjectFromUsername(getUsernameFromUserID(user_id))));
+                switch (rs.getString("role")) {
+                    case "Owner" -> owner = new GroupOwner(group, user);
+                    case "Admin" -> admins.add(new GroupAdmin(group, user));
+                    case "Member" -> members.add(new GroupMember(group, user));
                 }
-
-                group.setOwner(owner);
-                group.setAdmins(admins);
-                group.setMembers(members);
             }
         }
         catch (SQLException throwables) {
             throwables.printStackTrace();
         }
 
-        return group;
+        group.setMembership(owner, admins, members);
     }
 
     /**
@@ -2243,10 +2582,8 @@ public class DatabaseHandler {
 
         int userID = getUserIDFromUsername(username);
 
-        String sql = "SELECT Group_Id FROM group_membership WHERE User_Id = " + userID;
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_IDS_FOR_USER, userID)) {
             while (rs.next()) {
                 groups.add(getGroupObjectFromGroupId(rs.getInt("Group_Id")));
             }
@@ -2258,6 +2595,67 @@ public class DatabaseHandler {
         return groups;
     }
 
+    /**
+     * Method to retrieve a lightweight summary of each of a User's joined Groups. The members and goals of every group
+     * are read in a single statement, and members are recorded by username and role rather than as full Users.
+     *
+     * @param username the User's username.
+     * @return an ArrayList containing a GroupSummary for each of the User's Groups, in group ID order.
+     */
+    public ArrayList<GroupSummary> getUserGroupSummaries(String username) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+
+        int userID = getUserIDFromUsername(username);
+
+        LinkedHashMap<Integer, String> names = new LinkedHashMap<>();
+        HashMap<Integer, ArrayList<GroupSummary.Member>> members = new HashMap<>();
+        HashMap<Integer, ArrayList<GroupGoal>> goals = new HashMap<>();
+        HashMap<Integer, String> roles = new HashMap<>();
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_SUMMARIES_FOR_USER, userID, userID)) {
+            while (rs.next()) {
+                int groupID = rs.getInt("group_id");
+
+                if (!names.containsKey(groupID)) {
+                    names.put(groupID, rs.getString("group_name"));
+                    members.put(groupID, new ArrayList<>());
+                    goals.put(groupID, new ArrayList<>());
+                }
+
+                if (rs.getString("kind").equals("M")) {
+                    GroupSummary.Member member = new GroupSummary.Member(
+                            rs.getInt("user_id"), rs.getString("username"), rs.getString("role"));
+
+                    members.get(groupID).add(member);
+                    if (member.getUserID() == userID) {
+                        roles.put(groupID, member.getRole());
+                    }
+                }
+                else {
+                    goals.get(groupID).add(new GroupGoal(rs.getFloat("target"),
+                            Goal.Unit.valueOf(rs.getString("unit")),
+                            LocalDate.parse(rs.getString("end_date")),
+                            groupID));
+                }
+            }
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        ArrayList<GroupSummary> groups = new ArrayList<>();
+
+        for (int groupID : names.keySet()) {
+            groups.add(new GroupSummary(groupID, names.get(groupID), roles.get(groupID),
+                    members.get(groupID), goals.get(groupID)));
+        }
+
+        return groups;
+    }
+
     /**
      * Method to load all GroupGoals for a given Group.
      *
@@ -2269,13 +2667,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT group_id, target, unit, end_date FROM group_goal WHERE group_id = " +
-                getGroupIDFromName(name);
-
         ArrayList<GroupGoal> goals = new ArrayList<>();
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_GOALS, getGroupIDFromName(name))) {
             while (rs.next()) {
 
                 int groupId = rs.getInt("group_id");
@@ -2304,21 +2699,9 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT groupID FROM groupInvTable WHERE tokenVal = '" + tokenInput + "';";
+        TokenStore.Token invite = getInvite(tokenInput);
 
-        String groupName = null;
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                groupName = DatabaseHandler.getInstance().getGroupNameFromID(rs.getInt("groupID"));
-            }
-        }
-        catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
-
-        return groupName;
+        return invite == null ? null : getGroupNameFromID(Integer.parseInt(invite.getPayload()));
     }
 
     /**
@@ -2332,21 +2715,9 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT userID FROM groupInvTable WHERE tokenVal = '" + tokenInput + "';";
-
-        int userID = -1;
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                userID = rs.getInt("userID");
-            }
-        }
-        catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
+        TokenStore.Token invite = getInvite(tokenInput);
 
-        return userID;
+        return invite == null ? -1 : invite.getSubjectID();
     }
 
     /**
@@ -2360,21 +2731,26 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT expiry_time FROM groupInvTable WHERE tokenVal = '" + tokenInput + "';";
+        TokenStore.Token invite = getInvite(tokenInput);
 
-        LocalDateTime time = null;
+        return invite == null ? null : invite.getExpiresAt();
+    }
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                time = LocalDateTime.parse(rs.getString("expiry_time"));
-            }
+    /**
+     * Fetches a group invite token with its group, user and expiry.
+     *
+     * @param tokenInput the token to be queried.
+     * @return the invite, or null if it does not exist or could not be read.
+     */
+    private TokenStore.Token getInvite(String tokenInput) {
+        try {
+            return tokens.get(TokenStore.Type.GROUP_INVITE, tokenInput);
         }
         catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return time;
+        return null;
     }
 
     /**
@@ -2387,12 +2763,8 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "DELETE FROM groupInvTable WHERE tokenVal = '" + tokenInput + "';";
-
-
         try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
+            tokens.delete(TokenStore.Type.GROUP_INVITE, tokenInput);
         }
         catch (SQLException throwables) {
             throwables.printStackTrace();
@@ -2414,13 +2786,11 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT * FROM group_membership WHERE User_Id = " + getUserIDFromUsername(userName)  +
-                     " AND Group_Id = " +  getGroupIDFromName(groupName) + ";";
-
         boolean isMember = false;
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_ROLE,
+                     getUserIDFromUsername(userName), getGroupIDFromName(groupName))) {
              isMember = rs.next();
         }
         catch (SQLException throwables) {
@@ -2440,22 +2810,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT expiry_time FROM groupInvTable WHERE tokenVal = '" + tokenInput + "';";
+        TokenStore.Token invite = getInvite(tokenInput);
 
-        LocalDateTime time = null;
-
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                time = LocalDateTime.parse(rs.getString("expiry_time"));
-            }
-        }
-        catch (SQLException throwables) {
-            throwables.printStackTrace();
-        }
-
-        assert time != null;
-        return LocalDateTime.now().isAfter(time);
+        //An invite no longer stored has already been swept as expired, or never existed
+        return invite == null || invite.isExpired(LocalDateTime.now());
 
     }
 
@@ -2473,23 +2831,19 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql  = "UPDATE group_membership SET Group_Role = 'Admin' WHERE User_Id = " +
-                       getUserIDFromUsername(group.getOwner().getUser().getUsername()) + " AND Group_Id = " +
-                       getGroupIDFromName(group.getName());
-
+        int groupID = getGroupIDFromName(group.getName());
+        int oldOwnerID = getUserIDFromUsername(group.getOwner().getUser().getUsername());
+        int newOwnerID = getUserIDFromUsername(user.getUsername());
 
-        String sql2 = "UPDATE group_membership SET Group_Role = 'Owner' WHERE User_Id = " +
-                       getUserIDFromUsername(user.getUsername()) + " AND Group_Id = " +
-                       getGroupIDFromName(group.getName());
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
-            stmt.executeUpdate(sql2);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.UPDATE_GROUP_ROLE, "Admin", oldOwnerID, groupID);
+            conn.executeUpdate(Query.UPDATE_GROUP_ROLE, "Owner", newOwnerID, groupID);
         }
         catch (SQLException throwables) {
             throwables.printStackTrace();
         }
+
+        group.invalidateMembership();
     }
 
     /**
@@ -2503,12 +2857,10 @@ public class DatabaseHandler {
             throw new IllegalArgumentException();
         }
 
-        String sql = "SELECT weight FROM weight_entry WHERE user_id = " + userID + " ORDER BY entry_id DESC LIMIT 1;";
-
         float weight = -1;
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.MOST_RECENT_WEIGHT, userID)) {
             while (rs.next()) {
                 weight = rs.getFloat("weight");
             }
@@ -2544,14 +2896,10 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "SELECT Group_Name FROM group_table INNER JOIN group_membership ON group_membership.Group_Id = " +
-                     "group_table.Group_Id WHERE group_membership.User_Id = '" + getUserIDFromUsername(username) + "' " +
-                     "AND (group_membership.Group_Role = 'Owner' OR group_membership.Group_Role = 'Admin')";
-
         ArrayList<String> groupNames = new ArrayList<>();
 
-        try (Statement stmt = this.conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUPS_ADMINISTRATED, getUserIDFromUsername(username))) {
             while (rs.next()) {
                 groupNames.add(rs.getString("Group_Name"));
             }
@@ -2578,12 +2926,11 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sqlSel = "SELECT * FROM group_goal WHERE group_id = '" + getGroupIDFromName(groupName) + "' AND " +
-                "target = '" + goal.getTarget() + "' AND unit = '" + goal.getUnit().toString() +
-                "' AND end_date = '" + goal.getEndDate().toString() + "'";
+        int groupID = getGroupIDFromName(groupName);
 
-        try (Statement stmtSel = this.conn.createStatement();
-             ResultSet rs = stmtSel.executeQuery(sqlSel)) {
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.GROUP_GOAL_EXISTS,
+                     groupID, goal.getTarget(), goal.getUnit(), goal.getEndDate())) {
             if (rs.next()) {
                 return false;
             }
@@ -2592,13 +2939,8 @@ public class DatabaseHandler {
             e.printStackTrace();
         }
         
-        String sqlIns = "INSERT INTO group_goal(group_id, target, unit, end_date) VALUES('" +
-                getGroupIDFromName(groupName) + "', '" + goal.getTarget() + "', '" + goal.getUnit().toString() +
-                "', '" + goal.getEndDate().toString() + "')";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sqlIns);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.INSERT_GROUP_GOAL, groupID, goal.getTarget(), goal.getUnit(), goal.getEndDate());
         }
         catch (SQLException e) {
             e.printStackTrace();
@@ -2625,19 +2967,15 @@ public class DatabaseHandler {
             throw new NullPointerException();
         }
 
-        String sql = "UPDATE user SET hash = ?, salt = ? WHERE user_id = ?";
-
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)){
-            pstmt.setBytes(1,hash);
-            pstmt.setBytes(2, salt);
-            pstmt.setInt(3, userID);
-
-            pstmt.executeUpdate();
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.UPDATE_PASSWORD, hash, salt, userID);
         }
         catch (SQLException e)
         {
             e.printStackTrace();
         }
+
+        identities.invalidate(userID);
     }
 
     /**
@@ -2646,13 +2984,9 @@ public class DatabaseHandler {
      * @param groupID the group's group ID.
      */
     public void removeUserFromGroup(int userID, int groupID) {
-        String sql = "DELETE FROM Group_Membership WHERE user_id = " + userID + " AND group_id = " + groupID + ";";
-        String sql1= "DELETE FROM goal WHERE user_id = " + userID + " AND group_id = " + groupID + ";";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
-            stmt.executeUpdate(sql1);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.DELETE_MEMBERSHIP, userID, groupID);
+            conn.executeUpdate(Query.DELETE_USER_GROUP_GOALS, userID, groupID);
         }
         catch (SQLException throwables) {
             throwables.printStackTrace();
@@ -2667,20 +3001,198 @@ public class DatabaseHandler {
     public void deleteGroup(String groupName) {
         int groupID = getGroupIDFromName(groupName);
 
-        String sql =  "DELETE FROM group_goal WHERE group_id = " + groupID + ";";
-        String sql1 = "DELETE FROM group_membership WHERE Group_Id = " + groupID + ";";
-        String sql2 = "DELETE FROM group_table WHERE Group_Id = " + groupID + ";";
-        String sql3 = "DELETE FROM groupInvTable WHERE groupID = " + groupID + ";";
-
-        try {
-            Statement stmt = this.conn.createStatement();
-            stmt.executeUpdate(sql);
-            stmt.executeUpdate(sql1);
-            stmt.executeUpdate(sql2);
-            stmt.executeUpdate(sql3);
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.DELETE_GROUP_GOALS, groupID);
+            conn.executeUpdate(Query.DELETE_GROUP_MEMBERSHIPS, groupID);
+            conn.executeUpdate(Query.DELETE_GROUP, groupID);
+            tokens.deleteWithPayload(TokenStore.Type.GROUP_INVITE, String.valueOf(groupID));
         }
         catch (SQLException throwables) {
             throwables.printStackTrace();
         }
     }
+
+    /**
+     * Method to add an email to the outbox, to be sent by the {@link EmailDispatcher}.
+     *
+     * @param email the email to be sent.
+     * @param now   the current time in epoch milliseconds, from which the email is due.
+     * @return the email's unique ID in the outbox.
+     * @throws SQLException if the email could not be added.
+     */
+    public int enqueueEmail(OutboundEmail email, long now) throws SQLException {
+        if (email == null) {
+            throw new NullPointerException();
+        }
+
+        return enqueueEmails(List.of(email), now).get(0);
+    }
+
+    /**
+     * Method to add several emails to the outbox in a single transaction, to be sent by the {@link EmailDispatcher}.
+     * Emails added together form a batch, which the dispatcher sends over a single connection.
+     *
+     * @param emails the emails to be sent.
+     * @param now    the current time in epoch milliseconds, from which the emails are due.
+     * @return each email's unique ID in the outbox, in the order of the passed emails.
+     * @throws SQLException if the emails could not be added, in which case none are.
+     */
+    public List<Integer> enqueueEmails(List<OutboundEmail> emails, long now) throws SQLException {
+        if (emails == null) {
+            throw new NullPointerException();
+        }
+
+        List<Integer> ids = new ArrayList<>();
+
+        if (emails.isEmpty()) {
+            return ids;
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                PreparedStatement insert = conn.prepare(Query.INSERT_EMAIL);
+
+                try {
+                    for (OutboundEmail email : emails) {
+                        PooledConnection.bind(insert, email.getRecipient(), email.getSubject(), email.getBody(),
+                                email.getContentType(), now, now);
+                        insert.addBatch();
+                    }
+
+                    insert.executeBatch();
+                }
+                finally {
+                    insert.clearBatch();
+                }
+
+                //As in addFoodEntries, the batch ran in one transaction on the only writer so its ids are consecutive
+                try (ResultSet rs = conn.executeQuery(Query.LAST_INSERT_ROWID)) {
+                    int last = rs.getInt(1);
+
+                    for (int id = last - emails.size() + 1; id <= last; id++) {
+                        ids.add(id);
+                    }
+                }
+
+                if (ids.size() > 1) {
+                    conn.executeUpdate(Query.BATCH_EMAILS, ids.get(0), ids.get(0), ids.get(ids.size() - 1));
+                }
+            });
+        }
+
+        return ids;
+    }
+
+    /**
+     * Method to claim the emails in the outbox which are due to be sent, marking them as being sent so that no other
+     * dispatch claims them. Rows which are not valid emails are dead lettered rather than claimed, so that they cannot
+     * block the rest of the outbox.
+     *
+     * @param now   the current time in epoch milliseconds.
+     * @param limit the maximum number of emails to claim.
+     * @return the claimed emails, earliest due first.
+     * @throws SQLException if the outbox could not be read or updated, in which case no email is claimed.
+     */
+    public List<OutboundEmail> claimDueEmails(long now, int limit) throws SQLException {
+        if (limit < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        List<OutboundEmail> emails = new ArrayList<>();
+        Map<Integer, String> malformed = new LinkedHashMap<>();
+        Map<Integer, Integer> malformedAttempts = new HashMap<>();
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.transaction(() -> {
+                try (ResultSet rs = conn.executeQuery(Query.DUE_EMAILS, now, limit)) {
+                    while (rs.next()) {
+                        try {
+                            emails.add(new OutboundEmail(rs.getInt("id"), rs.getInt("batch_id"),
+                                    rs.getString("recipient"), rs.getString("subject"), rs.getString("body"),
+                                    rs.getString("content_type"), rs.getInt("attempts")));
+                        }
+                        catch (RuntimeException e) { //A row which is not a valid email can never be sent
+                            malformed.put(rs.getInt("id"), String.valueOf(e));
+                            malformedAttempts.put(rs.getInt("id"), rs.getInt("attempts"));
+                        }
+                    }
+                }
+
+                for (Map.Entry<Integer, String> row : malformed.entrySet()) {
+                    conn.executeUpdate(Query.DEAD_LETTER_EMAIL, malformedAttempts.get(row.getKey()), row.getValue(),
+                            row.getKey());
+                }
+
+                PreparedStatement claim = conn.prepare(Query.CLAIM_EMAIL);
+
+                try {
+                    for (OutboundEmail email : emails) {
+                        PooledConnection.bind(claim, email.getId());
+                        claim.addBatch();
+                    }
+
+                    claim.executeBatch();
+                }
+                finally {
+                    claim.clearBatch();
+                }
+            });
+        }
+
+        return emails;
+    }
+
+    /**
+     * Method to mark an email in the outbox as sent.
+     *
+     * @param id the email's unique ID in the outbox.
+     * @throws SQLException if the outbox could not be updated.
+     */
+    public void markEmailSent(int id) throws SQLException {
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.EMAIL_SENT, id);
+        }
+    }
+
+    /**
+     * Method to return an email which failed to send to the outbox, to be attempted again later.
+     *
+     * @param id          the email's unique ID in the outbox.
+     * @param attempts    the number of failed attempts made to send the email.
+     * @param nextAttempt the time of the next attempt in epoch milliseconds.
+     * @param error       a description of the most recent failure.
+     * @throws SQLException if the outbox could not be updated.
+     */
+    public void rescheduleEmail(int id, int attempts, long nextAttempt, String error) throws SQLException {
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.RESCHEDULE_EMAIL, attempts, nextAttempt, error, id);
+        }
+    }
+
+    /**
+     * Method to mark an email in the outbox as undeliverable, after which it is never attempted again.
+     *
+     * @param id       the email's unique ID in the outbox.
+     * @param attempts the number of failed attempts made to send the email.
+     * @param error    a description of the most recent failure.
+     * @throws SQLException if the outbox could not be updated.
+     */
+    public void deadLetterEmail(int id, int attempts, String error) throws SQLException {
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.DEAD_LETTER_EMAIL, attempts, error, id);
+        }
+    }
+
+    /**
+     * Method to return every claimed email to the outbox. Called at start up, as emails still claimed then were
+     * interrupted by the application closing.
+     *
+     * @return the number of emails returned.
+     * @throws SQLException if the outbox could not be updated.
+     */
+    public int releaseClaimedEmails() throws SQLException {
+        try (PooledConnection conn = pool.borrowWriter()) {
+            return conn.executeUpdate(Query.RELEASE_CLAIMED_EMAILS);
+        }
+    }
 }
@@ -0,0 +1,549 @@
+package sample;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends queued email in the background. Emails are written to a persistent outbox by {@link #enqueue(OutboundEmail)},
+ * which returns as soon as the email is stored, so no caller ever waits on SMTP. A single poller thread claims the
+ * emails which are due and hands each to a small pool of worker threads for delivery.
+ *
+ * An email which fails to send is returned to the outbox and retried after an exponentially increasing delay. After
+ * {@link #MAX_ATTEMPTS} failed attempts it is dead lettered and never attempted again. Emails which were being sent
+ * when the application closed are returned to the outbox when the dispatcher next starts.
+ *
+ * Emails queued together by {@link #enqueueAll(List)}, such as a notification to every member of a group, are
+ * delivered together on one worker over a single SMTP connection, and the time taken by each batch is recorded.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.2
+ *
+ * 1.0 - Initial dispatcher with a persistent outbox, worker pool, exponential backoff and dead lettering.
+ * 1.1 - Added batches of emails delivered over one connection, with per batch throughput and latency.
+ * 1.2 - Unexpected runtime failures while claiming or delivering are printed rather than ending the poller.
+ */
+public class EmailDispatcher {
+
+    /**
+     * The number of worker threads emails are sent on.
+     */
+    public static final int DEFAULT_WORKERS = 2;
+
+    /**
+     * The maximum number of emails claimed from the outbox in one pass.
+     */
+    public static final int BATCH_SIZE = 16;
+
+    /**
+     * The number of failed attempts after which an email is dead lettered.
+     */
+    public static final int MAX_ATTEMPTS = 6;
+
+    /**
+     * The delay before the first retry, doubled for each further retry.
+     */
+    public static final long BASE_BACKOFF_MILLIS = 30_000;
+
+    /**
+     * The longest delay between retries.
+     */
+    public static final long MAX_BACKOFF_MILLIS = 3_600_000;
+
+    /**
+     * The interval at which the outbox is checked for emails whose retry has come due.
+     */
+    public static final long POLL_MILLIS = 5_000;
+
+    private static EmailDispatcher instance;
+
+    /**
+     * The persistent store of queued email.
+     */
+    interface Outbox {
+        int enqueue(OutboundEmail email, long now) throws SQLException;
+
+        List<Integer> enqueueAll(List<OutboundEmail> emails, long now) throws SQLException;
+
+        List<OutboundEmail> claimDue(long now, int limit) throws SQLException;
+
+        void markSent(int id) throws SQLException;
+
+        void reschedule(int id, int attempts, long nextAttempt, String error) throws SQLException;
+
+        void deadLetter(int id, int attempts, String error) throws SQLException;
+
+        int releaseClaimed() throws SQLException;
+    }
+
+    private final Outbox outbox;
+    private final EmailTransport transport;
+    private final ScheduledExecutorService poller;
+    private final Executor workers;
+    private final LongSupplier clock;
+    private boolean started;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedEmails = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private volatile BatchStats lastBatch;
+
+    /**
+     * The outcome of delivering one batch of emails.
+     */
+    public static class BatchStats {
+        private final int emails;
+        private final int failed;
+        private final long nanos;
+
+        BatchStats(int emails, int failed, long nanos) {
+            this.emails = emails;
+            this.failed = failed;
+            this.nanos = nanos;
+        }
+
+        public int getEmails() {
+            return emails;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Gets the time taken to deliver the batch.
+         *
+         * @return the latency of the batch in milliseconds.
+         */
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        /**
+         * Gets the rate at which the batch was delivered.
+         *
+         * @return the emails delivered per second.
+         */
+        public double getThroughput() {
+            return nanos == 0 ? 0 : (emails - failed) * 1_000_000_000.0 / nanos;
+        }
+
+        /**
+         * Returns a String representation of this BatchStats.
+         *
+         * @return the batch's size, failures, latency and throughput.
+         */
+        @Override
+        public String toString() {
+            return String.format("%d emails, %d failed in %.1f ms (%.1f emails/s)", emails, failed, getMillis(),
+                    getThroughput());
+        }
+    }
+
+    /**
+     * Private default constructor. Enforces the Singleton pattern.
+     */
+    private EmailDispatcher() {
+        this(new DatabaseOutbox(DatabaseHandler.getInstance()), EmailHandler.getInstance().createTransport(),
+                Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("proactive-mail-poller-")),
+                Executors.newFixedThreadPool(DEFAULT_WORKERS, new DaemonThreadFactory("proactive-mail-")),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs an EmailDispatcher.
+     *
+     * @param outbox    the outbox emails are queued in.
+     * @param transport the transport emails are delivered through.
+     * @param poller    the executor the outbox is polled on.
+     * @param workers   the executor emails are delivered on.
+     * @param clock     the current time in epoch milliseconds.
+     */
+    EmailDispatcher(Outbox outbox, EmailTransport transport, ScheduledExecutorService poller, Executor workers,
+                    LongSupplier clock) {
+        if (outbox == null) {
+            throw new NullPointerException();
+        }
+        if (transport == null) {
+            throw new NullPointerException();
+        }
+        if (poller == null) {
+            throw new NullPointerException();
+        }
+        if (workers == null) {
+            throw new NullPointerException();
+        }
+        if (clock == null) {
+            throw new NullPointerException();
+        }
+
+        this.outbox = outbox;
+        this.transport = transport;
+        this.poller = poller;
+        this.workers = workers;
+        this.clock = clock;
+    }
+
+    /**
+     * Static method to get the single, started EmailDispatcher instance.
+     *
+     * @return the EmailDispatcher instance.
+     */
+    public static synchronized EmailDispatcher getInstance() {
+        if (instance == null) {
+            instance = new EmailDispatcher();
+            instance.start();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Starts polling the outbox, first returning any emails left claimed by a previous run. Has no effect if already
+     * started.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        poller.execute(() -> {
+            try {
+                outbox.releaseClaimed();
+            }
+            catch (SQLException e) {
+                e.printStackTrace();
+            }
+        });
+        poller.scheduleWithFixedDelay(this::dispatchDue, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues an email to be sent in the background. Returns once the email is stored in the outbox.
+     *
+     * @param email the email to be sent.
+     * @return true if the email was queued, false if it could not be stored.
+     */
+    public boolean enqueue(OutboundEmail email) {
+        if (email == null) {
+            throw new NullPointerException();
+        }
+
+        try {
+            outbox.enqueue(email, clock.getAsLong());
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        nudge();
+
+        return true;
+    }
+
+    /**
+     * Queues several emails to be sent in the background as one batch, delivered together over a single connection.
+     * Returns once every email is stored in the outbox.
+     *
+     * @param emails the emails to be sent.
+     * @return true if the emails were queued, false if they could not be stored.
+     */
+    public boolean enqueueAll(List<OutboundEmail> emails) {
+        if (emails == null) {
+            throw new NullPointerException();
+        }
+        for (OutboundEmail email : emails) {
+            if (email == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (emails.isEmpty()) {
+            return true;
+        }
+
+        try {
+            outbox.enqueueAll(emails, clock.getAsLong());
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+
+        nudge();
+
+        return true;
+    }
+
+    /**
+     * Claims every email which is due and delivers them on the worker threads, returning once each has been sent,
+     * rescheduled or dead lettered. Emails claimed from the same batch are delivered together on one worker, while
+     * emails queued on their own are each delivered separately. Run by the poller, but may be called directly.
+     *
+     * @return the number of emails claimed.
+     */
+    public int dispatchDue() {
+        int claimed = 0;
+        List<OutboundEmail> batch;
+
+        do {
+            try {
+                batch = outbox.claimDue(clock.getAsLong(), BATCH_SIZE);
+            }
+            catch (SQLException | RuntimeException e) { //A task run by the poller which throws is never run again
+                e.printStackTrace();
+                return claimed;
+            }
+
+            List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+            for (List<OutboundEmail> group : groupByBatch(batch)) {
+                deliveries.add(CompletableFuture.runAsync(() -> deliver(group), workers).exceptionally(e -> {
+                    e.printStackTrace();
+                    return null;
+                }));
+            }
+            CompletableFuture.allOf(deliveries.toArray(new CompletableFuture<?>[0])).join();
+
+            claimed += batch.size();
+        } while (batch.size() == BATCH_SIZE);
+
+        return claimed;
+    }
+
+    /**
+     * Gets the delay before the retry following a number of failed attempts.
+     *
+     * @param attempts the number of failed attempts, at least 1.
+     * @return the delay in milliseconds.
+     */
+    public static long backoffMillis(int attempts) {
+        if (attempts < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        //Cap the shift so the delay cannot overflow before it is capped
+        return Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 20));
+    }
+
+    /**
+     * Gets the number of emails delivered.
+     *
+     * @return the number of emails sent.
+     */
+    public long getSent() {
+        return sent.sum();
+    }
+
+    /**
+     * Gets the number of failed attempts which have been rescheduled.
+     *
+     * @return the number of retries.
+     */
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    /**
+     * Gets the number of emails which have been dead lettered.
+     *
+     * @return the number of dead lettered emails.
+     */
+    public long getDeadLettered() {
+        return deadLettered.sum();
+    }
+
+    /**
+     * Gets the outcome of the most recently delivered batch.
+     *
+     * @return the last batch's stats, or null if no batch has been delivered.
+     */
+    public BatchStats getLastBatch() {
+        return lastBatch;
+    }
+
+    /**
+     * Gets the number of batches delivered, counting an email queued on its own as a batch of one.
+     *
+     * @return the number of batches.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Gets the mean time taken to deliver a batch.
+     *
+     * @return the mean batch latency in milliseconds, or 0 if no batch has been delivered.
+     */
+    public double getMeanBatchMillis() {
+        long count = batches.sum();
+        return count == 0 ? 0 : batchNanos.sum() / 1_000_000.0 / count;
+    }
+
+    /**
+     * Gets the rate at which emails have been delivered, over the time spent delivering them.
+     *
+     * @return the emails delivered per second of delivery, or 0 if no batch has been delivered.
+     */
+    public double getThroughput() {
+        long nanos = batchNanos.sum();
+        return nanos == 0 ? 0 : batchedEmails.sum() * 1_000_000_000.0 / nanos;
+    }
+
+    /**
+     * Stops polling the outbox and closes the transport's connections. Emails still queued are sent when the
+     * dispatcher is next started.
+     */
+    public void shutdown() {
+        poller.shutdown();
+        if (workers instanceof ExecutorService) {
+            ((ExecutorService) workers).shutdown();
+        }
+        transport.close();
+    }
+
+    /**
+     * Private helper method to dispatch the outbox straight away rather than waiting for the next poll.
+     */
+    private void nudge() {
+        if (started && !poller.isShutdown()) {
+            poller.execute(this::dispatchDue);
+        }
+    }
+
+    /**
+     * Private helper method to split claimed emails into the groups delivered together, keeping emails from the same
+     * batch together and giving each email queued on its own a group of its own.
+     *
+     * @param claimed the claimed emails.
+     * @return the groups of emails, in the order they were claimed.
+     */
+    private static List<List<OutboundEmail>> groupByBatch(List<OutboundEmail> claimed) {
+        Map<Integer, List<OutboundEmail>> groups = new LinkedHashMap<>();
+
+        for (OutboundEmail email : claimed) {
+            //Batch IDs are the ID of the batch's first email, so a negated email ID can never collide with one
+            int key = email.getBatchId() == 0 ? -email.getId() : email.getBatchId();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(email);
+        }
+
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Private helper method to deliver a group of claimed emails over one connection and record the outcome of each
+     * in the outbox.
+     *
+     * @param group the emails to deliver.
+     */
+    private void deliver(List<OutboundEmail> group) {
+        long start = System.nanoTime();
+        Map<OutboundEmail, ? extends Exception> failures;
+
+        try {
+            failures = transport.sendAll(group);
+        }
+        catch (RuntimeException e) {
+            Map<OutboundEmail, RuntimeException> all = new LinkedHashMap<>();
+            for (OutboundEmail email : group) {
+                all.put(email, e);
+            }
+            failures = all;
+        }
+
+        long nanos = System.nanoTime() - start;
+
+        for (OutboundEmail email : group) {
+            try {
+                Exception failure = failures.get(email);
+
+                if (failure == null) {
+                    outbox.markSent(email.getId());
+                    sent.increment();
+                    continue;
+                }
+
+                int attempts = email.getAttempts() + 1;
+
+                if (attempts >= MAX_ATTEMPTS) {
+                    outbox.deadLetter(email.getId(), attempts, String.valueOf(failure));
+                    deadLettered.increment();
+                }
+                else {
+                    outbox.reschedule(email.getId(), attempts, clock.getAsLong() + backoffMillis(attempts),
+                            String.valueOf(failure));
+                    retried.increment();
+                }
+            }
+            catch (SQLException | RuntimeException e) { //One email's bookkeeping failing leaves the rest of the batch
+                e.printStackTrace();
+            }
+        }
+
+        batches.increment();
+        batchedEmails.add(group.size() - failures.size());
+        batchNanos.add(nanos);
+        lastBatch = new BatchStats(group.size(), failures.size(), nanos);
+    }
+
+    /**
+     * The outbox held in the email_outbox table.
+     */
+    private static class DatabaseOutbox implements Outbox {
+        private final DatabaseHandler dh;
+
+        DatabaseOutbox(DatabaseHandler dh) {
+            this.dh = dh;
+        }
+
+        @Override
+        public int enqueue(OutboundEmail email, long now) throws SQLException {
+            return dh.enqueueEmail(email, now);
+        }
+
+        @Override
+        public List<Integer> enqueueAll(List<OutboundEmail> emails, long now) throws SQLException {
+            return dh.enqueueEmails(emails, now);
+        }
+
+        @Override
+        public List<OutboundEmail> claimDue(long now, int limit) throws SQLException {
+            return dh.claimDueEmails(now, limit);
+        }
+
+        @Override
+        public void markSent(int id) throws SQLException {
+            dh.markEmailSent(id);
+        }
+
+        @Override
+        public void reschedule(int id, int attempts, long nextAttempt, String error) throws SQLException {
+            dh.rescheduleEmail(id, attempts, nextAttempt, error);
+        }
+
+        @Override
+        public void deadLetter(int id, int attempts, String error) throws SQLException {
+            dh.deadLetterEmail(id, attempts, error);
+        }
+
+        @Override
+        public int releaseClaimed() throws SQLException {
+            return dh.releaseClaimedEmails();
+        }
+    }
+}
@@ -2,7 +2,6 @@ package sample;
 
 import java.util.*;
 import javax.mail.*;
-import javax.mail.internet.*;
 
 /**
  *  A class to allow for the emailing of codes and other information to users of the ProActive app
@@ -11,7 +10,7 @@ import javax.mail.internet.*;
  * @author Samuel Scarfe
  * @author Evan Clayton
  *
- * @version 1.3
+ * @version 1.8
  *
  * 1.0 - Initial EmailHandler class.
  * 1.1 - Added Object oriented functionality and Javadoc comments.
@@ -23,6 +22,11 @@ import javax.mail.internet.*;
  * 1.5 - Added method for sending emails for group goal completion. Changed many email methods to accept a goal object
  *       rather than a goalName as goalName does not exist, the goal.getMessageFragment() method is used instead
  *       of goalName.
+ * 1.6 - Emails are now queued in the outbox and sent in the background by the EmailDispatcher, rather than sent on
+ *       the caller's thread. The session passed to each method is no longer used.
+ * 1.7 - The session is now created once and shared. Added sending a group goal completion to every member as one
+ *       batch.
+ * 1.8 - Email bodies are now rendered from precompiled EmailTemplates rather than concatenated on every call.
  *
  */
 public class EmailHandler {
@@ -31,6 +35,19 @@ public class EmailHandler {
     private static final String EMAIL = "proactivese13@gmail.com";
     private static final String PASS = "REMOVED WHILE PUBLIC";
 
+    private static final String VERIFICATION = "verification.html";
+    private static final String GROUP_INVITE = "group_invite.html";
+    private static final String GOAL_INVITE = "goal_invite.txt";
+    private static final String GOAL_COMPLETION = "goal_completion.txt";
+    private static final String GROUP_GOAL_COMPLETION = "group_goal_completion.txt";
+    private static final String PASSWORD_RECOVERY = "password_recovery.html";
+    private static final String USERNAME_RECOVERY = "username_recovery.html";
+
+    /**
+     * The shared session, created on first use.
+     */
+    private Session session;
+
     /**
      * Private default constructor. Enforces the Singleton pattern.
      */
@@ -62,23 +79,53 @@ public class EmailHandler {
         prop.setProperty("mail.smtp.starttls.enable", "true");
         prop.put("mail.smtp.ssl.trust", "smtp.gmail.com");
 
+        //Pooled connections are long lived, so a dead server must not hold a sending thread forever
+        prop.setProperty("mail.smtp.connectiontimeout", "10000");
+        prop.setProperty("mail.smtp.timeout", "10000");
+
         return prop;
     }
 
     /**
-     * Method to begin a session, this is required for all mail operations
+     * Method to get the session, this is required for all mail operations. The session is created on the first call
+     * and the same session returned thereafter.
      *
      * @return returns a Session object, this is a persistent object required in all mail sending methods
      */
-    public Session createSession(){
+    public synchronized Session createSession(){
+
+        if (session == null) {
+            session = Session.getInstance(setUpEmailHandler(),
+                    new Authenticator() {
+                        protected PasswordAuthentication getPasswordAuthentication() {
+                            return new PasswordAuthentication(EMAIL, PASS);
+                        }
+                    });
+        }
+
+        return session;
+    }
+
+    /**
+     * Method to create a transport delivering email over SMTP from the ProActive account. Used by the
+     * {@link EmailDispatcher}.
+     *
+     * @return a new EmailTransport.
+     */
+    public EmailTransport createTransport() {
+        return new SmtpEmailTransport(createSession(), EMAIL);
+    }
 
-        //Create a session to send this email
-        return Session.getInstance(setUpEmailHandler(),
-                new Authenticator() {
-                    protected PasswordAuthentication getPasswordAuthentication() {
-                        return new PasswordAuthentication(EMAIL, PASS);
-                    }
-                });
+    /**
+     * Private helper method to queue an email in the outbox, to be sent in the background.
+     *
+     * @param to          the address, or comma separated addresses, to send to.
+     * @param subject     the email's subject.
+     * @param body        the email's body.
+     * @param contentType the content type of the body.
+     */
+    private void queue(String to, String subject, String body, String contentType) {
+        EmailDispatcher.getInstance().enqueue(new OutboundEmail(to, subject, body, contentType));
     }
 
     /**
@@ -89,46 +136,9 @@ public class EmailHandler {
      *                         a user meant to join the app
      */
     public void sendVerification(Session session, String to, String verificationCode){
-
-        //Send Verification Email
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject("Thank you for creating an account with ProActive");
-            message.setContent(
-            "<head>" +
-            "   <style>" +
-            "       h1{" +
-            "           background-color:#CCCCCC;" +
-            "           border-radius:20px;" +
-            "           font-size:40px;" +
-            "           text-align:center;" +
-            "           padding:25px;" +
-            "           color:black;" +
-            "       }" +
-            "       p{" +
-            "           background-color:#CCCCCC;" +
-            "           border-radius:20px;" +
-            "           font-size:20px;" +
-            "           text-align:center;" +
-            "           padding:20px;" +
-            "           color:black;" +
-            "       }" +
-            "   </style>" +
-            "</head>" +
-            "<body>" +
-            "   <h1>ProActive</h1>" +
-            "   <p>Thanks For Signing Up With ProActive, Please Enter The Code Below To Verify Your Account</p>" +
-            "   <p><strong> " + verificationCode + " </strong></p>" +
-            "</body>",
-            "text/html");
-
-            Transport.send(message);
-
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        queue(to, "Thank you for creating an account with ProActive",
+                EmailTemplate.get(VERIFICATION).render(Map.of("code", verificationCode)),
+                OutboundEmail.HTML);
     }
 
     /**
@@ -139,47 +149,9 @@ public class EmailHandler {
      *                         a user meant to join the app
      */
     public void sendGroupInvite(Session session, String to, String groupName, String verificationCode){
-
-        //Send Verification Email
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject("You Have Been Invited To A Group With Proactive");
-            message.setContent(
-                    "<head>" +
-                            "   <style>" +
-                            "       h1{" +
-                            "           background-color:#CCCCCC;" +
-                            "           border-radius:20px;" +
-                            "           font-size:40px;" +
-                            "           text-align:center;" +
-                            "           padding:25px;" +
-                            "           color:black;" +
-                            "       }" +
-                            "       p{" +
-                            "           background-color:#CCCCCC;" +
-                            "           border-radius:20px;" +
-                            "           font-size:20px;" +
-                            "           text-align:center;" +
-                            "           padding:20px;" +
-                            "           color:black;" +
-                            "       }" +
-                            "   </style>" +
-                            "</head>" +
-                            "<body>" +
-                            "   <h1>ProActive</h1>" +
-                            "   <p>You Have been invited to the group <strong> " + groupName + "</strong> please enter " +
-                            "   the code below in the 'Groups' panel of the ProActive App</p>" +
-                            "   <p><strong> " + verificationCode + " </strong></p>" +
-                            "</body>",
-                    "text/html");
-
-            Transport.send(message);
-
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        queue(to, "You Have Been Invited To A Group With Proactive",
+                EmailTemplate.get(GROUP_INVITE).render(Map.of("group", groupName, "code", verificationCode)),
+                OutboundEmail.HTML);
     }
 
     /**
@@ -193,25 +165,10 @@ public class EmailHandler {
      *                    it has been fully implemented
      */
     public void sendGoal(Session session, String to, String goalName, String inviterName, String goalToken){
-
-        //Send an email as an invite to join a goal
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(
-                    Message.RecipientType.TO,
-                    InternetAddress.parse(to)
-            );
-            message.setSubject("You Have Been Invited To Join A Goal!");
-            message.setText("You have been invited to join the goal \"" + goalName + "\" by " + inviterName +
-                            "\n\n" +
-                            "Please copy the following code into the Proactive App to join this goal!  " + goalToken);
-
-            Transport.send(message);
-
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        queue(to, "You Have Been Invited To Join A Goal!",
+                EmailTemplate.get(GOAL_INVITE).render(
+                        Map.of("goal", goalName, "inviter", inviterName, "token", goalToken)),
+                OutboundEmail.TEXT);
     }
 
     /**
@@ -222,22 +179,9 @@ public class EmailHandler {
      * @param goal        Takes the goal that has been completed
      */
     public void sendGoalCompletion(Session session, String to, Goal goal){
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(
-                    Message.RecipientType.TO,
-                    InternetAddress.parse(to)
-            );
-            message.setSubject("You Have Completed A Goal!");
-            message.setText("You have successfully completed the goal \"" + goal.toString()
-                    + "\" Congratulations!");
-
-            Transport.send(message);
-
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        queue(to, "You Have Completed A Goal!",
+                EmailTemplate.get(GOAL_COMPLETION).render(Map.of("goal", goal.toString())),
+                OutboundEmail.TEXT);
     }
 
     /**
@@ -249,23 +193,39 @@ public class EmailHandler {
      * @param username        User that completed the goal.
      */
     public void sendGroupGoalCompletion(Session session, String to, Goal goal, String username){
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(
-                    Message.RecipientType.TO,
-                    InternetAddress.parse(to)
-            );
-            message.setSubject(username + " Has Completed A Group Goal!");
-            message.setText(username + " has successfully completed the group goal \""
-                    + goal.toString() + "\" Wish Them Congratulations!");
-
-            Transport.send(message);
+        sendGroupGoalCompletion(List.of(to), goal, username);
+    }
 
+    /**
+     * Method to send an email to each group member when a different member has completed a group goal. The emails are
+     * queued as one batch, sent together over a single connection.
+     *
+     * @param to       Takes the To Addresses, one email is sent to each.
+     * @param goal     Takes the goal that has been completed.
+     * @param username User that completed the goal.
+     */
+    public void sendGroupGoalCompletion(List<String> to, Goal goal, String username){
+        if (to == null) {
+            throw new NullPointerException();
         }
-        catch (MessagingException e) {
-            e.printStackTrace();
+        if (goal == null) {
+            throw new NullPointerException();
         }
+        if (username == null) {
+            throw new NullPointerException();
+        }
+
+        //Every member receives the same email, so build it once
+        String subject = username + " Has Completed A Group Goal!";
+        String body = EmailTemplate.get(GROUP_GOAL_COMPLETION).render(
+                Map.of("username", username, "goal", goal.toString()));
+
+        List<OutboundEmail> emails = new ArrayList<>();
+        for (String address : to) {
+            emails.add(new OutboundEmail(address, subject, body, OutboundEmail.TEXT));
+        }
+
+        EmailDispatcher.getInstance().enqueueAll(emails);
     }
 
     /**
@@ -280,45 +240,9 @@ public class EmailHandler {
         int userID = DatabaseHandler.getInstance().getUserIDFromUsername(username);
         DatabaseHandler.getInstance().insertRecoveryCode(userID, token);
 
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject("ProActive Password Recovery");
-            message.setContent(
-                    "<head>" +
-                            "   <style>" +
-                            "       h1{" +
-                            "           background-color:#CCCCCC;" +
-                            "           border-radius:20px;" +
-                            "           font-size:40px;" +
-                            "           text-align:center;" +
-                            "           padding:25px;" +
-                            "           color:black;" +
-                            "       }" +
-                            "       p{" +
-                            "           background-color:#CCCCCC;" +
-                            "           border-radius:20px;" +
-                            "           font-size:20px;" +
-                            "           text-align:center;" +
-                            "           padding:20px;" +
-                            "           color:black;" +
-                            "       }" +
-                            "   </style>" +
-                            "</head>" +
-                            "<body>" +
-                            "   <h1>ProActive</h1>" +
-                            "   <p>You have requested a recovery code for resetting your password. " +
-                            "Please enter the code below in the ProActive App.</p>" +
-                            "   <p><strong> " + token + " </strong></p>" +
-                            "</body>",
-                    "text/html");
-
-            Transport.send(message);
-
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        queue(to, "ProActive Password Recovery",
+                EmailTemplate.get(PASSWORD_RECOVERY).render(Map.of("code", token)),
+                OutboundEmail.HTML);
     }
 
     /**
@@ -330,43 +254,8 @@ public class EmailHandler {
     public void sendUsernameRecoveryEmailCSS(Session session, String to){
         String username = DatabaseHandler.getInstance().getUsernameFromEmail(to);
 
-        try {
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(EMAIL));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject("ProActive Username Recovery");
-            message.setContent(
-                    "<head>" +
-                            "   <style>" +
-                            "       h1{" +
-                            "           background-color:#CCCCCC;" +
-                            "           border-radius:20px;" +
-                            "           font-size:40px;" +
-                            "           text-align:center;" +
-                            "           padding:25px;" +
-                            "           color:black;" +
-                            "       }" +
-                            "       p{" +
-                            "           background-color:#CCCCCC;" +
-                            "           border-radius:20px;" +
-                            "           font-size:20px;" +
-                            "           text-align:center;" +
-                            "           padding:20px;" +
-                            "           color:black;" +
-                            "       }" +
-                            "   </style>" +
-                            "</head>" +
-                            "<body>" +
-                            "   <h1>ProActive</h1>" +
-                            "   <p>You have requested the username for your account in the ProActive App.</p>" +
-                            "   <p><strong> " + username + " </strong></p>" +
-                            "</body>",
-                    "text/html");
-
-            Transport.send(message);
-
-        } catch (MessagingException e) {
-            e.printStackTrace();
-        }
+        queue(to, "ProActive Username Recovery",
+                EmailTemplate.get(USERNAME_RECOVERY).render(Map.of("username", username)),
+                OutboundEmail.HTML);
     }
 }
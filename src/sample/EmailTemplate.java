@@ -0,0 +1,238 @@
+package sample;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A precompiled email body. Each template is a file under /Resources/Emails, read and parsed once into its static
+ * segments and the named placeholders between them, so rendering is a single pass appending segments and values to a
+ * reused StringBuilder.
+ *
+ * A template marks a placeholder as {{name}}. A template may include another file as {{>file}}, which is inlined when
+ * the template is parsed, so that shared markup such as the style block is written once.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial template with placeholders and included files.
+ */
+public class EmailTemplate {
+
+    /**
+     * The classpath directory holding every email template.
+     */
+    static final String DIRECTORY = "/Resources/Emails/";
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final String INCLUDE = ">";
+    private static final int MAX_INCLUDE_DEPTH = 8;
+
+    private static final Map<String, EmailTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    /**
+     * One buffer per thread, reused by every render on that thread.
+     */
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(2048));
+
+    /**
+     * The static text of the template, with a placeholder between each adjacent pair.
+     */
+    private final String[] segments;
+    /**
+     * The name of each placeholder, in order. Always one fewer than the segments.
+     */
+    private final String[] placeholders;
+    /**
+     * The combined length of the segments, used to size a fresh buffer.
+     */
+    private final int staticLength;
+
+    /**
+     * Private constructor. Templates are created by get or compile.
+     *
+     * @param segments     the static text of the template.
+     * @param placeholders the placeholder names between the segments.
+     */
+    private EmailTemplate(String[] segments, String[] placeholders) {
+        this.segments = segments;
+        this.placeholders = placeholders;
+
+        int length = 0;
+        for (String segment : segments) {
+            length += segment.length();
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * Static method to get a template by its file name, reading and parsing it on first use.
+     *
+     * @param name the template's file name under /Resources/Emails.
+     * @return the parsed template.
+     * @throws IllegalStateException if the template cannot be read or is malformed.
+     */
+    public static EmailTemplate get(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+
+        return TEMPLATES.computeIfAbsent(name, n -> compile(read(n)));
+    }
+
+    /**
+     * Parses a template's source into its segments and placeholders, inlining any included files.
+     *
+     * @param source the template's text.
+     * @return the parsed template.
+     * @throws IllegalStateException if a placeholder is not closed or an included file cannot be read.
+     */
+    static EmailTemplate compile(String source) {
+        if (source == null) {
+            throw new NullPointerException();
+        }
+
+        List<String> segments = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+
+        parse(source, segment, segments, placeholders, 0);
+        segments.add(segment.toString());
+
+        return new EmailTemplate(segments.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * Renders this template with the given values.
+     *
+     * @param values the value of each placeholder, keyed by name.
+     * @return the rendered body.
+     * @throws IllegalArgumentException if a placeholder has no value.
+     */
+    public String render(Map<String, String> values) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(staticLength);
+
+        render(buffer, values);
+
+        return buffer.toString();
+    }
+
+    /**
+     * Renders this template with the given values, appending it to a buffer.
+     *
+     * @param out    the buffer to append to.
+     * @param values the value of each placeholder, keyed by name.
+     * @throws IllegalArgumentException if a placeholder has no value.
+     */
+    public void render(StringBuilder out, Map<String, String> values) {
+        if (out == null) {
+            throw new NullPointerException();
+        }
+        if (values == null) {
+            throw new NullPointerException();
+        }
+
+        out.append(segments[0]);
+
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = values.get(placeholders[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("No value for " + placeholders[i]);
+            }
+
+            out.append(value).append(segments[i + 1]);
+        }
+    }
+
+    /**
+     * Gets the names of this template's placeholders, in the order they appear.
+     *
+     * @return the placeholder names, including any repeats.
+     */
+    public List<String> getPlaceholders() {
+        return List.of(placeholders);
+    }
+
+    /**
+     * Private helper method to split source text at its placeholders, recursing into included files.
+     *
+     * @param source       the text to parse.
+     * @param segment      the static text since the last placeholder.
+     * @param segments     the completed segments.
+     * @param placeholders the placeholder names found so far.
+     * @param depth        the number of includes being parsed within.
+     */
+    private static void parse(String source, StringBuilder segment, List<String> segments, List<String> placeholders,
+                              int depth) {
+        if (depth > MAX_INCLUDE_DEPTH) {
+            throw new IllegalStateException("Email templates included too deeply");
+        }
+
+        int from = 0;
+        int open;
+
+        while ((open = source.indexOf(OPEN, from)) >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalStateException("Unclosed placeholder at " + open);
+            }
+
+            segment.append(source, from, open);
+            String name = source.substring(open + OPEN.length(), close).trim();
+
+            if (name.startsWith(INCLUDE)) {
+                parse(read(name.substring(INCLUDE.length()).trim()), segment, segments, placeholders, depth + 1);
+            }
+            else {
+                if (name.isEmpty()) {
+                    throw new IllegalStateException("Empty placeholder at " + open);
+                }
+                segments.add(segment.toString());
+                segment.setLength(0);
+                placeholders.add(name);
+            }
+
+            from = close + CLOSE.length();
+        }
+
+        segment.append(source, from, source.length());
+    }
+
+    /**
+     * Private helper method to read a template file from the classpath. A single trailing line break is dropped, so
+     * that a file ending in a newline renders without one.
+     *
+     * @param name the template's file name under /Resources/Emails.
+     * @return the template's text.
+     */
+    private static String read(String name) {
+        String path = DIRECTORY + name;
+
+        try (InputStream in = EmailTemplate.class.getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing email template " + path);
+            }
+
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+
+            if (text.endsWith("\r\n")) {
+                return text.substring(0, text.length() - 2);
+            }
+            if (text.endsWith("\n")) {
+                return text.substring(0, text.length() - 1);
+            }
+            return text;
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not read email template " + path, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package sample;
+
+import javax.mail.MessagingException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The means by which the {@link EmailDispatcher} delivers an email. Implementations must be safe to call from several
+ * dispatcher threads at once.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial transport interface.
+ * 1.1 - Added sendAll for delivering a batch of emails together, and close.
+ */
+public interface EmailTransport {
+
+    /**
+     * Delivers an email.
+     *
+     * @param email the email to deliver.
+     * @throws MessagingException if the email could not be delivered, in which case it may be retried.
+     */
+    void send(OutboundEmail email) throws MessagingException;
+
+    /**
+     * Delivers several emails, over a single connection where the transport supports it. A failure to deliver one
+     * email does not stop the rest from being attempted.
+     *
+     * @param emails the emails to deliver.
+     * @return the failure of each email which could not be delivered, empty if every email was delivered.
+     */
+    default Map<OutboundEmail, MessagingException> sendAll(List<OutboundEmail> emails) {
+        if (emails == null) {
+            throw new NullPointerException();
+        }
+
+        Map<OutboundEmail, MessagingException> failures = new HashMap<>();
+
+        for (OutboundEmail email : emails) {
+            try {
+                send(email);
+            }
+            catch (MessagingException e) {
+                failures.put(email, e);
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * Releases any connections held by this transport.
+     */
+    default void close() {
+    }
+}
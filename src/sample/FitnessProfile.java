@@ -0,0 +1,92 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A summary of a user's fitness goals over a window of recent days, as produced by
+ * {@link DatabaseHandler#selectFitnessProfile(String, int)}. For each fitness unit the user had a goal in, it holds
+ * whether any of those goals was completed and the progress summed across all of them, so that goal generation reads
+ * the user's history in a single aggregation.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial completed units and summed progress per fitness unit.
+ */
+public class FitnessProfile {
+
+    private final int days;
+    private final Set<Goal.Unit> completed = EnumSet.noneOf(Goal.Unit.class);
+    private final Map<Goal.Unit, Float> progress = new EnumMap<>(Goal.Unit.class);
+
+    /**
+     * Constructs an empty FitnessProfile.
+     *
+     * @param days the number of days the profile covers.
+     */
+    FitnessProfile(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.days = days;
+    }
+
+    /**
+     * Adds the summary of one fitness unit.
+     *
+     * @param unit      the unit.
+     * @param completed whether any goal of the unit was completed.
+     * @param progress  the progress summed over every goal of the unit.
+     */
+    void add(Goal.Unit unit, boolean completed, float progress) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        if (unit.getMinimum() < 0) { //Not a fitness unit
+            throw new IllegalArgumentException();
+        }
+
+        if (completed) {
+            this.completed.add(unit);
+        }
+        this.progress.put(unit, progress);
+    }
+
+    /**
+     * Gets the number of days this profile covers.
+     *
+     * @return the number of days.
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Gets the fitness units in which the user completed at least one goal.
+     *
+     * @return a new list of the completed units.
+     */
+    public ArrayList<Goal.Unit> getCompletedUnits() {
+        return new ArrayList<>(completed);
+    }
+
+    /**
+     * Gets the user's average daily work rate in a unit, i.e. their summed progress spread across every day covered.
+     *
+     * @param unit the unit.
+     * @return the average work rate, or 0 if the user had no goal in the unit.
+     */
+    public float getAverageWorkRate(Goal.Unit unit) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+
+        return progress.getOrDefault(unit, 0f) / days;
+    }
+}
@@ -0,0 +1,297 @@
+package sample;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A read mostly, in memory copy of the food table held by the {@link DatabaseHandler}. The catalog is loaded once when
+ * the handler is created and custom items are appended to it as they are added to the database, so food lookups never
+ * need to go back to SQLite.
+ *
+ * Nutrients are held column wise, one primitive array per nutrient indexed directly by food id, in {@link Nutrient}
+ * ordinal order. Reading a nutrient or totalling several foods is therefore a plain array read with no allocation.
+ * Names are indexed by a hash map from name to id.
+ *
+ * Appends are serialised. Readers are never blocked, an append which outgrows the arrays copies them and publishes
+ * the new arrays before the food's name becomes visible in the index.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial columnar catalog with a name index.
+ * 1.1 - Nutrients are now addressed by {@link Nutrient} and totalled into a {@link NutrientVector}.
+ */
+public class FoodCatalog {
+
+    /**
+     * The capacity given to an empty catalog.
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * One array per nutrient, each indexed by food id.
+     */
+    private volatile double[][] columns = new double[Nutrient.COUNT][INITIAL_CAPACITY];
+
+    /**
+     * The name of each food indexed by food id, null where no food has that id.
+     */
+    private volatile String[] names = new String[INITIAL_CAPACITY];
+
+    /**
+     * The id of each food against its name.
+     */
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Every food name in sorted order, as listed to the user.
+     */
+    private final ArrayList<String> sortedNames = new ArrayList<>();
+
+    /**
+     * Constructs an empty FoodCatalog.
+     */
+    FoodCatalog() {
+    }
+
+    /**
+     * Loads every food from the database into this catalog.
+     *
+     * @param conn the connection to read the food table through.
+     * @throws SQLException if the food table cannot be read.
+     */
+    void load(PooledConnection conn) throws SQLException {
+        if (conn == null) {
+            throw new NullPointerException();
+        }
+
+        try (ResultSet rs = conn.executeQuery(Query.FOOD_CATALOG)) {
+            double[] values = new double[Nutrient.COUNT];
+
+            while (rs.next()) {
+                for (Nutrient nutrient : Nutrient.values()) {
+                    values[nutrient.ordinal()] = rs.getDouble(nutrient.getColumn());
+                }
+
+                put(rs.getInt("id"), rs.getString("name"), values);
+            }
+        }
+    }
+
+    /**
+     * Adds a food to this catalog, or replaces the food already held against its id.
+     *
+     * @param id     the food's id.
+     * @param name   the food's name.
+     * @param values the food's nutrients per 100g, in {@link Nutrient} ordinal order.
+     */
+    synchronized void put(int id, String name, double[] values) {
+        if (id < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        if (values == null) {
+            throw new NullPointerException();
+        }
+        if (values.length != Nutrient.COUNT) {
+            throw new IllegalArgumentException();
+        }
+
+        double[][] columns = this.columns;
+        String[] names = this.names;
+
+        if (id >= names.length) {
+            int capacity = Math.max(id + 1, names.length * 2);
+
+            columns = columns.clone();
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = Arrays.copyOf(columns[i], capacity);
+            }
+            names = Arrays.copyOf(names, capacity);
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            columns[i][id] = values[i];
+        }
+
+        String previous = names[id];
+        names[id] = name;
+
+        //Publish the arrays before the name is indexed, so a reader finding the id can always read it
+        this.columns = columns;
+        this.names = names;
+
+        if (previous != null) {
+            ids.remove(previous);
+            sortedNames.remove(Collections.binarySearch(sortedNames, previous));
+        }
+
+        ids.put(name, id);
+
+        int index = Collections.binarySearch(sortedNames, name);
+        sortedNames.add(index < 0 ? -index - 1 : index, name);
+    }
+
+    /**
+     * Gets the id of the food with exactly the passed name.
+     *
+     * @param name the food's name.
+     * @return the food's id, or -1 if no food has that name.
+     */
+    public int getId(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+
+        Integer id = ids.get(name);
+
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Finds the id of a food by name. A food with exactly the passed name is preferred, otherwise the food with the
+     * lowest id whose name starts with the passed text, ignoring case, is returned.
+     *
+     * @param name the food's name, or the start of it.
+     * @return the food's id, or -1 if no food matches.
+     */
+    public int findId(String name) {
+        int id = getId(name);
+        if (id >= 0) {
+            return id;
+        }
+
+        String[] names = this.names;
+
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && names[i].regionMatches(true, 0, name, 0, name.length())) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Gets whether a food with the passed id is held in this catalog.
+     *
+     * @param id the food's id.
+     * @return true if the food is held.
+     */
+    public boolean contains(int id) {
+        String[] names = this.names;
+
+        return id >= 0 && id < names.length && names[id] != null;
+    }
+
+    /**
+     * Gets the name of a food.
+     *
+     * @param id the food's id.
+     * @return the food's name.
+     */
+    public String getName(int id) {
+        checkId(id);
+
+        return names[id];
+    }
+
+    /**
+     * Gets a single nutrient of a food, per 100g.
+     *
+     * @param id       the food's id.
+     * @param nutrient the nutrient.
+     * @return the amount of the nutrient in 100g of the food.
+     */
+    public double get(int id, Nutrient nutrient) {
+        checkId(id);
+
+        return columns[nutrient.ordinal()][id];
+    }
+
+    /**
+     * Adds the nutrients of a quantity of a food onto a running total, without allocating.
+     *
+     * @param id       the food's id.
+     * @param quantity the quantity of the food in grams.
+     * @param totals   the running total to add to.
+     */
+    public void addTo(int id, double quantity, NutrientVector totals) {
+        checkId(id);
+        if (totals == null) {
+            throw new NullPointerException();
+        }
+
+        double[][] columns = this.columns;
+        double scale = quantity / 100;
+
+        for (int i = 0; i < columns.length; i++) {
+            totals.add(Nutrient.of(i), columns[i][id] * scale);
+        }
+    }
+
+    /**
+     * Gets every nutrient of a food, per 100g.
+     *
+     * @param id the food's id.
+     * @return a NutrientVector of the food's nutrients.
+     */
+    public NutrientVector getNutrients(int id) {
+        checkId(id);
+
+        double[][] columns = this.columns;
+        NutrientVector nutrients = new NutrientVector();
+
+        for (int i = 0; i < columns.length; i++) {
+            nutrients.add(Nutrient.of(i), columns[i][id]);
+        }
+
+        return nutrients;
+    }
+
+    /**
+     * Builds a NutritionItem for a food.
+     *
+     * @param id the food's id.
+     * @return a NutritionItem holding the food's name and nutrients.
+     */
+    public NutritionItem getNutritionItem(int id) {
+        return new NutritionItem(getName(id), getNutrients(id));
+    }
+
+    /**
+     * Gets the name of every food, in sorted order.
+     *
+     * @return an ArrayList of every food name.
+     */
+    public synchronized ArrayList<String> getNames() {
+        return new ArrayList<>(sortedNames);
+    }
+
+    /**
+     * Gets the number of foods held in this catalog.
+     *
+     * @return the number of foods.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Private helper method to check a food with the passed id is held.
+     *
+     * @param id the food's id.
+     */
+    private void checkId(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package sample;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A headless batch job generating the day's system goals for every user, intended to be run once each night so that
+ * no user's first login of the day has to generate and save their goals. Run nightly by the {@link JobScheduler}.
+ *
+ * The user table is split by user_id range into partitions which are processed in parallel on a ForkJoinPool. Each
+ * partition reads its users together, generates each user's goals as the {@link GoalGenerator} would on the Home
+ * screen, and saves the goals of the whole partition as one batch of upserts.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial fork/join job partitioned by user_id, reporting users per second.
+ * 1.1 - Registered as a nightly job of the {@link JobScheduler}.
+ */
+public class GoalBatchJob {
+
+    /**
+     * The widest range of user_ids processed as one partition.
+     */
+    public static final int DEFAULT_PARTITION_SIZE = 64;
+
+    /**
+     * The number of partitions processed at once, one for each pooled reader connection.
+     */
+    public static final int DEFAULT_PARALLELISM = ConnectionPool.DEFAULT_READERS;
+
+    /**
+     * Where users are read from and their goals saved to.
+     */
+    interface Store {
+        int[] userIDBounds() throws SQLException;
+
+        Map<Integer, User> usersInRange(int from, int to) throws SQLException;
+
+        int save(Map<Integer, ArrayList<SystemGoal>> goals) throws SQLException;
+    }
+
+    /**
+     * A Store over the {@link DatabaseHandler}.
+     */
+    static class DatabaseStore implements Store {
+        private final DatabaseHandler db;
+
+        DatabaseStore(DatabaseHandler db) {
+            if (db == null) {
+                throw new NullPointerException();
+            }
+
+            this.db = db;
+        }
+
+        @Override
+        public int[] userIDBounds() throws SQLException {
+            return db.selectUserIDBounds();
+        }
+
+        @Override
+        public Map<Integer, User> usersInRange(int from, int to) throws SQLException {
+            return db.selectUsersInRange(from, to);
+        }
+
+        @Override
+        public int save(Map<Integer, ArrayList<SystemGoal>> goals) throws SQLException {
+            return db.refreshSystemGoals(goals);
+        }
+    }
+
+    /**
+     * The outcome of one run of the job.
+     */
+    public static class Result {
+        private final long users;
+        private final long failed;
+        private final long written;
+        private final int partitions;
+        private final long nanos;
+
+        Result(long users, long failed, long written, int partitions, long nanos) {
+            this.users = users;
+            this.failed = failed;
+            this.written = written;
+            this.partitions = partitions;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the number of users whose goals were generated and saved.
+         *
+         * @return the number of users.
+         */
+        public long getUsers() {
+            return users;
+        }
+
+        /**
+         * Gets the number of users whose goals could not be generated or saved.
+         *
+         * @return the number of failed users.
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Gets the number of system goals upserted or deleted.
+         *
+         * @return the number of rows written.
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        public int getPartitions() {
+            return partitions;
+        }
+
+        /**
+         * Gets the time taken by the run.
+         *
+         * @return the duration of the run in milliseconds.
+         */
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        /**
+         * Gets the rate at which users were processed.
+         *
+         * @return the users processed per second.
+         */
+        public double getUsersPerSecond() {
+            return nanos == 0 ? 0 : users * 1_000_000_000.0 / nanos;
+        }
+
+        /**
+         * Returns a String representation of this Result.
+         *
+         * @return the run's users, failures, writes, partitions, duration and throughput.
+         */
+        @Override
+        public String toString() {
+            return String.format("%d users, %d failed, %d goals written in %d partitions in %.1f ms (%.1f users/s)",
+                    users, failed, written, partitions, getMillis(), getUsersPerSecond());
+        }
+    }
+
+    private final Store store;
+    private final Function<User, ArrayList<SystemGoal>> generator;
+    private final ForkJoinPool pool;
+    private final int partitionSize;
+
+    private final LongAdder users = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder partitions = new LongAdder();
+
+    /**
+     * Constructs a GoalBatchJob over the database with the default parallelism and partition size.
+     */
+    public GoalBatchJob() {
+        this(new DatabaseStore(DatabaseHandler.getInstance()), user -> new GoalGenerator(user).generateGoals(),
+                new ForkJoinPool(DEFAULT_PARALLELISM), DEFAULT_PARTITION_SIZE);
+    }
+
+    /**
+     * Constructs a GoalBatchJob.
+     *
+     * @param store         where users are read from and their goals saved to.
+     * @param generator     generates a user's system goals.
+     * @param pool          the pool partitions are processed on.
+     * @param partitionSize the widest range of user_ids processed as one partition.
+     */
+    GoalBatchJob(Store store, Function<User, ArrayList<SystemGoal>> generator, ForkJoinPool pool, int partitionSize) {
+        if (store == null) {
+            throw new NullPointerException();
+        }
+        if (generator == null) {
+            throw new NullPointerException();
+        }
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        if (partitionSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.store = store;
+        this.generator = generator;
+        this.pool = pool;
+        this.partitionSize = partitionSize;
+    }
+
+    /**
+     * Generates and saves the system goals of every user, returning once every partition has completed.
+     *
+     * @return the outcome of the run.
+     * @throws SQLException if the range of user_ids could not be read.
+     */
+    public synchronized Result run() throws SQLException {
+        users.reset();
+        failed.reset();
+        written.reset();
+        partitions.reset();
+
+        long start = System.nanoTime();
+
+        int[] bounds = store.userIDBounds();
+        if (bounds != null) {
+            pool.invoke(new Partition(bounds[0], bounds[1] + 1));
+        }
+
+        return new Result(users.sum(), failed.sum(), written.sum(), partitions.intValue(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Stops the pool partitions are processed on.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * A range of user_ids, split in half until no wider than the partition size.
+     */
+    private class Partition extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a Partition.
+         *
+         * @param from the lowest user_id, inclusive.
+         * @param to   the highest user_id, exclusive.
+         */
+        private Partition(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > partitionSize) {
+                int middle = from + (to - from) / 2;
+                invokeAll(new Partition(from, middle), new Partition(middle, to));
+                return;
+            }
+
+            partitions.increment();
+            Map<Integer, User> range;
+
+            try {
+                range = store.usersInRange(from, to);
+            }
+            catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            }
+
+            Map<Integer, ArrayList<SystemGoal>> goals = new LinkedHashMap<>();
+
+            for (Map.Entry<Integer, User> user : range.entrySet()) {
+                try {
+                    goals.put(user.getKey(), generator.apply(user.getValue()));
+                }
+                catch (RuntimeException e) { //One user's failure leaves the rest of the partition to be saved
+                    e.printStackTrace();
+                    failed.increment();
+                }
+            }
+
+            if (goals.isEmpty()) {
+                return;
+            }
+
+            try {
+                written.add(store.save(goals));
+                users.add(goals.size());
+            }
+            catch (SQLException e) {
+                e.printStackTrace();
+                failed.add(goals.size());
+            }
+        }
+    }
+
+    /**
+     * Runs the job once over the database and prints its outcome.
+     *
+     * @param args unused.
+     */
+    public static void main(String[] args) {
+        GoalBatchJob job = new GoalBatchJob();
+
+        try {
+            System.out.println(job.run());
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+        finally {
+            job.shutdown();
+        }
+    }
+}
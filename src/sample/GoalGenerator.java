@@ -10,10 +10,12 @@ import java.util.Random;
  *
  * @author Samuel Scarfe
  *
- * @version 1.1
+ * @version 1.3
  *
  * 1.0 - First working version
  * 1.1 - Added day to day goal setting for a much wider range of nutrients.
+ * 1.2 - The generic exercise goal is no longer added when an exercise goal has already been generated.
+ * 1.3 - Daily fitness goals are generated from a single fitness profile query rather than one query per unit.
  */
 public class GoalGenerator {
 
@@ -112,10 +114,11 @@ public class GoalGenerator {
      * @return An ArrayList of System goals containing daily fitness targets.
      */
     private ArrayList<SystemGoal> generateDailyFitness() {
-        //Get user's completed exercise units
+        //Get user's completed exercise units and work rates in one query
         Random random = new Random();
         ArrayList<SystemGoal> systemGoals = new ArrayList<>();
-        ArrayList<Goal.Unit> completedGoals = user.getCompletedGoals(LocalDate.now().minusDays(28));
+        FitnessProfile profile = user.getFitnessProfile(28);
+        ArrayList<Goal.Unit> completedGoals = profile.getCompletedUnits();
 
         //Select up to three at random
         while (systemGoals.size() < 3 && completedGoals.size() > 0) {
@@ -123,7 +126,7 @@ public class GoalGenerator {
             Goal.Unit current = completedGoals.remove(index);
 
             //Create new SystemGoals by checking the user's average work rate in that task
-            float averageWorkRate = user.getAverageWorkRate(current, 28);
+            float averageWorkRate = profile.getAverageWorkRate(current);
 
             if (averageWorkRate < current.getMinimum()) { //Average work rate is below minimum threshold
                 averageWorkRate = current.getMinimum(); //Set to minimum threshold
@@ -138,7 +141,13 @@ public class GoalGenerator {
             );
         }
 
-        if (systemGoals.size() < 3) { //If less than three goals have been created
+        boolean hasExercise = false;
+        for (SystemGoal systemGoal : systemGoals) {
+            hasExercise |= systemGoal.getUnit() == Goal.Unit.EXERCISE;
+        }
+
+        //If less than three goals have been created, and none of them is already an exercise goal
+        if (systemGoals.size() < 3 && !hasExercise) {
             systemGoals.add(new SystemGoal( //Create and add a generic exercise goal
                     30,
                     Goal.Unit.EXERCISE,
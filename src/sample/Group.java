@@ -1,20 +1,28 @@
 package sample;
 
-import javax.mail.Session;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Class to represent a Group in the ProActive app by it's name, owner, admins, members, and GroupGoals.
  *
+ * Constructing a Group performs no database I/O. The Group's GroupGoals and, unless they are set explicitly, its
+ * owner, admins and members are loaded from the database the first time they are needed. Groups are built afresh for
+ * each view or action, so GroupGoals are held for the life of the Group, and membership until it is invalidated by a
+ * change made through the Group.
+ *
  * @author ??
  * @author Samuel Scarfe
  *
- * @version 1.1
+ * @version 1.4
  *
  * 1.0 - First working version.
  * 1.1 - Javadoc and refactoring. Equals and hashcode.
+ * 1.2 - GroupGoals and membership are now loaded lazily on first access and memoised.
+ * 1.3 - Goal completion notifications are sent to the whole Group as one batch.
+ * 1.4 - Removed invalidateGroupGoals, which no write path had a held Group to call it on.
  */
 public class Group {
 
@@ -35,12 +43,17 @@ public class Group {
      */
     private Set<GroupMember> members = new HashSet<>();
     /**
-     * This Group's GroupGoals.
+     * Whether this Group's owner, admins and members are held, either loaded or set explicitly.
+     */
+    private boolean membershipLoaded;
+    /**
+     * This Group's GroupGoals, null until first loaded.
      */
-    private final ArrayList<GroupGoal> groupGoals;
+    private ArrayList<GroupGoal> groupGoals;
 
     /**
-     * Constructs a Group from a name and an owner. Initialises GroupGoals from the database.
+     * Constructs a Group from a name and an owner. The owner is held as set explicitly, so the remainder of the
+     * membership is not loaded.
      * @param name  the name of this Group.
      * @param owner the owner of this Group.
      */
@@ -54,11 +67,11 @@ public class Group {
 
         this.name = name;
         this.owner = owner;
-        this.groupGoals = DatabaseHandler.getInstance().loadGroupGoals(this.name);
+        this.membershipLoaded = true;
     }
 
     /**
-     * Constructs a Group from a name. Initialises owner to null. Initialises GroupGoals from the database.
+     * Constructs a Group from a name. The Group's owner, admins and members are loaded on first access.
      * @param name the name of this group.
      */
     public Group(String name) {
@@ -68,7 +81,6 @@ public class Group {
 
         this.name = name;
         this.owner = null;
-        this.groupGoals = DatabaseHandler.getInstance().loadGroupGoals(this.name);
     }
 
     /**
@@ -84,7 +96,9 @@ public class Group {
      *
      * @return a set containing this Group's members.
      */
-    public Set<GroupMember> getMembers() {
+    public synchronized Set<GroupMember> getMembers() {
+        loadMembership();
+
         return Set.copyOf(members);
     }
 
@@ -93,7 +107,9 @@ public class Group {
      *
      * @return a set containing this Group's admins.
      */
-    public Set<GroupAdmin> getAdmins() {
+    public synchronized Set<GroupAdmin> getAdmins() {
+        loadMembership();
+
         return Set.copyOf(admins);
     }
 
@@ -102,7 +118,9 @@ public class Group {
      *
      * @return this Group's GroupOwner.
      */
-    public GroupOwner getOwner() {
+    public synchronized GroupOwner getOwner() {
+        loadMembership();
+
         return owner;
     }
 
@@ -111,7 +129,11 @@ public class Group {
      *
      * @return an ArrayList containing this Group's GroupGoals.
      */
-    public ArrayList<GroupGoal> getGroupGoals() {
+    public synchronized ArrayList<GroupGoal> getGroupGoals() {
+        if (groupGoals == null) {
+            groupGoals = DatabaseHandler.getInstance().loadGroupGoals(this.name);
+        }
+
         return groupGoals;
     }
 
@@ -120,12 +142,13 @@ public class Group {
      *
      * @param members this Group's new set of members.
      */
-    public void setMembers(Set<GroupMember> members) {
+    public synchronized void setMembers(Set<GroupMember> members) {
         if (members == null) {
             throw new NullPointerException();
         }
 
         this.members = members;
+        this.membershipLoaded = true;
     }
 
     /**
@@ -133,12 +156,13 @@ public class Group {
      *
      * @param admins this Group's new set of admins.
      */
-    public void setAdmins(Set<GroupAdmin> admins) {
+    public synchronized void setAdmins(Set<GroupAdmin> admins) {
         if (admins == null) {
             throw new NullPointerException();
         }
 
         this.admins = admins;
+        this.membershipLoaded = true;
     }
 
     /**
@@ -146,12 +170,43 @@ public class Group {
      *
      * @param owner this Group's new GroupOwner.
      */
-    public void setOwner(GroupOwner owner) {
+    public synchronized void setOwner(GroupOwner owner) {
         if (owner == null) {
             throw new NullPointerException();
         }
 
         this.owner = owner;
+        this.membershipLoaded = true;
+    }
+
+    /**
+     * Sets this Group's whole membership as loaded from the database. Unlike {@link #setOwner(GroupOwner)}, a group
+     * without an owner is accepted.
+     *
+     * @param owner   this Group's GroupOwner, or null if it has none.
+     * @param admins  this Group's admins.
+     * @param members this Group's members.
+     */
+    synchronized void setMembership(GroupOwner owner, Set<GroupAdmin> admins, Set<GroupMember> members) {
+        if (admins == null) {
+            throw new NullPointerException();
+        }
+        if (members == null) {
+            throw new NullPointerException();
+        }
+
+        this.owner = owner;
+        this.admins = admins;
+        this.members = members;
+        this.membershipLoaded = true;
+    }
+
+    /**
+     * Discards this Group's held membership, so that it is reloaded from the database on next access. Called after
+     * the membership is changed in the database.
+     */
+    public synchronized void invalidateMembership() {
+        this.membershipLoaded = false;
     }
 
     /**
@@ -168,38 +223,51 @@ public class Group {
             throw new NullPointerException();
         }
 
-        for (GroupMember member : this.members) {
-            notifyMember(username, goal, member);
+        List<String> recipients = new ArrayList<>();
+
+        for (GroupMember member : getMembers()) {
+            addRecipient(username, member, recipients);
         }
-        for (GroupAdmin admin : this.admins) {
-            notifyMember(username, goal, admin);
+        for (GroupAdmin admin : getAdmins()) {
+            addRecipient(username, admin, recipients);
         }
 
-        notifyMember(username, goal, owner);
+        if (getOwner() != null) {
+            addRecipient(username, getOwner(), recipients);
+        }
+
+        if (!recipients.isEmpty()) {
+            EmailHandler.getInstance().sendGroupGoalCompletion(recipients, goal, username);
+        }
     }
 
     /**
-     * Private helper method to notify Group members about completion of a goal.
+     * Private helper method to add a Group member to those notified about completion of a goal.
      *
      * @param username the username of the user that completed the GroupGoal.
-     * @param goal the goal that was completed.
      * @param member the member to be notified.
+     * @param recipients the email addresses of the members to be notified.
      */
-    private void notifyMember(String username, Goal goal, GroupMember member) {
+    private void addRecipient(String username, GroupMember member, List<String> recipients) {
         if (username == null) {
             throw new NullPointerException();
         }
-        if (goal == null) {
-            throw new NullPointerException();
-        }
         if (member == null) {
             throw new NullPointerException();
         }
 
         if (!member.getUser().getUsername().equals(username)) {
-            EmailHandler emailHandler = EmailHandler.getInstance();
-            Session session = emailHandler.createSession();
-            emailHandler.sendGroupGoalCompletion(session, member.getUser().getEmail(), goal, username);
+            recipients.add(member.getUser().getEmail());
+        }
+    }
+
+    /**
+     * Private helper method to load this Group's owner, admins and members from the database, if they are not
+     * already held.
+     */
+    private void loadMembership() {
+        if (!membershipLoaded) {
+            DatabaseHandler.getInstance().loadGroupMembership(this);
         }
     }
 
@@ -209,7 +277,9 @@ public class Group {
      * @return a String representation of this Group.
      */
     @Override
-    public String toString() {
+    public synchronized String toString() {
+        loadMembership();
+
         return this.name + "{" + this.owner + ", " + this.admins + ", " + this.members + "}";
     }
 
@@ -0,0 +1,160 @@
+package sample;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lightweight, read only view of a Group as shown on the groups page: its name, a record of each member and their
+ * role, the GroupGoals set for it, and the role of the user viewing it. Unlike {@link Group}, building a GroupSummary
+ * never constructs a {@link User} for each member, so every one of a user's groups can be loaded by
+ * {@link DatabaseHandler#getUserGroupSummaries(String)} in a single statement.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial summary with member records and group goals.
+ */
+public class GroupSummary {
+
+    /**
+     * A record of a single member of a group and their role in it.
+     */
+    public static class Member {
+        private final int userID;
+        private final String username;
+        private final String role;
+
+        /**
+         * Constructs a Member.
+         *
+         * @param userID   the member's user_id.
+         * @param username the member's username.
+         * @param role     the member's role in the group, one of Owner, Admin or Member.
+         */
+        public Member(int userID, String username, String role) {
+            if (username == null) {
+                throw new NullPointerException();
+            }
+            if (role == null) {
+                throw new NullPointerException();
+            }
+
+            this.userID = userID;
+            this.username = username;
+            this.role = role;
+        }
+
+        public int getUserID() {
+            return userID;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getRole() {
+            return role;
+        }
+    }
+
+    private final int groupID;
+    private final String name;
+    private final String role;
+    private final List<Member> members;
+    private final ArrayList<GroupGoal> groupGoals;
+
+    /**
+     * Constructs a GroupSummary.
+     *
+     * @param groupID    the group's unique ID.
+     * @param name       the group's name.
+     * @param role       the viewing user's role in the group.
+     * @param members    a record of every member of the group.
+     * @param groupGoals the goals set for the group.
+     */
+    public GroupSummary(int groupID, String name, String role, List<Member> members, ArrayList<GroupGoal> groupGoals) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        if (members == null) {
+            throw new NullPointerException();
+        }
+        if (groupGoals == null) {
+            throw new NullPointerException();
+        }
+
+        this.groupID = groupID;
+        this.name = name;
+        this.role = role;
+        this.members = List.copyOf(members);
+        this.groupGoals = groupGoals;
+    }
+
+    /**
+     * Gets the group's unique ID.
+     *
+     * @return the group's ID.
+     */
+    public int getGroupID() {
+        return groupID;
+    }
+
+    /**
+     * Gets the group's name.
+     *
+     * @return the group's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the viewing user's role in the group.
+     *
+     * @return one of Owner, Admin or Member.
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Gets a record of every member of the group, whatever their role.
+     *
+     * @return an unmodifiable list of the group's members.
+     */
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * Gets the records of the group's members holding a particular role.
+     *
+     * @param role the role, one of Owner, Admin or Member.
+     * @return the members holding that role.
+     */
+    public List<Member> getMembers(String role) {
+        if (role == null) {
+            throw new NullPointerException();
+        }
+
+        List<Member> result = new ArrayList<>();
+
+        for (Member member : members) {
+            if (member.getRole().equals(role)) {
+                result.add(member);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the goals set for the group.
+     *
+     * @return the group's GroupGoals.
+     */
+    public ArrayList<GroupGoal> getGroupGoals() {
+        return groupGoals;
+    }
+}
@@ -0,0 +1,235 @@
+package sample;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable, in memory copy of the daily_intake table of dietary reference intakes, held by the
+ * {@link DatabaseHandler}. The table is loaded once when the handler is created, so generating a user's day to day
+ * goals needs no queries.
+ *
+ * Intakes are keyed by unit and sex. The age bands for each key are held in parallel primitive arrays sorted by their
+ * minimum age, and the band containing an age is found by binary search.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial index of intakes by unit and sex with sorted age bands.
+ */
+public final class IntakeIndex {
+
+    /**
+     * An index with no intakes.
+     */
+    static final IntakeIndex EMPTY = new Builder().build();
+
+    /**
+     * The age bands of a single unit and sex, sorted by minimum age.
+     */
+    private static final class Bands {
+        private final int[] minAges;
+        private final int[] maxAges;
+        private final float[] amounts;
+
+        private Bands(int[] minAges, int[] maxAges, float[] amounts) {
+            this.minAges = minAges;
+            this.maxAges = maxAges;
+            this.amounts = amounts;
+        }
+
+        /**
+         * Finds the amount for the band containing an age.
+         *
+         * @param age the age.
+         * @return the amount, or -1 if no band contains the age.
+         */
+        private float find(int age) {
+            int index = Arrays.binarySearch(minAges, age);
+
+            if (index < 0) {
+                //Not an exact match, so take the band starting closest below the age
+                index = -index - 2;
+            }
+            else {
+                //Of several bands starting at the age, take the last
+                while (index + 1 < minAges.length && minAges[index + 1] == age) {
+                    index++;
+                }
+            }
+
+            return index >= 0 && maxAges[index] >= age ? amounts[index] : -1;
+        }
+    }
+
+    private final Map<Goal.Unit, Map<User.Sex, Bands>> intakes;
+    private final int size;
+
+    /**
+     * Private constructor. Indexes are created by a Builder or by load.
+     *
+     * @param intakes the bands of each unit and sex.
+     * @param size    the number of bands.
+     */
+    private IntakeIndex(Map<Goal.Unit, Map<User.Sex, Bands>> intakes, int size) {
+        this.intakes = intakes;
+        this.size = size;
+    }
+
+    /**
+     * Loads every intake from the database into a new index.
+     *
+     * @param conn the connection to read the daily_intake table through.
+     * @return the loaded index.
+     * @throws SQLException if the daily_intake table cannot be read.
+     */
+    static IntakeIndex load(PooledConnection conn) throws SQLException {
+        if (conn == null) {
+            throw new NullPointerException();
+        }
+
+        Builder builder = new Builder();
+
+        try (ResultSet rs = conn.executeQuery(Query.DAILY_INTAKE)) {
+            while (rs.next()) {
+                Goal.Unit unit;
+                User.Sex sex;
+
+                try {
+                    unit = Goal.Unit.valueOf(rs.getString("unit"));
+                    sex = User.Sex.valueOf(rs.getString("gender").toUpperCase(Locale.ROOT));
+                }
+                catch (IllegalArgumentException e) { //Not a unit or sex the app knows of
+                    continue;
+                }
+
+                builder.add(unit, sex, rs.getInt("min_age"), rs.getInt("max_age"), rs.getFloat("amount"));
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Gets the recommended daily intake of a unit for an age and sex.
+     *
+     * @param unit the unit.
+     * @param age  the age.
+     * @param sex  the sex, as returned by {@link User#getSex()}.
+     * @return the recommended intake, or -1 if there is none.
+     */
+    public float get(Goal.Unit unit, int age, String sex) {
+        if (unit == null) {
+            throw new NullPointerException();
+        }
+        if (age < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (sex == null) {
+            throw new NullPointerException();
+        }
+
+        Map<User.Sex, Bands> bySex = intakes.get(unit);
+        if (bySex == null) {
+            return -1;
+        }
+
+        Bands bands;
+        try {
+            bands = bySex.get(User.Sex.valueOf(sex.toUpperCase(Locale.ROOT)));
+        }
+        catch (IllegalArgumentException e) { //Not a sex with intakes
+            return -1;
+        }
+
+        return bands == null ? -1 : bands.find(age);
+    }
+
+    /**
+     * Gets the number of age bands in this index.
+     *
+     * @return the number of bands.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Collects intakes and builds them into an IntakeIndex.
+     */
+    static class Builder {
+        private final Map<Goal.Unit, Map<User.Sex, List<float[]>>> rows = new EnumMap<>(Goal.Unit.class);
+
+        /**
+         * Adds the intake for an age band.
+         *
+         * @param unit   the unit.
+         * @param sex    the sex.
+         * @param minAge the youngest age in the band.
+         * @param maxAge the oldest age in the band.
+         * @param amount the recommended intake.
+         * @return this Builder.
+         */
+        Builder add(Goal.Unit unit, User.Sex sex, int minAge, int maxAge, float amount) {
+            if (unit == null) {
+                throw new NullPointerException();
+            }
+            if (sex == null) {
+                throw new NullPointerException();
+            }
+            if (minAge < 0 || maxAge < minAge) {
+                throw new IllegalArgumentException();
+            }
+
+            rows.computeIfAbsent(unit, u -> new EnumMap<>(User.Sex.class))
+                    .computeIfAbsent(sex, s -> new ArrayList<>())
+                    .add(new float[] {minAge, maxAge, amount});
+
+            return this;
+        }
+
+        /**
+         * Builds the collected intakes into an index.
+         *
+         * @return the new IntakeIndex.
+         */
+        IntakeIndex build() {
+            Map<Goal.Unit, Map<User.Sex, Bands>> intakes = new EnumMap<>(Goal.Unit.class);
+            int size = 0;
+
+            for (Map.Entry<Goal.Unit, Map<User.Sex, List<float[]>>> unit : rows.entrySet()) {
+                Map<User.Sex, Bands> bySex = new EnumMap<>(User.Sex.class);
+
+                for (Map.Entry<User.Sex, List<float[]>> sex : unit.getValue().entrySet()) {
+                    List<float[]> bands = new ArrayList<>(sex.getValue());
+                    //Stable, so of two bands starting at the same age the one added last is found
+                    bands.sort(Comparator.comparingDouble(band -> band[0]));
+
+                    int[] minAges = new int[bands.size()];
+                    int[] maxAges = new int[bands.size()];
+                    float[] amounts = new float[bands.size()];
+
+                    for (int i = 0; i < bands.size(); i++) {
+                        minAges[i] = (int) bands.get(i)[0];
+                        maxAges[i] = (int) bands.get(i)[1];
+                        amounts[i] = bands.get(i)[2];
+                    }
+
+                    bySex.put(sex.getKey(), new Bands(minAges, maxAges, amounts));
+                    size += bands.size();
+                }
+
+                intakes.put(unit.getKey(), bySex);
+            }
+
+            return new IntakeIndex(intakes, size);
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package sample;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the application's recurring background jobs, such as sweeping expired tokens and goals out of the database and
+ * rolling the {@link SystemGoalCache} over to a new day, so that this housekeeping no longer waits on a user touching
+ * the rows involved.
+ *
+ * Each job is registered by name to run either at a fixed interval or daily at a time of day. A random delay of up to
+ * the job's jitter is added before every run, so that several instances of the app sharing a database do not all sweep
+ * it at the same moment. The next run of a job is scheduled once its last run completes, so a job never overlaps
+ * itself, and the outcome of the most recent runs of every job is kept in a bounded history.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial scheduler with a job registry, jitter and run history, and the expiry and rollover jobs.
+ * 1.1 - Added the nightly {@link GoalBatchJob}.
+ */
+public class JobScheduler {
+
+    /**
+     * The number of runs, across every job, kept in the history.
+     */
+    public static final int HISTORY_SIZE = 100;
+
+    /**
+     * The interval between sweeps of expired registration tokens, recovery codes and group invites.
+     */
+    public static final Duration TOKEN_SWEEP_PERIOD = Duration.ofMinutes(15);
+
+    /**
+     * The largest random delay added before each sweep.
+     */
+    public static final Duration SWEEP_JITTER = Duration.ofMinutes(1);
+
+    /**
+     * The time of day the {@link GoalBatchJob} generates every user's goals, once the day's goals have been expired.
+     */
+    public static final LocalTime GOAL_BATCH_TIME = LocalTime.of(0, 30);
+
+    private static JobScheduler instance;
+
+    /**
+     * A unit of recurring background work.
+     */
+    public interface Task {
+
+        /**
+         * Runs the task.
+         *
+         * @return the number of rows or items affected.
+         * @throws SQLException if the task fails against the database.
+         */
+        int run() throws SQLException;
+    }
+
+    /**
+     * The outcome of one run of a job.
+     */
+    public static class Run {
+        private final String job;
+        private final LocalDateTime started;
+        private final long nanos;
+        private final int affected;
+        private final String error;
+
+        Run(String job, LocalDateTime started, long nanos, int affected, String error) {
+            this.job = job;
+            this.started = started;
+            this.nanos = nanos;
+            this.affected = affected;
+            this.error = error;
+        }
+
+        public String getJob() {
+            return job;
+        }
+
+        public LocalDateTime getStarted() {
+            return started;
+        }
+
+        /**
+         * Gets the time taken by the run.
+         *
+         * @return the duration of the run in milliseconds.
+         */
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+
+        /**
+         * Gets the number of rows or items affected by the run.
+         *
+         * @return the number affected, 0 if the run failed.
+         */
+        public int getAffected() {
+            return affected;
+        }
+
+        /**
+         * Gets the failure of the run.
+         *
+         * @return a description of the failure, or null if the run succeeded.
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSucceeded() {
+            return error == null;
+        }
+
+        /**
+         * Returns a String representation of this Run.
+         *
+         * @return the run's job, start time, duration and outcome.
+         */
+        @Override
+        public String toString() {
+            return String.format("%s at %s in %.1f ms: %s", job, started, getMillis(),
+                    error == null ? affected + " affected" : error);
+        }
+    }
+
+    /**
+     * A registered job and when it runs.
+     */
+    private static final class Job {
+        private final String name;
+        private final Task task;
+        private final Duration period; //Null for a daily job
+        private final LocalTime at;    //Null for an interval job
+        private final long jitterMillis;
+        private ScheduledFuture<?> next;
+        private boolean cancelled;
+
+        private Job(String name, Task task, Duration period, LocalTime at, Duration jitter) {
+            this.name = name;
+            this.task = task;
+            this.period = period;
+            this.at = at;
+            this.jitterMillis = jitter.toMillis();
+        }
+    }
+
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+    private final Deque<Run> history = new ArrayDeque<>();
+    private final ScheduledExecutorService executor;
+    private final Clock clock;
+    private final Random random;
+    private boolean started;
+
+    /**
+     * Private default constructor. Enforces the Singleton pattern.
+     */
+    private JobScheduler() {
+        this(Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("proactive-jobs-")),
+                Clock.systemDefaultZone(), new Random());
+    }
+
+    /**
+     * Constructs a JobScheduler.
+     *
+     * @param executor the executor jobs are run on.
+     * @param clock    the clock and zone run times are read from.
+     * @param random   the source of each run's jitter.
+     */
+    JobScheduler(ScheduledExecutorService executor, Clock clock, Random random) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        if (clock == null) {
+            throw new NullPointerException();
+        }
+        if (random == null) {
+            throw new NullPointerException();
+        }
+
+        this.executor = executor;
+        this.clock = clock;
+        this.random = random;
+    }
+
+    /**
+     * Static method to get the single, started JobScheduler instance, with the application's jobs registered.
+     *
+     * @return the JobScheduler instance.
+     */
+    public static synchronized JobScheduler getInstance() {
+        if (instance == null) {
+            instance = new JobScheduler();
+            instance.registerDefaultJobs();
+            instance.start();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Registers a job to run repeatedly at a fixed interval, the first run coming one interval after it is scheduled.
+     *
+     * @param name   the job's unique name.
+     * @param period the interval between the end of one run and the start of the next, before jitter.
+     * @param jitter the largest random delay added before each run.
+     * @param task   the work the job does.
+     * @throws IllegalArgumentException if a job with the name is already registered.
+     */
+    public void every(String name, Duration period, Duration jitter, Task task) {
+        if (period == null) {
+            throw new NullPointerException();
+        }
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException();
+        }
+
+        register(name, task, period, null, jitter);
+    }
+
+    /**
+     * Registers a job to run once a day at a time of day.
+     *
+     * @param name   the job's unique name.
+     * @param at     the local time of day the job runs at, before jitter.
+     * @param jitter the largest random delay added before each run.
+     * @param task   the work the job does.
+     * @throws IllegalArgumentException if a job with the name is already registered.
+     */
+    public void daily(String name, LocalTime at, Duration jitter, Task task) {
+        if (at == null) {
+            throw new NullPointerException();
+        }
+
+        register(name, task, null, at, jitter);
+    }
+
+    /**
+     * Schedules every registered job. Has no effect if already started.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        for (Job job : jobs.values()) {
+            schedule(job);
+        }
+    }
+
+    /**
+     * Runs a job immediately on the calling thread, outside its schedule. Waits for any scheduled run of the job in
+     * progress to complete first.
+     *
+     * @param name the job's name.
+     * @return the outcome of the run.
+     * @throws IllegalArgumentException if no job with the name is registered.
+     */
+    public Run runNow(String name) {
+        return execute(getJob(name));
+    }
+
+    /**
+     * Cancels a job, removing it from the registry. A run in progress is allowed to complete.
+     *
+     * @param name the job's name.
+     * @throws IllegalArgumentException if no job with the name is registered.
+     */
+    public synchronized void cancel(String name) {
+        Job job = getJob(name);
+
+        job.cancelled = true;
+        if (job.next != null) {
+            job.next.cancel(false);
+        }
+        jobs.remove(name);
+    }
+
+    /**
+     * Stops every job. A run in progress is interrupted.
+     */
+    public synchronized void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets the names of every registered job, in the order they were registered.
+     *
+     * @return a new list of the job names.
+     */
+    public synchronized List<String> getJobNames() {
+        return new ArrayList<>(jobs.keySet());
+    }
+
+    /**
+     * Gets the most recent runs of every job, oldest first.
+     *
+     * @return a new list of up to {@link #HISTORY_SIZE} runs.
+     */
+    public List<Run> getHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    /**
+     * Gets the most recent runs of one job still held in the history, oldest first.
+     *
+     * @param name the job's name.
+     * @return a new list of the job's runs.
+     */
+    public List<Run> getHistory(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+
+        List<Run> runs = new ArrayList<>();
+
+        synchronized (history) {
+            for (Run run : history) {
+                if (run.getJob().equals(name)) {
+                    runs.add(run);
+                }
+            }
+        }
+
+        return runs;
+    }
+
+    /**
+     * Gets the time remaining until a time of day is next reached. The delay is recalculated before every run of a
+     * daily job, so daily jobs follow changes to and from daylight saving time.
+     *
+     * @param at the time of day.
+     * @return the delay in milliseconds, a full day if the time of day is now.
+     */
+    long millisUntil(LocalTime at) {
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        ZonedDateTime next = now.toLocalDate().atTime(at).atZone(now.getZone());
+
+        if (!next.isAfter(now)) {
+            next = now.toLocalDate().plusDays(1).atTime(at).atZone(now.getZone());
+        }
+
+        return next.toInstant().toEpochMilli() - now.toInstant().toEpochMilli();
+    }
+
+    /**
+     * Private helper method to register the application's jobs: the expired token sweep, the goal expiry, the
+     * system goal rollover and the nightly goal batch.
+     */
+    private void registerDefaultJobs() {
+        DatabaseHandler db = DatabaseHandler.getInstance();
+
+        every("expired-tokens", TOKEN_SWEEP_PERIOD, SWEEP_JITTER,
+                () -> db.deleteExpiredTokens(LocalDateTime.now(clock)));
+
+        //Jitter only ever delays a daily job, so each of these still runs on the new day
+        daily("expired-goals", LocalTime.MIDNIGHT, SWEEP_JITTER, () -> db.expireGoals(LocalDate.now(clock)));
+        daily("system-goal-rollover", LocalTime.MIDNIGHT, Duration.ZERO,
+                () -> SystemGoalCache.getInstance().rollover());
+
+        GoalBatchJob goalBatch = new GoalBatchJob();
+        daily("goal-batch", GOAL_BATCH_TIME, SWEEP_JITTER, () -> (int) goalBatch.run().getWritten());
+    }
+
+    /**
+     * Private helper method to add a job to the registry, scheduling it if the scheduler has started.
+     *
+     * @param name   the job's unique name.
+     * @param task   the work the job does.
+     * @param period the interval between runs, or null for a daily job.
+     * @param at     the time of day the job runs at, or null for an interval job.
+     * @param jitter the largest random delay added before each run.
+     */
+    private synchronized void register(String name, Task task, Duration period, LocalTime at, Duration jitter) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+        if (task == null) {
+            throw new NullPointerException();
+        }
+        if (jitter == null) {
+            throw new NullPointerException();
+        }
+        if (jitter.isNegative()) {
+            throw new IllegalArgumentException();
+        }
+        if (jobs.containsKey(name)) {
+            throw new IllegalArgumentException("Job already registered: " + name);
+        }
+
+        Job job = new Job(name, task, period, at, jitter);
+        jobs.put(name, job);
+
+        if (started) {
+            schedule(job);
+        }
+    }
+
+    /**
+     * Private helper method to get a registered job.
+     *
+     * @param name the job's name.
+     * @return the job.
+     */
+    private synchronized Job getJob(String name) {
+        if (name == null) {
+            throw new NullPointerException();
+        }
+
+        Job job = jobs.get(name);
+        if (job == null) {
+            throw new IllegalArgumentException("No job registered: " + name);
+        }
+
+        return job;
+    }
+
+    /**
+     * Private helper method to schedule the next run of a job, which schedules the run after it once complete.
+     *
+     * @param job the job.
+     */
+    private synchronized void schedule(Job job) {
+        if (job.cancelled || executor.isShutdown()) {
+            return;
+        }
+
+        long delay = job.period != null ? job.period.toMillis() : millisUntil(job.at);
+        if (job.jitterMillis > 0) {
+            delay += (long) (random.nextDouble() * job.jitterMillis);
+        }
+
+        job.next = executor.schedule(() -> {
+            execute(job);
+            schedule(job);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Private helper method to run a job once and record the outcome in the history. A failure is printed and recorded
+     * rather than thrown, so that the job is still scheduled again.
+     *
+     * @param job the job.
+     * @return the outcome of the run.
+     */
+    private Run execute(Job job) {
+        Run run;
+
+        synchronized (job) {
+            LocalDateTime started = LocalDateTime.now(clock);
+            long start = System.nanoTime();
+
+            try {
+                int affected = job.task.run();
+                run = new Run(job.name, started, System.nanoTime() - start, affected, null);
+            }
+            catch (SQLException | RuntimeException e) {
+                e.printStackTrace();
+                run = new Run(job.name, started, System.nanoTime() - start, 0, e.toString());
+            }
+        }
+
+        synchronized (history) {
+            if (history.size() == HISTORY_SIZE) {
+                history.removeFirst();
+            }
+            history.addLast(run);
+        }
+
+        return run;
+    }
+}
@@ -11,14 +11,20 @@ import javafx.stage.Stage;
  *
  * @author ??
  *
- * @version 1.0
+ * @version 1.3
  *
  * 1.0 - First working version.
+ * 1.1 - Starts the EmailDispatcher, sending any email left in the outbox by a previous run.
+ * 1.2 - Starts the SystemGoalCache, generating system goals in the background at each midnight.
+ * 1.3 - Starts the JobScheduler, which sweeps expired rows and runs the SystemGoalCache's midnight rollover.
  */
 public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception {
+        EmailDispatcher.getInstance().start();
+        JobScheduler.getInstance().start();
+
         Parent root = FXMLLoader.load(getClass().getResource("../FXML/SplashPage.fxml"));
         primaryStage.setTitle("ProActive");
         primaryStage.setScene(new Scene(root));
@@ -0,0 +1,79 @@
+package sample;
+
+/**
+ * Class to represent a single line of a meal to be logged, i.e. a quantity of one food eaten as part of one meal.
+ * Used to submit several food entries at once through {@link DatabaseHandler#addFoodEntries}.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial version.
+ */
+public class MealLine {
+
+    /**
+     * The meal category, one of Breakfast, Lunch, Dinner or Snack.
+     */
+    private final String meal;
+
+    /**
+     * The name of the food eaten.
+     */
+    private final String food;
+
+    /**
+     * The quantity eaten in grams.
+     */
+    private final int quantity;
+
+    /**
+     * Constructs a MealLine.
+     *
+     * @param meal     the meal category, one of Breakfast, Lunch, Dinner or Snack.
+     * @param food     the name of the food eaten.
+     * @param quantity the quantity eaten in grams.
+     */
+    public MealLine(String meal, String food, int quantity) {
+        if (meal == null) {
+            throw new NullPointerException();
+        }
+        if (food == null) {
+            throw new NullPointerException();
+        }
+        if (quantity < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.meal = meal;
+        this.food = food;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Returns the meal category of this line.
+     *
+     * @return the meal category.
+     */
+    public String getMeal() {
+        return meal;
+    }
+
+    /**
+     * Returns the name of the food eaten.
+     *
+     * @return the name of the food.
+     */
+    public String getFood() {
+        return food;
+    }
+
+    /**
+     * Returns the quantity eaten in grams.
+     *
+     * @return the quantity eaten.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
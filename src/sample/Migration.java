@@ -0,0 +1,80 @@
+package sample;
+
+/**
+ * The ordered schema migrations applied to the database by the {@link SchemaMigrator}. Each migration is a SQL script
+ * under /Resources/Migrations and is applied exactly once, in version order. Once a migration has shipped its script
+ * must never be edited, any further change to the schema belongs in a new migration with the next version number.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.7
+ *
+ * 1.0 - Initial migrations, indexes on the hot tables and ANALYZE.
+ * 1.1 - Added the daily_user_summary rollup table.
+ * 1.2 - Added the email_outbox table.
+ * 1.3 - Added batches to the email outbox.
+ * 1.4 - Added a unique key on system goals.
+ * 1.5 - Added the goal active flag and the indexes used by the expiry sweeps.
+ * 1.6 - Moved registration tokens, recovery codes and group invites into one token table.
+ * 1.7 - V7 no longer indexes the old token tables, which V8 replaces with the indexed token table.
+ */
+enum Migration {
+
+    V1(1, "Add indexes on hot tables", "V1__hot_table_indexes.sql"),
+    V2(2, "Analyze", "V2__analyze.sql"),
+    V3(3, "Add daily user summary rollup", "V3__daily_user_summary.sql"),
+    V4(4, "Add email outbox", "V4__email_outbox.sql"),
+    V5(5, "Add email outbox batches", "V5__email_outbox_batches.sql"),
+    V6(6, "Add system goal unique key", "V6__system_goal_unique_key.sql"),
+    V7(7, "Add goal active flag", "V7__expiry_sweeps.sql"),
+    V8(8, "Add token store", "V8__token_store.sql");
+
+    /**
+     * The classpath directory holding every migration script.
+     */
+    static final String DIRECTORY = "/Resources/Migrations/";
+
+    private final int version;
+    private final String description;
+    private final String script;
+
+    /**
+     * Constructs a Migration.
+     *
+     * @param version     the schema version this migration brings the database to.
+     * @param description a short description of the migration, recorded in the schema_version table.
+     * @param script      the file name of the migration's script.
+     */
+    Migration(int version, String description, String script) {
+        this.version = version;
+        this.description = description;
+        this.script = script;
+    }
+
+    /**
+     * Gets the schema version this migration brings the database to.
+     *
+     * @return the version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets a short description of this migration.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Gets the classpath location of this migration's script.
+     *
+     * @return the script's resource path.
+     */
+    public String getScriptPath() {
+        return DIRECTORY + script;
+    }
+}
@@ -0,0 +1,140 @@
+package sample;
+
+/**
+ * The nutrients recorded for every food, in the column order of the food table. Each nutrient's ordinal is its index
+ * in a {@link NutrientVector}, so nutrients can be read and totalled as plain array accesses.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial nutrients with their food table columns, display labels and kinds.
+ * 1.1 - Added the goal unit each nutrient is tracked by.
+ */
+public enum Nutrient {
+
+    KCAL("kcal", "kcal", Kind.MACRO, Goal.Unit.CALORIES),
+    PROTEIN("protein_g", "Protein (g)", Kind.MACRO, Goal.Unit.PROTEIN),
+    FAT("fat_g", "Fat (g)", Kind.MACRO),
+    CARBS("carbs_g", "Carbs (g)", Kind.MACRO, Goal.Unit.CARBS),
+    SUGAR("sugar_g", "Sugar (g)", Kind.MACRO),
+    FIBRE("fibre_g", "Fibre (g)", Kind.MACRO, Goal.Unit.FIBRE),
+    CHOLESTEROL("cholesterol_mg", "Cholestrol (mg)", Kind.MACRO),
+
+    SODIUM("sodium_mg", "Sodium (mg)", Kind.MINERAL, Goal.Unit.SODIUM),
+    POTASSIUM("potassium_mg", "Potassium (mg)", Kind.MINERAL, Goal.Unit.POTASSIUM),
+    CALCIUM("calcium_mg", "Calcium (mg)", Kind.MINERAL, Goal.Unit.CALCIUM),
+    MAGNESIUM("magnesium_mg", "Magnesium (mg)", Kind.MINERAL, Goal.Unit.MAGNESIUM),
+    PHOSPHORUS("phosphorus_mg", "Phosphorus (mg)", Kind.MINERAL, Goal.Unit.PHOSPHORUS),
+    IRON("iron_mg", "Iron (mg)", Kind.MINERAL, Goal.Unit.IRON),
+    COPPER("copper_mg", "Copper (mg)", Kind.MINERAL, Goal.Unit.COPPER),
+    ZINC("zinc_mg", "Zinc (mg)", Kind.MINERAL, Goal.Unit.ZINC),
+    CHLORIDE("chloride_mg", "Chloride (mg)", Kind.MINERAL, Goal.Unit.CHLORIDE),
+    SELENIUM("selenium_ug", "Selenium (ug)", Kind.MINERAL, Goal.Unit.SELENIUM),
+    IODINE("iodine_ug", "Iodine (ug)", Kind.MINERAL, Goal.Unit.IODINE),
+
+    VITAMIN_A("vit_a_ug", "Vitamin A (ug)", Kind.VITAMIN, Goal.Unit.VITAMIN_A),
+    VITAMIN_D("vit_d_ug", "Vitamin D (ug)", Kind.VITAMIN, Goal.Unit.VITAMIN_D),
+    THIAMIN("thiamin_mg", "Thiamin (mg)", Kind.VITAMIN, Goal.Unit.THIAMIN),
+    RIBOFLAVIN("riboflavin_mg", "Riboflavin (mg)", Kind.VITAMIN, Goal.Unit.RIBOFLAVIN),
+    NIACIN("niacin_mg", "Niacin (mg)", Kind.VITAMIN, Goal.Unit.NIACIN),
+    VITAMIN_B6("vit_b6_mg", "Vitamin B6 (mg)", Kind.VITAMIN, Goal.Unit.VITAMIN_B6),
+    VITAMIN_B12("vit_b12_ug", "Vitamin B12 (ug)", Kind.VITAMIN, Goal.Unit.VITAMIN_B12),
+    FOLATE("folate_ug", "Folate (ug)", Kind.VITAMIN, Goal.Unit.FOLATE),
+    VITAMIN_C("vit_c_mg", "Vitamin C (mg)", Kind.VITAMIN, Goal.Unit.VITAMIN_C);
+
+    /**
+     * The kinds of nutrient, as charted separately on the summary page.
+     */
+    public enum Kind {
+        MACRO, MINERAL, VITAMIN
+    }
+
+    /**
+     * The number of nutrients.
+     */
+    public static final int COUNT = values().length;
+
+    private static final Nutrient[] VALUES = values();
+
+    private final String column;
+    private final String label;
+    private final Kind kind;
+    private final Goal.Unit unit;
+
+    /**
+     * Constructs a Nutrient which no goal can target.
+     *
+     * @param column the nutrient's column in the food table.
+     * @param label  the nutrient's display name.
+     * @param kind   the kind of nutrient.
+     */
+    Nutrient(String column, String label, Kind kind) {
+        this(column, label, kind, null);
+    }
+
+    /**
+     * Constructs a Nutrient.
+     *
+     * @param column the nutrient's column in the food table.
+     * @param label  the nutrient's display name.
+     * @param kind   the kind of nutrient.
+     * @param unit   the goal unit the nutrient is tracked by, or null if no goal can target it.
+     */
+    Nutrient(String column, String label, Kind kind, Goal.Unit unit) {
+        this.column = column;
+        this.label = label;
+        this.kind = kind;
+        this.unit = unit;
+    }
+
+    /**
+     * Gets the nutrient's column in the food table.
+     *
+     * @return the column name.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the nutrient's display name, as used by {@link NutritionItem}.
+     *
+     * @return the display name.
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Gets the kind of nutrient.
+     *
+     * @return the nutrient's kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the goal unit this nutrient is tracked by.
+     *
+     * @return the goal unit, or null if no goal can target this nutrient.
+     */
+    public Goal.Unit getGoalUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets the nutrient at an index without copying the values array.
+     *
+     * @param index the nutrient's index.
+     * @return the nutrient at that index.
+     */
+    public static Nutrient of(int index) {
+        if (index < 0 || index >= COUNT) {
+            throw new IllegalArgumentException();
+        }
+
+        return VALUES[index];
+    }
+}
@@ -0,0 +1,206 @@
+package sample;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+
+/**
+ * A compact matrix of a user's total nutrient intake per day over a range of consecutive dates, as produced by
+ * {@link DatabaseHandler#getDailyNutrients(String, LocalDate, LocalDate)}. Values are held in a single flat array with
+ * one row per day and one column per nutrient, in {@link Nutrient} ordinal order.
+ *
+ * Totals take the quantity of each meal into account, i.e. each is the sum of quantity * nutrient / 100 over every
+ * meal logged that day.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial per-day nutrient matrix.
+ * 1.1 - Nutrient columns, labels and groupings now come from the {@link Nutrient} enum.
+ */
+public class NutrientSummary {
+
+    /**
+     * The number of nutrients held for each day.
+     */
+    public static final int NUTRIENTS = Nutrient.COUNT;
+
+    private final LocalDate earliest;
+    private final int days;
+    private final double[] values;
+    private final boolean[] logged;
+
+    /**
+     * Constructs an empty NutrientSummary covering every date from earliest to latest inclusive.
+     *
+     * @param earliest the first date covered.
+     * @param latest   the last date covered.
+     */
+    NutrientSummary(LocalDate earliest, LocalDate latest) {
+        if (earliest == null) {
+            throw new NullPointerException();
+        }
+        if (latest == null) {
+            throw new NullPointerException();
+        }
+        if (latest.isBefore(earliest)) {
+            throw new IllegalArgumentException();
+        }
+
+        this.earliest = earliest;
+        this.days = (int) ChronoUnit.DAYS.between(earliest, latest) + 1;
+        this.values = new double[days * NUTRIENTS];
+        this.logged = new boolean[days];
+    }
+
+    /**
+     * Sets the totals for a single day.
+     *
+     * @param date   the date the totals are for.
+     * @param totals the total of each nutrient, in column order.
+     */
+    void setDay(LocalDate date, double[] totals) {
+        if (totals == null) {
+            throw new NullPointerException();
+        }
+        if (totals.length != NUTRIENTS) {
+            throw new IllegalArgumentException();
+        }
+
+        int day = indexOf(date);
+
+        System.arraycopy(totals, 0, values, day * NUTRIENTS, NUTRIENTS);
+        logged[day] = true;
+    }
+
+    /**
+     * Gets the first date covered by this summary.
+     *
+     * @return the first date covered.
+     */
+    public LocalDate getEarliest() {
+        return earliest;
+    }
+
+    /**
+     * Gets the number of days covered by this summary.
+     *
+     * @return the number of days covered.
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Gets whether any meals were logged on a date.
+     *
+     * @param date the date to check.
+     * @return true if any meals were logged on that date.
+     */
+    public boolean isLogged(LocalDate date) {
+        return logged[indexOf(date)];
+    }
+
+    /**
+     * Gets the total of a nutrient on a date.
+     *
+     * @param date     the date to get the total for.
+     * @param nutrient the index of the nutrient, its {@link Nutrient} ordinal.
+     * @return the total of the nutrient on that date.
+     */
+    public double get(LocalDate date, int nutrient) {
+        if (nutrient < 0 || nutrient >= NUTRIENTS) {
+            throw new IllegalArgumentException();
+        }
+
+        return values[indexOf(date) * NUTRIENTS + nutrient];
+    }
+
+    /**
+     * Gets the total of a nutrient on a date.
+     *
+     * @param date     the date to get the total for.
+     * @param nutrient the nutrient.
+     * @return the total of the nutrient on that date.
+     */
+    public double get(LocalDate date, Nutrient nutrient) {
+        return get(date, nutrient.ordinal());
+    }
+
+    /**
+     * Gets the daily macronutrient totals for every logged date.
+     *
+     * @return a HashMap of String representations of each logged date against the names of the macronutrients
+     *         against their totals.
+     */
+    public HashMap<String, HashMap<String, Double>> getMacroNutrients() {
+        return slice(Nutrient.Kind.MACRO);
+    }
+
+    /**
+     * Gets the daily mineral totals for every logged date.
+     *
+     * @return a HashMap of String representations of each logged date against the names of the minerals against
+     *         their totals.
+     */
+    public HashMap<String, HashMap<String, Double>> getMinerals() {
+        return slice(Nutrient.Kind.MINERAL);
+    }
+
+    /**
+     * Gets the daily vitamin totals for every logged date.
+     *
+     * @return a HashMap of String representations of each logged date against the names of the vitamins against
+     *         their totals.
+     */
+    public HashMap<String, HashMap<String, Double>> getVitamins() {
+        return slice(Nutrient.Kind.VITAMIN);
+    }
+
+    /**
+     * Private helper method to label every nutrient of one kind for every logged date.
+     *
+     * @param kind the kind of nutrient.
+     * @return a HashMap of String representations of each logged date against nutrient names against their totals.
+     */
+    private HashMap<String, HashMap<String, Double>> slice(Nutrient.Kind kind) {
+        HashMap<String, HashMap<String, Double>> result = new HashMap<>();
+
+        for (int day = 0; day < days; day++) {
+            if (logged[day]) {
+                HashMap<String, Double> totals = new HashMap<>();
+
+                for (Nutrient nutrient : Nutrient.values()) {
+                    if (nutrient.getKind() == kind) {
+                        totals.put(nutrient.getLabel(), values[day * NUTRIENTS + nutrient.ordinal()]);
+                    }
+                }
+
+                result.put(earliest.plusDays(day).toString(), totals);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Private helper method to get the row index of a date.
+     *
+     * @param date the date.
+     * @return the row index of the date.
+     */
+    private int indexOf(LocalDate date) {
+        if (date == null) {
+            throw new NullPointerException();
+        }
+
+        long day = ChronoUnit.DAYS.between(earliest, date);
+
+        if (day < 0 || day >= days) {
+            throw new IllegalArgumentException();
+        }
+
+        return (int) day;
+    }
+}
@@ -0,0 +1,200 @@
+package sample;
+
+import java.util.Arrays;
+
+/**
+ * A mutable amount of every {@link Nutrient}, held as a single primitive array indexed by nutrient ordinal. Totals are
+ * built up in place with {@link #addScaled(NutrientVector, double)} and {@link #sum(Iterable)}, so aggregating any
+ * number of foods allocates nothing beyond the vector being summed into.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial vector with in place scaled addition and summing.
+ */
+public class NutrientVector {
+
+    private final double[] values;
+
+    /**
+     * Constructs a NutrientVector with every nutrient at zero.
+     */
+    public NutrientVector() {
+        this.values = new double[Nutrient.COUNT];
+    }
+
+    /**
+     * Constructs a NutrientVector holding a copy of the passed amounts.
+     *
+     * @param values the amount of each nutrient, in nutrient ordinal order.
+     */
+    public NutrientVector(double[] values) {
+        if (values == null) {
+            throw new NullPointerException();
+        }
+        if (values.length != Nutrient.COUNT) {
+            throw new IllegalArgumentException();
+        }
+
+        this.values = values.clone();
+    }
+
+    /**
+     * Constructs a NutrientVector holding a copy of another.
+     *
+     * @param other the vector to copy.
+     */
+    public NutrientVector(NutrientVector other) {
+        this(other.values);
+    }
+
+    /**
+     * Gets the amount of a nutrient.
+     *
+     * @param nutrient the nutrient.
+     * @return the amount of the nutrient.
+     */
+    public double get(Nutrient nutrient) {
+        return values[nutrient.ordinal()];
+    }
+
+    /**
+     * Gets the amount of a nutrient by index.
+     *
+     * @param index the nutrient's ordinal.
+     * @return the amount of the nutrient.
+     */
+    public double get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Sets the amount of a nutrient.
+     *
+     * @param nutrient the nutrient.
+     * @param value    the amount of the nutrient.
+     */
+    public void set(Nutrient nutrient, double value) {
+        values[nutrient.ordinal()] = value;
+    }
+
+    /**
+     * Adds an amount of a single nutrient onto this vector, in place.
+     *
+     * @param nutrient the nutrient.
+     * @param amount   the amount to add.
+     */
+    public void add(Nutrient nutrient, double amount) {
+        values[nutrient.ordinal()] += amount;
+    }
+
+    /**
+     * Adds a multiple of another vector onto this one, in place.
+     *
+     * @param other the vector to add.
+     * @param scale the multiple of the other vector to add.
+     * @return this vector.
+     */
+    public NutrientVector addScaled(NutrientVector other, double scale) {
+        if (other == null) {
+            throw new NullPointerException();
+        }
+
+        double[] from = other.values;
+        for (int i = 0; i < values.length; i++) {
+            values[i] += from[i] * scale;
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds every passed vector onto this one, in place.
+     *
+     * @param vectors the vectors to add.
+     * @return this vector.
+     */
+    public NutrientVector sum(Iterable<NutrientVector> vectors) {
+        if (vectors == null) {
+            throw new NullPointerException();
+        }
+
+        for (NutrientVector vector : vectors) {
+            addScaled(vector, 1);
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets every nutrient back to zero.
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+    }
+
+    /**
+     * Copies the amount of each nutrient into an array.
+     *
+     * @param into the array to copy into, in nutrient ordinal order.
+     */
+    public void copyInto(double[] into) {
+        if (into == null) {
+            throw new NullPointerException();
+        }
+        if (into.length != Nutrient.COUNT) {
+            throw new IllegalArgumentException();
+        }
+
+        System.arraycopy(values, 0, into, 0, values.length);
+    }
+
+    /**
+     * Returns a copy of the amount of each nutrient.
+     *
+     * @return the amount of each nutrient, in nutrient ordinal order.
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Returns a String representation of this NutrientVector.
+     *
+     * @return the amount of each nutrient, in nutrient ordinal order.
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+
+    /**
+     * Evaluates whether this NutrientVector is equal to a passed Object. NutrientVectors are equal if they hold the same
+     * amount of every nutrient.
+     *
+     * @param o the object to be measured for equality.
+     * @return  a boolean representing whether this NutrientVector is equal to the passed object.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == null) {
+            return false;
+        }
+        if (!(o instanceof NutrientVector)) {
+            return false;
+        }
+
+        return Arrays.equals(this.values, ((NutrientVector) o).values);
+    }
+
+    /**
+     * Retrieves a hash value for this NutrientVector.
+     *
+     * @return the hash value for this NutrientVector.
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.values);
+    }
+}
@@ -1,20 +1,21 @@
 package sample;
 
 import java.util.HashMap;
-import java.util.Map;
 
 /**
  * A class to represent a nutrition item in the application as it appears in the database.
  *
  * @author Samuel Scarfe
  *
- * @version 1.3
+ * @version 1.4
  *
  * 1.0 - First working version.
  * 1.1 - Added Javadoc and exceptions. Removed no argument constructor. Wrote JUnit test class.
  * 1.2 - Added vitamins and minerals.
  * 1.3 - Implemented equals and hashCode to fix bug in LogActivityController whereby repeated additions of
  *       NutritionItems with the same name would not increment the counter.
+ * 1.4 - Nutrients are now also held as a {@link NutrientVector}, so items can be totalled without boxing. The
+ *       grouped HashMap views are built from the {@link Nutrient} enum.
  */
 public class NutritionItem {
     private final String name;
@@ -52,6 +53,9 @@ public class NutritionItem {
     private final double folateUg;
     private final double vitCMg;
 
+    //Every nutrient, indexed by Nutrient ordinal
+    private final NutrientVector nutrients;
+
     /**
      * Basic constructor for a NutritionItem. Initialises name, kcal, proteinG, fatG, carbsG, sugarG, fibreG, and
      * cholesterolMg to the passed values. Initialises all other instance variables to 0.
@@ -80,6 +84,8 @@ public class NutritionItem {
         this.thiaminMg    = 0;      this.riboflavinMg  = 0;             this.niacinMg    = 0;
         this.vitB6Mg      = 0;      this.vitB12Ug      = 0;             this.folateUg    = 0;
         this.vitCMg       = 0;
+
+        this.nutrients = toVector();
     }
 
     /**
@@ -138,6 +144,27 @@ public class NutritionItem {
         this.thiaminMg    = thiaminMg;    this.riboflavinMg  = riboflavinMg;  this.niacinMg    = niacinMg;
         this.vitB6Mg      = vitB6Mg;      this.vitB12Ug      = vitB12Ug;      this.folateUg    = folateUg;
         this.vitCMg       = vitCMg;
+
+        this.nutrients = toVector();
+    }
+
+    /**
+     * Constructor for a NutritionItem from a NutrientVector holding the amount of every nutrient per 100g.
+     *
+     * @param name Takes in the name of the new nutrition item
+     * @param n Takes in the amount of every nutrient in the nutrition item, per 100g
+     */
+    public NutritionItem(String name, NutrientVector n) {
+        this(name,
+                n.get(Nutrient.KCAL),       n.get(Nutrient.PROTEIN),     n.get(Nutrient.FAT),
+                n.get(Nutrient.CARBS),      n.get(Nutrient.SUGAR),       n.get(Nutrient.FIBRE),
+                n.get(Nutrient.CHOLESTEROL), n.get(Nutrient.SODIUM),     n.get(Nutrient.POTASSIUM),
+                n.get(Nutrient.CALCIUM),    n.get(Nutrient.MAGNESIUM),   n.get(Nutrient.PHOSPHORUS),
+                n.get(Nutrient.IRON),       n.get(Nutrient.COPPER),      n.get(Nutrient.ZINC),
+                n.get(Nutrient.CHLORIDE),   n.get(Nutrient.SELENIUM),    n.get(Nutrient.IODINE),
+                n.get(Nutrient.VITAMIN_A),  n.get(Nutrient.VITAMIN_D),   n.get(Nutrient.THIAMIN),
+                n.get(Nutrient.RIBOFLAVIN), n.get(Nutrient.NIACIN),      n.get(Nutrient.VITAMIN_B6),
+                n.get(Nutrient.VITAMIN_B12), n.get(Nutrient.FOLATE),     n.get(Nutrient.VITAMIN_C));
     }
 
     /**
@@ -392,21 +419,46 @@ public class NutritionItem {
         return vitCMg;
     }
 
+    /**
+     * Method to get the amount of a single nutrient in this NutritionItem.
+     *
+     * @param nutrient the nutrient.
+     * @return the amount of the nutrient per 100g.
+     */
+    public double get(Nutrient nutrient) {
+        return nutrients.get(nutrient);
+    }
+
+    /**
+     * Method to get every nutrient value of this NutritionItem.
+     *
+     * @return a copy of the amount of every nutrient per 100g.
+     */
+    public NutrientVector getNutrients() {
+        return new NutrientVector(nutrients);
+    }
+
+    /**
+     * Method to add the nutrients in a quantity of this NutritionItem onto a running total, without allocating.
+     *
+     * @param totals the running total to add to.
+     * @param quantity the quantity of this item in grams.
+     */
+    public void addTo(NutrientVector totals, double quantity) {
+        if (totals == null) {
+            throw new NullPointerException();
+        }
+
+        totals.addScaled(nutrients, quantity / 100);
+    }
+
     /**
      * Method to get all macronutrient values of a this NutritionItem
      *
      * @return a HashMap the names of the macronutrients against their values.
      */
     public HashMap<String, Double> getMacroNutrients(){
-        return new HashMap<>(Map.ofEntries(
-                Map.entry("kcal", kcal),
-                Map.entry("Protein (g)", proteinG),
-                Map.entry("Fat (g)",fatG),
-                Map.entry("Carbs (g)", carbsG),
-                Map.entry("Sugar (g)", sugarG),
-                Map.entry("Fibre (g)", fibreG),
-                Map.entry("Cholestrol (mg)", cholesterolMg)
-        ));
+        return getNutrients(Nutrient.Kind.MACRO);
     }
 
     /**
@@ -415,20 +467,7 @@ public class NutritionItem {
      * @return a HashMap the names of the minerals against their values.
      */
     public HashMap<String, Double> getMinerals(){
-        return new HashMap<>(Map.ofEntries(
-                Map.entry("Potassium (mg)", potassiumMg),
-                Map.entry("Sodium (mg)", sodiumMg),
-                Map.entry("Calcium (mg)", calciumMg),
-                Map.entry("Magnesium (mg)", magnesiumMg),
-                Map.entry("Zinc (mg)", zincMg),
-                Map.entry("Copper (mg)", copperMg),
-                Map.entry("Selenium (ug)", seleniumUg),
-                Map.entry("Iodine (ug)", iodineUg),
-                Map.entry("Chloride (mg)",chlorideMg),
-                Map.entry("Phosphorus (mg)", phosphorusMg),
-                Map.entry("Iron (mg)", ironMg)
-
-        ));
+        return getNutrients(Nutrient.Kind.MINERAL);
     }
 
     /**
@@ -437,17 +476,7 @@ public class NutritionItem {
      * @return a HashMap the names of the vitamins against their values.
      */
     public HashMap<String, Double> getVitamins(){
-        return new HashMap<>(Map.ofEntries(
-                Map.entry("Folate (ug)", folateUg),
-                Map.entry("Niacin (mg)", niacinMg),
-                Map.entry("Riboflavin (mg)", riboflavinMg),
-                Map.entry("Thiamin (mg)", thiaminMg),
-                Map.entry("Vitamin B6 (mg)", vitB6Mg),
-                Map.entry("Vitamin B12 (ug)", vitB12Ug),
-                Map.entry("Vitamin C (mg)", vitCMg),
-                Map.entry("Vitamin A (ug)", vitAUg),
-                Map.entry("Vitamin D (ug)", vitDUg)
-        ));
+        return getNutrients(Nutrient.Kind.VITAMIN);
     }
 
     /**
@@ -483,6 +512,39 @@ public class NutritionItem {
         return this.name.hashCode();
     }
 
+    /**
+     * Private helper method to label the values of every nutrient of one kind.
+     *
+     * @param kind the kind of nutrient.
+     * @return a HashMap of the names of the nutrients against their values.
+     */
+    private HashMap<String, Double> getNutrients(Nutrient.Kind kind) {
+        HashMap<String, Double> values = new HashMap<>();
+
+        for (Nutrient nutrient : Nutrient.values()) {
+            if (nutrient.getKind() == kind) {
+                values.put(nutrient.getLabel(), nutrients.get(nutrient));
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Private helper method to gather the nutrient fields into a NutrientVector, in Nutrient ordinal order.
+     *
+     * @return a NutrientVector of every nutrient.
+     */
+    private NutrientVector toVector() {
+        return new NutrientVector(new double[] {
+                kcal,        proteinG,     fatG,        carbsG,       sugarG,      fibreG,     cholesterolMg,
+                sodiumMg,    potassiumMg,  calciumMg,   magnesiumMg,  phosphorusMg, ironMg,    copperMg,
+                zincMg,      chlorideMg,   seleniumUg,  iodineUg,
+                vitAUg,      vitDUg,       thiaminMg,   riboflavinMg, niacinMg,    vitB6Mg,    vitB12Ug,
+                folateUg,    vitCMg
+        });
+    }
+
     /**
      * Private helper method to check parameters for the basic constructor.
      *
@@ -0,0 +1,129 @@
+package sample;
+
+/**
+ * A single email waiting in the outbox to be sent by the {@link EmailDispatcher}.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial outbound email with its delivery attempts.
+ * 1.1 - Added the batch an email was queued in.
+ */
+public class OutboundEmail {
+
+    /**
+     * The content type of a plain text email.
+     */
+    public static final String TEXT = "text/plain";
+
+    /**
+     * The content type of an HTML email.
+     */
+    public static final String HTML = "text/html";
+
+    private final int id;
+    private final int batchId;
+    private final String recipient;
+    private final String subject;
+    private final String body;
+    private final String contentType;
+    private final int attempts;
+
+    /**
+     * Constructs an OutboundEmail which has not yet been queued.
+     *
+     * @param recipient   the address, or comma separated addresses, to send to.
+     * @param subject     the email's subject.
+     * @param body        the email's body.
+     * @param contentType the content type of the body, either TEXT or HTML.
+     */
+    public OutboundEmail(String recipient, String subject, String body, String contentType) {
+        this(0, 0, recipient, subject, body, contentType, 0);
+    }
+
+    /**
+     * Constructs an OutboundEmail as read from the outbox.
+     *
+     * @param id          the email's unique ID in the outbox.
+     * @param batchId     the ID of the batch the email was queued in, or 0 if it was queued on its own.
+     * @param recipient   the address, or comma separated addresses, to send to.
+     * @param subject     the email's subject.
+     * @param body        the email's body.
+     * @param contentType the content type of the body, either TEXT or HTML.
+     * @param attempts    the number of failed attempts made to send the email.
+     */
+    OutboundEmail(int id, int batchId, String recipient, String subject, String body, String contentType,
+                  int attempts) {
+        if (id < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (batchId < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (recipient == null) {
+            throw new NullPointerException();
+        }
+        if (subject == null) {
+            throw new NullPointerException();
+        }
+        if (body == null) {
+            throw new NullPointerException();
+        }
+        if (contentType == null) {
+            throw new NullPointerException();
+        }
+        if (!contentType.equals(TEXT) && !contentType.equals(HTML)) {
+            throw new IllegalArgumentException();
+        }
+        if (attempts < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.id = id;
+        this.batchId = batchId;
+        this.recipient = recipient;
+        this.subject = subject;
+        this.body = body;
+        this.contentType = contentType;
+        this.attempts = attempts;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getBatchId() {
+        return batchId;
+    }
+
+    public String getRecipient() {
+        return recipient;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Returns a String representation of this OutboundEmail.
+     *
+     * @return the email's ID, recipient and subject.
+     */
+    @Override
+    public String toString() {
+        return id + " " + recipient + " \"" + subject + "\"";
+    }
+}
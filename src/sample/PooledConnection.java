@@ -0,0 +1,324 @@
+package sample;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+
+/**
+ * A connection leased from a {@link ConnectionPool}. Closing a PooledConnection hands it back to the pool rather than
+ * closing the underlying physical connection, so it is intended to be used in a try-with-resources block.
+ *
+ * A lease may be nested on the same thread, the connection is only returned to the pool once every nested lease has
+ * been closed.
+ *
+ * Named {@link Query} statements run through {@link #executeQuery(Query, Object...)} and
+ * {@link #executeUpdate(Query, Object...)} are compiled once per connection and served from its {@link StatementCache}.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.2
+ *
+ * 1.0 - Initial leased connection wrapper.
+ * 1.1 - Added the per-connection statement cache and methods for running named, parameterised queries.
+ * 1.2 - Added {@link #transaction(Work)} for running several statements atomically.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    /**
+     * A unit of database work run inside a transaction.
+     */
+    public interface Work {
+
+        /**
+         * Runs the work.
+         *
+         * @throws SQLException if any statement fails, causing the transaction to be rolled back.
+         */
+        void run() throws SQLException;
+    }
+
+    /**
+     * The pool which owns this connection.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * The physical connection to the database.
+     */
+    private final Connection connection;
+
+    /**
+     * Whether this connection may only be used for reads.
+     */
+    private final boolean readOnly;
+
+    /**
+     * The compiled statements for this connection.
+     */
+    private final StatementCache statements;
+
+    /**
+     * The number of open leases on this connection held by the current owner.
+     */
+    private int leases = 0;
+
+    /**
+     * The time at which this connection was last returned to the pool.
+     */
+    private long lastReleased = System.currentTimeMillis();
+
+    /**
+     * Constructs a PooledConnection around a configured physical connection.
+     *
+     * @param pool       the pool which owns this connection.
+     * @param connection the physical connection.
+     * @param readOnly   whether the connection may only be used for reads.
+     * @param statements the statement cache for this connection.
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, boolean readOnly, StatementCache statements) {
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        if (connection == null) {
+            throw new NullPointerException();
+        }
+
+        this.pool = pool;
+        this.connection = connection;
+        this.readOnly = readOnly;
+        this.statements = statements;
+    }
+
+    /**
+     * Runs a named query on this connection, binding the passed parameters in order. The statement is taken from this
+     * connection's statement cache and must not be closed by the caller, the returned ResultSet must be.
+     *
+     * @param query  the query to run.
+     * @param params the values to bind to the query's parameters.
+     * @return the query's results.
+     * @throws SQLException if the query fails.
+     */
+    public ResultSet executeQuery(Query query, Object... params) throws SQLException {
+        PreparedStatement stmt = prepare(query, params);
+        ResultSet rs = stmt.executeQuery();
+        statements.recordResult(query, stmt, rs);
+        return rs;
+    }
+
+    /**
+     * Runs a named update on this connection, binding the passed parameters in order.
+     *
+     * @param query  the update to run.
+     * @param params the values to bind to the update's parameters.
+     * @return the number of rows changed.
+     * @throws SQLException if the update fails.
+     */
+    public int executeUpdate(Query query, Object... params) throws SQLException {
+        return prepare(query, params).executeUpdate();
+    }
+
+    /**
+     * Gets the compiled statement for a named query from this connection's statement cache with the passed
+     * parameters bound. Intended for batching, the statement must not be closed by the caller.
+     *
+     * @param query  the query to prepare.
+     * @param params the values to bind to the query's parameters.
+     * @return the compiled statement.
+     * @throws SQLException if the statement could not be compiled or a parameter could not be bound.
+     */
+    public PreparedStatement prepare(Query query, Object... params) throws SQLException {
+        if (query == null) {
+            throw new NullPointerException();
+        }
+        if (params == null) {
+            throw new NullPointerException();
+        }
+
+        PreparedStatement stmt = statements.get(query);
+        bind(stmt, params);
+        return stmt;
+    }
+
+    /**
+     * Binds values to a statement's parameters in order.
+     *
+     * Floats are bound through their decimal String form, which is how they were written into the database when
+     * queries were built by concatenation, so that equality comparisons against existing rows still match.
+     * Dates, times and enums are bound through their String form for the same reason.
+     *
+     * @param stmt   the statement to bind to.
+     * @param params the values to bind.
+     * @throws SQLException if a value could not be bound.
+     */
+    static void bind(PreparedStatement stmt, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            Object param = params[i];
+            int index = i + 1;
+
+            if (param == null) {
+                stmt.setObject(index, null);
+            }
+            else if (param instanceof Float) {
+                stmt.setDouble(index, Double.parseDouble(param.toString()));
+            }
+            else if (param instanceof Boolean) {
+                stmt.setBoolean(index, (Boolean) param);
+            }
+            else if (param instanceof Integer || param instanceof Long || param instanceof Double
+                     || param instanceof String || param instanceof byte[]) {
+                stmt.setObject(index, param);
+            }
+            else if (param instanceof Temporal || param instanceof Enum) {
+                stmt.setString(index, param.toString());
+            }
+            else {
+                throw new IllegalArgumentException("Unsupported parameter type " + param.getClass().getName());
+            }
+        }
+    }
+
+    /**
+     * Runs a unit of work in a single transaction, committing if it completes and rolling back if it throws. If a
+     * transaction is already open on this connection, e.g. from an enclosing lease, the work joins it instead and is
+     * committed or rolled back along with it.
+     *
+     * @param work the work to run.
+     * @throws SQLException if the work or the commit fails.
+     */
+    public void transaction(Work work) throws SQLException {
+        if (work == null) {
+            throw new NullPointerException();
+        }
+
+        if (!connection.getAutoCommit()) {
+            work.run();
+            return;
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        }
+        catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        }
+        finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Creates a Statement against this connection.
+     *
+     * @return a new Statement.
+     * @throws SQLException if the statement could not be created.
+     */
+    public Statement createStatement() throws SQLException {
+        return connection.createStatement();
+    }
+
+    /**
+     * Creates a PreparedStatement against this connection.
+     *
+     * @param sql the SQL to prepare.
+     * @return a new PreparedStatement.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return connection.prepareStatement(sql);
+    }
+
+    /**
+     * Gets the physical connection underneath this lease. The returned connection must not be closed.
+     *
+     * @return the physical connection.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Gets whether this connection may only be used for reads.
+     *
+     * @return true if this is a read connection, false if it is the writer.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Records a new lease of this connection.
+     */
+    void acquire() {
+        leases++;
+    }
+
+    /**
+     * Gets the number of milliseconds since this connection was last returned to the pool.
+     *
+     * @return the idle time in milliseconds.
+     */
+    long getIdleMillis() {
+        return System.currentTimeMillis() - lastReleased;
+    }
+
+    /**
+     * Gets whether the physical connection has been closed underneath the pool.
+     *
+     * @return true if the physical connection is closed or its state cannot be read.
+     */
+    boolean isBroken() {
+        try {
+            return connection.isClosed();
+        }
+        catch (SQLException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Closes the physical connection. Used by the pool when discarding or shutting down.
+     */
+    void closePhysical() {
+        statements.clear();
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Ends a lease of this connection, returning it to the pool once the outermost lease is closed. A transaction left
+     * open by the outermost lease is rolled back so that the next borrower starts clean.
+     */
+    @Override
+    public void close() {
+        if (leases <= 0) {
+            throw new IllegalStateException();
+        }
+        if (--leases > 0) {
+            return;
+        }
+
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        statements.releaseOverflow();
+        lastReleased = System.currentTimeMillis();
+        pool.release(this);
+    }
+}
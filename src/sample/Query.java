@@ -0,0 +1,369 @@
+package sample;
+
+/**
+ * The named, parameterised SQL statements run by the {@link DatabaseHandler}. Each statement is compiled at most once
+ * per pooled connection and then reused from that connection's {@link StatementCache}, so SQLite does not have to
+ * re-parse and re-plan it on every call. Parameters are always bound, never concatenated into the SQL.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.17
+ *
+ * 1.0 - Initial set of statements, covering every fixed query previously built by string concatenation.
+ * 1.1 - Added identity lookups used to fill the {@link UserIdentityCache}.
+ * 1.2 - Added the per-day nutrient aggregation used by {@link NutrientSummary}.
+ * 1.3 - Added reads and incremental updates of the daily_user_summary rollup. Scoped water updates to the water
+ *       entry rather than every meal on a date.
+ * 1.4 - Added LAST_INSERT_ROWID for recovering the keys of batched inserts.
+ * 1.5 - Replaced the per-item food lookups with FOOD_CATALOG, which loads the whole table into the {@link FoodCatalog}.
+ * 1.6 - Added GROUP_SUMMARIES_FOR_USER, loading the members and goals of all of a user's groups in one statement.
+ * 1.7 - Added CREDENTIALS_FROM_USERNAME, reading a user's hash, salt and profile together for {@link AuthService}.
+ * 1.8 - Added the email outbox statements used by the {@link EmailDispatcher}.
+ * 1.9 - Added BATCH_EMAILS, grouping emails queued together. Due emails are now read with their batch.
+ * 1.10 - Goals are now read with their IDs, and progress updates and quits match a goal by its ID.
+ * 1.11 - Replaced the per-unit RECOMMENDED_INTAKE lookup with DAILY_INTAKE, which loads the whole table into the
+ *        {@link IntakeIndex}.
+ * 1.12 - System goals are now saved as a diff, replacing DELETE_SYSTEM_GOALS and INSERT_SYSTEM_GOAL with
+ *        STORED_SYSTEM_GOALS, UPSERT_SYSTEM_GOAL and DELETE_SYSTEM_GOAL.
+ * 1.13 - Added FITNESS_PROFILE, reading whether each fitness unit was completed and its summed progress together.
+ * 1.14 - Added USER_ID_BOUNDS and USERS_IN_ID_RANGE, used to partition the users of the {@link GoalBatchJob}.
+ * 1.15 - Added the expiry sweeps run by the {@link JobScheduler}. Quitting a goal now clears its active flag.
+ * 1.16 - Replaced the per-field registration token, recovery code and group invite statements with the whole record
+ *        statements of the {@link TokenStore}.
+ * 1.17 - GROUP_MEMBERSHIP now reads each member's user row with their role, by group name.
+ */
+enum Query {
+
+    //User
+
+    INSERT_USER(
+            "INSERT INTO user (first_name, last_name, dob, height, sex, username, hash, salt, email) " +
+            "VALUES(?,?,?,?,?,?,?,?,?)"),
+    USER_ID_FROM_USERNAME(
+            "SELECT user_id FROM user WHERE username = ?"),
+    USER_ID_FROM_EMAIL(
+            "SELECT user_id FROM user WHERE email = ?"),
+    USERNAME_FROM_EMAIL(
+            "SELECT username FROM user WHERE email = ?"),
+    HASH_FROM_USERNAME(
+            "SELECT hash FROM user WHERE username = ?"),
+    SALT_FROM_USERNAME(
+            "SELECT salt FROM user WHERE username = ?"),
+    USER_FROM_USERNAME(
+            "SELECT user_id, first_name, last_name, sex, dob, height, email, username FROM user WHERE username = ?"),
+    CREDENTIALS_FROM_USERNAME(
+            "SELECT user_id, first_name, last_name, sex, dob, height, email, username, hash, salt " +
+            "FROM user WHERE username = ?"),
+    USER_ID_BOUNDS(
+            "SELECT MIN(user_id) AS min_id, MAX(user_id) AS max_id FROM user"),
+    USERS_IN_ID_RANGE(
+            "SELECT user_id, first_name, last_name, sex, dob, height, email, username FROM user " +
+            "WHERE user_id >= ? AND user_id < ? ORDER BY user_id"),
+    IDENTITY_FROM_USERNAME(
+            "SELECT user_id, username, email, height, sex FROM user WHERE username = ?"),
+    IDENTITY_FROM_USER_ID(
+            "SELECT user_id, username, email, height, sex FROM user WHERE user_id = ?"),
+    UPDATE_PASSWORD(
+            "UPDATE user SET hash = ?, salt = ? WHERE user_id = ?"),
+
+    //Weight
+
+    INSERT_WEIGHT(
+            "INSERT INTO weight_entry (user_id, weight, date_of) VALUES(?, ?, ?)"),
+    MOST_RECENT_WEIGHT(
+            "SELECT weight FROM weight_entry WHERE user_id = ? ORDER BY entry_id DESC LIMIT 1"),
+
+    //Tokens
+
+    UPSERT_TOKEN(
+            "INSERT INTO token (token, type, subject_id, payload, expires_at) VALUES(?, ?, ?, ?, ?) " +
+            "ON CONFLICT (token, type) DO UPDATE SET subject_id = excluded.subject_id, payload = excluded.payload, " +
+            "expires_at = excluded.expires_at"),
+    TOKEN(
+            "SELECT token, type, subject_id, payload, expires_at FROM token WHERE token = ? AND type = ?"),
+    DELETE_TOKEN(
+            "DELETE FROM token WHERE token = ? AND type = ?"),
+    DELETE_TOKENS_WITH_PAYLOAD(
+            "DELETE FROM token WHERE type = ? AND payload = ?"),
+    DELETE_EXPIRED_TOKENS(
+            "DELETE FROM token WHERE expires_at < ?"),
+
+    //Food and meals
+
+    FOOD_CATALOG(
+            "SELECT id, name, " + nutrientList("", "") + " FROM food"),
+    INSERT_FOOD(
+            "INSERT INTO food (name, kcal, protein_g, fat_g, carbs_g, sugar_g, fibre_g, cholesterol_mg, " +
+            "sodium_mg, potassium_mg, calcium_mg, magnesium_mg, phosphorus_mg, iron_mg, copper_mg, zinc_mg, " +
+            "chloride_mg, selenium_ug, iodine_ug, vit_a_ug, vit_d_ug, thiamin_mg, riboflavin_mg, niacin_mg, " +
+            "vit_b6_mg, vit_b12_ug, folate_ug, vit_c_mg) " +
+            "VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)"),
+    INSERT_MEAL(
+            "INSERT INTO meal (meal_category, food_id, user_id, date_of, quantity) VALUES(?, ?, ?, ?, ?)"),
+    LAST_INSERT_ROWID(
+            "SELECT last_insert_rowid()"),
+    MEAL_FOODS_BETWEEN(
+            "SELECT date_of, food_id FROM meal WHERE user_id = ? AND date_of BETWEEN ? AND ?"),
+    MEAL_FOODS_ALL(
+            "SELECT date_of, food_id FROM meal WHERE user_id = ?"),
+    WATER_QUANTITY(
+            "SELECT quantity FROM meal WHERE user_id = ? AND date_of = ? AND food_id = ?"),
+    UPDATE_WATER_QUANTITY(
+            "UPDATE meal SET quantity = ? WHERE user_id = ? AND date_of = ? AND food_id = ?"),
+    DELETE_WATER(
+            "DELETE FROM meal WHERE user_id = ? AND date_of = ? AND food_id = ?"),
+
+    //Exercise and activity
+
+    EXERCISE_LIKE_NAME(
+            "SELECT * FROM exercise WHERE name LIKE ?"),
+    EXERCISE_NAMES(
+            "SELECT name FROM exercise"),
+    EXERCISE_ID_LIKE_NAME(
+            "SELECT id FROM exercise WHERE name LIKE ?"),
+    INSERT_EXERCISE(
+            "INSERT INTO exercise (name, burn_rate) VALUES(?, ?)"),
+    INSERT_ACTIVITY(
+            "INSERT INTO activity (exercise_id, user_id, duration, date_of) VALUES(?, ?, ?, ?)"),
+    BURNED_ENTRIES_ALL(
+            "SELECT date_of, duration, burn_rate, name FROM activity INNER JOIN exercise " +
+            "ON activity.exercise_id = exercise.id WHERE user_id = ?"),
+
+    //Daily rollup
+
+    SUMMARY_BETWEEN(
+            "SELECT * FROM daily_user_summary WHERE user_id = ? AND date_of BETWEEN ? AND ?"),
+    SUMMARY_ALL(
+            "SELECT * FROM daily_user_summary WHERE user_id = ?"),
+    SUMMARY_ADD_MEALS(
+            "INSERT INTO daily_user_summary (user_id, date_of, meals, " + nutrientList("", "") + ") " +
+            "SELECT ?, ?, ?, " + nutrientList("meal.quantity * ", " / 100.0") + " " +
+            "FROM food, (SELECT ? AS quantity) AS meal WHERE food.id = ? " +
+            "ON CONFLICT (user_id, date_of) DO UPDATE SET meals = meals + excluded.meals, " +
+            nutrientIncrements()),
+    SUMMARY_ADD_ACTIVITY(
+            "INSERT INTO daily_user_summary (user_id, date_of, activities, minutes, kcal_burned) " +
+            "SELECT ?, ?, 1, activity.duration, activity.duration * burn_rate / 30.0 " +
+            "FROM exercise, (SELECT ? AS duration) AS activity WHERE exercise.id = ? " +
+            "ON CONFLICT (user_id, date_of) DO UPDATE SET activities = activities + 1, " +
+            "minutes = minutes + excluded.minutes, kcal_burned = kcal_burned + excluded.kcal_burned"),
+    SUMMARY_SET_WEIGHT(
+            "INSERT INTO daily_user_summary (user_id, date_of, weight) VALUES(?, ?, ?) " +
+            "ON CONFLICT (user_id, date_of) DO UPDATE SET weight = excluded.weight"),
+
+    //Goals
+
+    INSERT_GOAL(
+            "INSERT INTO goal (user_id, target, unit, progress, end_date, group_id) VALUES(?, ?, ?, ?, ?, ?)"),
+    SELECT_GOALS(
+            "SELECT id, target, unit, progress, end_date, group_id FROM goal WHERE user_id = ?"),
+    UPDATE_GOAL_PROGRESS(
+            "UPDATE goal SET progress = ? WHERE id = ?"),
+    QUIT_GOAL(
+            "UPDATE goal SET end_date = ?, active = 0 WHERE id = ?"),
+    EXPIRE_GOALS(
+            "UPDATE goal SET active = 0 WHERE active = 1 AND (end_date <= ? OR progress >= target)"),
+    COMPLETED_FITNESS_UNITS(
+            "SELECT DISTINCT unit FROM goal WHERE user_id = ? AND end_date >= ? AND progress >= target " +
+            "GROUP BY unit HAVING unit NOT IN (" + nutrientUnitList() + ")"),
+    SUM_PROGRESS_SINCE(
+            "SELECT SUM(progress) as progress FROM goal WHERE user_id = ? AND unit = ? AND end_date >= ? " +
+            "GROUP BY unit"),
+    FITNESS_PROFILE(
+            "SELECT unit, MAX(progress >= target) AS completed, SUM(progress) AS progress FROM goal " +
+            "WHERE user_id = ? AND end_date >= ? AND unit NOT IN (" + nutrientUnitList() + ") GROUP BY unit"),
+
+    //System goals
+
+    SYSTEM_GOALS_BY_CATEGORY(
+            "SELECT target, unit, end_date, update_period, category, accepted FROM system_goal " +
+            "WHERE user_id = ? AND end_date = ? AND category = ?"),
+    DAILY_FITNESS_SYSTEM_GOALS(
+            "SELECT target, unit, end_date, update_period, category, accepted FROM system_goal " +
+            "WHERE user_id = ? AND end_date = ? AND update_period = 'DAILY' AND category != 'DAY_TO_DAY'"),
+    WEEKLY_FITNESS_SYSTEM_GOALS(
+            "SELECT target, unit, end_date, update_period, category, accepted FROM system_goal " +
+            "WHERE user_id = ? AND end_date <= ? AND end_date > ? AND update_period = 'WEEKLY' " +
+            "AND category != 'DAY_TO_DAY'"),
+    STORED_SYSTEM_GOALS(
+            "SELECT id, target, unit, end_date, update_period, category, accepted FROM system_goal " +
+            "WHERE user_id = ?"),
+    DELETE_SYSTEM_GOAL(
+            "DELETE FROM system_goal WHERE id = ?"),
+    DELETE_EXPIRED_SYSTEM_GOALS(
+            "DELETE FROM system_goal WHERE end_date < ?"),
+    UPSERT_SYSTEM_GOAL(
+            "INSERT INTO system_goal(target, unit, end_date, update_period, user_id, category, accepted) " +
+            "VALUES(?,?,?,?,?,?,?) ON CONFLICT (user_id, unit, end_date, update_period, category) " +
+            "DO UPDATE SET target = excluded.target, accepted = excluded.accepted"),
+    DAILY_INTAKE(
+            "SELECT unit, gender, min_age, max_age, amount FROM daily_intake ORDER BY id"),
+
+    //Groups
+
+    COUNT_GROUPS_NAMED(
+            "SELECT COUNT(*) FROM group_table WHERE Group_Name = ?"),
+    INSERT_GROUP(
+            "INSERT INTO group_table(Group_Name) VALUES(?)"),
+    GROUP_ID_FROM_NAME(
+            "SELECT Group_Id FROM group_table WHERE Group_Name = ?"),
+    GROUP_NAME_FROM_ID(
+            "SELECT Group_Name FROM group_table WHERE Group_Id = ?"),
+    DELETE_GROUP(
+            "DELETE FROM group_table WHERE Group_Id = ?"),
+    INSERT_MEMBERSHIP(
+            "INSERT INTO group_membership(User_Id, Group_Id, Group_Role) VALUES(?, ?, ?)"),
+    UPDATE_GROUP_ROLE(
+            "UPDATE group_membership SET Group_Role = ? WHERE User_Id = ? AND Group_Id = ?"),
+    GROUP_ROLE(
+            "SELECT Group_Role FROM group_membership WHERE User_Id = ? AND Group_Id = ?"),
+    GROUP_MEMBERSHIP(
+            "SELECT m.Group_Role AS role, u.user_id, u.first_name, u.last_name, u.sex, u.dob, u.height, u.email, " +
+            "u.username FROM group_table g " +
+            "INNER JOIN group_membership m ON m.Group_Id = g.Group_Id " +
+            "INNER JOIN user u ON u.user_id = m.User_Id " +
+            "WHERE g.Group_Name = ?"),
+    GROUP_IDS_FOR_USER(
+            "SELECT Group_Id FROM group_membership WHERE User_Id = ?"),
+    GROUPS_ADMINISTRATED(
+            "SELECT Group_Name FROM group_table INNER JOIN group_membership " +
+            "ON group_membership.Group_Id = group_table.Group_Id WHERE group_membership.User_Id = ? " +
+            "AND (group_membership.Group_Role = 'Owner' OR group_membership.Group_Role = 'Admin')"),
+    DELETE_MEMBERSHIP(
+            "DELETE FROM group_membership WHERE User_Id = ? AND Group_Id = ?"),
+    DELETE_GROUP_MEMBERSHIPS(
+            "DELETE FROM group_membership WHERE Group_Id = ?"),
+    DELETE_USER_GROUP_GOALS(
+            "DELETE FROM goal WHERE user_id = ? AND group_id = ?"),
+    GROUP_SUMMARIES_FOR_USER(
+            "SELECT 'M' AS kind, g.Group_Id AS group_id, g.Group_Name AS group_name, m.User_Id AS user_id, " +
+            "u.username AS username, m.Group_Role AS role, NULL AS target, NULL AS unit, NULL AS end_date " +
+            "FROM group_membership mine " +
+            "INNER JOIN group_table g ON g.Group_Id = mine.Group_Id " +
+            "INNER JOIN group_membership m ON m.Group_Id = mine.Group_Id " +
+            "INNER JOIN user u ON u.user_id = m.User_Id " +
+            "WHERE mine.User_Id = ? " +
+            "UNION ALL " +
+            "SELECT 'G', g.Group_Id, g.Group_Name, NULL, NULL, NULL, gg.target, gg.unit, gg.end_date " +
+            "FROM group_membership mine " +
+            "INNER JOIN group_table g ON g.Group_Id = mine.Group_Id " +
+            "INNER JOIN group_goal gg ON gg.group_id = mine.Group_Id " +
+            "WHERE mine.User_Id = ? " +
+            "ORDER BY group_id, kind DESC, username"),
+
+    //Group goals
+
+    GROUP_GOALS(
+            "SELECT group_id, target, unit, end_date FROM group_goal WHERE group_id = ?"),
+    GROUP_GOAL_EXISTS(
+            "SELECT id FROM group_goal WHERE group_id = ? AND target = ? AND unit = ? AND end_date = ?"),
+    INSERT_GROUP_GOAL(
+            "INSERT INTO group_goal(group_id, target, unit, end_date) VALUES(?, ?, ?, ?)"),
+    DELETE_GROUP_GOALS(
+            "DELETE FROM group_goal WHERE group_id = ?"),
+
+    //Email outbox
+
+    INSERT_EMAIL(
+            "INSERT INTO email_outbox (recipient, subject, body, content_type, next_attempt, created) " +
+            "VALUES(?, ?, ?, ?, ?, ?)"),
+    BATCH_EMAILS(
+            "UPDATE email_outbox SET batch_id = ? WHERE id BETWEEN ? AND ?"),
+    DUE_EMAILS(
+            "SELECT id, batch_id, recipient, subject, body, content_type, attempts FROM email_outbox " +
+            "WHERE status = 'PENDING' AND next_attempt <= ? ORDER BY next_attempt, id LIMIT ?"),
+    CLAIM_EMAIL(
+            "UPDATE email_outbox SET status = 'SENDING' WHERE id = ?"),
+    EMAIL_SENT(
+            "UPDATE email_outbox SET status = 'SENT', attempts = attempts + 1, last_error = NULL WHERE id = ?"),
+    RESCHEDULE_EMAIL(
+            "UPDATE email_outbox SET status = 'PENDING', attempts = ?, next_attempt = ?, last_error = ? WHERE id = ?"),
+    DEAD_LETTER_EMAIL(
+            "UPDATE email_outbox SET status = 'DEAD', attempts = ?, last_error = ? WHERE id = ?"),
+    RELEASE_CLAIMED_EMAILS(
+            "UPDATE email_outbox SET status = 'PENDING' WHERE status = 'SENDING'");
+
+    /**
+     * The SQL for this statement.
+     */
+    private final String sql;
+
+    /**
+     * Constructs a Query from its SQL.
+     *
+     * @param sql the SQL for this statement.
+     */
+    Query(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Gets the SQL for this statement.
+     *
+     * @return the SQL for this statement.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Builds a comma separated list of every nutrient column, each wrapped in the passed prefix and suffix.
+     *
+     * @param prefix the text to put before each column.
+     * @param suffix the text to put after each column.
+     * @return the list of nutrient columns.
+     */
+    private static String nutrientList(String prefix, String suffix) {
+        StringBuilder list = new StringBuilder();
+
+        for (Nutrient nutrient : Nutrient.values()) {
+            if (list.length() > 0) {
+                list.append(", ");
+            }
+            list.append(prefix).append(nutrient.getColumn()).append(suffix);
+        }
+
+        return list.toString();
+    }
+
+    /**
+     * Builds the SET clause assignments adding each excluded nutrient total onto the existing row in an upsert.
+     *
+     * @return the comma separated assignments.
+     */
+    private static String nutrientIncrements() {
+        StringBuilder list = new StringBuilder();
+
+        for (Nutrient nutrient : Nutrient.values()) {
+            String column = nutrient.getColumn();
+
+            if (list.length() > 0) {
+                list.append(", ");
+            }
+            list.append(column).append(" = ").append(column).append(" + excluded.").append(column);
+        }
+
+        return list.toString();
+    }
+
+    /**
+     * Builds a quoted, comma separated list of every unit without a minimum target, i.e. the nutritional units and
+     * calories burned. Used to exclude these goals when looking up completed fitness goals.
+     *
+     * @return the quoted list of nutritional units.
+     */
+    private static String nutrientUnitList() {
+        StringBuilder list = new StringBuilder();
+
+        for (Goal.Unit unit : Goal.Unit.values()) {
+            if (unit.getMinimum() < 0) {
+                if (list.length() > 0) {
+                    list.append(", ");
+                }
+                list.append('\'').append(unit).append('\'');
+            }
+        }
+
+        return list.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package sample;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date by applying every {@link Migration} newer than the version recorded in the
+ * schema_version table. Each migration runs in its own transaction together with the row recording it, so a failed
+ * migration leaves the database at the previous version and is retried on the next start up.
+ *
+ * Scripts are plain SQL. Statements are separated by semicolons and lines starting with -- are comments.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial migration engine with a schema_version table.
+ */
+public class SchemaMigrator {
+
+    private static final String CREATE_VERSION_TABLE =
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+            "version INTEGER not null constraint schema_version_pk primary key, " +
+            "description varchar(100) not null, " +
+            "applied_on varchar(19) not null)";
+
+    private static final String SELECT_VERSION = "SELECT MAX(version) AS version FROM schema_version";
+
+    private static final String INSERT_VERSION =
+            "INSERT INTO schema_version (version, description, applied_on) VALUES(?, ?, ?)";
+
+    /**
+     * The connection migrations are applied through.
+     */
+    private final Connection connection;
+
+    /**
+     * Constructs a SchemaMigrator for a connection. The connection must be able to write.
+     *
+     * @param connection the connection to migrate through.
+     */
+    public SchemaMigrator(Connection connection) {
+        if (connection == null) {
+            throw new NullPointerException();
+        }
+
+        this.connection = connection;
+    }
+
+    /**
+     * Gets the schema version the database is currently at.
+     *
+     * @return the current schema version, 0 if no migration has been applied.
+     * @throws SQLException if the version cannot be read.
+     */
+    public int getCurrentVersion() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE);
+
+            try (ResultSet rs = stmt.executeQuery(SELECT_VERSION)) {
+                return rs.next() ? rs.getInt("version") : 0;
+            }
+        }
+    }
+
+    /**
+     * Applies every migration newer than the current schema version, in order.
+     *
+     * @return the number of migrations applied.
+     * @throws SQLException if a migration fails. Migrations applied before it are kept.
+     */
+    public int migrate() throws SQLException {
+        int current = getCurrentVersion();
+        int applied = 0;
+
+        for (Migration migration : Migration.values()) {
+            if (migration.getVersion() > current) {
+                apply(migration);
+                applied++;
+            }
+        }
+
+        return applied;
+    }
+
+    /**
+     * Applies a single migration and records it in the schema_version table, in one transaction.
+     *
+     * @param migration the migration to apply.
+     * @throws SQLException if the migration's script cannot be read or any of its statements fails.
+     */
+    private void apply(Migration migration) throws SQLException {
+        List<String> statements = readStatements(migration.getScriptPath());
+        boolean autoCommit = connection.getAutoCommit();
+
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement();
+             PreparedStatement record = connection.prepareStatement(INSERT_VERSION)) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+
+            record.setInt(1, migration.getVersion());
+            record.setString(2, migration.getDescription());
+            record.setString(3, LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            record.executeUpdate();
+
+            connection.commit();
+        }
+        catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Migration " + migration.getVersion() + " failed", e);
+        }
+        finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Reads a migration script from the classpath and splits it into statements.
+     *
+     * @param path the classpath location of the script.
+     * @return the script's statements in order.
+     * @throws SQLException if the script cannot be found or read.
+     */
+    static List<String> readStatements(String path) throws SQLException {
+        InputStream in = SchemaMigrator.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new SQLException("Missing migration script " + path);
+        }
+
+        StringBuilder script = new StringBuilder();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().startsWith("--")) {
+                    script.append(line).append('\n');
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new SQLException("Could not read migration script " + path, e);
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String sql : script.toString().split(";")) {
+            if (!sql.isBlank()) {
+                statements.add(sql.trim());
+            }
+        }
+
+        return statements;
+    }
+}
@@ -0,0 +1,223 @@
+package sample;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link EmailTransport} delivering email over SMTP through a javax.mail Session.
+ *
+ * Connections to the SMTP server are kept open and pooled between sends, so that the TLS handshake and login are paid
+ * once per connection rather than once per email. Each connection is checked before it is reused, and one which fails
+ * a send is closed rather than returned to the pool.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial SMTP transport.
+ * 1.1 - Connections are now pooled, and a batch of emails is sent over a single connection.
+ */
+public class SmtpEmailTransport implements EmailTransport {
+
+    /**
+     * The number of idle connections kept open, one for each dispatcher worker.
+     */
+    public static final int DEFAULT_POOL_SIZE = EmailDispatcher.DEFAULT_WORKERS;
+
+    private final Session session;
+    private final String from;
+    private final BlockingQueue<Transport> idle;
+    private final LongAdder connectionsOpened = new LongAdder();
+
+    /**
+     * Constructs an SmtpEmailTransport with the default pool size.
+     *
+     * @param session the session holding the SMTP server's settings and credentials.
+     * @param from    the address emails are sent from.
+     */
+    public SmtpEmailTransport(Session session, String from) {
+        this(session, from, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Constructs an SmtpEmailTransport.
+     *
+     * @param session  the session holding the SMTP server's settings and credentials.
+     * @param from     the address emails are sent from.
+     * @param poolSize the number of idle connections kept open.
+     */
+    public SmtpEmailTransport(Session session, String from, int poolSize) {
+        if (session == null) {
+            throw new NullPointerException();
+        }
+        if (from == null) {
+            throw new NullPointerException();
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.session = session;
+        this.from = from;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /**
+     * Delivers an email over SMTP, through a pooled connection.
+     *
+     * @param email the email to deliver.
+     * @throws MessagingException if the email could not be delivered.
+     */
+    @Override
+    public void send(OutboundEmail email) throws MessagingException {
+        if (email == null) {
+            throw new NullPointerException();
+        }
+
+        MessagingException failure = sendAll(List.of(email)).get(email);
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Delivers several emails over a single pooled connection. If the connection fails part way through, the
+     * remaining emails are sent over a new one.
+     *
+     * @param emails the emails to deliver.
+     * @return the failure of each email which could not be delivered, empty if every email was delivered.
+     */
+    @Override
+    public Map<OutboundEmail, MessagingException> sendAll(List<OutboundEmail> emails) {
+        if (emails == null) {
+            throw new NullPointerException();
+        }
+
+        Map<OutboundEmail, MessagingException> failures = new HashMap<>();
+        Transport transport = null;
+
+        try {
+            for (OutboundEmail email : emails) {
+                try {
+                    MimeMessage message = toMessage(email);
+
+                    if (transport == null) {
+                        transport = borrow();
+                    }
+                    transport.sendMessage(message, message.getAllRecipients());
+                }
+                catch (MessagingException e) {
+                    failures.put(email, e);
+
+                    //The connection may be broken, so never return it to the pool
+                    if (transport != null) {
+                        close(transport);
+                        transport = null;
+                    }
+                }
+            }
+        }
+        finally {
+            if (transport != null && !idle.offer(transport)) {
+                close(transport);
+            }
+        }
+
+        return failures;
+    }
+
+    /**
+     * Closes every idle connection.
+     */
+    @Override
+    public void close() {
+        Transport transport;
+
+        while ((transport = idle.poll()) != null) {
+            close(transport);
+        }
+    }
+
+    /**
+     * Gets the number of connections opened to the SMTP server.
+     *
+     * @return the number of connections opened.
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * Builds the MimeMessage for an email.
+     *
+     * @param email the email.
+     * @return the message to be sent.
+     * @throws MessagingException if the message cannot be built, e.g. an address is malformed.
+     */
+    MimeMessage toMessage(OutboundEmail email) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(from));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(email.getRecipient()));
+        message.setSubject(email.getSubject());
+
+        if (email.getContentType().equals(OutboundEmail.TEXT)) {
+            message.setText(email.getBody());
+        }
+        else {
+            message.setContent(email.getBody(), email.getContentType());
+        }
+
+        //Done by Transport.send, but not by sendMessage on a connection
+        message.saveChanges();
+
+        return message;
+    }
+
+    /**
+     * Private helper method to take a live connection from the pool, or open a new one if none is idle.
+     *
+     * @return a connected Transport.
+     * @throws MessagingException if a new connection could not be opened.
+     */
+    private Transport borrow() throws MessagingException {
+        Transport transport;
+
+        while ((transport = idle.poll()) != null) {
+            if (transport.isConnected()) {
+                return transport;
+            }
+            close(transport);
+        }
+
+        transport = session.getTransport("smtp");
+        transport.connect();
+        connectionsOpened.increment();
+
+        return transport;
+    }
+
+    /**
+     * Private helper method to close a connection, ignoring any failure.
+     *
+     * @param transport the connection to close.
+     */
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        }
+        catch (MessagingException e) {
+            //Already closed by the server
+        }
+    }
+}
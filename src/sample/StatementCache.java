@@ -0,0 +1,200 @@
+package sample;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded, least recently used cache of compiled {@link Query} statements for a single pooled connection. Statements
+ * are compiled the first time they are requested on the connection and reused afterwards. When the cache is full the
+ * least recently used statement is closed and evicted.
+ *
+ * A cached statement whose last ResultSet is still open, e.g. when the same query is run from inside a loop over its
+ * own results, cannot safely be re-executed. In that case a one-off statement is compiled instead and closed when the
+ * connection's lease ends.
+ *
+ * Only the thread currently leasing the owning connection may use the cache.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial LRU statement cache with hit and miss counters.
+ */
+class StatementCache {
+
+    /**
+     * The default maximum number of statements cached per connection.
+     */
+    static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The connection statements are compiled against.
+     */
+    private final Connection connection;
+
+    /**
+     * Counter incremented whenever a compiled statement is reused.
+     */
+    private final LongAdder hits;
+
+    /**
+     * Counter incremented whenever a statement has to be compiled.
+     */
+    private final LongAdder misses;
+
+    /**
+     * The cached statements in least recently used order.
+     */
+    private final LinkedHashMap<Query, PreparedStatement> statements;
+
+    /**
+     * The last ResultSet produced by each cached statement.
+     */
+    private final Map<Query, ResultSet> lastResults = new LinkedHashMap<>();
+
+    /**
+     * One-off statements compiled because their cached counterpart was still in use.
+     */
+    private final List<PreparedStatement> overflow = new ArrayList<>();
+
+    /**
+     * Constructs a StatementCache for a connection.
+     *
+     * @param connection the connection to compile statements against.
+     * @param capacity   the maximum number of statements to cache.
+     * @param hits       the counter to increment on each cache hit.
+     * @param misses     the counter to increment on each cache miss.
+     */
+    StatementCache(Connection connection, int capacity, LongAdder hits, LongAdder misses) {
+        if (connection == null) {
+            throw new NullPointerException();
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        if (hits == null) {
+            throw new NullPointerException();
+        }
+        if (misses == null) {
+            throw new NullPointerException();
+        }
+
+        this.connection = connection;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Query, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    lastResults.remove(eldest.getKey());
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets a compiled statement for the passed query with its parameters cleared, compiling it if necessary.
+     *
+     * @param query the query to get a statement for.
+     * @return a compiled statement ready for its parameters to be bound. The caller must not close it.
+     * @throws SQLException if the statement could not be compiled.
+     */
+    PreparedStatement get(Query query) throws SQLException {
+        if (query == null) {
+            throw new NullPointerException();
+        }
+
+        PreparedStatement stmt = statements.get(query);
+
+        if (stmt != null && !stmt.isClosed()) {
+            ResultSet last = lastResults.get(query);
+
+            if (last == null || last.isClosed()) {
+                hits.increment();
+                stmt.clearParameters();
+                return stmt;
+            }
+
+            //Still being read from further up the stack, hand out a one-off statement instead.
+            misses.increment();
+            PreparedStatement oneOff = connection.prepareStatement(query.getSql());
+            overflow.add(oneOff);
+            return oneOff;
+        }
+
+        misses.increment();
+        stmt = connection.prepareStatement(query.getSql());
+        statements.put(query, stmt);
+        lastResults.remove(query);
+        return stmt;
+    }
+
+    /**
+     * Records the ResultSet most recently produced by a query's cached statement, so that the statement is not reused
+     * while that ResultSet is still open.
+     *
+     * @param query  the query which was executed.
+     * @param stmt   the statement the query was executed on.
+     * @param result the ResultSet it produced.
+     */
+    void recordResult(Query query, PreparedStatement stmt, ResultSet result) {
+        if (!overflow.contains(stmt)) {
+            lastResults.put(query, result);
+        }
+    }
+
+    /**
+     * Closes any one-off statements compiled during the current lease.
+     */
+    void releaseOverflow() {
+        for (PreparedStatement stmt : overflow) {
+            closeQuietly(stmt);
+        }
+        overflow.clear();
+    }
+
+    /**
+     * Gets the number of statements currently cached.
+     *
+     * @return the number of cached statements.
+     */
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every cached statement and empties the cache.
+     */
+    void clear() {
+        releaseOverflow();
+        for (PreparedStatement stmt : statements.values()) {
+            closeQuietly(stmt);
+        }
+        statements.clear();
+        lastResults.clear();
+    }
+
+    /**
+     * Closes a statement, reporting rather than propagating any failure.
+     *
+     * @param stmt the statement to close.
+     */
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
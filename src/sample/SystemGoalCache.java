@@ -0,0 +1,224 @@
+package sample;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds each user's generated system goals for the day, keyed by username and local date. Goals are generated and
+ * saved once per user per day, and every later request that day is answered from memory rather than by querying the
+ * user's stored, completed and average goals again.
+ *
+ * At each midnight the {@link JobScheduler} rolls the cache over: the previous day's goals are dropped and the goals of
+ * every user requested so far are generated for the new day in the background, so that the first request of the day
+ * is usually answered from memory too.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.1
+ *
+ * 1.0 - Initial per day goal cache with background generation at midnight.
+ * 1.1 - The midnight rollover is now run by the JobScheduler rather than a scheduler of the cache's own.
+ */
+public class SystemGoalCache {
+
+    private static SystemGoalCache instance;
+
+    /**
+     * Generates a user's system goals for today and saves them in the database.
+     */
+    interface Source {
+        ArrayList<SystemGoal> load(User user);
+    }
+
+    /**
+     * The username and local date a user's goals are held against.
+     */
+    private static final class Key {
+        private final String username;
+        private final LocalDate date;
+
+        private Key(String username, LocalDate date) {
+            this.username = username;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return username.equals(key.username) && date.equals(key.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, date);
+        }
+    }
+
+    private final Map<Key, List<SystemGoal>> goals = new ConcurrentHashMap<>();
+
+    /**
+     * Every user whose goals have been requested, generated again at each midnight.
+     */
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+
+    private final Source source;
+    private final Clock clock;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder precomputed = new LongAdder();
+
+    /**
+     * Private default constructor. Enforces the Singleton pattern.
+     */
+    private SystemGoalCache() {
+        this(user -> {
+                    ArrayList<SystemGoal> generated = new GoalGenerator(user).generateGoals();
+                    DatabaseHandler.getInstance().refreshSystemGoals(user.getUsername(), generated);
+                    return generated;
+                },
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a SystemGoalCache.
+     *
+     * @param source generates and saves a user's goals for today.
+     * @param clock  the clock and zone the local date is read from.
+     */
+    SystemGoalCache(Source source, Clock clock) {
+        if (source == null) {
+            throw new NullPointerException();
+        }
+        if (clock == null) {
+            throw new NullPointerException();
+        }
+
+        this.source = source;
+        this.clock = clock;
+    }
+
+    /**
+     * Static method to get the single SystemGoalCache instance.
+     *
+     * @return the SystemGoalCache instance.
+     */
+    public static synchronized SystemGoalCache getInstance() {
+        if (instance == null) {
+            instance = new SystemGoalCache();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Gets a user's system goals for today, generating and saving them if this is the first request for that user
+     * today.
+     *
+     * @param user the user.
+     * @return a new list of the user's system goals.
+     */
+    public ArrayList<SystemGoal> get(User user) {
+        if (user == null) {
+            throw new NullPointerException();
+        }
+
+        users.put(user.getUsername(), user);
+
+        Key key = new Key(user.getUsername(), LocalDate.now(clock));
+        List<SystemGoal> cached = goals.get(key);
+
+        if (cached != null) {
+            hits.increment();
+        }
+        else {
+            cached = goals.computeIfAbsent(key, k -> {
+                misses.increment();
+                return List.copyOf(source.load(user));
+            });
+        }
+
+        return new ArrayList<>(cached);
+    }
+
+    /**
+     * Drops a user's goals and stops generating them at midnight. Called when the user logs out.
+     *
+     * @param username the user's username.
+     */
+    public void forget(String username) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+
+        users.remove(username);
+        goals.keySet().removeIf(key -> key.username.equals(username));
+    }
+
+    /**
+     * Drops every goal held for an earlier day, then generates today's goals for every user requested so far. Run by
+     * the JobScheduler at each midnight, but may be called directly.
+     *
+     * @return the number of users whose goals were generated.
+     */
+    public int rollover() {
+        LocalDate today = LocalDate.now(clock);
+        goals.keySet().removeIf(key -> key.date.isBefore(today));
+
+        long before = precomputed.sum();
+
+        for (User user : users.values()) {
+            try {
+                goals.computeIfAbsent(new Key(user.getUsername(), today), k -> {
+                    List<SystemGoal> loaded = List.copyOf(source.load(user));
+                    precomputed.increment();
+                    return loaded;
+                });
+            }
+            catch (RuntimeException e) {
+                e.printStackTrace(); //Left to be generated on the user's next request
+            }
+        }
+
+        return (int) (precomputed.sum() - before);
+    }
+
+    /**
+     * Gets the number of requests answered from memory.
+     *
+     * @return the number of cache hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests for which goals had to be generated.
+     *
+     * @return the number of cache misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of users whose goals were generated in the background at midnight.
+     *
+     * @return the number of precomputed users.
+     */
+    public long getPrecomputed() {
+        return precomputed.sum();
+    }
+}
@@ -0,0 +1,430 @@
+package sample;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single store of every short lived token handed out to users, i.e. registration tokens, password recovery codes
+ * and group invites, held by the {@link DatabaseHandler}. Tokens live in one table keyed by their value and type, so
+ * fetching a token is one primary key lookup which returns the whole record.
+ *
+ * Tokens read or written through the store are also held in an in memory front cache. A cached token is served until
+ * the earlier of its own expiry and the cache's time to live, after which it is read from the database again, so the
+ * cache never outlives the token and picks up changes made by other processes within the time to live. As in the
+ * {@link UserIdentityCache}, every write moves the cache on to a new generation and a token read under an older
+ * generation is not cached, so a read racing a delete can never put the deleted token back into the cache.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial store over the token table with a TTL bounded front cache.
+ */
+class TokenStore {
+
+    /**
+     * How long a token is cached for before it is read from the database again.
+     */
+    static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    /**
+     * The most tokens held in the cache at once. Tokens fetched while the cache is full are not cached.
+     */
+    static final int MAX_CACHED = 10_000;
+
+    /**
+     * The kinds of token, stored in the type column.
+     */
+    enum Type {
+        REGISTRATION,
+        RECOVERY,
+        GROUP_INVITE
+    }
+
+    /**
+     * An immutable token record.
+     */
+    static final class Token {
+
+        private final String token;
+        private final Type type;
+        private final int subjectID;
+        private final String payload;
+        private final LocalDateTime expiresAt;
+
+        /**
+         * Constructs a Token.
+         *
+         * @param token     the token's value.
+         * @param type      the kind of token.
+         * @param subjectID the ID of the user the token was issued for, or -1 if there is none.
+         * @param payload   any further value carried by the token, e.g. the group an invite is for, or null.
+         * @param expiresAt the time after which the token is no longer valid.
+         */
+        Token(String token, Type type, int subjectID, String payload, LocalDateTime expiresAt) {
+            if (token == null) {
+                throw new NullPointerException();
+            }
+            if (type == null) {
+                throw new NullPointerException();
+            }
+            if (subjectID < -1) {
+                throw new IllegalArgumentException();
+            }
+            if (expiresAt == null) {
+                throw new NullPointerException();
+            }
+
+            this.token = token;
+            this.type = type;
+            this.subjectID = subjectID;
+            this.payload = payload;
+            this.expiresAt = expiresAt;
+        }
+
+        String getToken() {
+            return token;
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        int getSubjectID() {
+            return subjectID;
+        }
+
+        String getPayload() {
+            return payload;
+        }
+
+        LocalDateTime getExpiresAt() {
+            return expiresAt;
+        }
+
+        /**
+         * Checks whether the token has passed its expiry time.
+         *
+         * @param now the current time.
+         * @return true if the token has expired.
+         */
+        boolean isExpired(LocalDateTime now) {
+            if (now == null) {
+                throw new NullPointerException();
+            }
+
+            return now.isAfter(expiresAt);
+        }
+    }
+
+    /**
+     * The value and type a token is cached under.
+     */
+    private static final class Key {
+        private final String token;
+        private final Type type;
+
+        private Key(String token, Type type) {
+            this.token = token;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return token.equals(key.token) && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(token, type);
+        }
+    }
+
+    /**
+     * A cached token and the instant it stops being served from the cache.
+     */
+    private static final class Entry {
+        private final Token token;
+        private final Instant until;
+
+        private Entry(Token token, Instant until) {
+            this.token = token;
+            this.until = until;
+        }
+    }
+
+    private final ConnectionPool pool;
+    private final Clock clock;
+    private final Duration ttl;
+
+    private final Map<Key, Entry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every write.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Counter incremented whenever a fetch is answered from the cache.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Counter incremented whenever a fetch has to go to the database.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a TokenStore.
+     *
+     * @param pool  the pool to read and write the token table through.
+     * @param clock the clock cached tokens are timed against.
+     * @param ttl   how long a token is cached for.
+     */
+    TokenStore(ConnectionPool pool, Clock clock, Duration ttl) {
+        if (pool == null) {
+            throw new NullPointerException();
+        }
+        if (clock == null) {
+            throw new NullPointerException();
+        }
+        if (ttl == null) {
+            throw new NullPointerException();
+        }
+        if (ttl.isNegative()) {
+            throw new IllegalArgumentException();
+        }
+
+        this.pool = pool;
+        this.clock = clock;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Stores a token, replacing any token of the same value and type.
+     *
+     * @param token the token to store.
+     * @throws SQLException if the token could not be stored.
+     */
+    void put(Token token) throws SQLException {
+        if (token == null) {
+            throw new NullPointerException();
+        }
+
+        Key key = new Key(token.getToken(), token.getType());
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            conn.executeUpdate(Query.UPSERT_TOKEN, token.getToken(), token.getType(),
+                    token.getSubjectID() < 0 ? null : token.getSubjectID(), token.getPayload(),
+                    token.getExpiresAt());
+            cache(key, token, invalidate(key));
+        }
+    }
+
+    /**
+     * Fetches a token with its whole record. Expired tokens are still returned until they are swept, so that callers
+     * can tell an expired token from an unknown one.
+     *
+     * @param type  the kind of token.
+     * @param token the token's value.
+     * @return the token, or null if no token of the value and type is stored.
+     * @throws SQLException if the token could not be read.
+     */
+    Token get(Type type, String token) throws SQLException {
+        if (type == null) {
+            throw new NullPointerException();
+        }
+        if (token == null) {
+            throw new NullPointerException();
+        }
+
+        Key key = new Key(token, type);
+        Entry entry = cache.get(key);
+
+        if (entry != null) {
+            if (clock.instant().isBefore(entry.until)) {
+                hits.increment();
+                return entry.token;
+            }
+            cache.remove(key, entry);
+        }
+
+        misses.increment();
+        long loadedUnder = generation.get();
+
+        try (PooledConnection conn = pool.borrowReader();
+             ResultSet rs = conn.executeQuery(Query.TOKEN, token, type)) {
+            if (!rs.next()) {
+                return null;
+            }
+
+            int subjectID = rs.getInt("subject_id");
+            if (rs.wasNull()) {
+                subjectID = -1;
+            }
+
+            Token loaded = new Token(rs.getString("token"), type, subjectID, rs.getString("payload"),
+                    LocalDateTime.parse(rs.getString("expires_at")));
+            cache(key, loaded, loadedUnder);
+            return loaded;
+        }
+    }
+
+    /**
+     * Deletes a token.
+     *
+     * @param type  the kind of token.
+     * @param token the token's value.
+     * @return true if a token was deleted.
+     * @throws SQLException if the token could not be deleted.
+     */
+    boolean delete(Type type, String token) throws SQLException {
+        if (type == null) {
+            throw new NullPointerException();
+        }
+        if (token == null) {
+            throw new NullPointerException();
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            boolean deleted = conn.executeUpdate(Query.DELETE_TOKEN, token, type) > 0;
+            invalidate(new Key(token, type));
+            return deleted;
+        }
+    }
+
+    /**
+     * Deletes every token of a type carrying a payload, e.g. every invite to a group.
+     *
+     * @param type    the kind of token.
+     * @param payload the payload.
+     * @return the number of tokens deleted.
+     * @throws SQLException if the tokens could not be deleted.
+     */
+    int deleteWithPayload(Type type, String payload) throws SQLException {
+        if (type == null) {
+            throw new NullPointerException();
+        }
+        if (payload == null) {
+            throw new NullPointerException();
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            int deleted = conn.executeUpdate(Query.DELETE_TOKENS_WITH_PAYLOAD, type, payload);
+
+            synchronized (this) {
+                generation.incrementAndGet();
+                cache.values().removeIf(entry -> entry.token.getType() == type
+                        && payload.equals(entry.token.getPayload()));
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Deletes every token which has passed its expiry time, and drops them from the cache.
+     *
+     * @param now the current time.
+     * @return the number of tokens deleted.
+     * @throws SQLException if the expired tokens could not be deleted.
+     */
+    int deleteExpired(LocalDateTime now) throws SQLException {
+        if (now == null) {
+            throw new NullPointerException();
+        }
+
+        try (PooledConnection conn = pool.borrowWriter()) {
+            int deleted = conn.executeUpdate(Query.DELETE_EXPIRED_TOKENS, now);
+
+            synchronized (this) {
+                generation.incrementAndGet();
+                Iterator<Entry> entries = cache.values().iterator();
+                while (entries.hasNext()) {
+                    if (entries.next().token.getExpiresAt().isBefore(now)) {
+                        entries.remove();
+                    }
+                }
+            }
+            return deleted;
+        }
+    }
+
+    /**
+     * Gets the number of fetches answered from the cache.
+     *
+     * @return the number of cache hits.
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of fetches which had to go to the database.
+     *
+     * @return the number of cache misses.
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Gets the number of tokens currently cached.
+     *
+     * @return the cache size.
+     */
+    int getCachedCount() {
+        return cache.size();
+    }
+
+    /**
+     * Removes a cached token after it has been written, moving the cache on to a new generation.
+     *
+     * @param key the key of the token to remove.
+     * @return the new generation.
+     */
+    private synchronized long invalidate(Key key) {
+        cache.remove(key);
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * Caches a token until the earlier of its expiry and the time to live, unless it has already expired, the cache
+     * is full or the cache has been written to since the token was read.
+     *
+     * @param key        the key to cache the token under.
+     * @param token      the token.
+     * @param generation the generation read before the token was read or written.
+     */
+    private synchronized void cache(Key key, Token token, long generation) {
+        Instant now = clock.instant();
+        Instant expiry = token.getExpiresAt().atZone(clock.getZone()).toInstant();
+        Instant until = now.plus(ttl);
+
+        if (expiry.isBefore(until)) {
+            until = expiry;
+        }
+
+        if (generation != this.generation.get() || !now.isBefore(until) || cache.size() >= MAX_CACHED) {
+            return;
+        }
+
+        cache.put(key, new Entry(token, until));
+    }
+}
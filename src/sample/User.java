@@ -1,19 +1,27 @@
 package sample;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * A class to represent a user in a health tracking application, most/all error checking is completed
  * inside of the registration form.
  *
+ * Constructing a User performs no database I/O. The User's goals and system goals are loaded from the database the
+ * first time they are needed and held until invalidated.
+ *
  * @author Owen Tasker
  * @author Charlie Jones
  * @author Samuel Scarfe
  * @author Evan Clayton
  *
- * @version 1.9
+ * @version 1.15
  *
  * 1.0 - Initial user class structure and their variables.
  * 1.1 - Added constructor, getters and setters.
@@ -26,6 +34,13 @@ import java.util.ArrayList;
  * 1.7 - Implemented adding and updating goals.
  * 1.8 - Implemented automatic goal generation.
  * 1.9 - Added functionality for including group goals.
+ * 1.10 - Goals and system goals are now loaded lazily on first access and memoised.
+ * 1.11 - Active goals are indexed by unit, so progress is routed straight to the goals it affects. Added applyDelta
+ *        for updating every goal affected by a meal in one pass.
+ * 1.12 - The progress of every goal updated by one action is now written to the database as a single batch.
+ * 1.13 - Added getFitnessProfile, reading completed units and work rates together for goal generation.
+ * 1.14 - Split markGoalQuit out of quitGoal, so a goal can be quit in memory apart from the database write.
+ * 1.15 - quitGoal only quits the goal in memory once the database write has succeeded.
  */
 public class User {
 
@@ -55,8 +70,9 @@ public class User {
     private float weight;  //Changed from int on class description storing in KG
     private LocalDate dob;
     private final String email;
-    private final ArrayList<UserGoal> goals;
-    private ArrayList<SystemGoal> systemGoals;
+    private ArrayList<UserGoal> goals;        //Null until first loaded
+    private ArrayList<SystemGoal> systemGoals; //Null until first loaded or set
+    private EnumMap<Goal.Unit, List<UserGoal>> activeGoals; //Null until first indexed
     private final String username;
 
     /**
@@ -104,8 +120,6 @@ public class User {
         this.email = email;
         this.username = username;
 
-        this.goals = DatabaseHandler.getInstance().selectGoals(username);
-
         this.setAge();  //Takes the current date and DOB and calculates the current age of the user
     }
 
@@ -200,23 +214,68 @@ public class User {
     }
 
     /**
-     * Gets the list of goals for this user.
+     * Gets the list of goals for this user, loading them from the database on first access.
      *
      * @return this user's goals as an ArrayList.
      */
-    public ArrayList<UserGoal> getGoals() {
+    public synchronized ArrayList<UserGoal> getGoals() {
+        if (this.goals == null) {
+            this.goals = DatabaseHandler.getInstance().selectGoals(this.username);
+        }
+
         return this.goals;
     }
 
     /**
-     * Gets the list of system goals for this user.
+     * Gets the list of system goals for this user. If none have been set, this user's current day to day, daily
+     * fitness and weekly fitness goals are loaded from the database on first access.
      *
      * @return this user's system goals as an ArrayList.
      */
-    public ArrayList<SystemGoal> getSystemGoals() {
+    public synchronized ArrayList<SystemGoal> getSystemGoals() {
+        if (this.systemGoals == null) {
+            ArrayList<SystemGoal> systemGoals = new ArrayList<>(getDayToDayGoals());
+            systemGoals.addAll(getDailyFitness());
+            systemGoals.addAll(getWeeklyFitness());
+
+            this.systemGoals = systemGoals;
+        }
+
         return this.systemGoals;
     }
 
+    /**
+     * Discards this user's held goals and system goals, so that they are reloaded from the database on next access.
+     * Called after this user's goals are changed in the database other than through this User.
+     */
+    public synchronized void invalidateGoals() {
+        this.goals = null;
+        this.systemGoals = null;
+        this.activeGoals = null;
+    }
+
+    /**
+     * Private helper method to get this user's active goals indexed by unit, building the index from their goals on
+     * first access. Goals leave the index when they are completed or quit.
+     *
+     * @return this user's active goals against their units.
+     */
+    private synchronized EnumMap<Goal.Unit, List<UserGoal>> getActiveGoals() {
+        if (this.activeGoals == null) {
+            EnumMap<Goal.Unit, List<UserGoal>> activeGoals = new EnumMap<>(Goal.Unit.class);
+
+            for (UserGoal goal : getGoals()) {
+                if (goal.isActive() && !goal.isCompleted()) {
+                    activeGoals.computeIfAbsent(goal.getUnit(), unit -> new ArrayList<>()).add(goal);
+                }
+            }
+
+            this.activeGoals = activeGoals;
+        }
+
+        return this.activeGoals;
+    }
+
 
     /**
      * Sets the User's firstname to the passed parameter.
@@ -318,7 +377,7 @@ public class User {
      *
      * @param systemGoals this user's system goals.
      */
-    public void setSystemGoals(ArrayList<SystemGoal> systemGoals) {
+    public synchronized void setSystemGoals(ArrayList<SystemGoal> systemGoals) {
         this.systemGoals = systemGoals;
     }
 
@@ -333,12 +392,18 @@ public class User {
             throw new NullPointerException();
         }
 
-        this.goals.add(goal);
+        synchronized (this) {
+            getGoals().add(goal);
+
+            if (goal.isActive() && !goal.isCompleted()) {
+                getActiveGoals().computeIfAbsent(goal.getUnit(), unit -> new ArrayList<>()).add(goal);
+            }
+        }
         DatabaseHandler.getInstance().insertGoal(this.getUsername(), goal);
     }
 
     /**
-     * Queries the user's goals to see if any are suitable for update by the passed unit and amount.
+     * Updates the user's active goals of the passed unit by the passed amount.
      *
      * @param unit   the unit which has been input as part of a logged activity.
      * @param amount the amount of the unit which has been logged.
@@ -350,12 +415,94 @@ public class User {
         if (amount < 0) {
             throw new IllegalArgumentException();
         }
-        //for each goal
-        for (UserGoal userGoal : goals) {
+
+        List<UserGoal> updated = new ArrayList<>();
+        progressGoals(unit, amount, updated);
+
+        //update the goals in the database
+        DatabaseHandler.getInstance().updateGoalProgress(updated);
+    }
+
+    /**
+     * Updates the user's active goals by several units at once, such as the minutes and calories of a logged
+     * exercise. Every affected goal is written to the database in one batch.
+     *
+     * @param amounts the amount of each unit which has been logged.
+     */
+    public void updateGoals(Map<Goal.Unit, Float> amounts) {
+        if (amounts == null) {
+            throw new NullPointerException();
+        }
+
+        List<UserGoal> updated = new ArrayList<>();
+
+        for (Map.Entry<Goal.Unit, Float> amount : amounts.entrySet()) {
+            if (amount.getKey() == null || amount.getValue() == null) {
+                throw new NullPointerException();
+            }
+            if (amount.getValue() < 0) {
+                throw new IllegalArgumentException();
+            }
+
+            progressGoals(amount.getKey(), amount.getValue(), updated);
+        }
+
+        DatabaseHandler.getInstance().updateGoalProgress(updated);
+    }
+
+    /**
+     * Updates the user's active goals by every nutrient in the passed amounts, such as the total of a logged meal.
+     * Each affected goal is updated once, and nutrients which are zero or which no goal can target are skipped.
+     *
+     * @param delta the amount of each nutrient which has been logged.
+     */
+    public void applyDelta(NutrientVector delta) {
+        if (delta == null) {
+            throw new NullPointerException();
+        }
+
+        List<UserGoal> updated = new ArrayList<>();
+
+        for (Nutrient nutrient : Nutrient.values()) {
+            Goal.Unit unit = nutrient.getGoalUnit();
+            float amount = (float) delta.get(nutrient);
+
+            if (amount < 0) {
+                throw new IllegalArgumentException();
+            }
+            if (unit != null && amount > 0) {
+                progressGoals(unit, amount, updated);
+            }
+        }
+
+        DatabaseHandler.getInstance().updateGoalProgress(updated);
+    }
+
+    /**
+     * Private helper method to add progress to the active goals of a unit, removing any which are completed from the
+     * index.
+     *
+     * @param unit    the unit which has been logged.
+     * @param amount  the amount of the unit which has been logged.
+     * @param updated the goals updated by this action, to which each updated goal is added.
+     */
+    private synchronized void progressGoals(Goal.Unit unit, float amount, List<UserGoal> updated) {
+        List<UserGoal> active = getActiveGoals().get(unit);
+        if (active == null) {
+            return;
+        }
+
+        Iterator<UserGoal> iterator = active.iterator();
+
+        while (iterator.hasNext()) {
+            UserGoal userGoal = iterator.next();
+
             //if the goal is updated
             if (userGoal.updateProgress(unit, amount, this.username)) {
-                //update the goal in the database
-                DatabaseHandler.getInstance().updateGoal(username, userGoal, amount);
+                updated.add(userGoal);
+            }
+            if (!userGoal.isActive()) {
+                iterator.remove();
             }
         }
     }
@@ -421,12 +568,26 @@ public class User {
         return DatabaseHandler.getInstance().selectAverageWorkRate(this.username, unit, daysEarlier);
     }
 
+    /**
+     * Method to get this user's fitness profile, i.e. their completed fitness units and work rates, over a number of
+     * days up to today.
+     *
+     * @param daysEarlier the number of days prior to today to query.
+     * @return this user's fitness profile.
+     */
+    public FitnessProfile getFitnessProfile(int daysEarlier) {
+        if (daysEarlier < 1) {
+            throw new IllegalArgumentException();
+        }
+        return DatabaseHandler.getInstance().selectFitnessProfile(this.username, daysEarlier);
+    }
+
     /**
      * Method to save this user's system goals in the database. Intended for use whenever their values change such
      * that their state will persist between logins.
      */
     public void saveSystemGoals() {
-        DatabaseHandler.getInstance().refreshSystemGoals(this.username, this.systemGoals);
+        DatabaseHandler.getInstance().refreshSystemGoals(this.username, getSystemGoals());
     }
 
 
@@ -440,12 +601,52 @@ public class User {
         if (userGoal == null) {
             throw new NullPointerException();
         }
-        for (UserGoal ug : this.goals) {
+        boolean owned = false;
+        for (UserGoal ug : getGoals()) {
+            if (ug == userGoal) {
+                owned = true;
+                break;
+            }
+        }
+        if (!owned) {
+            return;
+        }
+
+        //Only quit the goal in memory once it is quit in the database
+        try {
+            DatabaseHandler.getInstance().quitGoalInDatabase(this.username, userGoal);
+        }
+        catch (SQLException e) {
+            e.printStackTrace();
+            return;
+        }
+        markGoalQuit(userGoal);
+    }
+
+    /**
+     * Method to mark one of this user's goals as not active and remove it from the active goals, without writing to
+     * the database.
+     *
+     * @param userGoal the goal to quit.
+     * @return true if the goal is one of this user's goals.
+     */
+    public boolean markGoalQuit(UserGoal userGoal) {
+        if (userGoal == null) {
+            throw new NullPointerException();
+        }
+        for (UserGoal ug : getGoals()) {
             if (ug == userGoal) {
                 ug.quitGoal();
-                DatabaseHandler.getInstance().quitGoalInDatabase(this.username, userGoal);
+                synchronized (this) {
+                    List<UserGoal> active = getActiveGoals().get(ug.getUnit());
+                    if (active != null) {
+                        active.removeIf(goal -> goal == ug);
+                    }
+                }
+                return true;
             }
         }
+        return false;
     }
 
     /**
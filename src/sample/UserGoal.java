@@ -8,12 +8,13 @@ import java.time.LocalDate;
  *
  * @author Samuel Scarfe
  *
- * @version 1.0
+ * @version 1.1
  *
  * @see Goal
  * @see IndividualGoal
  *
  * 1.0 - First working version.
+ * 1.1 - Added the UserGoal's database ID.
  */
 public abstract class UserGoal extends Goal {
 
@@ -29,6 +30,10 @@ public abstract class UserGoal extends Goal {
      * The current progress of the UserGoal.
      */
     protected float progress;
+    /**
+     * The UserGoal's unique ID in the database, 0 if it has not been stored.
+     */
+    protected int id;
 
     /**
      * Constructs a UserGoal from a target amount, unit, and end date. Initialises progress to 0 and status to ongoing.
@@ -83,6 +88,28 @@ public abstract class UserGoal extends Goal {
         return this.progress;
     }
 
+    /**
+     * Gets the unique ID of this goal in the database.
+     *
+     * @return the goal's ID, or 0 if it has not been stored.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the unique ID of this goal once it has been stored in or loaded from the database.
+     *
+     * @param id the goal's ID.
+     */
+    void setId(int id) {
+        if (id < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.id = id;
+    }
+
     /**
      * Gets the active status of this goal.
      *
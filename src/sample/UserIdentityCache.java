@@ -0,0 +1,239 @@
+package sample;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An identity map of the rarely changing columns of the user table, sitting in front of the {@link DatabaseHandler}.
+ * Almost every DatabaseHandler method starts by resolving a username to its user_id, so once a user's identity has been
+ * loaded, e.g. on login, those lookups are answered from memory instead of the database.
+ *
+ * Entries are invalidated whenever the DatabaseHandler writes to the user table. Each invalidation moves the cache on
+ * to a new generation, and an identity loaded under an older generation is discarded rather than cached, so a read
+ * racing a write can never put a stale row back into the cache.
+ *
+ * @author Samuel Scarfe
+ *
+ * @version 1.0
+ *
+ * 1.0 - Initial username and user_id keyed identity cache with write-through invalidation.
+ */
+class UserIdentityCache {
+
+    /**
+     * An immutable snapshot of a user's identity columns.
+     */
+    static final class Identity {
+
+        private final int userID;
+        private final String username;
+        private final String email;
+        private final float height;
+        private final String sex;
+
+        /**
+         * Constructs an Identity from a row of the user table.
+         *
+         * @param userID   the user's unique ID.
+         * @param username the user's username.
+         * @param email    the user's email.
+         * @param height   the user's height.
+         * @param sex      the user's sex as stored in the database.
+         */
+        Identity(int userID, String username, String email, float height, String sex) {
+            if (userID < 0) {
+                throw new IllegalArgumentException();
+            }
+            if (username == null) {
+                throw new NullPointerException();
+            }
+
+            this.userID = userID;
+            this.username = username;
+            this.email = email;
+            this.height = height;
+            this.sex = sex;
+        }
+
+        int getUserID() {
+            return userID;
+        }
+
+        String getUsername() {
+            return username;
+        }
+
+        String getEmail() {
+            return email;
+        }
+
+        float getHeight() {
+            return height;
+        }
+
+        String getSex() {
+            return sex;
+        }
+    }
+
+    /**
+     * Cached identities keyed by username.
+     */
+    private final Map<String, Identity> byUsername = new ConcurrentHashMap<>();
+
+    /**
+     * Cached identities keyed by user_id.
+     */
+    private final Map<Integer, Identity> byUserID = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented on every invalidation.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Counter incremented whenever a lookup is answered from the cache.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Counter incremented whenever a lookup has to go to the database.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Gets the current generation. Callers loading an identity from the database read this first and pass it to
+     * {@link #put(Identity, long)} afterwards.
+     *
+     * @return the current generation.
+     */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Gets the cached identity for a username.
+     *
+     * @param username the username to look up.
+     * @return the cached identity, or null if it is not cached.
+     */
+    Identity get(String username) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+
+        return record(byUsername.get(username));
+    }
+
+    /**
+     * Gets the cached identity for a user_id.
+     *
+     * @param userID the user_id to look up.
+     * @return the cached identity, or null if it is not cached.
+     */
+    Identity get(int userID) {
+        return record(byUserID.get(userID));
+    }
+
+    /**
+     * Caches an identity loaded from the database, unless the cache has been invalidated since the load began.
+     *
+     * @param identity   the identity to cache.
+     * @param generation the generation read before the identity was loaded.
+     */
+    void put(Identity identity, long generation) {
+        if (identity == null) {
+            throw new NullPointerException();
+        }
+
+        synchronized (this) {
+            if (generation != this.generation.get()) {
+                return;
+            }
+
+            byUsername.put(identity.getUsername(), identity);
+            byUserID.put(identity.getUserID(), identity);
+        }
+    }
+
+    /**
+     * Removes the identity cached for a username.
+     *
+     * @param username the username to invalidate.
+     */
+    void invalidate(String username) {
+        if (username == null) {
+            throw new NullPointerException();
+        }
+
+        synchronized (this) {
+            generation.incrementAndGet();
+            Identity removed = byUsername.remove(username);
+            if (removed != null) {
+                byUserID.remove(removed.getUserID());
+            }
+        }
+    }
+
+    /**
+     * Removes the identity cached for a user_id.
+     *
+     * @param userID the user_id to invalidate.
+     */
+    void invalidate(int userID) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            Identity removed = byUserID.remove(userID);
+            if (removed != null) {
+                byUsername.remove(removed.getUsername());
+            }
+        }
+    }
+
+    /**
+     * Removes every cached identity.
+     */
+    void clear() {
+        synchronized (this) {
+            generation.incrementAndGet();
+            byUsername.clear();
+            byUserID.clear();
+        }
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the number of cache hits.
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups which had to go to the database.
+     *
+     * @return the number of cache misses.
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Records a lookup as a hit or a miss.
+     *
+     * @param identity the result of the lookup.
+     * @return the passed identity.
+     */
+    private Identity record(Identity identity) {
+        if (identity == null) {
+            misses.increment();
+        }
+        else {
+            hits.increment();
+        }
+        return identity;
+    }
+}